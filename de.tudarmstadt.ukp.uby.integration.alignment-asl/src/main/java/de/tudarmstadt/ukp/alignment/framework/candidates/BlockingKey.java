@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.alignment.framework.candidates;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.text.Normalizer;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Maps the lexemes of two resources to blocking keys for the
+ * {@link CandidateGenerator}: the senses of all lexemes sharing a key form the
+ * candidate pairs of that key. The lexemes are the keys of
+ * {@link de.tudarmstadt.ukp.alignment.framework.graph.OneResourceBuilder#lemmaPosSenses},
+ * i.e. "lemma#POS" or only the lemma, depending on the resource.
+ */
+public abstract class BlockingKey
+{
+	/**
+	 * Adds the blocking keys of the given lexeme to the given collection.
+	 *
+	 * @param lexeme a lexeme of the first or second resource
+	 * @param first true for a lexeme of the first resource
+	 * @param pos true if the POS must match, i.e. both resources use POS
+	 * @param keys the keys of the lexeme
+	 */
+	public abstract void addKeys(String lexeme, boolean first, boolean pos, Collection<String> keys);
+
+	/** Returns the lemma of a lexeme, i.e. the part before the POS. */
+	protected static String lemma(String lexeme)
+	{
+		int separator = lexeme.indexOf('#');
+		return (separator < 0 ? lexeme : lexeme.substring(0, separator));
+	}
+
+	/** Returns the POS of a lexeme including the separator, or an empty string. */
+	protected static String posSuffix(String lexeme)
+	{
+		int separator = lexeme.indexOf('#');
+		return (separator < 0 ? "" : lexeme.substring(separator));
+	}
+
+	/** Matching lemma and, if both resources use POS, matching POS, as in {@link CandidateExtractor#createCandidateFileFull}. */
+	public static final BlockingKey LEMMA_POS = new BlockingKey()
+	{
+		@Override
+		public void addKeys(String lexeme, boolean first, boolean pos, Collection<String> keys)
+		{
+			keys.add(pos ? lexeme : lemma(lexeme));
+		}
+	};
+
+	/**
+	 * Matching lemma after lower-casing, removing diacritics and treating
+	 * underscores and hyphens as spaces, e.g., "Data_base" and "data-base",
+	 * and matching POS if both resources use POS.
+	 */
+	public static final BlockingKey NORMALIZED_LEMMA = new BlockingKey()
+	{
+		private final Pattern diacritics = Pattern.compile("\\p{InCombiningDiacriticalMarks}+");
+		private final Pattern separators = Pattern.compile("[_\\-\\s]+");
+
+		@Override
+		public void addKeys(String lexeme, boolean first, boolean pos, Collection<String> keys)
+		{
+			String lemma = Normalizer.normalize(lemma(lexeme), Normalizer.Form.NFD);
+			lemma = diacritics.matcher(lemma).replaceAll("");
+			lemma = separators.matcher(lemma.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+			keys.add(pos ? lemma + posSuffix(lexeme) : lemma);
+		}
+	};
+
+	/**
+	 * Blocking keys from a bilingual dictionary: the lemmas of the first
+	 * resource are replaced by their translations, which are matched with the
+	 * lemmas of the second resource (and their POS, if both resources use POS).
+	 */
+	public static class Translations extends BlockingKey
+	{
+		private final Map<String, ? extends Collection<String>> translations;
+
+		/** @param translations the translations of the lemmas of the first resource */
+		public Translations(Map<String, ? extends Collection<String>> translations)
+		{
+			this.translations = translations;
+		}
+
+		/** Reads the translations from a file with one line <code>lemma\ttranslation</code> per translation. */
+		public static Translations read(String file) throws IOException
+		{
+			HashMap<String, Set<String>> translations = new HashMap<String, Set<String>>();
+			BufferedReader input = new BufferedReader(new FileReader(file));
+			try {
+				String line;
+				while ((line = input.readLine()) != null) {
+					int tab = line.indexOf('\t');
+					if (tab < 0) {
+						continue;
+					}
+					String lemma = line.substring(0, tab);
+					Set<String> targets = translations.get(lemma);
+					if (targets == null) {
+						targets = new HashSet<String>();
+						translations.put(lemma, targets);
+					}
+					targets.add(line.substring(tab + 1));
+				}
+			}
+			finally {
+				input.close();
+			}
+			return new Translations(translations);
+		}
+
+		@Override
+		public void addKeys(String lexeme, boolean first, boolean pos, Collection<String> keys)
+		{
+			String suffix = (pos ? posSuffix(lexeme) : "");
+			if (!first) {
+				keys.add(lemma(lexeme) + suffix);
+				return;
+			}
+			Collection<String> targets = translations.get(lemma(lexeme));
+			if (targets != null) {
+				for (String target : targets) {
+					keys.add(target + suffix);
+				}
+			}
+		}
+	}
+}
@@ -23,7 +23,7 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.sql.SQLException;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.HashSet;
 
 import de.tudarmstadt.ukp.alignment.framework.Global;
@@ -84,48 +84,26 @@ public class CandidateExtractor
 	 */
 	public static void createCandidateFileFull(OneResourceBuilder gb1, OneResourceBuilder gb2) throws ClassNotFoundException, SQLException, IOException
 	{
-		StringBuilder sb = new StringBuilder();
-		int count = 0;
-		FileOutputStream outstream;
-		PrintStream p;
-		outstream = new FileOutputStream("target/"+gb1.prefix_string+"_"+gb2.prefix_string+"_candidates_"+(gb2.pos ? "Pos": "noPos")+".txt");
-		p = new PrintStream( outstream );
-		for(String lemmaPos: gb1.lemmaPosSenses.keySet())
-		{
-			if(gb2.pos) {
-				if(gb2.lemmaPosSenses.get(lemmaPos)!= null)
-				{
-					for(String id1 :gb1.lemmaPosSenses.get(lemmaPos))
-					{
-						for(String id2 :gb2.lemmaPosSenses.get(lemmaPos))
-						{
-							sb.append("q "+id1+" "+id2+""+Global.LF);
-							count++;
-						}
-					}
-				}
-			}
-			else
-			{
-				String lemma = lemmaPos.split("#")[0];
-				if(gb2.lemmaPosSenses.get(lemma)!= null)
-				{
-					for(String id1 :gb1.lemmaPosSenses.get(lemmaPos))
-					{
-						for(String id2 :gb2.lemmaPosSenses.get(lemma))
-						{
-							sb.append("q "+id1+" "+id2+""+Global.LF);
-							count++;
-						}
-					}
-				}
-			}
+		CandidateGenerator generator = new CandidateGenerator(gb1, gb2, BlockingKey.LEMMA_POS);
+		generator.writeCandidateFile("target/"+gb1.prefix_string+"_"+gb2.prefix_string+"_candidates_"+(gb2.pos ? "Pos": "noPos")+".txt");
+		System.out.println(generator.getStatistics());
+	}
 
-		}
-	p.println("p aux sp p2p "+count);
-	p.print(sb.toString());
-	p.close();
+	/**
+	 * This method extracts the alignment candidates of two resources using the given blocking keys, e.g. matching lemma and POS
+	 * as well as matching normalized lemma, and keeps at most the given number of candidates per key, i.e. per lemma.
+	 * Thus highly polysemous lemmas do not blow up the candidate file
+	 *
+	 * @param maxPairsPerBlock the maximum number of candidates per key; those with the largest gloss overlap are kept
+	 * @param blockingKeys the keys by which the candidates are found
+	 */
+	public static void createCandidateFileBlocked(OneResourceBuilder gb1, OneResourceBuilder gb2, int maxPairsPerBlock, BlockingKey... blockingKeys) throws ClassNotFoundException, SQLException, IOException
+	{
+		CandidateGenerator generator = new CandidateGenerator(gb1, gb2, blockingKeys).setMaxPairsPerBlock(maxPairsPerBlock);
+		generator.writeCandidateFile("target/"+gb1.prefix_string+"_"+gb2.prefix_string+"_candidates_"+(gb2.pos ? "Pos": "noPos")+"_top"+maxPairsPerBlock+".txt");
+		System.out.println(generator.getStatistics());
 	}
+
 	/**
 	 * This method creates a list of alignment candidates (those with matching lemma and POS) from a given list
 	 *
@@ -135,69 +113,20 @@ public class CandidateExtractor
 	 */
 	public static void createCandidateFileLemmaList(OneResourceBuilder gb1, OneResourceBuilder gb2,String input) throws ClassNotFoundException, SQLException, IOException
 	{
-
-		HashMap<String, String> lemmaPosList = new HashMap<String,String>();
-
-
+		HashSet<String> lemmaPosList = new HashSet<String>();
 		FileReader in = new FileReader(input);
 		BufferedReader input_reader =  new BufferedReader(in);
 		String line;
-
 		while((line =input_reader.readLine())!=null)
 		{
-			lemmaPosList.put(line.split("\t")[0],line.split("\t")[1]);
+			String[] fields = line.split("\t");
+			lemmaPosList.add(fields[0]+"#"+fields[1]);
 		}
+		input_reader.close();
 
-		StringBuilder sb = new StringBuilder();
-		int count = 0;
-		FileOutputStream outstream;
-		PrintStream p;
-		outstream = new FileOutputStream("target/"+gb1.prefix_string+"_"+gb2.prefix_string+"_LemmaListCandidates_"+(gb2.pos ? "Pos": "noPos")+".txt");
-		p = new PrintStream( outstream );
-		for(String lemmaPos: gb1.lemmaPosSenses.keySet())
-		{
-			String lemma = lemmaPos.split("#")[0];
-			String pos = lemmaPos.split("#")[1];
-			System.out.println(lemma);
-			System.out.println(pos);
-			if(!(lemmaPosList.containsKey(lemma) && lemmaPosList.get(lemma).equals(pos))) {
-                continue;
-            }
-			if(gb2.pos) {
-				if(gb2.lemmaPosSenses.get(lemmaPos)!= null)
-				{
-					for(String id1 :gb1.lemmaPosSenses.get(lemmaPos))
-					{
-						for(String id2 :gb2.lemmaPosSenses.get(lemmaPos))
-						{
-							sb.append("q "+id1+" "+id2+""+Global.LF);
-							count++;
-						}
-					}
-				}
-			}
-			else
-			{
-
-				if(gb2.lemmaPosSenses.get(lemma)!= null)
-				{
-					for(String id1 :gb1.lemmaPosSenses.get(lemmaPos))
-					{
-						for(String id2 :gb2.lemmaPosSenses.get(lemma))
-						{
-							sb.append("q "+id1+" "+id2+""+Global.LF);
-							count++;
-						}
-					}
-				}
-			}
-
-		}
-	p.println("p aux sp p2p "+count);
-	p.print(sb.toString());
-	p.close();
-	input_reader.close();
-	in.close();
+		CandidateGenerator generator = new CandidateGenerator(gb1, gb2, BlockingKey.LEMMA_POS).setLexemeFilter(lemmaPosList);
+		generator.writeCandidateFile("target/"+gb1.prefix_string+"_"+gb2.prefix_string+"_LemmaListCandidates_"+(gb2.pos ? "Pos": "noPos")+".txt");
+		System.out.println(generator.getStatistics());
 	}
 
 
@@ -210,77 +139,59 @@ public class CandidateExtractor
 	 */
 	public static void createCandidateFileGoldStandard(OneResourceBuilder gb1, OneResourceBuilder gb2,String input, boolean checkIntegrity) throws ClassNotFoundException, SQLException, IOException
 	{
-
-
-		int count = 0;
-		HashSet<String> candidates = new HashSet<String>();
+		String output = "target/"+gb1.prefix_string+"_"+gb2.prefix_string+"_GScandidates_"+(!checkIntegrity? "noCheck":(gb2.pos ? "Pos": "noPos"))+".txt";
 		FileReader in = new FileReader(input);
 		BufferedReader input_reader =  new BufferedReader(in);
 		String line;
-		StringBuilder sb = new StringBuilder();
-		while((line =input_reader.readLine())!=null)
+		if(!checkIntegrity)
 		{
-			if(checkIntegrity)
-			{
-				candidates.add(line.split("\t")[0]+"###"+line.split("\t")[1]);
-			}
-			else
+			int count = 0;
+			StringBuilder sb = new StringBuilder();
+			while((line =input_reader.readLine())!=null)
 			{
 				sb.append("q "+line.split(" ")[0]+"\t"+line.split(" ")[1]+""+Global.LF);
 				count++;
 			}
+			input_reader.close();
+			PrintStream p = new PrintStream(new FileOutputStream(output));
+			p.println("p aux sp p2p "+count);
+			p.print(sb.toString());
+			p.close();
+			return;
 		}
 
-		FileOutputStream outstream;
-		PrintStream p;
-		outstream = new FileOutputStream("target/"+gb1.prefix_string+"_"+gb2.prefix_string+"_GScandidates_"+(!checkIntegrity? "noCheck":(gb2.pos ? "Pos": "noPos"))+".txt");
-		p = new PrintStream( outstream );
-		if(checkIntegrity)
-		{
-		for(String lemmaPos: gb1.lemmaPosSenses.keySet())
+		//The gold standard pairs, packed like those of the CandidateGenerator
+		long[] candidates = new long[1024];
+		int count = 0;
+		while((line =input_reader.readLine())!=null)
 		{
-			if(gb2.pos) {
-				if(gb2.lemmaPosSenses.get(lemmaPos)!= null)
-				{
-					for(String id1 :gb1.lemmaPosSenses.get(lemmaPos))
-					{
-						for(String id2 :gb2.lemmaPosSenses.get(lemmaPos))
-						{
-							if(candidates.contains(id1+"###"+id2))
-							{
-								sb.append("q "+id1+" "+id2+""+Global.LF);
-								count++;
-							}
-						}
-					}
-				}
+			String[] fields = line.split("\t");
+			long pair;
+			try
+			{
+				pair = ((long) Integer.parseInt(fields[0]) << 32) | (Integer.parseInt(fields[1]) & 0xFFFFFFFFL);
 			}
-			else
+			catch(RuntimeException e) //header or malformed line
 			{
-				String lemma = lemmaPos.split("#")[0];
-				if(gb2.lemmaPosSenses.get(lemma)!= null)
-				{
-					for(String id1 :gb1.lemmaPosSenses.get(lemmaPos))
-					{
-						for(String id2 :gb2.lemmaPosSenses.get(lemma))
-						{
-							if(candidates.contains(id1+"###"+id2))
-							{
-								sb.append("q "+id1+" "+id2+""+Global.LF);
-								count++;
-							}
-						}
-					}
-				}
+				continue;
 			}
-
+			if(count == candidates.length) {
+				candidates = Arrays.copyOf(candidates, 2 * count);
+			}
+			candidates[count++] = pair;
 		}
+		input_reader.close();
+		Arrays.sort(candidates, 0, count);
+
+		long[] pairs = new CandidateGenerator(gb1, gb2, BlockingKey.LEMMA_POS).generate();
+		int checked = 0;
+		for(long pair : pairs)
+		{
+			if(Arrays.binarySearch(candidates, 0, count, pair) >= 0) {
+				pairs[checked++] = pair;
+			}
 		}
-	p.println("p aux sp p2p "+count);
-	p.print(sb.toString());
-	p.close();
-	input_reader.close();
-	in.close();
+		CandidateGenerator.writeCandidateFile(output, Arrays.copyOf(pairs, checked));
 	}
 
 
@@ -0,0 +1,641 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.alignment.framework.candidates;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import de.tudarmstadt.ukp.alignment.framework.graph.CompactRelationMap;
+import de.tudarmstadt.ukp.alignment.framework.graph.OneResourceBuilder;
+import de.tudarmstadt.ukp.alignment.framework.graph.StringDictionary;
+
+/**
+ * Generates the alignment candidates of two resources by blocking: the
+ * lexemes of both resources are mapped to keys by one or more
+ * {@link BlockingKey}s, and all pairs of senses whose lexemes share a key are
+ * candidates. The blocks are partitioned into shards which are processed in
+ * parallel, and the pairs of all blocks are merged without duplicates.
+ *
+ * The lexemes and senses are processed by their indexes in the compact
+ * lexeme index of each resource ({@link OneResourceBuilder#getLexemeSenses()}),
+ * which are only replaced by the sense IDs, i.e. the node IDs of the alignment
+ * graph, for the distinct pairs at the end.
+ *
+ * The blocks of highly polysemous lemmas, such as "set" or "run", may be
+ * capped by {@link #setMaxPairsPerBlock(int)}. Only the pairs with the largest
+ * number of tokens shared by their glosses
+ * ({@link OneResourceBuilder#senseIdGloss}) are then kept; ties are broken by
+ * the order of the senses in the lexeme index.
+ */
+public class CandidateGenerator
+{
+	/** Number of shards per thread, so that large blocks do not keep one thread busy while the others are idle. */
+	private static final int SHARDS_PER_THREAD = 4;
+
+	private final OneResourceBuilder gb1;
+	private final OneResourceBuilder gb2;
+	private final List<BlockingKey> blocking_keys;
+	private Set<String> lexemes1 = null;
+	private int max_pairs_per_block = Integer.MAX_VALUE;
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private CandidateStatistics statistics;
+	private CompactRelationMap lexeme_senses1;
+	private CompactRelationMap lexeme_senses2;
+
+	/**
+	 * @param gb1 First LSR
+	 * @param gb2 Second LSR
+	 * @param blocking_keys the keys of the blocks, e.g., {@link BlockingKey#LEMMA_POS}
+	 */
+	public CandidateGenerator(OneResourceBuilder gb1, OneResourceBuilder gb2, BlockingKey... blocking_keys)
+	{
+		if (blocking_keys.length == 0) {
+			throw new IllegalArgumentException("No blocking key given");
+		}
+		this.gb1 = gb1;
+		this.gb2 = gb2;
+		this.blocking_keys = Arrays.asList(blocking_keys);
+	}
+
+	/** Restricts the candidates to the senses of the given lexemes of the first resource, e.g., from a lemma list. */
+	public CandidateGenerator setLexemeFilter(Set<String> lexemes1)
+	{
+		this.lexemes1 = lexemes1;
+		return this;
+	}
+
+	/** Keeps at most the given number of pairs per block, i.e. those with the largest gloss overlap. */
+	public CandidateGenerator setMaxPairsPerBlock(int max_pairs_per_block)
+	{
+		if (max_pairs_per_block < 1) {
+			throw new IllegalArgumentException("Maximum number of pairs must be positive: " + max_pairs_per_block);
+		}
+		this.max_pairs_per_block = max_pairs_per_block;
+		return this;
+	}
+
+	public CandidateGenerator setThreads(int threads)
+	{
+		if (threads < 1) {
+			throw new IllegalArgumentException("Number of threads must be positive: " + threads);
+		}
+		this.threads = threads;
+		return this;
+	}
+
+	/** Returns the statistics of the last call of {@link #generate()}, or null. */
+	public CandidateStatistics getStatistics()
+	{
+		return statistics;
+	}
+
+	/** Returns the sense ID of the first resource of a pair returned by {@link #generate()}. */
+	public static int getId1(long pair)
+	{
+		return (int) (pair >> 32);
+	}
+
+	/** Returns the sense ID of the second resource of a pair returned by {@link #generate()}. */
+	public static int getId2(long pair)
+	{
+		return (int) pair;
+	}
+
+	/**
+	 * Generates the candidates.
+	 *
+	 * @return the pairs of sense IDs, each as a long holding the first ID in the upper and the second ID
+	 * 	in the lower 32 bits, sorted and without duplicates
+	 */
+	public long[] generate() throws IOException
+	{
+		statistics = new CandidateStatistics();
+		lexeme_senses1 = gb1.getLexemeSenses();
+		lexeme_senses2 = gb2.getLexemeSenses();
+		List<Block> blocks = createBlocks();
+
+		// Distribute the blocks from the largest to the smallest, so that all shards get about the same number of pairs
+		Collections.sort(blocks, new Comparator<Block>()
+		{
+			@Override
+			public int compare(Block o1, Block o2)
+			{
+				return Long.compare(o2.getPairCount(), o1.getPairCount());
+			}
+		});
+		int shard_count = Math.max(1, Math.min(blocks.size(), threads * SHARDS_PER_THREAD));
+		List<List<Block>> shards = new ArrayList<List<Block>>();
+		for (int i = 0; i < shard_count; i++) {
+			shards.add(new ArrayList<Block>());
+		}
+		for (int i = 0; i < blocks.size(); i++) {
+			shards.get(i % shard_count).add(blocks.get(i));
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		long[][] results = new long[shard_count][];
+		try {
+			List<Future<long[]>> futures = new ArrayList<Future<long[]>>();
+			for (final List<Block> shard : shards) {
+				futures.add(executor.submit(new Callable<long[]>()
+				{
+					@Override
+					public long[] call()
+					{
+						return createPairs(shard);
+					}
+				}));
+			}
+			for (int i = 0; i < shard_count; i++) {
+				results[i] = futures.get(i).get();
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Candidate generation interrupted");
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IOException("Candidate generation failed", e.getCause());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+
+		long size = 0;
+		for (long[] result : results) {
+			size += result.length;
+		}
+		if (size > Integer.MAX_VALUE - 8) {
+			throw new IllegalStateException("Too many candidates: " + size);
+		}
+
+		// Replace the sense indexes by the sense IDs
+		int[] sense_ids1 = senseIds(lexeme_senses1);
+		int[] sense_ids2 = senseIds(lexeme_senses2);
+		long[] pairs = new long[(int) size];
+		int pair_count = 0;
+		for (long[] result : results) {
+			for (long pair : result) {
+				pairs[pair_count++] = pair(sense_ids1[getId1(pair)], sense_ids2[getId2(pair)]);
+			}
+		}
+		pairs = distinct(pairs, pairs.length);
+		statistics.pair_count = pairs.length;
+		return pairs;
+	}
+
+	/**
+	 * Generates the candidates and writes them in the format of {@link CandidateExtractor#createCandidateFileFull}.
+	 *
+	 * @return the statistics of the candidates
+	 */
+	public CandidateStatistics writeCandidateFile(String file) throws IOException
+	{
+		writeCandidateFile(file, generate());
+		return statistics;
+	}
+
+	/** Writes the given pairs in the format of {@link CandidateExtractor#createCandidateFileFull}. */
+	public static void writeCandidateFile(String file, long[] pairs) throws IOException
+	{
+		PrintStream p = new PrintStream(new BufferedOutputStream(new FileOutputStream(file)));
+		p.println("p aux sp p2p "+pairs.length);
+		for (long pair : pairs) {
+			p.println("q "+getId1(pair)+" "+getId2(pair));
+		}
+		p.close();
+	}
+
+	/** Collects the senses of each blocking key of both resources. */
+	private List<Block> createBlocks()
+	{
+		boolean pos = gb1.pos && gb2.pos;
+		List<Block> blocks = new ArrayList<Block>();
+		for (BlockingKey blocking_key : blocking_keys) {
+			HashMap<String, int[]> senses1 = index(lexeme_senses1, blocking_key, true, pos);
+			HashMap<String, int[]> senses2 = index(lexeme_senses2, blocking_key, false, pos);
+			for (Map.Entry<String, int[]> entry : senses1.entrySet()) {
+				int[] ids2 = senses2.get(entry.getKey());
+				if (ids2 == null) {
+					continue;
+				}
+				Block block = new Block(entry.getKey(), distinct(entry.getValue()), distinct(ids2));
+				statistics.addBlock(block, max_pairs_per_block);
+				blocks.add(block);
+			}
+		}
+		return blocks;
+	}
+
+	/**
+	 * Returns the sense indexes of each key of the given resource. The first
+	 * element of each array is the number of indexes that follow.
+	 */
+	private HashMap<String, int[]> index(CompactRelationMap lexeme_senses, BlockingKey blocking_key, boolean first, boolean pos)
+	{
+		HashMap<String, int[]> result = new HashMap<String, int[]>();
+		ArrayList<String> keys = new ArrayList<String>();
+		StringDictionary lexemes = lexeme_senses.getKeyDictionary();
+		for (int lexeme = 0; lexeme < lexemes.size(); lexeme++) {
+			String lexeme_string = lexemes.get(lexeme);
+			if (first && lexemes1 != null && !lexemes1.contains(lexeme_string)) {
+				continue;
+			}
+			int[] senses = lexeme_senses.getValueIndexes(lexeme);
+			if (senses.length == 0) {
+				continue;
+			}
+			keys.clear();
+			blocking_key.addKeys(lexeme_string, first, pos, keys);
+			for (String key : keys) {
+				int[] ids = result.get(key);
+				if (ids == null) {
+					ids = new int[Math.max(4, senses.length + 1)];
+				}
+				else if (ids[0] + senses.length >= ids.length) {
+					ids = Arrays.copyOf(ids, Math.max(2 * ids.length, ids[0] + senses.length + 1));
+				}
+				System.arraycopy(senses, 0, ids, ids[0] + 1, senses.length);
+				ids[0] += senses.length;
+				result.put(key, ids);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the sense IDs of the senses of the given lexeme index by their
+	 * index. The sense IDs are the numeric node IDs of the alignment graph.
+	 */
+	private static int[] senseIds(CompactRelationMap lexeme_senses)
+	{
+		StringDictionary senses = lexeme_senses.getValueDictionary();
+		int[] result = new int[senses.size()];
+		for (int i = 0; i < result.length; i++) {
+			String id = senses.get(i);
+			try {
+				result[i] = Integer.parseInt(id);
+			}
+			catch (NumberFormatException e) {
+				throw new IllegalStateException("Sense ID is not a node ID of the alignment graph: " + id);
+			}
+		}
+		return result;
+	}
+
+	/** Returns the sorted distinct indexes of an array created by {@link #index}. */
+	private static int[] distinct(int[] ids)
+	{
+		int[] result = Arrays.copyOfRange(ids, 1, ids[0] + 1);
+		Arrays.sort(result);
+		int size = 0;
+		for (int i = 0; i < result.length; i++) {
+			if (size == 0 || result[size - 1] != result[i]) {
+				result[size++] = result[i];
+			}
+		}
+		return Arrays.copyOf(result, size);
+	}
+
+	/** Sorts the first <code>size</code> pairs and returns them without duplicates. */
+	private static long[] distinct(long[] pairs, int size)
+	{
+		Arrays.sort(pairs, 0, size);
+		int count = 0;
+		for (int i = 0; i < size; i++) {
+			if (count == 0 || pairs[count - 1] != pairs[i]) {
+				pairs[count++] = pairs[i];
+			}
+		}
+		return (count == pairs.length ? pairs : Arrays.copyOf(pairs, count));
+	}
+
+	/** Returns the sorted distinct pairs of sense indexes of the given blocks. */
+	private long[] createPairs(List<Block> shard)
+	{
+		long size = 0;
+		for (Block block : shard) {
+			size += Math.min(block.getPairCount(), max_pairs_per_block);
+		}
+		if (size > Integer.MAX_VALUE - 8) {
+			throw new IllegalStateException("Too many candidates in one shard: " + size);
+		}
+		long[] pairs = new long[(int) size];
+		int count = 0;
+		for (Block block : shard) {
+			if (block.getPairCount() <= max_pairs_per_block) {
+				for (int id1 : block.ids1) {
+					for (int id2 : block.ids2) {
+						pairs[count++] = pair(id1, id2);
+					}
+				}
+			}
+			else {
+				count = addTopPairs(block, pairs, count);
+			}
+		}
+		return distinct(pairs, count);
+	}
+
+	/**
+	 * Adds the pairs of a block with the largest gloss overlap. The glosses of
+	 * each sense are tokenized once, and only the best max_pairs_per_block
+	 * pairs are kept while the overlaps are computed.
+	 */
+	private int addTopPairs(Block block, long[] pairs, int count)
+	{
+		// Tokens not occurring in the glosses of the first resource cannot overlap
+		HashMap<String, Integer> token_ids = new HashMap<String, Integer>();
+		int[][] tokens1 = new int[block.ids1.length][];
+		for (int i = 0; i < block.ids1.length; i++) {
+			tokens1[i] = glossTokens(gb1, lexeme_senses1, block.ids1[i], token_ids, true);
+		}
+		int[][] tokens2 = new int[block.ids2.length][];
+		for (int j = 0; j < block.ids2.length; j++) {
+			tokens2[j] = glossTokens(gb2, lexeme_senses2, block.ids2[j], token_ids, false);
+		}
+
+		TopPairs top_pairs = new TopPairs(max_pairs_per_block);
+		for (int i = 0; i < block.ids1.length; i++) {
+			for (int j = 0; j < block.ids2.length; j++) {
+				top_pairs.offer(overlap(tokens1[i], tokens2[j]), (long) i * block.ids2.length + j);
+			}
+		}
+		for (int k = 0; k < top_pairs.size; k++) {
+			long position = top_pairs.positions[k];
+			pairs[count++] = pair(block.ids1[(int) (position / block.ids2.length)],
+					block.ids2[(int) (position % block.ids2.length)]);
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the sorted distinct token numbers of the gloss of a sense. New
+	 * tokens are numbered if <code>add</code> is true and skipped otherwise.
+	 */
+	private static int[] glossTokens(OneResourceBuilder gb, CompactRelationMap lexeme_senses, int sense,
+			HashMap<String, Integer> token_ids, boolean add)
+	{
+		String gloss = (gb.senseIdGloss == null ? null
+				: gb.senseIdGloss.get(lexeme_senses.getValueDictionary().get(sense)));
+		if (gloss == null) {
+			return new int[0];
+		}
+		String[] tokens = gloss.split(" ");
+		int[] result = new int[tokens.length];
+		int size = 0;
+		for (String token : tokens) {
+			if (token.isEmpty()) {
+				continue;
+			}
+			Integer id = token_ids.get(token);
+			if (id == null) {
+				if (!add) {
+					continue;
+				}
+				id = token_ids.size();
+				token_ids.put(token, id);
+			}
+			result[size++] = id;
+		}
+		Arrays.sort(result, 0, size);
+		int distinct = 0;
+		for (int i = 0; i < size; i++) {
+			if (distinct == 0 || result[distinct - 1] != result[i]) {
+				result[distinct++] = result[i];
+			}
+		}
+		return Arrays.copyOf(result, distinct);
+	}
+
+	/** Returns the number of common elements of two sorted arrays. */
+	private static int overlap(int[] tokens1, int[] tokens2)
+	{
+		int result = 0;
+		int i = 0;
+		int j = 0;
+		while (i < tokens1.length && j < tokens2.length) {
+			if (tokens1[i] < tokens2[j]) {
+				i++;
+			}
+			else if (tokens1[i] > tokens2[j]) {
+				j++;
+			}
+			else {
+				result++;
+				i++;
+				j++;
+			}
+		}
+		return result;
+	}
+
+	private static long pair(int id1, int id2)
+	{
+		return ((long) id1 << 32) | (id2 & 0xFFFFFFFFL);
+	}
+
+	/** The senses of both resources sharing a blocking key. */
+	private static class Block
+	{
+		final String key;
+		final int[] ids1;
+		final int[] ids2;
+
+		Block(String key, int[] ids1, int[] ids2)
+		{
+			this.key = key;
+			this.ids1 = ids1;
+			this.ids2 = ids2;
+		}
+
+		long getPairCount()
+		{
+			return (long) ids1.length * ids2.length;
+		}
+	}
+
+	/**
+	 * The pairs of a block with the largest overlap, as a heap of bounded size
+	 * whose root is the worst pair kept: the one with the lowest overlap and,
+	 * among those, the latest position in the block. As the pairs are offered
+	 * in the order of their positions, ties are broken by the position.
+	 */
+	private static class TopPairs
+	{
+		final int[] overlaps;
+		final long[] positions;
+		int size = 0;
+
+		TopPairs(int capacity)
+		{
+			overlaps = new int[capacity];
+			positions = new long[capacity];
+		}
+
+		void offer(int overlap, long position)
+		{
+			if (size < overlaps.length) {
+				int i = size++;
+				while (i > 0) {
+					int parent = (i - 1) / 2;
+					if (!worse(overlap, position, overlaps[parent], positions[parent])) {
+						break;
+					}
+					overlaps[i] = overlaps[parent];
+					positions[i] = positions[parent];
+					i = parent;
+				}
+				overlaps[i] = overlap;
+				positions[i] = position;
+				return;
+			}
+			if (!worse(overlaps[0], positions[0], overlap, position)) {
+				return;
+			}
+			int i = 0;
+			while (true) {
+				int child = 2 * i + 1;
+				if (child >= size) {
+					break;
+				}
+				if (child + 1 < size && worse(overlaps[child + 1], positions[child + 1], overlaps[child], positions[child])) {
+					child++;
+				}
+				if (!worse(overlaps[child], positions[child], overlap, position)) {
+					break;
+				}
+				overlaps[i] = overlaps[child];
+				positions[i] = positions[child];
+				i = child;
+			}
+			overlaps[i] = overlap;
+			positions[i] = position;
+		}
+
+		private static boolean worse(int overlap1, long position1, int overlap2, long position2)
+		{
+			return overlap1 < overlap2 || (overlap1 == overlap2 && position1 > position2);
+		}
+	}
+
+	/** The number of blocks and pairs of a candidate generation. */
+	public static class CandidateStatistics
+	{
+		private int block_count = 0;
+		private int capped_block_count = 0;
+		private long block_pair_count = 0;
+		private long capped_pair_count = 0;
+		private long pair_count = 0;
+		private String largest_block = null;
+		private long largest_block_pair_count = 0;
+		/** Number of blocks with 1, 2-10, 11-100, ... pairs */
+		private final long[] histogram = new long[19];
+
+		private void addBlock(Block block, int max_pairs_per_block)
+		{
+			long pairs = block.getPairCount();
+			block_count++;
+			block_pair_count += pairs;
+			capped_pair_count += Math.min(pairs, max_pairs_per_block);
+			if (pairs > max_pairs_per_block) {
+				capped_block_count++;
+			}
+			if (pairs > largest_block_pair_count) {
+				largest_block = block.key;
+				largest_block_pair_count = pairs;
+			}
+			int bucket = 0;
+			for (long limit = 1; pairs > limit && bucket < histogram.length - 1; limit *= 10) {
+				bucket++;
+			}
+			histogram[bucket]++;
+		}
+
+		public int getBlockCount()
+		{
+			return block_count;
+		}
+
+		/** Returns the number of blocks with more pairs than allowed. */
+		public int getCappedBlockCount()
+		{
+			return capped_block_count;
+		}
+
+		/** Returns the number of pairs of all blocks before capping and removing duplicates. */
+		public long getBlockPairCount()
+		{
+			return block_pair_count;
+		}
+
+		/** Returns the number of distinct candidate pairs. */
+		public long getPairCount()
+		{
+			return pair_count;
+		}
+
+		public String getLargestBlock()
+		{
+			return largest_block;
+		}
+
+		public long getLargestBlockPairCount()
+		{
+			return largest_block_pair_count;
+		}
+
+		@Override
+		public String toString()
+		{
+			StringBuilder sb = new StringBuilder();
+			sb.append("Blocks: ").append(block_count).append(" (").append(capped_block_count).append(" capped)\n");
+			sb.append("Pairs in blocks: ").append(block_pair_count).append(", after capping: ").append(capped_pair_count)
+					.append(", distinct: ").append(pair_count).append('\n');
+			sb.append("Largest block: ").append(largest_block).append(" (").append(largest_block_pair_count).append(" pairs)\n");
+			long limit = 1;
+			for (int i = 0; i < histogram.length; i++) {
+				if (histogram[i] > 0) {
+					sb.append("Blocks with ").append(i == 0 ? "1" : (limit / 10 + 1) + "-" + limit).append(" pairs: ")
+							.append(histogram[i]).append('\n');
+				}
+				limit *= 10;
+			}
+			return sb.toString();
+		}
+	}
+}
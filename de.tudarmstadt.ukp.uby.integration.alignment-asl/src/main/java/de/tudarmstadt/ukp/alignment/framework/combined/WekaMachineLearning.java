@@ -300,6 +300,7 @@ public class WekaMachineLearning {
 		 BufferedWriter writer = new BufferedWriter(
                  new FileWriter(output));
 		 writer.write("f "+input_arff+" ML Alignment");
+		 writer.newLine();
 		while ((line = input.readLine())!=null)
 		{
 			if(!line.endsWith(",1")) {
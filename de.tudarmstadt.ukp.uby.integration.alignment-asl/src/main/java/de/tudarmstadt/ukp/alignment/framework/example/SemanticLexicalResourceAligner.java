@@ -272,7 +272,7 @@ public class SemanticLexicalResourceAligner
 
 
             // Creating gloss cosine similarity between the alignments and write the result in a file
-            GlossSimilarityCalculator.calculateSimilarityForCandidates(bg_1, bg_2, true, false,  candidateAlignmentsFile);
+            GlossSimilarityCalculator.calculateSimilarityForCandidatesParallel(bg_1, bg_2, true, false,  candidateAlignmentsFile, Runtime.getRuntime().availableProcessors());
 
             //we can straightforwardly create an alignment. This method takes the naive approach of
             //always aligning the candidate with the highest similarity, regardless of the absolute value.
@@ -17,6 +17,7 @@
  ******************************************************************************/
 package de.tudarmstadt.ukp.alignment.framework.gloss;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.FileOutputStream;
 import java.io.FileReader;
@@ -27,6 +28,8 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import de.tudarmstadt.ukp.alignment.framework.Global;
 import de.tudarmstadt.ukp.alignment.framework.graph.OneResourceBuilder;
@@ -40,6 +43,9 @@ public class GlossSimilarityCalculator
 	public static HashMap<String,Double> combinedLexemeFreqInGlosses = new HashMap<String, Double>();
 	public static HashMap<String,Double> combinedLemmaFreqInGlosses = new HashMap<String, Double>();
 
+	/** Number of candidate pairs scored at once by {@link #calculateSimilarityForCandidatesParallel}. */
+	public static final int CANDIDATE_CHUNK_SIZE = 100000;
+
 	public static void main(String[] args) throws IOException, ClassNotFoundException, SQLException
 	{
 
@@ -264,6 +270,120 @@ public class GlossSimilarityCalculator
 }
 
 
+	/**
+	 * This method calculates the cosine similarities between the glosses of two resources like {@link #calculateSimilarityForCandidates}
+	 * and writes the same similarity file. The glosses are tokenised only once into sparse vectors (see {@link GlossVectorSpace}),
+	 * and the candidates are scored in chunks of {@link #CANDIDATE_CHUNK_SIZE} pairs by several threads.
+	 * The tfidf weights are calculated from the glosses themselves, so the idf files need not be created beforehand.
+	 *
+	 * @param pos Consider pos-tagged lexemes or only lemmas
+	 * @param tfidf Use tfidf weighting
+	 * @param threads The number of threads
+	 */
+	public static void calculateSimilarityForCandidatesParallel(OneResourceBuilder gb1, OneResourceBuilder gb2, boolean pos, boolean tfidf, String candidatesFile, int threads)
+	{
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try
+		{
+		GlossVectorSpace space = new GlossVectorSpace(pos ? gb1.senseIdGlossPos : gb1.senseIdGloss, pos ? gb2.senseIdGlossPos : gb2.senseIdGloss, tfidf);
+		System.out.println("Gloss vectors created, vocabulary size "+space.getVocabularySize());
+
+		FileReader in = new FileReader(candidatesFile);
+		BufferedReader input_reader =  new BufferedReader(in);
+		String line;
+		PrintStream p = new PrintStream(new BufferedOutputStream(new FileOutputStream( "target/"+gb1.prefix_string+"_"+gb2.prefix_string+"_glossSimilarities"+(pos? "_tagged": "_plain")+(tfidf? "_tfidf": "")+".txt")));
+		String[] ids1 = new String[CANDIDATE_CHUNK_SIZE];
+		String[] ids2 = new String[CANDIDATE_CHUNK_SIZE];
+		double[] similarities = new double[CANDIDATE_CHUNK_SIZE];
+		int count = 0;
+		while((line =input_reader.readLine())!=null)
+		{
+			 if(line.startsWith("p"))
+			 {
+				 writeSimilarities(pool, space, ids1, ids2, similarities, count, p);
+				 count = 0;
+				 p.println("f "+gb1.prefix_string+"_"+gb2.prefix_string+"_candidates_"+(gb2.pos ? "Pos": "noPos")+" "+"Cosine similarity");
+			 } else if(line.startsWith("q"))
+			 {
+				 String[] temp = line.split(" ");
+				 ids1[count] = temp[1];
+				 ids2[count] = temp[2];
+				 if(++count == CANDIDATE_CHUNK_SIZE)
+				 {
+					 writeSimilarities(pool, space, ids1, ids2, similarities, count, p);
+					 count = 0;
+				 }
+			 }
+		}
+		writeSimilarities(pool, space, ids1, ids2, similarities, count, p);
+		input_reader.close();
+		p.close();
+		}
+		catch(Exception e)
+		{
+			e.printStackTrace();
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+	}
+
+	private static void writeSimilarities(ForkJoinPool pool, GlossVectorSpace space, String[] ids1, String[] ids2, double[] similarities, int count, PrintStream p)
+	{
+		if(count == 0)
+		{
+			return;
+		}
+		pool.invoke(new SimilarityTask(space, ids1, ids2, similarities, 0, count));
+		for(int i = 0; i < count; i++)
+		{
+			p.println(ids1[i]+"\t"+ids2[i]+"\t"+similarities[i]);
+		}
+	}
+
+	/**
+	 * Calculates the similarities of a range of candidate pairs, splitting it among the threads of the pool
+	 */
+	private static class SimilarityTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+		private static final int PAIRS_PER_TASK = 1000;
+
+		private final GlossVectorSpace space;
+		private final String[] ids1;
+		private final String[] ids2;
+		private final double[] similarities;
+		private final int from;
+		private final int to;
+
+		SimilarityTask(GlossVectorSpace space, String[] ids1, String[] ids2, double[] similarities, int from, int to)
+		{
+			this.space = space;
+			this.ids1 = ids1;
+			this.ids2 = ids2;
+			this.similarities = similarities;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if(to - from <= PAIRS_PER_TASK)
+			{
+				for(int i = from; i < to; i++)
+				{
+					similarities[i] = space.getSimilarity(ids1[i], ids2[i]);
+				}
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new SimilarityTask(space, ids1, ids2, similarities, from, middle),
+					new SimilarityTask(space, ids1, ids2, similarities, middle, to));
+		}
+	}
+
 	/**
 	 * This method creates an alignment from the similarity files in an unsupervised way by picking the candidate with the greatest value
 	 *
@@ -0,0 +1,215 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.alignment.framework.gloss;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * The glosses of two resources as sparse, L2-normalised vectors over a shared
+ * vocabulary, such that the cosine similarity of two glosses is the dot product
+ * of their vectors. Each gloss is tokenised once, when the space is created.
+ * The vectors are stored as sorted term IDs and weights in primitive arrays,
+ * which are not modified afterwards, so the similarities may be calculated
+ * by several threads.
+ *
+ * With tf-idf weighting, a term occurring n times in a gloss is weighted by
+ * log(1+n) * log(1+idf), where idf = log(N/df) is computed from the number of
+ * glosses N of both resources and the number of glosses df containing the term.
+ * Otherwise, the raw term frequencies are used.
+ */
+public class GlossVectorSpace
+{
+	private final boolean tfidf;
+	private final HashMap<String, Integer> vocabulary = new HashMap<String, Integer>();
+	private int[] document_frequencies = new int[1024];
+	private final Vectors vectors1;
+	private final Vectors vectors2;
+
+	/**
+	 * Creates the vectors of the given glosses, e.g., {@link
+	 * de.tudarmstadt.ukp.alignment.framework.graph.OneResourceBuilder#senseIdGlossPos}
+	 * of the two resources to be aligned. The glosses are sequences of tokens
+	 * separated by single spaces.
+	 *
+	 * @param glosses1 the glosses of the first resource by sense or synset ID
+	 * @param glosses2 the glosses of the second resource by sense or synset ID
+	 * @param tfidf use tf-idf weighting
+	 */
+	public GlossVectorSpace(Map<String, String> glosses1, Map<String, String> glosses2, boolean tfidf)
+	{
+		this.tfidf = tfidf;
+		vectors1 = new Vectors(glosses1);
+		vectors2 = new Vectors(glosses2);
+		int gloss_count = vectors1.size() + vectors2.size();
+		vectors1.weight(gloss_count);
+		vectors2.weight(gloss_count);
+		document_frequencies = null;
+	}
+
+	/** Returns the number of distinct terms of all glosses. */
+	public int getVocabularySize()
+	{
+		return vocabulary.size();
+	}
+
+	/**
+	 * Returns the cosine similarity between the gloss of the given ID of the
+	 * first resource and the gloss of the given ID of the second resource,
+	 * or 0 if one of them has no gloss.
+	 */
+	public double getSimilarity(String id1, String id2)
+	{
+		Integer row1 = vectors1.rows.get(id1);
+		Integer row2 = vectors2.rows.get(id2);
+		if (row1 == null || row2 == null) {
+			return 0.0;
+		}
+		return dot(vectors1, row1, vectors2, row2);
+	}
+
+	private static double dot(Vectors v1, int row1, Vectors v2, int row2)
+	{
+		int i = v1.offsets[row1];
+		int end1 = v1.offsets[row1 + 1];
+		int j = v2.offsets[row2];
+		int end2 = v2.offsets[row2 + 1];
+		double result = 0.0;
+		while (i < end1 && j < end2) {
+			int term1 = v1.terms[i];
+			int term2 = v2.terms[j];
+			if (term1 == term2) {
+				result += (double) v1.weights[i++] * v2.weights[j++];
+			}
+			else if (term1 < term2) {
+				i++;
+			}
+			else {
+				j++;
+			}
+		}
+		return result;
+	}
+
+	private int getTermId(String term)
+	{
+		Integer id = vocabulary.get(term);
+		if (id == null) {
+			id = vocabulary.size();
+			vocabulary.put(term, id);
+			if (id == document_frequencies.length) {
+				document_frequencies = Arrays.copyOf(document_frequencies, 2 * id);
+			}
+		}
+		return id;
+	}
+
+	/** The vectors of the glosses of one resource. */
+	private class Vectors
+	{
+		final HashMap<String, Integer> rows;
+		int[] offsets;
+		int[] terms;
+		float[] weights;
+
+		/** Tokenises the glosses and counts the term and document frequencies. */
+		Vectors(Map<String, String> glosses)
+		{
+			rows = new HashMap<String, Integer>(2 * glosses.size());
+			offsets = new int[glosses.size() + 1];
+			terms = new int[1024];
+			weights = new float[1024];
+			int[] tokens = new int[64];
+			for (Entry<String, String> gloss : glosses.entrySet()) {
+				if (gloss.getValue() == null) {
+					continue;
+				}
+				String text = gloss.getValue();
+				int token_count = 0;
+				int start = 0;
+				while (start <= text.length()) {
+					int end = text.indexOf(' ', start);
+					if (end < 0) {
+						end = text.length();
+					}
+					if (end > start) {
+						if (token_count == tokens.length) {
+							tokens = Arrays.copyOf(tokens, 2 * token_count);
+						}
+						tokens[token_count++] = getTermId(text.substring(start, end));
+					}
+					start = end + 1;
+				}
+				Arrays.sort(tokens, 0, token_count);
+
+				int position = offsets[rows.size()];
+				if (position + token_count > terms.length) {
+					int length = Math.max(2 * terms.length, position + token_count);
+					terms = Arrays.copyOf(terms, length);
+					weights = Arrays.copyOf(weights, length);
+				}
+				for (int i = 0; i < token_count; i++) {
+					if (i > 0 && tokens[i] == tokens[i - 1]) {
+						weights[position - 1]++;
+					}
+					else {
+						terms[position] = tokens[i];
+						weights[position++] = 1;
+						document_frequencies[tokens[i]]++;
+					}
+				}
+				rows.put(gloss.getKey(), rows.size());
+				offsets[rows.size()] = position;
+			}
+			int size = rows.size();
+			offsets = Arrays.copyOf(offsets, size + 1);
+			terms = Arrays.copyOf(terms, offsets[size]);
+			weights = Arrays.copyOf(weights, offsets[size]);
+		}
+
+		int size()
+		{
+			return rows.size();
+		}
+
+		/** Replaces the term frequencies by the normalised weights. */
+		void weight(int gloss_count)
+		{
+			for (int row = 0; row < size(); row++) {
+				double norm = 0.0;
+				for (int i = offsets[row]; i < offsets[row + 1]; i++) {
+					double weight = weights[i];
+					if (tfidf) {
+						double idf = Math.log((double) gloss_count / document_frequencies[terms[i]]);
+						weight = Math.log(1 + weight) * Math.log(1 + idf);
+					}
+					weights[i] = (float) weight;
+					norm += weight * weight;
+				}
+				if (norm > 0.0) {
+					float length = (float) Math.sqrt(norm);
+					for (int i = offsets[row]; i < offsets[row + 1]; i++) {
+						weights[i] /= length;
+					}
+				}
+			}
+		}
+	}
+}
@@ -18,27 +18,40 @@
 package de.tudarmstadt.ukp.alignment.framework.graph;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.PrintStream;
-
-
-import de.tudarmstadt.ukp.alignment.framework.Global;
-import grph.Grph;
-
-import grph.io.GraphBuildException;
-import grph.io.ParseException;
-import grph.path.Path;
+import java.util.Arrays;
 
 
 public class CalculateDijkstraWSA
 {
-	public static void main(String args[]) throws IOException, ParseException, GraphBuildException
+	/** Distance written for candidate pairs which are not connected in the graph. */
+	public static final int NO_PATH = 1000;
+
+	public static void main(String args[]) throws IOException
 	{
 		calculateDijkstraWSAdistances("target/WN_synset_Pos_relationMLgraph_1000_MERGED_WktEn_sense_Pos_relationMLgraph_2000_trivial.txt", "target/WN_WktEn_GScandidates_noCheck.txt");
 	}
 	
+	/**
+	 * Returns the name of the file the distances calculated for the given graph file are written to, i.e. the name
+	 * of the graph file without its extension followed by "_result.txt". For binary graph files (".bin"), the
+	 * result is written to the same file as for the corresponding text file.
+	 */
+	public static String getResultFile(String graph_file)
+	{
+		String base = graph_file;
+		int separator = Math.max(base.lastIndexOf('/'), base.lastIndexOf(File.separatorChar));
+		int extension = base.lastIndexOf('.');
+		if (extension > separator) {
+			base = base.substring(0, extension);
+		}
+		return base + "_result.txt";
+	}
+
 	/***
 	 * This method takes a graph and candidate file as input and calculates the distances between the candidates in the graph
 	 * 
@@ -47,49 +60,70 @@ public class CalculateDijkstraWSA
 	 * @param candidate_file The candidate pairs
 	 */
 	
-	public static void calculateDijkstraWSAdistances(String graph_file, String candidate_file) throws IOException, ParseException, GraphBuildException
+	public static void calculateDijkstraWSAdistances(String graph_file, String candidate_file) throws IOException
+	{
+		calculateDijkstraWSAdistances(graph_file, candidate_file, Integer.MAX_VALUE, Runtime.getRuntime().availableProcessors());
+	}
+
+	/***
+	 * This method takes a graph and candidate file as input and calculates the distances between the candidates in the graph,
+	 * using the given number of threads. Candidates which are not connected by a path of at most max_depth edges
+	 * get the distance {@link #NO_PATH}, so max_depth should not be smaller than the depth used in {@link CreateAlignmentFromGraphOutput}.
+	 * The distances are written to {@link #getResultFile(String)}, the graph file itself is only read.
+	 *
+	 *
+	 * @param graph_file The graph
+	 * @param candidate_file The candidate pairs
+	 * @param max_depth The maximum length of the paths searched for
+	 * @param threads The number of threads
+	 */
+
+	public static void calculateDijkstraWSAdistances(String graph_file, String candidate_file, int max_depth, int threads) throws IOException
 	{
 		try
 		{
-				FileReader in = new FileReader(graph_file);
+				ShortestPathEngine engine = ShortestPathEngine.load(graph_file);
+				System.out.println("Graph loaded: "+engine.getNodeCount()+" nodes, "+engine.getEdgeCount()+" edges");
+
+				int[] ids1 = new int[1024];
+				int[] ids2 = new int[1024];
+				int candidate_count = 0;
+				FileReader in = new FileReader(candidate_file);
 				BufferedReader inp =  new BufferedReader(in);
 				String line;
-				StringBuilder graph = new StringBuilder();
-				 
 				 while((line =inp.readLine())!=null)
 				 {
-					 graph.append(line+Global.LF);
+					if(line.startsWith("q"))
+					{
+						String[] temp = line.split(" ");
+						if(candidate_count == ids1.length)
+						{
+							ids1 = Arrays.copyOf(ids1, 2 * candidate_count);
+							ids2 = Arrays.copyOf(ids2, 2 * candidate_count);
+						}
+						ids1[candidate_count] = Integer.parseInt(temp[1]);
+						ids2[candidate_count] = Integer.parseInt(temp[2]);
+						candidate_count++;
+					}
 				 }
 				 inp.close();
-				Grph g = Grph.fromGrphText(graph.toString());
+				 ids1 = Arrays.copyOf(ids1, candidate_count);
+				 ids2 = Arrays.copyOf(ids2, candidate_count);
+
+				int[] lengths = engine.getShortestPathLengths(ids1, ids2, max_depth, threads);
+
 				FileOutputStream outstream;
 				PrintStream p;
 				
-				outstream = new FileOutputStream(graph_file.replace(".txt","_result.txt"));
+				outstream = new FileOutputStream(getResultFile(graph_file));
 
 				p = new PrintStream( outstream );
-				in = new FileReader(candidate_file);
-				inp =  new BufferedReader(in);
-				
-				 while((line =inp.readLine())!=null)
-				 {
-					if(line.startsWith("q"))
-					{
-						int id1 = Integer.parseInt(line.split(" ")[1]);
-						int id2 = Integer.parseInt(line.split(" ")[2]);
-						try
-						{
-						Path path = g.getShortestPath(id1, id2);
-						p.println(id1+"\t"+id2+"\t"+path.getLength());
-						}
-						catch(Exception ise)
-						{
-							p.println(id1+"\t"+id2+"\t"+1000);							
-						}
-					}
-				 }
+				for(int i = 0; i < candidate_count; i++)
+				{
+					int length = (lengths[i] == ShortestPathEngine.UNREACHABLE ? NO_PATH : lengths[i]);
+					p.println(ids1[i]+"\t"+ids2[i]+"\t"+length);
+				}
 				 p.close();
-				 inp.close();
 	}
 
 	catch(Exception e)
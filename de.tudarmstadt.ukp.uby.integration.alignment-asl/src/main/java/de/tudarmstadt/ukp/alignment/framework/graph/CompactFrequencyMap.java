@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.alignment.framework.graph;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable map of strings to frequencies, e.g., of the lemmas in the
+ * glosses of a resource. The keys are kept in a {@link StringDictionary} and
+ * the frequencies in a primitive array. The entries are iterated in the order
+ * of the keys.
+ */
+public class CompactFrequencyMap extends AbstractMap<String, Integer>
+{
+	private final StringDictionary keys;
+	private final int[] frequencies;
+
+	/** Creates a compact copy of the given map. */
+	public CompactFrequencyMap(Map<String, Integer> map)
+	{
+		keys = new StringDictionary(map.keySet());
+		frequencies = new int[keys.size()];
+		for (Entry<String, Integer> entry : map.entrySet()) {
+			frequencies[keys.indexOf(entry.getKey())] = entry.getValue();
+		}
+	}
+
+	@Override
+	public int size()
+	{
+		return keys.size();
+	}
+
+	@Override
+	public boolean containsKey(Object key)
+	{
+		return key instanceof String && keys.indexOf((String) key) >= 0;
+	}
+
+	@Override
+	public Integer get(Object key)
+	{
+		if (!(key instanceof String)) {
+			return null;
+		}
+		int index = keys.indexOf((String) key);
+		return (index < 0 ? null : Integer.valueOf(frequencies[index]));
+	}
+
+	@Override
+	public Set<Entry<String, Integer>> entrySet()
+	{
+		return new AbstractSet<Entry<String, Integer>>()
+		{
+			@Override
+			public int size()
+			{
+				return keys.size();
+			}
+
+			@Override
+			public Iterator<Entry<String, Integer>> iterator()
+			{
+				return new Iterator<Entry<String, Integer>>()
+				{
+					private int index = 0;
+
+					@Override
+					public boolean hasNext()
+					{
+						return index < keys.size();
+					}
+
+					@Override
+					public Entry<String, Integer> next()
+					{
+						if (!hasNext()) {
+							throw new NoSuchElementException();
+						}
+						Entry<String, Integer> result = new SimpleImmutableEntry<String, Integer>(
+								keys.get(index), frequencies[index]);
+						index++;
+						return result;
+					}
+
+					@Override
+					public void remove()
+					{
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+		};
+	}
+}
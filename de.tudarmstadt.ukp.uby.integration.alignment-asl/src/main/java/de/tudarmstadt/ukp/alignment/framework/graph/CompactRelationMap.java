@@ -0,0 +1,293 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.alignment.framework.graph;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable map of strings to sets of strings, e.g., of lexemes to the IDs
+ * of their senses. Keys and values are interned in two {@link StringDictionary}
+ * instances, and the sets are stored as sorted value indexes in a single array
+ * with an offset per key (compressed sparse rows). The sets returned by
+ * {@link #get(Object)} are views of these arrays. Use {@link Builder} to
+ * create a map and its inverse from the same pairs.
+ */
+public class CompactRelationMap extends AbstractMap<String, Set<String>>
+{
+	private final StringDictionary keys;
+	private final StringDictionary values;
+	private final int[] offsets;
+	private final int[] targets;
+
+	private CompactRelationMap(StringDictionary keys, StringDictionary values, int[] offsets, int[] targets)
+	{
+		this.keys = keys;
+		this.values = values;
+		this.offsets = offsets;
+		this.targets = targets;
+	}
+
+	@Override
+	public int size()
+	{
+		return keys.size();
+	}
+
+	@Override
+	public boolean containsKey(Object key)
+	{
+		return key instanceof String && keys.indexOf((String) key) >= 0;
+	}
+
+	@Override
+	public Set<String> get(Object key)
+	{
+		if (!(key instanceof String)) {
+			return null;
+		}
+		int index = keys.indexOf((String) key);
+		return (index < 0 ? null : new ValueSet(index));
+	}
+
+	/** Returns the dictionary of the keys, whose indexes are used by {@link #getValueIndexes(int)}. */
+	public StringDictionary getKeyDictionary()
+	{
+		return keys;
+	}
+
+	/** Returns the dictionary of the values, whose indexes are returned by {@link #getValueIndexes(int)}. */
+	public StringDictionary getValueDictionary()
+	{
+		return values;
+	}
+
+	/** Returns the sorted indexes of the values of the key with the given index. */
+	public int[] getValueIndexes(int key)
+	{
+		return Arrays.copyOfRange(targets, offsets[key], offsets[key + 1]);
+	}
+
+	@Override
+	public Set<Entry<String, Set<String>>> entrySet()
+	{
+		return new AbstractSet<Entry<String, Set<String>>>()
+		{
+			@Override
+			public int size()
+			{
+				return keys.size();
+			}
+
+			@Override
+			public Iterator<Entry<String, Set<String>>> iterator()
+			{
+				return new Iterator<Entry<String, Set<String>>>()
+				{
+					private int index = 0;
+
+					@Override
+					public boolean hasNext()
+					{
+						return index < keys.size();
+					}
+
+					@Override
+					public Entry<String, Set<String>> next()
+					{
+						if (!hasNext()) {
+							throw new NoSuchElementException();
+						}
+						Entry<String, Set<String>> result = new SimpleImmutableEntry<String, Set<String>>(
+								keys.get(index), new ValueSet(index));
+						index++;
+						return result;
+					}
+
+					@Override
+					public void remove()
+					{
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+		};
+	}
+
+	/** The values of one key. */
+	private class ValueSet extends AbstractSet<String>
+	{
+		private final int from;
+		private final int to;
+
+		ValueSet(int key)
+		{
+			from = offsets[key];
+			to = offsets[key + 1];
+		}
+
+		@Override
+		public int size()
+		{
+			return to - from;
+		}
+
+		@Override
+		public boolean contains(Object o)
+		{
+			if (!(o instanceof String)) {
+				return false;
+			}
+			int value = values.indexOf((String) o);
+			return value >= 0 && Arrays.binarySearch(targets, from, to, value) >= 0;
+		}
+
+		@Override
+		public Iterator<String> iterator()
+		{
+			return new Iterator<String>()
+			{
+				private int position = from;
+
+				@Override
+				public boolean hasNext()
+				{
+					return position < to;
+				}
+
+				@Override
+				public String next()
+				{
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					return values.get(targets[position++]);
+				}
+
+				@Override
+				public void remove()
+				{
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+	}
+
+	/**
+	 * Collects the pairs of a {@link CompactRelationMap}. Repeated pairs
+	 * are stored once.
+	 */
+	public static class Builder
+	{
+		private final HashMap<String, Integer> keys = new HashMap<String, Integer>();
+		private final HashMap<String, Integer> values = new HashMap<String, Integer>();
+		private int[] pair_keys = new int[1024];
+		private int[] pair_values = new int[1024];
+		private int pair_count = 0;
+
+		public Builder add(String key, String value)
+		{
+			if (pair_count == pair_keys.length) {
+				pair_keys = Arrays.copyOf(pair_keys, 2 * pair_count);
+				pair_values = Arrays.copyOf(pair_values, 2 * pair_count);
+			}
+			pair_keys[pair_count] = intern(keys, key);
+			pair_values[pair_count] = intern(values, value);
+			pair_count++;
+			return this;
+		}
+
+		/** Returns the map of the keys to their values. */
+		public CompactRelationMap build()
+		{
+			StringDictionary key_dictionary = new StringDictionary(keys.keySet());
+			StringDictionary value_dictionary = new StringDictionary(values.keySet());
+			return build(key_dictionary, remap(keys, key_dictionary), pair_keys,
+					value_dictionary, remap(values, value_dictionary), pair_values);
+		}
+
+		/** Returns the map of the values to their keys. */
+		public CompactRelationMap buildInverse()
+		{
+			StringDictionary key_dictionary = new StringDictionary(keys.keySet());
+			StringDictionary value_dictionary = new StringDictionary(values.keySet());
+			return build(value_dictionary, remap(values, value_dictionary), pair_values,
+					key_dictionary, remap(keys, key_dictionary), pair_keys);
+		}
+
+		private static int intern(HashMap<String, Integer> ids, String string)
+		{
+			Integer id = ids.get(string);
+			if (id == null) {
+				id = ids.size();
+				ids.put(string, id);
+			}
+			return id;
+		}
+
+		/** Maps the temporary IDs to the indexes of the dictionary. */
+		private static int[] remap(HashMap<String, Integer> ids, StringDictionary dictionary)
+		{
+			int[] result = new int[ids.size()];
+			for (Entry<String, Integer> entry : ids.entrySet()) {
+				result[entry.getValue()] = dictionary.indexOf(entry.getKey());
+			}
+			return result;
+		}
+
+		private CompactRelationMap build(StringDictionary key_dictionary, int[] key_map, int[] sources,
+				StringDictionary value_dictionary, int[] value_map, int[] destinations)
+		{
+			int[] offsets = new int[key_dictionary.size() + 1];
+			for (int i = 0; i < pair_count; i++) {
+				offsets[key_map[sources[i]] + 1]++;
+			}
+			for (int i = 0; i < key_dictionary.size(); i++) {
+				offsets[i + 1] += offsets[i];
+			}
+			int[] targets = new int[pair_count];
+			int[] positions = Arrays.copyOf(offsets, key_dictionary.size());
+			for (int i = 0; i < pair_count; i++) {
+				targets[positions[key_map[sources[i]]]++] = value_map[destinations[i]];
+			}
+
+			// Sort the values of each key and remove repeated pairs.
+			int size = 0;
+			int start = 0;
+			for (int key = 0; key < key_dictionary.size(); key++) {
+				int end = offsets[key + 1];
+				Arrays.sort(targets, start, end);
+				offsets[key] = size;
+				for (int i = start; i < end; i++) {
+					if (i == start || targets[i] != targets[i - 1]) {
+						targets[size++] = targets[i];
+					}
+				}
+				start = end;
+			}
+			offsets[key_dictionary.size()] = size;
+			return new CompactRelationMap(key_dictionary, value_dictionary, offsets,
+					Arrays.copyOf(targets, size));
+		}
+	}
+}
@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.alignment.framework.graph;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable map of strings, e.g., of sense IDs to glosses. The keys are
+ * kept in a {@link StringDictionary}, and the values are stored as UTF-8 in a
+ * single direct (off-heap) buffer, which is decoded on access. The entries are
+ * iterated in the order of the keys. Use {@link Builder} to create a map.
+ */
+public class CompactStringMap extends AbstractMap<String, String>
+{
+	private final StringDictionary keys;
+	private final ByteBuffer values;
+	private final int[] starts;
+	private final int[] ends;
+
+	private CompactStringMap(StringDictionary keys, ByteBuffer values, int[] starts, int[] ends)
+	{
+		this.keys = keys;
+		this.values = values;
+		this.starts = starts;
+		this.ends = ends;
+	}
+
+	@Override
+	public int size()
+	{
+		return keys.size();
+	}
+
+	@Override
+	public boolean containsKey(Object key)
+	{
+		return key instanceof String && keys.indexOf((String) key) >= 0;
+	}
+
+	@Override
+	public String get(Object key)
+	{
+		if (!(key instanceof String)) {
+			return null;
+		}
+		int index = keys.indexOf((String) key);
+		return (index < 0 ? null : getValue(index));
+	}
+
+	private String getValue(int index)
+	{
+		byte[] bytes = new byte[ends[index] - starts[index]];
+		ByteBuffer buffer = values.duplicate();
+		buffer.position(starts[index]);
+		buffer.get(bytes);
+		return new String(bytes, StringDictionary.UTF8);
+	}
+
+	@Override
+	public Set<Entry<String, String>> entrySet()
+	{
+		return new AbstractSet<Entry<String, String>>()
+		{
+			@Override
+			public int size()
+			{
+				return keys.size();
+			}
+
+			@Override
+			public Iterator<Entry<String, String>> iterator()
+			{
+				return new Iterator<Entry<String, String>>()
+				{
+					private int index = 0;
+
+					@Override
+					public boolean hasNext()
+					{
+						return index < keys.size();
+					}
+
+					@Override
+					public Entry<String, String> next()
+					{
+						if (!hasNext()) {
+							throw new NoSuchElementException();
+						}
+						Entry<String, String> result = new SimpleImmutableEntry<String, String>(
+								keys.get(index), getValue(index));
+						index++;
+						return result;
+					}
+
+					@Override
+					public void remove()
+					{
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+		};
+	}
+
+	/**
+	 * Collects the entries of a {@link CompactStringMap}. If a key is put
+	 * several times, the last value is kept.
+	 */
+	public static class Builder
+	{
+		private final ArrayList<String> keys = new ArrayList<String>();
+		private final ByteArrayOutputStream values = new ByteArrayOutputStream();
+		private int[] ends = new int[1024];
+
+		public Builder put(String key, String value)
+		{
+			byte[] bytes = value.getBytes(StringDictionary.UTF8);
+			values.write(bytes, 0, bytes.length);
+			if (keys.size() == ends.length) {
+				ends = Arrays.copyOf(ends, 2 * ends.length);
+			}
+			ends[keys.size()] = values.size();
+			keys.add(key);
+			return this;
+		}
+
+		public CompactStringMap build()
+		{
+			StringDictionary dictionary = new StringDictionary(keys);
+			byte[] bytes = values.toByteArray();
+			ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+			buffer.put(bytes);
+			int[] starts = new int[dictionary.size()];
+			int[] value_ends = new int[dictionary.size()];
+			for (int i = 0; i < keys.size(); i++) {
+				int index = dictionary.indexOf(keys.get(i));
+				starts[index] = (i == 0 ? 0 : ends[i - 1]);
+				value_ends[index] = ends[i];
+			}
+			return new CompactStringMap(dictionary, buffer, starts, value_ends);
+		}
+	}
+}
@@ -20,9 +20,11 @@ package de.tudarmstadt.ukp.alignment.framework.graph;
 import java.io.BufferedReader;
 import java.io.FileOutputStream;
 import java.io.FileReader;
+import java.io.IOException;
 import java.io.PrintStream;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.TreeSet;
 
 import de.tudarmstadt.ukp.alignment.framework.Global;
@@ -251,7 +253,6 @@ public class CreateAlignmentFromGraphOutput
 	{
 
 		HashMap<String,TreeSet<NodeWithDistance> > alignment_results = new HashMap<String, TreeSet<NodeWithDistance>>();
-		HashMap<String,HashSet<String> > candidates = new HashMap<String, HashSet<String>>();
 
 		//Read the candidates and distance files
 		try
@@ -307,75 +308,9 @@ public class CreateAlignmentFromGraphOutput
 
 		/*HERE THE ACTUAL ANALYISIS BEGINS*/
 
-		candidates  = new HashMap<String, HashSet<String>>();
 		outstream = new FileOutputStream("target/"+gb1.prefix_string+"_"+gb2.prefix_string+"_alignment_dwsa_"+(gb2.pos ? "Pos": "noPos")+"_"+depth+"_"+(allowMultiple? "1toN"  :"1to1")+(alignSingle ? "_alignSingle":"")+(backoff ? "_backoff":"")+".txt");
 		p = new PrintStream( outstream );
-		for(String s : alignment_results.keySet())
-		{
-				TreeSet<NodeWithDistance> cands = alignment_results.get(s);
-				TreeSet<NodeWithDistance> polled_out = new TreeSet<NodeWithDistance>();
-				HashSet<NodeWithDistance> targets = new HashSet<NodeWithDistance>();
-				int observed_d = 0;
-				while(observed_d <=depth)
-				{
-					NodeWithDistance nwd =cands.pollFirst();
-					if(nwd==null) {
-						break;
-					}
-					polled_out.add(nwd);
-					observed_d = nwd.path_length;
-					if(observed_d<=depth || cands.size() ==1  && alignSingle)
-					{
-						targets.add(nwd);
-					}
-					if(!allowMultiple) {
-						break;
-					}
-				}
-				if(cands!=null && polled_out!= null && !polled_out.isEmpty()) {
-							cands.addAll(polled_out);
-
-				/*HERE THE OUTPUT BEGINS*/
-				}
-				for(NodeWithDistance t : targets)
-				{
-						/*Preparation for Backoff*/
-							if(!candidates.containsKey(s)) {
-								candidates.put(s, new HashSet<String>());
-							}
-							candidates.get(s).add(t+"");
-							p.println(s+"\t"+t.id+"\t"+t.path_length);
-
-						}
-
-		 		}
-
-
-
-					if(backoff) // We add the alignment from the backoff for this which were not aligned using DWSA
-					{
-						in2 = new FileReader(backoff_file) ;
-						input2 =  new BufferedReader(in2);
-						while((line2 = input2.readLine())!=null)
-						{
-							if(line2.startsWith("f")) {
-								continue;
-							}
-							String id_1 = line2.split("\t")[0];
-							String id_2 = line2.split("\t")[1];
-							String conf = line2.split("\t")[2];
-
-							if(candidates.containsKey(id_1)) {
-								System.out.println("Already aligned!!");
-								continue;
-
-							}
-							p.println(id_1+"\t"+id_2+"\t"+conf);
-
-						}
-
-					}
-
+		writeAlignment(alignment_results, depth, allowMultiple, alignSingle, (backoff ? backoff_file : null), p);
 					p.close();
 
 		}
@@ -386,4 +321,70 @@ public class CreateAlignmentFromGraphOutput
 
 	}
 
+	/**
+	 * This method selects the aligned targets among the candidates of each source node, i.e. those within the given distance, and writes them
+	 * to the alignment file. Source nodes without any target are then aligned using the backoff file, if given
+	 *
+	 * @param alignment_results the candidates of each source node with their distances
+	 * @param depth the maximum distance of aligned targets
+	 * @param allowMultiple allow 1:n alignments
+	 * @param alignSingle allow instant alignment in case of only one candidate
+	 * @param backoff_file a similarity-based alignment file used as backoff, or null
+	 * @param p the alignment file
+	 */
+	public static void writeAlignment(Map<String,TreeSet<NodeWithDistance>> alignment_results, int depth, boolean allowMultiple, boolean alignSingle, String backoff_file, PrintStream p) throws IOException
+	{
+		HashSet<String> aligned = new HashSet<String>();
+		for(Map.Entry<String, TreeSet<NodeWithDistance>> entry : alignment_results.entrySet())
+		{
+			String s = entry.getKey();
+			TreeSet<NodeWithDistance> cands = entry.getValue();
+			TreeSet<NodeWithDistance> polled_out = new TreeSet<NodeWithDistance>();
+			HashSet<NodeWithDistance> targets = new HashSet<NodeWithDistance>();
+			int observed_d = 0;
+			while(observed_d <=depth)
+			{
+				NodeWithDistance nwd =cands.pollFirst();
+				if(nwd==null) {
+					break;
+				}
+				polled_out.add(nwd);
+				observed_d = nwd.path_length;
+				if(observed_d<=depth || cands.size() ==1  && alignSingle)
+				{
+					targets.add(nwd);
+				}
+				if(!allowMultiple) {
+					break;
+				}
+			}
+			cands.addAll(polled_out);
+
+			/*HERE THE OUTPUT BEGINS*/
+			for(NodeWithDistance t : targets)
+			{
+				aligned.add(s); /*Preparation for Backoff*/
+				p.println(s+"\t"+t.id+"\t"+t.path_length);
+			}
+		}
+
+		if(backoff_file != null) // We add the alignment from the backoff for this which were not aligned using DWSA
+		{
+			BufferedReader input =  new BufferedReader(new FileReader(backoff_file));
+			String line;
+			while((line = input.readLine())!=null)
+			{
+				if(line.startsWith("f")) {
+					continue;
+				}
+				String[] fields = line.split("\t");
+				if(aligned.contains(fields[0])) {
+					continue;
+				}
+				p.println(fields[0]+"\t"+fields[1]+"\t"+fields[2]);
+			}
+			input.close();
+		}
+	}
+
 }
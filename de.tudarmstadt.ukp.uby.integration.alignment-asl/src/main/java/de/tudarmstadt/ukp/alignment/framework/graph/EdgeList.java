@@ -0,0 +1,278 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.alignment.framework.graph;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * The undirected edges of a graph as two growable arrays of node IDs. The
+ * relation graphs, monosemous links and trivial alignments are collected in
+ * edge lists, which may be written as text files in the format read by
+ * {@link de.tudarmstadt.ukp.alignment.framework.Global#mergeTwoGraphs(String, String, String)}
+ * or as binary edge files. A binary edge file holds the graph in compressed sparse rows: a
+ * header (magic number, version, number of nodes, number of adjacency
+ * entries), the sorted node IDs, the offset of each node in the adjacency
+ * array, and the adjacency array of node indexes, all as big-endian
+ * integers. {@link ShortestPathEngine#load(String)} loads it into the heap
+ * with bulk copies, so the graph need not be parsed again.
+ */
+public class EdgeList
+{
+	/** Marks a binary edge file. */
+	public static final int MAGIC = 0x55425947; // "UBYG"
+	public static final int VERSION = 1;
+
+	/** First line of the text files. */
+	public static final String GRPH_HEADER = "graph class=grph.in_memory.InMemoryGrph";
+
+	private int[] sources = new int[1024];
+	private int[] targets = new int[1024];
+	private int size = 0;
+
+	/** Adds an edge between the given nodes. */
+	public void add(int source, int target)
+	{
+		if (size == sources.length) {
+			sources = Arrays.copyOf(sources, 2 * size);
+			targets = Arrays.copyOf(targets, 2 * size);
+		}
+		sources[size] = source;
+		targets[size] = target;
+		size++;
+	}
+
+	/** Adds all edges of the given list. */
+	public void addAll(EdgeList edges)
+	{
+		for (int i = 0; i < edges.size; i++) {
+			add(edges.sources[i], edges.targets[i]);
+		}
+	}
+
+	/** Returns the number of edges. */
+	public int size()
+	{
+		return size;
+	}
+
+	public int getSource(int index)
+	{
+		return sources[index];
+	}
+
+	public int getTarget(int index)
+	{
+		return targets[index];
+	}
+
+	/**
+	 * Removes self-loops and repeated edges, regardless of their direction,
+	 * and sorts the edges by their smaller and their larger node ID.
+	 */
+	public void compact()
+	{
+		long[] edges = new long[size];
+		int count = 0;
+		for (int i = 0; i < size; i++) {
+			if (sources[i] != targets[i]) {
+				int first = Math.min(sources[i], targets[i]);
+				int second = Math.max(sources[i], targets[i]);
+				edges[count++] = ((long) first << 32) | (second & 0xFFFFFFFFL);
+			}
+		}
+		Arrays.sort(edges, 0, count);
+		size = 0;
+		for (int i = 0; i < count; i++) {
+			if (i == 0 || edges[i] != edges[i - 1]) {
+				sources[size] = (int) (edges[i] >> 32);
+				targets[size] = (int) edges[i];
+				size++;
+			}
+		}
+	}
+
+	/** Writes the edges as a text file with one line <code>e&lt;number&gt; &lt;id1&gt; &lt;id2&gt;</code> per edge. */
+	public void writeGrphText(String file) throws IOException
+	{
+		PrintStream p = new PrintStream(new BufferedOutputStream(new FileOutputStream(file)));
+		p.println(GRPH_HEADER);
+		for (int i = 0; i < size; i++) {
+			p.println("e" + i + " " + sources[i] + " " + targets[i]);
+		}
+		p.close();
+	}
+
+	/** Reads the edges of a text file. All lines not starting with <code>e</code>, such as the header, are skipped. */
+	public static EdgeList readGrphText(String file) throws IOException
+	{
+		EdgeList result = new EdgeList();
+		BufferedReader input = new BufferedReader(new FileReader(file));
+		try {
+			String line;
+			while ((line = input.readLine()) != null) {
+				if (!line.startsWith("e")) {
+					continue;
+				}
+				int first = line.indexOf(' ');
+				int second = line.indexOf(' ', first + 1);
+				if (first < 0 || second < 0) {
+					continue;
+				}
+				int third = line.indexOf(' ', second + 1);
+				result.add(Integer.parseInt(line.substring(first + 1, second)),
+						Integer.parseInt(third < 0 ? line.substring(second + 1)
+								: line.substring(second + 1, third)));
+			}
+		}
+		finally {
+			input.close();
+		}
+		return result;
+	}
+
+	/** Writes the edges as a binary edge file. */
+	public void writeBinary(String file) throws IOException
+	{
+		int[][] csr = toCsr();
+		DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(file), 1 << 16));
+		try {
+			output.writeInt(MAGIC);
+			output.writeInt(VERSION);
+			output.writeInt(csr[0].length);
+			output.writeInt(csr[2].length);
+			for (int[] array : csr) {
+				for (int value : array) {
+					output.writeInt(value);
+				}
+			}
+		}
+		finally {
+			output.close();
+		}
+	}
+
+	/** Returns true if the given file is a binary edge file. */
+	public static boolean isBinary(String file) throws IOException
+	{
+		DataInputStream input = new DataInputStream(new FileInputStream(file));
+		try {
+			return input.available() >= 4 && input.readInt() == MAGIC;
+		}
+		finally {
+			input.close();
+		}
+	}
+
+	/**
+	 * Loads a binary edge file into the heap without parsing and returns its
+	 * sorted node IDs, the offsets and the adjacency array. The arrays are
+	 * bulk-copied from a read-only mapping of the file, so they take as much
+	 * heap as the file is large.
+	 */
+	public static int[][] readBinary(String file) throws IOException
+	{
+		RandomAccessFile input = new RandomAccessFile(file, "r");
+		try {
+			IntBuffer buffer = input.getChannel().map(FileChannel.MapMode.READ_ONLY,
+					0, input.length()).asIntBuffer();
+			if (buffer.remaining() < 4 || buffer.get() != MAGIC) {
+				throw new IOException("Not a binary edge file: " + file);
+			}
+			int version = buffer.get();
+			if (version != VERSION) {
+				throw new IOException("Unsupported version " + version + " of edge file " + file);
+			}
+			int node_count = buffer.get();
+			int entry_count = buffer.get();
+			if (buffer.remaining() != 2 * node_count + 1 + entry_count) {
+				throw new IOException("Truncated edge file: " + file);
+			}
+			int[][] result = {new int[node_count], new int[node_count + 1], new int[entry_count]};
+			for (int[] array : result) {
+				buffer.get(array);
+			}
+			return result;
+		}
+		finally {
+			input.close();
+		}
+	}
+
+	/**
+	 * Returns the graph of the edges in compressed sparse rows: the sorted
+	 * node IDs, the offset of each node in the adjacency array, and the
+	 * adjacency array of node indexes. Each edge is stored in both
+	 * directions, self-loops are skipped.
+	 */
+	public int[][] toCsr()
+	{
+		return toCsr(sources, targets, size);
+	}
+
+	static int[][] toCsr(int[] sources, int[] targets, int edge_count)
+	{
+		int[] ids = new int[2 * edge_count];
+		System.arraycopy(sources, 0, ids, 0, edge_count);
+		System.arraycopy(targets, 0, ids, edge_count, edge_count);
+		Arrays.sort(ids);
+		int node_count = 0;
+		for (int i = 0; i < ids.length; i++) {
+			if (node_count == 0 || ids[node_count - 1] != ids[i]) {
+				ids[node_count++] = ids[i];
+			}
+		}
+		int[] node_ids = Arrays.copyOf(ids, node_count);
+
+		int[] edge_sources = new int[edge_count];
+		int[] edge_targets = new int[edge_count];
+		int[] offsets = new int[node_count + 1];
+		for (int i = 0; i < edge_count; i++) {
+			edge_sources[i] = Arrays.binarySearch(node_ids, sources[i]);
+			edge_targets[i] = Arrays.binarySearch(node_ids, targets[i]);
+			if (edge_sources[i] != edge_targets[i]) {
+				offsets[edge_sources[i] + 1]++;
+				offsets[edge_targets[i] + 1]++;
+			}
+		}
+		for (int i = 0; i < node_count; i++) {
+			offsets[i + 1] += offsets[i];
+		}
+		int[] neighbours = new int[offsets[node_count]];
+		int[] positions = Arrays.copyOf(offsets, node_count);
+		for (int i = 0; i < edge_count; i++) {
+			if (edge_sources[i] != edge_targets[i]) {
+				neighbours[positions[edge_sources[i]]++] = edge_targets[i];
+				neighbours[positions[edge_targets[i]]++] = edge_sources[i];
+			}
+		}
+		return new int[][] {node_ids, offsets, neighbours};
+	}
+}
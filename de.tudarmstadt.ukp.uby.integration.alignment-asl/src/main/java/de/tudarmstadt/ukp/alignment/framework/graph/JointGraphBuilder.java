@@ -17,10 +17,10 @@
  ******************************************************************************/
 package de.tudarmstadt.ukp.alignment.framework.graph;
 
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.PrintStream;
 import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 import de.tudarmstadt.ukp.alignment.framework.Global;
@@ -141,67 +141,47 @@ public class JointGraphBuilder
 	 *
 	 * @param gb1 First LSR
 	 * @param gb2 Second LSR
+	 * @return the trivial alignments as edges
 	 *
 	 */
-	public static void createTrivialAlignments(OneResourceBuilder gb1, OneResourceBuilder gb2) throws ClassNotFoundException, SQLException, IOException
+	public static EdgeList createTrivialAlignments(OneResourceBuilder gb1, OneResourceBuilder gb2) throws ClassNotFoundException, SQLException, IOException
 		{
-		StringBuilder sb = new StringBuilder();
-		int edge_count = 0;
-		int maxId = 0;
-		FileOutputStream outstream;
-		PrintStream p;
-		outstream = new FileOutputStream( "target/"+gb1.prefix_string+"_"+gb2.prefix_string+"_trivial_"+(gb2.pos ? "Pos": "noPos")+".txt");
-		p = new PrintStream( outstream );
-		for(String lemmaPos: gb1.lemmaPosSenses.keySet())
+		EdgeList edges = new EdgeList();
+		for(Map.Entry<String, Set<String>> entry : gb1.lemmaPosSenses.entrySet())
 		{
-			if(gb1.lemmaPosSenses.get(lemmaPos).size()==1) //if there is only one sense for this lexeme
+			if(entry.getValue().size()==1) //if there is only one sense for this lexeme
 			{
-				String id1= gb1.lemmaPosSenses.get(lemmaPos).iterator().next();
-				int id1_int = Integer.parseInt(id1);
-				if(gb2.pos) { //if resource 2 uses POS
-					if(gb2.lemmaPosSenses.get(lemmaPos)!= null && gb2.lemmaPosSenses.get(lemmaPos).size()==1) //if there is only one sense for this lexeme
-					{
-						String id2= gb2.lemmaPosSenses.get(lemmaPos).iterator().next();
-						int id2_int = Integer.parseInt(id2);
-						//Retrieve the largest ID, so that it can be used as a value for the graph algortihm input file
-						if(id1_int > maxId) {
-							maxId = id1_int;
-						}
-						if(id2_int > maxId) {
-							maxId = id2_int;
-						}
-						//sb.append("a "+id1+" "+id2+" 1"+Global.LF); //edges are unweighted
-						//sb.append("a "+id2+" "+id1+" 1"+Global.LF);
-						sb.append("e"+edge_count+++" "+id1+" "+id2+Global.LF);
-
-					}
-				}
-				else
+				String lemmaPos = entry.getKey();
+				Set<String> senses2 = gb2.lemmaPosSenses.get(gb2.pos ? lemmaPos : lemmaPos.split("#")[0]); //if resource 2 uses POS
+				if(senses2 != null && senses2.size()==1) //if there is only one sense for this lexeme
 				{
-					String lemma = lemmaPos.split("#")[0];
-					if(gb2.lemmaPosSenses.get(lemma)!= null && gb2.lemmaPosSenses.get(lemma).size()==1)
-					{
-						String id2= gb2.lemmaPosSenses.get(lemma).iterator().next();
-						int id2_int = Integer.parseInt(id2);
-						if(id1_int > maxId) {
-							maxId = id1_int;
-						}
-						if(id2_int > maxId) {
-							maxId = id2_int;
-						}
-//						sb.append("a "+id1+" "+id2+" 1"+Global.LF); //edges are unweighted
-//						sb.append("a "+id2+" "+id1+" 1"+Global.LF);
-						sb.append("e"+edge_count+++" "+id1+" "+id2+Global.LF);
-
-					}
+					edges.add(Integer.parseInt(entry.getValue().iterator().next()), Integer.parseInt(senses2.iterator().next()));
 				}
 			}
 		}
-		 //p.println("p sp "+maxId+" "+count);
-		 String header = "graph class=grph.in_memory.InMemoryGrph";
-		 p.println(header);
-		 p.print(sb.toString());
-		 p.close();
+		edges.writeGrphText("target/"+gb1.prefix_string+"_"+gb2.prefix_string+"_trivial_"+(gb2.pos ? "Pos": "noPos")+".txt");
+		return edges;
+	}
+
+	/**
+	 *
+	 * Creates the joint graph of two LSRs from the relation graphs and monosemous links collected by their builders and the trivial alignments between them,
+	 * without merging the intermediate text files. Repeated edges are removed and the graph is written as binary edge file, which can be passed to
+	 * {@link CalculateDijkstraWSA} in place of the merged text file
+	 *
+	 * @param gb1 First LSR
+	 * @param gb2 Second LSR
+	 * @param file the joint graph file
+	 *
+	 */
+	public static void createJointGraph(OneResourceBuilder gb1, OneResourceBuilder gb2, String file) throws ClassNotFoundException, SQLException, IOException
+	{
+		EdgeList edges = new EdgeList();
+		edges.addAll(gb1.graphEdges);
+		edges.addAll(gb2.graphEdges);
+		edges.addAll(createTrivialAlignments(gb1, gb2));
+		edges.compact();
+		edges.writeBinary(file);
 	}
 
 	/**
@@ -214,7 +194,7 @@ public class JointGraphBuilder
 	 */
 	public static void calculateLexicalGlossOverlap(OneResourceBuilder gb1, OneResourceBuilder gb2) throws ClassNotFoundException, SQLException, IOException
 	{
-		Set<String> lexemes1 = gb1.lemmaFreqInGlosses.keySet();
+		Set<String> lexemes1 = new HashSet<String>(gb1.lemmaFreqInGlosses.keySet());
 		Set<String> lexemes2 = gb2.lemmaFreqInGlosses.keySet();
 
 		double size1 = lexemes1.size();
@@ -23,6 +23,7 @@
 
 package de.tudarmstadt.ukp.alignment.framework.graph;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -35,13 +36,21 @@ import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayDeque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.regex.Pattern;
 
 import de.tudarmstadt.ukp.alignment.framework.Global;
+import de.tudarmstadt.ukp.alignment.framework.uima.GlossTagger;
 import de.tudarmstadt.ukp.alignment.framework.uima.Toolkit;
 import de.tudarmstadt.ukp.lmf.model.enums.ELanguageIdentifier;
 
@@ -53,13 +62,21 @@ import de.tudarmstadt.ukp.lmf.model.enums.ELanguageIdentifier;
 
 public class OneResourceBuilder
 {
-	public TreeMap<String,HashSet<String>> lemmaPosSenses; //Index for the senses a lexeme has
-	public TreeMap<String,HashSet<String>> senseIdLemma; //Index for the lemmas for senses
-	public TreeMap<String,String> lemmaIdWrittenForm; //Index for the written form for lemmas
-	public TreeMap<String,Integer> lexemeFreqInGlosses; //Frequency of lexemes across all glosses
-	public TreeMap<String,Integer> lemmaFreqInGlosses;//Frequency of lemmas across all glosses
-	public TreeMap<String, String> senseIdGloss; //Index for the gloss of a senses
-	public TreeMap<String,String> senseIdGlossPos; //Index for the pos-tagged gloss of a sense
+	/*
+	 * The indexes are filled by fillIndexTables() as compact, immutable maps (CompactRelationMap, CompactStringMap and
+	 * CompactFrequencyMap), which hold their keys and values in primitive arrays. Until then, the frequency maps are
+	 * TreeMaps, which are updated while the glosses are created and tagged. The fields were declared as TreeMaps of
+	 * HashSets before, so code compiled against them must be recompiled, and code relying on TreeMap or HashSet
+	 * methods must be changed to the Map and Set interfaces.
+	 */
+	public Map<String,Set<String>> lemmaPosSenses; //Index for the senses a lexeme has
+	public Map<String,Set<String>> senseIdLemma; //Index for the lemmas for senses
+	public Map<String,String> lemmaIdWrittenForm; //Index for the written form for lemmas
+	public Map<String,Integer> lexemeFreqInGlosses; //Frequency of lexemes across all glosses
+	public Map<String,Integer> lemmaFreqInGlosses;//Frequency of lemmas across all glosses
+	public Map<String, String> senseIdGloss; //Index for the gloss of a senses
+	public Map<String,String> senseIdGlossPos; //Index for the pos-tagged gloss of a sense
+	public EdgeList graphEdges = new EdgeList(); //Edges of the relation graph and the monosemous links created so far
 
 	//Basic characteristics of the resources
 	public Connection connection;
@@ -70,25 +87,34 @@ public class OneResourceBuilder
 	public String language;
 	public int gloss_count;
 
-	public OneResourceBuilder(String dbname, String user, String pass, int prefix, String language, boolean synset, boolean pos)
+	/**
+	 * Creates a builder without a database connection, whose indexes are filled directly, e.g., from files
+	 * or in tests. The methods reading the database must not be called.
+	 */
+	public OneResourceBuilder(int prefix, String language, boolean synset, boolean pos)
 	{
-		senseIdLemma = new TreeMap<String, HashSet<String>>();
+		senseIdLemma = new TreeMap<String, Set<String>>();
 		lemmaIdWrittenForm = new TreeMap<String, String>();
-		lemmaPosSenses = new TreeMap<String, HashSet<String>>();
+		lemmaPosSenses = new TreeMap<String, Set<String>>();
 		lexemeFreqInGlosses = new TreeMap<String, Integer>();
 		lemmaFreqInGlosses = new TreeMap<String, Integer>();
 //		HashMap<Integer,String> senseIdGloss = new HashMap<Integer, String>();
 //		HashMap<Integer,String> senseIdGlossPos = new HashMap<Integer, String>();
+		this.prefix =prefix;
+		this.prefix_string = Global.prefixTable.get(prefix);
+		this.synset = synset;
+		this.pos = pos;
+		this.language = language;
+	}
+
+	public OneResourceBuilder(String dbname, String user, String pass, int prefix, String language, boolean synset, boolean pos)
+	{
+		this(prefix, language, synset, pos);
 
 		try {
 			Class.forName("com.mysql.jdbc.Driver");
 			connection = DriverManager.getConnection("jdbc:mysql://localhost/"+dbname,user,pass);
 			System.out.println(connection.isClosed());
-			this.prefix =prefix;
-			this.prefix_string = Global.prefixTable.get(prefix);
-			this.synset = synset;
-			this.pos = pos;
-			this.language = language;
 		//	int gloss_count = 0;
 		}
 		catch (SQLException e) {
@@ -101,6 +127,25 @@ public class OneResourceBuilder
 		}
 	}
 
+	/**
+	 * Returns the index of the senses of each lexeme as a {@link CompactRelationMap}, so that the lexemes and
+	 * senses can be processed by their interned indexes. If the index has not been filled by fillIndexTables(),
+	 * a compacted copy is returned.
+	 */
+	public CompactRelationMap getLexemeSenses()
+	{
+		if (lemmaPosSenses instanceof CompactRelationMap) {
+			return (CompactRelationMap) lemmaPosSenses;
+		}
+		CompactRelationMap.Builder lexemeSenses = new CompactRelationMap.Builder();
+		for (Map.Entry<String, Set<String>> entry : lemmaPosSenses.entrySet()) {
+			for (String sense : entry.getValue()) {
+				lexemeSenses.add(entry.getKey(), sense);
+			}
+		}
+		return lexemeSenses.build();
+	}
+
 
 	/**
 	 * This method creates a graph from the semantic relations encoded in UBY
@@ -111,12 +156,9 @@ public class OneResourceBuilder
 	 */
 	public void builtRelationGraphFromDb(boolean filterByGloss) throws ClassNotFoundException, SQLException, IOException
 	{
-		FileOutputStream outstream;
-		PrintStream p;
-		outstream = new FileOutputStream("target/"+prefix_string+"_"+(synset?"synset":"sense")+"_relationgraph"+(filterByGloss?"_filtered":"")+".txt");
-		p = new PrintStream( outstream );
-		StringBuilder sb = new StringBuilder();
-		Statement statement = connection.createStatement();
+		EdgeList edges = new EdgeList();
+		Statement statement = connection.createStatement(java.sql.ResultSet.TYPE_FORWARD_ONLY, java.sql.ResultSet.CONCUR_READ_ONLY);
+		statement.setFetchSize(Integer.MIN_VALUE);
 
 		ResultSet rs;
 		if(synset) {
@@ -132,85 +174,64 @@ public class OneResourceBuilder
 				rs =	statement.executeQuery("SELECT senseId,target FROM SenseRelation where senseId like '"+prefix_string+"%'");
 			}
 		}
-		int max_id = 0;
-		int edge_count = 0;
-
+		String separator = (synset ? "ynset_" : "ense_");
 		while(rs.next())
 		{
 			String id1 = rs.getString(1);
 			String id2 = rs.getString(2);
-	//		System.out.println(id1+" "+id2);
-		//	System.out.println(count);
 			if(id2 == null) {
 				continue;
 			}
-			if(synset)
+			id1 = prefix+id1.split(separator)[1];
+			id2 = prefix+id2.split(separator)[1];
+			if(filterByGloss && !glossContainsLemma(id1, id2))
 			{
-				id1 = prefix+id1.split("ynset_")[1];
-				id2 = prefix+id2.split("ynset_")[1];
-			}
-			else
-			{
-				id1 = prefix+id1.split("ense_")[1];
-				id2 = prefix+id2.split("ense_")[1];
-			}
-			//HashSet<String> lemmas1 = senseIdLemma.get(id1);
-			HashSet<String> lemmas2 = senseIdLemma.get(id2);
-			String gloss1;
-			if(filterByGloss) {
-                gloss1 = senseIdGloss.get(id1);
-            }
-            else {
-                gloss1 = senseIdGlossPos.get(id1);
-            }
-			if(gloss1 == null) {
-				gloss1 = "";
+				continue;
 			}
-			String[] gloss_array1 = gloss1.split(" ");
-
-			//String[] gloss2 = senseIdGlossPos.get(id2).split(" ");
-			for(String s : gloss_array1)
-			{
-				if(lemmas2.contains(s) || !filterByGloss )
-				{
-					int id1_num = Integer.parseInt(id1);
-					int id2_num = Integer.parseInt(id2);
-					if(id1_num > max_id) {
-						max_id = id1_num;
-					}
-					if(id2_num > max_id) {
-						max_id = id2_num;
-					}
-
-//					sb.append("a "+id1_num+" "+id2_num+" 1\n");
-					sb.append("e"+edge_count+++" "+id1_num+" "+id2_num+Global.LF);
-					if(prefix != Global.FN_prefix)
-					{
-						//sb.append("a "+id2_num+" "+id1_num+" 1\n");
-						//count+=1;
-					}
-
-					break;
+			edges.add(Integer.parseInt(id1), Integer.parseInt(id2));
+		}
+		rs.close();
+		statement.close();
 
-					//System.out.println(senseIdGlossPos.get(id1));
-//					for(String l : lemmas2) {
-//						System.out.println(l);
-//					}
-				}
+		edges.writeGrphText("target/"+prefix_string+"_"+(synset?"synset":"sense")+"_relationgraph"+(filterByGloss?"_filtered":"")+".txt");
+		graphEdges.addAll(edges);
+	}
 
+	/**
+	 * Returns true if the gloss of the first sense contains one of the lemmas of the second sense
+	 */
+	private boolean glossContainsLemma(String id1, String id2)
+	{
+		Set<String> lemmas2 = senseIdLemma.get(id2);
+		String gloss1 = senseIdGloss.get(id1);
+		if(lemmas2 == null || gloss1 == null) {
+			return false;
+		}
+		for(String s : gloss1.split(" "))
+		{
+			if(lemmas2.contains(s)) {
+				return true;
 			}
-
 		}
+		return false;
+	}
 
-	//	String header = "p sp "+max_id+" "+count;
-		String header = "graph class=grph.in_memory.InMemoryGrph";
-		p.println(header);
-		p.print(sb.toString());
-		p.flush();
-		p.close();
-		rs.close();
-		statement.close();
-
+	/**
+	 * This method writes the relation graph and the monosemous links created so far as one graph without repeated edges.
+	 * The binary edge file is memory-mapped by {@link CalculateDijkstraWSA}, so it need not be parsed again
+	 *
+	 * @param file the graph file
+	 * @param binary If true a binary edge file will be written, otherwise a text file
+	 */
+	public void writeGraph(String file, boolean binary) throws IOException
+	{
+		graphEdges.compact();
+		if(binary) {
+			graphEdges.writeBinary(file);
+		}
+		else {
+			graphEdges.writeGrphText(file);
+		}
 	}
 
 	/**
@@ -332,6 +353,9 @@ public class OneResourceBuilder
 		statement.setFetchSize(Integer.MIN_VALUE);
 		ResultSet rs;
 		final Pattern CLEANUP = Pattern.compile("[^A-Za-z0-9äöüÄÖÜß]+");
+		if(!(lemmaFreqInGlosses instanceof TreeMap)) {
+			lemmaFreqInGlosses = new TreeMap<String, Integer>(lemmaFreqInGlosses);
+		}
 		if(synset)
 		{
 			rs = statement.executeQuery("SELECT synsetId, writtenText FROM Definition join TextRepresentation_Definition where synsetId like '"+prefix_string+"%' and Definition.definitionId = TextRepresentation_Definition.definitionId and length(writtenText)>0");
@@ -410,6 +434,9 @@ public class OneResourceBuilder
 		statement.setFetchSize(Integer.MIN_VALUE);
 		ResultSet rs;
 		final Pattern CLEANUP = Pattern.compile("[^A-Za-z0-9äöüÄÖÜß]+");
+		if(!(lemmaFreqInGlosses instanceof TreeMap)) {
+			lemmaFreqInGlosses = new TreeMap<String, Integer>(lemmaFreqInGlosses);
+		}
 		if(synset)
 		{
 			rs = statement.executeQuery("SELECT synsetId, writtenText FROM Definition join TextRepresentation_Definition where synsetId like '"+prefix_string+"%' and Definition.definitionId = TextRepresentation_Definition.definitionId and length(writtenText)>0");
@@ -618,6 +645,9 @@ public class OneResourceBuilder
 		if(lexemeFreqInGlosses == null) {
 			lexemeFreqInGlosses = new TreeMap<String, Integer>();
 		}
+		else if(!(lexemeFreqInGlosses instanceof TreeMap)) {
+			lexemeFreqInGlosses = new TreeMap<String, Integer>(lexemeFreqInGlosses);
+		}
 
 		int i = 0;
 		FileOutputStream outstream;
@@ -691,6 +721,97 @@ public class OneResourceBuilder
 		}
 
 	}
+	/**
+	 * This method lemmatizes and POS-tags the given gloss files like {@link #lemmatizePOStagGlossFileInChunks(int)},
+	 * but creates the UIMA pipeline only once and tags each gloss on its own, using the given number of threads.
+	 * The tagged glosses are written in the order of the gloss file while the remaining glosses are still processed.
+	 *
+	 * @param threads the number of glosses to be tagged at the same time
+	 *
+	 */
+
+	public void lemmatizePOStagGlossFileParallel(int threads)
+	{
+		GlossTagger tagger = null;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try
+		{
+			tagger = new GlossTagger(language, threads);
+			final GlossTagger gloss_tagger = tagger;
+			FileReader in = new FileReader("target/"+prefix_string+"_"+(synset?"synset":"sense")+"_glosses.txt");
+			BufferedReader input_reader =  new BufferedReader(in);
+			PrintStream p = new PrintStream(new BufferedOutputStream(new FileOutputStream("target/"+prefix_string+"_"+(synset?"synset":"sense")+"_glosses_tagged.txt")));
+			lexemeFreqInGlosses = new TreeMap<String, Integer>();
+
+			// Glosses submitted to the executor, but not yet written
+			ArrayDeque<String> pending_ids = new ArrayDeque<String>();
+			ArrayDeque<Future<String[]>> pending_results = new ArrayDeque<Future<String[]>>();
+			int line_count = 0;
+			String line;
+			while((line =input_reader.readLine())!=null)
+			{
+				int tab = line.indexOf('\t');
+				String id = (tab < 0 ? line : line.substring(0, tab));
+				final String gloss = (tab < 0 ? "" : line.substring(tab + 1).trim());
+				pending_ids.add(id);
+				pending_results.add(executor.submit(new Callable<String[]>()
+				{
+					@Override
+					public String[] call() throws Exception
+					{
+						return gloss.isEmpty() ? new String[0] : gloss_tagger.tag(gloss);
+					}
+				}));
+				if(pending_results.size() >= 64 * threads)
+				{
+					writeTaggedGloss(p, pending_ids.poll(), pending_results.poll().get());
+				}
+				if(++line_count % 10000 == 0)
+				{
+					System.out.println("Glosses tagged "+line_count);
+				}
+			}
+			input_reader.close();
+			while(!pending_results.isEmpty())
+			{
+				writeTaggedGloss(p, pending_ids.poll(), pending_results.poll().get());
+			}
+			p.close();
+
+			PrintStream p_freq = new PrintStream(new FileOutputStream("target/"+prefix_string+"_"+(synset?"synset":"sense")+"_lexeme_frequencies.txt"));
+			for(String lexeme : lexemeFreqInGlosses.keySet())
+			{
+				p_freq.println(lexeme+"\t"+lexemeFreqInGlosses.get(lexeme));
+			}
+			p_freq.close();
+		}
+		catch(Exception e)
+		{
+			e.printStackTrace();
+		}
+		finally
+		{
+			executor.shutdownNow();
+			if(tagger != null) {
+				tagger.destroy();
+			}
+		}
+	}
+
+	private void writeTaggedGloss(PrintStream p, String id, String[] lexemes)
+	{
+		StringBuilder sb = new StringBuilder(id).append('\t');
+		for(int i = 0; i < lexemes.length; i++)
+		{
+			if(i > 0) {
+				sb.append(' ');
+			}
+			sb.append(lexemes[i]);
+			Integer freq = lexemeFreqInGlosses.get(lexemes[i]);
+			lexemeFreqInGlosses.put(lexemes[i], freq == null ? 1 : freq+1);
+		}
+		p.println(sb);
+	}
 	/**
 	 * This method fills the index tables which are required for downstream processing
 	 *
@@ -711,15 +832,18 @@ public class OneResourceBuilder
 
 
 			ResultSet rs =	statement.executeQuery("select distinct LexicalEntry.lemmaId,writtenForm from FormRepresentation_Lemma join LexicalEntry where LexicalEntry.lexicalEntryId like '"+prefix_string+"%' and LexicalEntry.lemmaId = FormRepresentation_Lemma.lemmaId");
-
+			CompactStringMap.Builder writtenForms = new CompactStringMap.Builder();
 			while(rs.next())
 			{
 				String lemmaId = rs.getString(1);
 				String writtenForm = rs.getString(2);
-						lemmaIdWrittenForm.put(lemmaId,writtenForm);
+				if(writtenForm != null) {
+						writtenForms.put(lemmaId,writtenForm);
+				}
 
 			}
 			rs.close();
+			lemmaIdWrittenForm = writtenForms.build();
 			}
 
 			if(lemmaFreqInGlosses.size()==0) {
@@ -736,6 +860,9 @@ public class OneResourceBuilder
 				 input_reader.close();
 
 			}
+			if(!(lemmaFreqInGlosses instanceof CompactFrequencyMap)) {
+				lemmaFreqInGlosses = new CompactFrequencyMap(lemmaFreqInGlosses);
+			}
 			System.out.println("Lemma frequencies filled for "+this.prefix_string);
 			try
 			{
@@ -756,6 +883,9 @@ public class OneResourceBuilder
 					input_reader.close();
 
 			}
+			if(!(lexemeFreqInGlosses instanceof CompactFrequencyMap)) {
+				lexemeFreqInGlosses = new CompactFrequencyMap(lexemeFreqInGlosses);
+			}
 			System.out.println("Lexeme frequencies filled for "+this.prefix_string);
 			}
 			catch(FileNotFoundException nfe)
@@ -767,6 +897,7 @@ public class OneResourceBuilder
 				senseIdGloss = new TreeMap<String, String>();
 				 FileReader in = new FileReader("target/"+prefix_string+"_"+(synset?"synset":"sense")+"_glosses.txt");
 				 BufferedReader input_reader =  new BufferedReader(in);
+				 CompactStringMap.Builder glosses = new CompactStringMap.Builder();
 				 String line;
 				 while((line =input_reader.readLine())!=null)
 				 {
@@ -776,9 +907,10 @@ public class OneResourceBuilder
 						continue;
 					}
 					 String gloss = line.split("\t")[1];
-					 senseIdGloss.put(id,gloss);
+					 glosses.put(id,gloss);
 				 }
 				input_reader.close();
+				senseIdGloss = glosses.build();
 			}
 
 			System.out.println("Glosses filled for "+this.prefix_string);
@@ -788,6 +920,7 @@ public class OneResourceBuilder
 				senseIdGlossPos = new TreeMap<String, String>();
 				 FileReader in = new FileReader("target/"+prefix_string+"_"+(synset?"synset":"sense")+"_glosses_tagged.txt");
 				 BufferedReader input_reader =  new BufferedReader(in);
+				 CompactStringMap.Builder glosses = new CompactStringMap.Builder();
 				 String line;
 				 while((line =input_reader.readLine())!=null)
 				 {
@@ -797,9 +930,10 @@ public class OneResourceBuilder
 							}
 
 					 String gloss = line.split("\t")[1];
-					 senseIdGlossPos.put(id,gloss);
+					 glosses.put(id,gloss);
 				 }
 					input_reader.close();
+					senseIdGlossPos = glosses.build();
 
 			}
 			System.out.println("Tagged glosses filled for "+this.prefix_string);
@@ -814,6 +948,7 @@ public class OneResourceBuilder
 			count = 0;
 			if(lemmaPosSenses == null || lemmaPosSenses.size()==0) {
 
+			CompactRelationMap.Builder lexemeSenses = new CompactRelationMap.Builder();
 			ResultSet rs =	statement.executeQuery("select distinct lemmaId,partOfSpeech, "+ (synset ? "synsetId" : "senseId") +" from LexicalEntry join Sense where LexicalEntry.lexicalEntryId like '"+prefix_string+"%' and LexicalEntry.lexicalEntryId = Sense.lexicalEntryId");
 			while(rs.next())
 			{
@@ -851,21 +986,12 @@ public class OneResourceBuilder
 				{
 					key =lemma.toLowerCase();
 				}
-				if(!senseIdLemma.containsKey(senseId))
-				{
-					senseIdLemma.put(senseId, new HashSet<String>());
-				}
-				senseIdLemma.get(senseId).add(key);
-
-
-				if(!lemmaPosSenses.containsKey(key))
-				{
-					lemmaPosSenses.put(key, new HashSet<String>());
-				}
-				lemmaPosSenses.get(key).add(senseId);
+				lexemeSenses.add(key, senseId);
 
 
 			}
+			lemmaPosSenses = lexemeSenses.build();
+			senseIdLemma = lexemeSenses.buildInverse();
 //			for(String key : lemmaPosSenses.keySet())
 //			{
 //				System.out.println(key+" "+lemmaPosSenses.get(key).size());
@@ -887,86 +1013,38 @@ public class OneResourceBuilder
 
 	public void createMonosemousLinks(int phi) throws ClassNotFoundException, SQLException, IOException
 		{
-
-			StringBuilder sb = new StringBuilder();
-			int count = 0;
-			int max_id = 0;
-			FileOutputStream outstream;
-			PrintStream p;
+			if(lexemeFreqInGlosses == null || lexemeFreqInGlosses.size() ==0) {
+				System.err.println("Index Tables not initialized");
+			}
+			EdgeList edges = new EdgeList();
 			FileReader in = new FileReader("target/"+prefix_string+"_"+(synset?"synset":"sense")+"_glosses_tagged.txt");
 			BufferedReader input_reader =  new BufferedReader(in);
-			outstream = new FileOutputStream("target/"+prefix_string+"_"+(synset?"synset":"sense")+"_"+(pos ? "Pos":"noPos")+"_monosemousLinks"+"_"+phi+".txt");
-			p = new PrintStream( outstream );
-			int edge_count=0;
 			String line;
 			 while((line =input_reader.readLine())!=null)
 			 {
-				 String id1 = line.split("\t")[0];
-				 System.out.println("id1 :" +id1);
-				 if((line.split("\t")).length<2) { //empty gloss
+				 int tab = line.indexOf('\t');
+				 if(tab < 0 || tab == line.length() - 1) { //empty gloss
 					continue;
 				}
-				 String[] lexemes = line.split("\t")[1].split(" ");
-				 for(String lexeme:lexemes)
+				 int id1 = Integer.parseInt(line.substring(0, tab));
+				 for(String lexeme : line.substring(tab + 1).split(" "))
 				 {
-					 if(lexemeFreqInGlosses == null || lexemeFreqInGlosses.size() ==0) {
-							System.err.println("Index Tables not initialized");
-					}
-
-					 if(lexemeFreqInGlosses.get(lexeme) == null || lexemeFreqInGlosses.get(lexeme)>phi) //too frequent
+					 Integer freq = lexemeFreqInGlosses.get(lexeme);
+					 if(freq == null || freq > phi) //too frequent
 					 {
 						 continue;
 					 }
-					 if(pos)
+					 Set<String> senses = lemmaPosSenses.get(pos ? lexeme : lexeme.split("#")[0]);
+					 if(senses != null && senses.size()==1)
 					 {
-						 if(lemmaPosSenses.get(lexeme)!= null && lemmaPosSenses.get(lexeme).size()==1)
-						 {
-
-							 String id2= lemmaPosSenses.get(lexeme).iterator().next();
-							 System.out.println("id2 :" +id2);
-							 count+=2;
-							int id1_num = Integer.parseInt(id1); System.out.println("parsed id1 :" +id1);
-							int id2_num = Integer.parseInt(id2); System.out.println("parsed id2 :" +id2);
-							if(id1_num > max_id) {
-								max_id = id1_num;
-							}
-							if(id2_num > max_id) {
-								max_id = id2_num;
-							}
-//							sb.append("a "+id1_num+" "+id2_num+" 1\n");
-//							sb.append("a "+id2_num+" "+id1_num+" 1\n");
-							sb.append("e"+edge_count+++" "+id1_num+" "+id2_num+Global.LF);
-						 }
-					 }
-					 else
-					 {
-						 String lemma = lexeme.split("#")[0];
-						 if(lemmaPosSenses.get(lemma)!= null && lemmaPosSenses.get(lemma).size()==1)
-						 {
-							 String id2= lemmaPosSenses.get(lemma).iterator().next();
-							 count+=2;
-							int id1_num = Integer.parseInt(id1);
-							int id2_num = Integer.parseInt(id2);
-							if(id1_num > max_id) {
-							max_id = id1_num;
-							}
-							if(id2_num > max_id) {
-								max_id = id2_num;
-							}
-							sb.append("e"+edge_count+++" "+id1_num+" "+id2_num+Global.LF);
-							//sb.append("a "+id1_num+" "+id2_num+" 1\n");
-						//	sb.append("a "+id2_num+" "+id1_num+" 1\n");
-						 }
+						 edges.add(id1, Integer.parseInt(senses.iterator().next()));
 					 }
 				 }
 			 }
 			 input_reader.close();
-			//	String header = "p sp "+max_id+" "+count;
-			 String header = "graph class=grph.in_memory.InMemoryGrph";
-				p.println(header);
-				p.print(sb.toString());
-				p.flush();
-				p.close();
+
+			 edges.writeGrphText("target/"+prefix_string+"_"+(synset?"synset":"sense")+"_"+(pos ? "Pos":"noPos")+"_monosemousLinks"+"_"+phi+".txt");
+			 graphEdges.addAll(edges);
 		}
 
 }
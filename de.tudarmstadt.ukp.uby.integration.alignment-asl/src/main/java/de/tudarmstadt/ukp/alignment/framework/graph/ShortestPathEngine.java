@@ -0,0 +1,437 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.alignment.framework.graph;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Computes shortest path lengths in the undirected, unweighted graphs written
+ * by {@link OneResourceBuilder} and {@link JointGraphBuilder}. The graph is
+ * held in primitive arrays: the sorted node IDs and, for each node, the range
+ * of its neighbours in a single adjacency array (compressed sparse rows).
+ * As all edges have the same weight, a breadth-first search yields the same
+ * distances as Dijkstra's algorithm.
+ *
+ * Searches may be bounded by a maximum depth, as the alignment only considers
+ * short paths (see {@link CreateAlignmentFromGraphOutput}). Pairs without a
+ * path within this depth are reported as unreachable.
+ */
+public class ShortestPathEngine
+{
+	/** Distance returned for pairs which are not connected (within the maximum depth). */
+	public static final int UNREACHABLE = -1;
+
+	/** Minimum number of source nodes processed by a single fork-join task. */
+	private static final int SOURCES_PER_TASK = 16;
+
+	private final int[] node_ids;
+	private final int[] offsets;
+	private final int[] neighbours;
+
+	/**
+	 * The search state of each thread, which is shared by all engines and sized for the largest
+	 * graph searched by the thread, so that an engine no longer used is not kept alive by it.
+	 */
+	private static final ThreadLocal<SearchState> STATES = new ThreadLocal<SearchState>()
+	{
+		@Override
+		protected SearchState initialValue()
+		{
+			return new SearchState();
+		}
+	};
+
+	/**
+	 * Creates an engine for the given undirected edges. Self-loops are ignored.
+	 *
+	 * @param sources the first node of each edge
+	 * @param targets the second node of each edge
+	 * @param edge_count the number of edges to be read from the arrays
+	 */
+	public ShortestPathEngine(int[] sources, int[] targets, int edge_count)
+	{
+		this(EdgeList.toCsr(sources, targets, edge_count));
+	}
+
+	/** Creates an engine for the given undirected edges. Self-loops are ignored. */
+	public ShortestPathEngine(EdgeList edges)
+	{
+		this(edges.toCsr());
+	}
+
+	private ShortestPathEngine(int[][] csr)
+	{
+		node_ids = csr[0];
+		offsets = csr[1];
+		neighbours = csr[2];
+	}
+
+	/**
+	 * Loads a graph file, which is either a binary edge file written by
+	 * {@link EdgeList#writeBinary(String)} or a text file with lines of the form
+	 * <code>e&lt;number&gt; &lt;id1&gt; &lt;id2&gt;</code>. All other lines
+	 * of a text file, such as the header, are skipped, while a binary file is
+	 * loaded into the heap without parsing.
+	 *
+	 * @param graph_file the graph file
+	 * @return an engine for the graph
+	 * @throws IOException if the file cannot be read
+	 */
+	public static ShortestPathEngine load(String graph_file) throws IOException
+	{
+		if (EdgeList.isBinary(graph_file)) {
+			return new ShortestPathEngine(EdgeList.readBinary(graph_file));
+		}
+		return new ShortestPathEngine(EdgeList.readGrphText(graph_file));
+	}
+
+	/** Returns the number of distinct nodes of the graph. */
+	public int getNodeCount()
+	{
+		return node_ids.length;
+	}
+
+	/** Returns the number of undirected edges of the graph, without self-loops. */
+	public int getEdgeCount()
+	{
+		return neighbours.length / 2;
+	}
+
+	/** Returns true if the node with the given ID has at least one edge. */
+	public boolean containsNode(int id)
+	{
+		return Arrays.binarySearch(node_ids, id) >= 0;
+	}
+
+	/**
+	 * Returns the length of the shortest path between the given nodes, or
+	 * {@link #UNREACHABLE} if they are not connected by a path of at most
+	 * the given length or not part of the graph. The search alternates
+	 * between both ends, always expanding the smaller frontier.
+	 */
+	public int getShortestPathLength(int id1, int id2, int max_depth)
+	{
+		int source = Arrays.binarySearch(node_ids, id1);
+		int target = Arrays.binarySearch(node_ids, id2);
+		if (source < 0 || target < 0) {
+			return UNREACHABLE;
+		}
+		return search(source, target, max_depth, state());
+	}
+
+	/**
+	 * Computes the shortest path lengths of the given pairs using the given
+	 * number of threads. Pairs sharing their first node are answered by
+	 * a single search.
+	 *
+	 * @param ids1 the first node of each pair
+	 * @param ids2 the second node of each pair
+	 * @param max_depth the maximum path length to be searched for
+	 * @param threads the number of threads
+	 * @return the length of each pair, or {@link #UNREACHABLE}
+	 */
+	public int[] getShortestPathLengths(int[] ids1, int[] ids2, int max_depth, int threads)
+	{
+		if (ids1.length != ids2.length) {
+			throw new IllegalArgumentException("Number of first and second nodes differs: "
+					+ ids1.length + " != " + ids2.length);
+		}
+		if (threads < 1) {
+			throw new IllegalArgumentException("Number of threads must be positive: " + threads);
+		}
+
+		// Sort the pairs by their first node, keeping the original position.
+		long[] pairs = new long[ids1.length];
+		for (int i = 0; i < ids1.length; i++) {
+			pairs[i] = ((long) ids1[i] << 32) | i;
+		}
+		Arrays.sort(pairs);
+		int[] group_starts = new int[pairs.length + 1];
+		int group_count = 0;
+		for (int i = 0; i < pairs.length; i++) {
+			if (i == 0 || (pairs[i] >> 32) != (pairs[i - 1] >> 32)) {
+				group_starts[group_count++] = i;
+			}
+		}
+		group_starts[group_count] = pairs.length;
+
+		int[] result = new int[ids1.length];
+		SearchTask task = new SearchTask(ids2, pairs, group_starts, 0, group_count,
+				max_depth, result);
+		if (threads == 1) {
+			task.compute();
+		}
+		else {
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			try {
+				pool.invoke(task);
+			}
+			finally {
+				pool.shutdown();
+			}
+		}
+		return result;
+	}
+
+	/** Answers the pairs of one group, i.e., with the same first node. */
+	protected void searchGroup(int[] ids2, long[] pairs, int from, int to,
+			int max_depth, int[] result)
+	{
+		SearchState state = state();
+		int source = Arrays.binarySearch(node_ids, (int) (pairs[from] >> 32));
+		int[] targets = new int[to - from];
+		int target_count = 0;
+		for (int i = from; i < to; i++) {
+			int index = (int) pairs[i];
+			targets[i - from] = (source < 0 ? -1 : Arrays.binarySearch(node_ids, ids2[index]));
+			if (targets[i - from] >= 0) {
+				target_count++;
+			}
+		}
+
+		if (target_count == 1) {
+			for (int i = from; i < to; i++) {
+				int target = targets[i - from];
+				result[(int) pairs[i]] = (target < 0 ? UNREACHABLE
+						: search(source, target, max_depth, state));
+			}
+			return;
+		}
+		if (target_count > 1) {
+			searchAll(source, targets, max_depth, state);
+		}
+		for (int i = from; i < to; i++) {
+			int target = targets[i - from];
+			result[(int) pairs[i]] = (target >= 0 && state.forward_stamps[target] == state.stamp
+					? state.forward_distances[target] : UNREACHABLE);
+		}
+	}
+
+	/** Returns the search state of the current thread with enough space for the nodes of this graph. */
+	private SearchState state()
+	{
+		SearchState result = STATES.get();
+		result.ensureCapacity(node_ids.length);
+		return result;
+	}
+
+	/** Bidirectional breadth-first search between two internal node indexes. */
+	private int search(int source, int target, int max_depth, SearchState state)
+	{
+		if (source == target) {
+			return 0;
+		}
+		int stamp = state.nextStamp();
+		int[] forward_stamps = state.forward_stamps;
+		int[] backward_stamps = state.backward_stamps;
+		int[] forward_distances = state.forward_distances;
+		int[] backward_distances = state.backward_distances;
+		int[] forward_queue = state.forward_queue;
+		int[] backward_queue = state.backward_queue;
+
+		forward_stamps[source] = stamp;
+		forward_distances[source] = 0;
+		forward_queue[0] = source;
+		backward_stamps[target] = stamp;
+		backward_distances[target] = 0;
+		backward_queue[0] = target;
+		int forward_head = 0;
+		int forward_tail = 1;
+		int backward_head = 0;
+		int backward_tail = 1;
+		int forward_depth = 0;
+		int backward_depth = 0;
+
+		while (forward_head < forward_tail && backward_head < backward_tail
+				&& forward_depth + backward_depth < max_depth) {
+			int best = Integer.MAX_VALUE;
+			if (forward_tail - forward_head <= backward_tail - backward_head) {
+				// Expand one complete level of the forward search.
+				int level_end = forward_tail;
+				for (; forward_head < level_end; forward_head++) {
+					int node = forward_queue[forward_head];
+					for (int j = offsets[node]; j < offsets[node + 1]; j++) {
+						int neighbour = neighbours[j];
+						if (backward_stamps[neighbour] == stamp) {
+							best = Math.min(best, forward_depth + 1 + backward_distances[neighbour]);
+						}
+						if (forward_stamps[neighbour] != stamp) {
+							forward_stamps[neighbour] = stamp;
+							forward_distances[neighbour] = forward_depth + 1;
+							forward_queue[forward_tail++] = neighbour;
+						}
+					}
+				}
+				forward_depth++;
+			}
+			else {
+				int level_end = backward_tail;
+				for (; backward_head < level_end; backward_head++) {
+					int node = backward_queue[backward_head];
+					for (int j = offsets[node]; j < offsets[node + 1]; j++) {
+						int neighbour = neighbours[j];
+						if (forward_stamps[neighbour] == stamp) {
+							best = Math.min(best, backward_depth + 1 + forward_distances[neighbour]);
+						}
+						if (backward_stamps[neighbour] != stamp) {
+							backward_stamps[neighbour] = stamp;
+							backward_distances[neighbour] = backward_depth + 1;
+							backward_queue[backward_tail++] = neighbour;
+						}
+					}
+				}
+				backward_depth++;
+			}
+			if (best != Integer.MAX_VALUE) {
+				return best;
+			}
+		}
+		return UNREACHABLE;
+	}
+
+	/**
+	 * Breadth-first search from the source, which stops as soon as all
+	 * targets are reached. The distances are left in the forward arrays
+	 * of the state.
+	 */
+	private void searchAll(int source, int[] targets, int max_depth, SearchState state)
+	{
+		int stamp = state.nextStamp();
+		int[] forward_stamps = state.forward_stamps;
+		int[] target_stamps = state.backward_stamps;
+		int[] distances = state.forward_distances;
+		int[] queue = state.forward_queue;
+
+		int remaining = 0;
+		for (int target : targets) {
+			if (target >= 0 && target_stamps[target] != stamp) {
+				target_stamps[target] = stamp;
+				remaining++;
+			}
+		}
+
+		forward_stamps[source] = stamp;
+		distances[source] = 0;
+		queue[0] = source;
+		if (target_stamps[source] == stamp) {
+			remaining--;
+		}
+		int head = 0;
+		int tail = 1;
+		while (head < tail && remaining > 0) {
+			int node = queue[head++];
+			int depth = distances[node] + 1;
+			if (depth > max_depth) {
+				break;
+			}
+			for (int j = offsets[node]; j < offsets[node + 1]; j++) {
+				int neighbour = neighbours[j];
+				if (forward_stamps[neighbour] != stamp) {
+					forward_stamps[neighbour] = stamp;
+					distances[neighbour] = depth;
+					queue[tail++] = neighbour;
+					if (target_stamps[neighbour] == stamp) {
+						remaining--;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Working arrays of one thread. Nodes are marked as visited by the
+	 * stamp of the current search, so the arrays need not be cleared.
+	 */
+	private static class SearchState
+	{
+		int[] forward_stamps = new int[0];
+		int[] backward_stamps = new int[0];
+		int[] forward_distances = new int[0];
+		int[] backward_distances = new int[0];
+		int[] forward_queue = new int[0];
+		int[] backward_queue = new int[0];
+		int stamp;
+
+		void ensureCapacity(int node_count)
+		{
+			if (forward_stamps.length < node_count) {
+				forward_stamps = new int[node_count];
+				backward_stamps = new int[node_count];
+				forward_distances = new int[node_count];
+				backward_distances = new int[node_count];
+				forward_queue = new int[node_count];
+				backward_queue = new int[node_count];
+				stamp = 0;
+			}
+		}
+
+		int nextStamp()
+		{
+			if (++stamp == Integer.MAX_VALUE) {
+				Arrays.fill(forward_stamps, 0);
+				Arrays.fill(backward_stamps, 0);
+				stamp = 1;
+			}
+			return stamp;
+		}
+	}
+
+	/** Splits the groups of pairs among the threads of the pool. */
+	private class SearchTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final int[] ids2;
+		private final long[] pairs;
+		private final int[] group_starts;
+		private final int from;
+		private final int to;
+		private final int max_depth;
+		private final int[] result;
+
+		SearchTask(int[] ids2, long[] pairs, int[] group_starts, int from, int to,
+				int max_depth, int[] result)
+		{
+			this.ids2 = ids2;
+			this.pairs = pairs;
+			this.group_starts = group_starts;
+			this.from = from;
+			this.to = to;
+			this.max_depth = max_depth;
+			this.result = result;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if (to - from <= SOURCES_PER_TASK) {
+				for (int group = from; group < to; group++) {
+					searchGroup(ids2, pairs, group_starts[group], group_starts[group + 1],
+							max_depth, result);
+				}
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new SearchTask(ids2, pairs, group_starts, from, middle, max_depth, result),
+					new SearchTask(ids2, pairs, group_starts, middle, to, max_depth, result));
+		}
+	}
+}
@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.alignment.framework.graph;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+
+/**
+ * An immutable, sorted set of strings, which maps each string to its index.
+ * The strings are stored as UTF-8 in a single byte array, such that a
+ * dictionary of n strings of total length l takes about l + 4n bytes.
+ * The strings are sorted by their UTF-8 bytes, which is the order of
+ * {@link String#compareTo(String)} for all characters below U+E000.
+ * This is the key dictionary of the compact index tables of
+ * {@link OneResourceBuilder}.
+ */
+public class StringDictionary
+{
+	static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private static final Comparator<byte[]> BYTE_ORDER = new Comparator<byte[]>()
+	{
+		@Override
+		public int compare(byte[] o1, byte[] o2)
+		{
+			return StringDictionary.compare(o1, 0, o1.length, o2);
+		}
+	};
+
+	private final byte[] data;
+	private final int[] offsets;
+
+	/** Creates a dictionary of the distinct strings of the given collection. */
+	public StringDictionary(Collection<String> strings)
+	{
+		byte[][] encoded = new byte[strings.size()][];
+		int count = 0;
+		for (String string : strings) {
+			encoded[count++] = string.getBytes(UTF8);
+		}
+		Arrays.sort(encoded, BYTE_ORDER);
+
+		int size = 0;
+		int length = 0;
+		for (int i = 0; i < encoded.length; i++) {
+			if (size == 0 || !Arrays.equals(encoded[size - 1], encoded[i])) {
+				encoded[size++] = encoded[i];
+				length += encoded[i].length;
+			}
+		}
+		data = new byte[length];
+		offsets = new int[size + 1];
+		for (int i = 0; i < size; i++) {
+			System.arraycopy(encoded[i], 0, data, offsets[i], encoded[i].length);
+			offsets[i + 1] = offsets[i] + encoded[i].length;
+		}
+	}
+
+	/** Returns the number of strings. */
+	public int size()
+	{
+		return offsets.length - 1;
+	}
+
+	/**
+	 * Returns the index of the given string, or -1 if it is not contained.
+	 * The string is compared with the stored bytes as it is encoded, without
+	 * allocating its UTF-8 bytes.
+	 */
+	public int indexOf(String string)
+	{
+		int low = 0;
+		int high = size() - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			int comparison = compare(data, offsets[middle], offsets[middle + 1], string);
+			if (comparison < 0) {
+				low = middle + 1;
+			}
+			else if (comparison > 0) {
+				high = middle - 1;
+			}
+			else {
+				return middle;
+			}
+		}
+		return -1;
+	}
+
+	/** Returns the string of the given index. */
+	public String get(int index)
+	{
+		return new String(data, offsets[index], offsets[index + 1] - offsets[index], UTF8);
+	}
+
+	/**
+	 * Compares a range of the given bytes with the UTF-8 encoding of the given
+	 * key as unsigned bytes. Like {@link String#getBytes(Charset)}, an unpaired
+	 * surrogate is encoded as '?'.
+	 */
+	private static int compare(byte[] bytes, int from, int to, String key)
+	{
+		int position = from;
+		for (int i = 0; i < key.length(); ) {
+			int code_point = key.codePointAt(i);
+			i += Character.charCount(code_point);
+			if (code_point >= Character.MIN_SURROGATE && code_point <= Character.MAX_SURROGATE) {
+				code_point = '?';
+			}
+			int length = (code_point < 0x80 ? 1 : code_point < 0x800 ? 2 : code_point < 0x10000 ? 3 : 4);
+			for (int j = 0; j < length; j++) {
+				if (position == to) {
+					return -1;
+				}
+				int difference = (bytes[position++] & 0xFF) - utf8Byte(code_point, length, j);
+				if (difference != 0) {
+					return difference;
+				}
+			}
+		}
+		return to - position;
+	}
+
+	/** Returns the byte with the given index of the UTF-8 encoding of a code point of the given length. */
+	private static int utf8Byte(int code_point, int length, int index)
+	{
+		if (length == 1) {
+			return code_point;
+		}
+		int shift = 6 * (length - 1 - index);
+		if (index == 0) {
+			// The lead byte holds as many leading ones as the sequence has bytes.
+			return ((0xFF00 >> length) & 0xFF) | (code_point >> shift);
+		}
+		return 0x80 | ((code_point >> shift) & 0x3F);
+	}
+
+	/** Compares a range of the given bytes with the given key as unsigned bytes. */
+	private static int compare(byte[] bytes, int from, int to, byte[] key)
+	{
+		int length = Math.min(to - from, key.length);
+		for (int i = 0; i < length; i++) {
+			int difference = (bytes[from + i] & 0xFF) - (key[i] & 0xFF);
+			if (difference != 0) {
+				return difference;
+			}
+		}
+		return (to - from) - key.length;
+	}
+}
@@ -0,0 +1,300 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.alignment.framework.pipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import de.tudarmstadt.ukp.alignment.framework.Global;
+import de.tudarmstadt.ukp.alignment.framework.graph.JointGraphBuilder;
+import de.tudarmstadt.ukp.alignment.framework.graph.OneResourceBuilder;
+import de.tudarmstadt.ukp.lmf.model.enums.ELanguageIdentifier;
+
+/**
+ * Runs the stages of the alignment framework, i.e. candidate extraction,
+ * gloss similarity, DWSA distances and the creation of the alignment, as
+ * connected stages without intermediate files. The candidate pairs flow from
+ * the {@link CandidateSource} through the {@link FeatureStage}s to the
+ * {@link CandidateSink}s in {@link CandidateBatch}es. Each stage runs in its
+ * own thread, and the stages are connected by queues holding at most
+ * <code>queue_capacity</code> batches, so a fast stage waits for a slow one.
+ * Thus at most (number of stages + 1) * (queue_capacity + 1) batches of
+ * <code>batch_size</code> pairs are held at once, regardless of the number of
+ * candidates. The features may be stored in a {@link CheckpointFile} to resume
+ * or extend a run later.
+ */
+public class AlignmentPipeline
+{
+	public static final int DEFAULT_BATCH_SIZE = 10000;
+	public static final int DEFAULT_QUEUE_CAPACITY = 4;
+
+	/** Marks the end of the candidates in a queue. */
+	private static final CandidateBatch END = new CandidateBatch(1, 0);
+
+	private final CandidateSource source;
+	private final int batch_size;
+	private final int queue_capacity;
+	private final List<FeatureStage> stages = new ArrayList<FeatureStage>();
+	private final List<CandidateSink> sinks = new ArrayList<CandidateSink>();
+
+	private final List<Thread> threads = new ArrayList<Thread>();
+	private Exception failure;
+	private long candidate_count;
+
+	/**
+	 *This method runs the alignment of two resources from the candidates to the DWSA alignment, using the joint graph and the glosses of the resources
+	 */
+	public static void main(String[] args) throws Exception
+	{
+		/* GLOBAL SETTINGS */
+
+		Global.init();
+		final String language = ELanguageIdentifier.ENGLISH;
+
+		/*RESOURCE 1*/
+
+		boolean synset1 = true;
+		boolean usePos1 = true;
+		final int prefix1 = Global.WN_Synset_prefix;
+		final int monoLinkThreshold1 = 1000;
+		OneResourceBuilder bg_1 = new OneResourceBuilder("uby_release_1_0","root","fortuna", prefix1,language,synset1,usePos1);
+		bg_1.fillIndexTables();
+		bg_1.builtRelationGraphFromDb(false);
+		bg_1.createMonosemousLinks(monoLinkThreshold1);
+
+		/*RESOURCE 2*/
+
+		boolean synset2 = false;
+		boolean usePos2 = true;
+		final int prefix2 = Global.WKT_EN_prefix;
+		final int monoLinkThreshold2 = 2000;
+		OneResourceBuilder bg_2 = new OneResourceBuilder("uby_release_1_0","root","fortuna", prefix2,language,synset2,usePos2);
+		bg_2.fillIndexTables();
+		bg_2.builtRelationGraphFromDb(false);
+		bg_2.createMonosemousLinks(monoLinkThreshold2);
+
+		/*Alignment parameters*/
+
+		String graph_file = "target/"+bg_1.prefix_string+"_"+bg_2.prefix_string+"_joint_graph.bin";
+		int depth = 5; //maximum distance of aligned candidates
+		boolean allowMultiple = true; //allow 1:n alignments
+		boolean alignSingle = false; //allow instant alignment in case of only one candidate
+		boolean useTaggedGloss = true;
+		boolean tfidf = true;
+		int threads = Runtime.getRuntime().availableProcessors();
+
+		JointGraphBuilder.createJointGraph(bg_1, bg_2, graph_file);
+
+		AlignmentPipeline pipeline = new AlignmentPipeline(new ResourceCandidateSource(bg_1, bg_2));
+		pipeline.addStage(new GlossSimilarityStage(bg_1, bg_2, useTaggedGloss, tfidf));
+		pipeline.addStage(new DijkstraWSAStage(graph_file, depth, threads));
+		pipeline.addSink(new CheckpointFile.Writer("target/"+bg_1.prefix_string+"_"+bg_2.prefix_string+"_features_"+(bg_2.pos ? "Pos": "noPos")+".bin"));
+		pipeline.addSink(new DijkstraWSAAlignmentSink("target/"+bg_1.prefix_string+"_"+bg_2.prefix_string+"_alignment_dwsa_"+(bg_2.pos ? "Pos": "noPos")+"_"+depth+"_"+(allowMultiple? "1toN"  :"1to1")+(alignSingle ? "_alignSingle":"")+".txt",
+				depth, allowMultiple, alignSingle, null));
+		long count = pipeline.run();
+		System.out.println("Candidates processed: "+count);
+	}
+
+	public AlignmentPipeline(CandidateSource source)
+	{
+		this(source, DEFAULT_BATCH_SIZE, DEFAULT_QUEUE_CAPACITY);
+	}
+
+	/**
+	 * @param source the source of the candidate pairs
+	 * @param batch_size the number of pairs passed between the stages at once
+	 * @param queue_capacity the number of batches which may wait between two stages
+	 */
+	public AlignmentPipeline(CandidateSource source, int batch_size, int queue_capacity)
+	{
+		if (batch_size < 1) {
+			throw new IllegalArgumentException("Batch size must be positive: " + batch_size);
+		}
+		if (queue_capacity < 1) {
+			throw new IllegalArgumentException("Queue capacity must be positive: " + queue_capacity);
+		}
+		this.source = source;
+		this.batch_size = batch_size;
+		this.queue_capacity = queue_capacity;
+	}
+
+	/** Adds a stage, which calculates the next feature column. */
+	public AlignmentPipeline addStage(FeatureStage stage)
+	{
+		stages.add(stage);
+		return this;
+	}
+
+	public AlignmentPipeline addSink(CandidateSink sink)
+	{
+		sinks.add(sink);
+		return this;
+	}
+
+	/** Returns the names of the feature columns, i.e. those of the source followed by those of the stages. */
+	public List<String> getFeatureNames()
+	{
+		List<String> result = new ArrayList<String>(source.getFeatureNames());
+		for (FeatureStage stage : stages) {
+			result.add(stage.getName());
+		}
+		return result;
+	}
+
+	/**
+	 * Runs all stages until the source is exhausted. If a stage fails, the
+	 * others are interrupted, the sinks are aborted instead of closed and the
+	 * exception of the stage is thrown.
+	 *
+	 * @return the number of candidate pairs
+	 */
+	public synchronized long run() throws Exception
+	{
+		final List<String> feature_names = getFeatureNames();
+		final int source_feature_count = source.getFeatureNames().size();
+		final List<BlockingQueue<CandidateBatch>> queues = new ArrayList<BlockingQueue<CandidateBatch>>();
+		for (int i = 0; i <= stages.size(); i++) {
+			queues.add(new ArrayBlockingQueue<CandidateBatch>(queue_capacity));
+		}
+		threads.clear();
+		failure = null;
+		candidate_count = 0;
+
+		threads.add(new Worker("source")
+		{
+			@Override
+			void work() throws Exception
+			{
+				source.run(queues.get(0), batch_size, feature_names.size());
+				queues.get(0).put(END);
+			}
+		});
+		for (int i = 0; i < stages.size(); i++) {
+			final FeatureStage stage = stages.get(i);
+			final int column = source_feature_count + i;
+			final BlockingQueue<CandidateBatch> input = queues.get(i);
+			final BlockingQueue<CandidateBatch> output = queues.get(i + 1);
+			threads.add(new Worker(stage.getName())
+			{
+				@Override
+				void work() throws Exception
+				{
+					CandidateBatch batch;
+					while ((batch = input.take()) != END) {
+						stage.process(batch, column);
+						output.put(batch);
+					}
+					output.put(END);
+				}
+			});
+		}
+		threads.add(new Worker("sinks")
+		{
+			@Override
+			void work() throws Exception
+			{
+				BlockingQueue<CandidateBatch> input = queues.get(stages.size());
+				List<CandidateSink> opened = new ArrayList<CandidateSink>();
+				int closed = 0;
+				try {
+					for (CandidateSink sink : sinks) {
+						opened.add(sink);
+						sink.open(feature_names);
+					}
+					CandidateBatch batch;
+					while ((batch = input.take()) != END) {
+						for (CandidateSink sink : sinks) {
+							sink.consume(batch);
+						}
+						candidate_count += batch.size();
+					}
+					for (; closed < opened.size(); closed++) {
+						opened.get(closed).close();
+					}
+				}
+				catch (Throwable e) {
+					// Abort the sinks not closed, including one whose open or close failed
+					for (int i = closed; i < opened.size(); i++) {
+						try {
+							opened.get(i).abort();
+						}
+						catch (Exception abort_failure) {
+							e.addSuppressed(abort_failure);
+						}
+					}
+					throw e;
+				}
+			}
+		});
+
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		if (failure != null) {
+			throw failure;
+		}
+		return candidate_count;
+	}
+
+	/** Records the first failure and interrupts all stages. */
+	private void fail(Exception e)
+	{
+		synchronized (threads) {
+			if (failure != null) {
+				return;
+			}
+			failure = e;
+			for (Thread thread : threads) {
+				thread.interrupt();
+			}
+		}
+	}
+
+	/** The thread of one stage. */
+	private abstract class Worker extends Thread
+	{
+		Worker(String name)
+		{
+			super("AlignmentPipeline " + name);
+		}
+
+		abstract void work() throws Exception;
+
+		@Override
+		public void run()
+		{
+			try {
+				work();
+			}
+			catch (InterruptedException e) {
+				// Another stage failed.
+			}
+			catch (Exception e) {
+				fail(e);
+			}
+			catch (Error e) {
+				fail(new RuntimeException(e));
+			}
+		}
+	}
+}
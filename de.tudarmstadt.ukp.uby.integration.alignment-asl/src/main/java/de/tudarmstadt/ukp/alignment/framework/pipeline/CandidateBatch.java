@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.alignment.framework.pipeline;
+
+import java.util.Arrays;
+
+/**
+ * A block of candidate pairs passed between the stages of an
+ * {@link AlignmentPipeline}. The pairs are stored as two arrays of sense or
+ * synset IDs, and each feature is stored as an array of values parallel to
+ * them (a column), so a stage can process a whole block at once.
+ */
+public class CandidateBatch
+{
+	private final int[] ids1;
+	private final int[] ids2;
+	private final double[][] features;
+	private int size = 0;
+
+	/**
+	 * Creates an empty batch.
+	 *
+	 * @param capacity the maximum number of pairs
+	 * @param feature_count the number of feature columns
+	 */
+	public CandidateBatch(int capacity, int feature_count)
+	{
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+		}
+		ids1 = new int[capacity];
+		ids2 = new int[capacity];
+		features = new double[feature_count][capacity];
+	}
+
+	/** Adds a pair and returns its index. */
+	public int add(int id1, int id2)
+	{
+		if (isFull()) {
+			throw new IllegalStateException("Batch is full: " + size);
+		}
+		ids1[size] = id1;
+		ids2[size] = id2;
+		return size++;
+	}
+
+	/** Returns the number of pairs. */
+	public int size()
+	{
+		return size;
+	}
+
+	public boolean isFull()
+	{
+		return size == ids1.length;
+	}
+
+	public int getFeatureCount()
+	{
+		return features.length;
+	}
+
+	public int getId1(int index)
+	{
+		return ids1[index];
+	}
+
+	public int getId2(int index)
+	{
+		return ids2[index];
+	}
+
+	/** Returns a copy of the first IDs of all pairs. */
+	public int[] getIds1()
+	{
+		return Arrays.copyOf(ids1, size);
+	}
+
+	/** Returns a copy of the second IDs of all pairs. */
+	public int[] getIds2()
+	{
+		return Arrays.copyOf(ids2, size);
+	}
+
+	public double getFeature(int column, int index)
+	{
+		return features[column][index];
+	}
+
+	public void setFeature(int column, int index, double value)
+	{
+		features[column][index] = value;
+	}
+}
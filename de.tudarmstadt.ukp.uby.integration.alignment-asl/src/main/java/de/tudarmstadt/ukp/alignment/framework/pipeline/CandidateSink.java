@@ -0,0 +1,45 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.alignment.framework.pipeline;
+
+import java.util.List;
+
+/**
+ * The end of an {@link AlignmentPipeline}, which receives the candidate pairs
+ * with all their features, e.g., to write an alignment or a checkpoint. The
+ * sinks of a pipeline are called in the order they were added, from a single
+ * thread. Each sink which was opened is either closed or, if the pipeline
+ * fails, aborted.
+ */
+public interface CandidateSink
+{
+	/** Called before the first batch with the names of the feature columns. */
+	void open(List<String> feature_names) throws Exception;
+
+	void consume(CandidateBatch batch) throws Exception;
+
+	/** Called after the last batch. */
+	void close() throws Exception;
+
+	/**
+	 * Called instead of {@link #close()} if the pipeline fails, or if
+	 * {@link #close()} itself fails. Releases the resources of the sink and
+	 * removes its incomplete output.
+	 */
+	void abort() throws Exception;
+}
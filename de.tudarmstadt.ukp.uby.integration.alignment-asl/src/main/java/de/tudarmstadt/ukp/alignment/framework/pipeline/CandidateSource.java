@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.alignment.framework.pipeline;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * The first stage of an {@link AlignmentPipeline}, which generates the
+ * candidate pairs. Subclasses implement {@link #generate()} and pass each pair
+ * to {@link #emit(int, int)}, which blocks while the following stages are
+ * busy. A source may also provide feature values of its own, e.g., when
+ * reading a {@link CheckpointFile}.
+ */
+public abstract class CandidateSource
+{
+	private BlockingQueue<CandidateBatch> output;
+	private int batch_size;
+	private int feature_count;
+	private CandidateBatch batch;
+
+	/** Returns the names of the features provided by this source, which precede those of the pipeline stages. */
+	public List<String> getFeatureNames()
+	{
+		return Collections.emptyList();
+	}
+
+	/** Generates all candidate pairs. */
+	protected abstract void generate() throws Exception;
+
+	/** Passes a candidate pair to the following stages. */
+	protected final void emit(int id1, int id2) throws InterruptedException
+	{
+		if (batch == null) {
+			batch = new CandidateBatch(batch_size, feature_count);
+		}
+		batch.add(id1, id2);
+		if (batch.isFull()) {
+			output.put(batch);
+			batch = null;
+		}
+	}
+
+	/** Passes a candidate pair and the values of the features of this source to the following stages. */
+	protected final void emit(int id1, int id2, double[] features) throws InterruptedException
+	{
+		if (batch == null) {
+			batch = new CandidateBatch(batch_size, feature_count);
+		}
+		int index = batch.add(id1, id2);
+		for (int i = 0; i < features.length; i++) {
+			batch.setFeature(i, index, features[i]);
+		}
+		if (batch.isFull()) {
+			output.put(batch);
+			batch = null;
+		}
+	}
+
+	/** Generates all candidate pairs as batches of the given size. */
+	final void run(BlockingQueue<CandidateBatch> output, int batch_size, int feature_count) throws Exception
+	{
+		this.output = output;
+		this.batch_size = batch_size;
+		this.feature_count = feature_count;
+		batch = null;
+		generate();
+		if (batch != null) {
+			output.put(batch);
+			batch = null;
+		}
+	}
+}
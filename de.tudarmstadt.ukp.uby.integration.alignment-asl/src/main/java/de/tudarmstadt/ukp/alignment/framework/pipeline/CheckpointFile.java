@@ -0,0 +1,200 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.alignment.framework.pipeline;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A binary columnar file of candidate pairs and their features, which is
+ * written by {@link Writer} at the end of an {@link AlignmentPipeline} and may
+ * be read by {@link Reader} as the source of a later pipeline, e.g., to add
+ * further features or to try other alignment parameters without calculating
+ * the distances again. The file consists of a header (magic number, version,
+ * number of features and their names) followed by one block per batch, which
+ * holds the number of pairs n, the n first IDs, the n second IDs and n values
+ * per feature. A block of -1 pairs ends the file.
+ */
+public class CheckpointFile
+{
+	/** Marks a checkpoint file. */
+	public static final int MAGIC = 0x55425943; // "UBYC"
+	public static final int VERSION = 1;
+
+	/** Writes the candidate pairs of a pipeline with all their features. */
+	public static class Writer implements CandidateSink
+	{
+		private final String file;
+		private DataOutputStream output;
+
+		public Writer(String file)
+		{
+			this.file = file;
+		}
+
+		@Override
+		public void open(List<String> feature_names) throws IOException
+		{
+			output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+			output.writeInt(MAGIC);
+			output.writeInt(VERSION);
+			output.writeInt(feature_names.size());
+			for (String name : feature_names) {
+				output.writeUTF(name);
+			}
+		}
+
+		@Override
+		public void consume(CandidateBatch batch) throws IOException
+		{
+			output.writeInt(batch.size());
+			for (int i = 0; i < batch.size(); i++) {
+				output.writeInt(batch.getId1(i));
+			}
+			for (int i = 0; i < batch.size(); i++) {
+				output.writeInt(batch.getId2(i));
+			}
+			for (int column = 0; column < batch.getFeatureCount(); column++) {
+				for (int i = 0; i < batch.size(); i++) {
+					output.writeDouble(batch.getFeature(column, i));
+				}
+			}
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			output.writeInt(-1);
+			output.close();
+			output = null;
+		}
+
+		/** Closes and deletes the incomplete file, which could not be read. */
+		@Override
+		public void abort() throws IOException
+		{
+			try {
+				if (output != null) {
+					output.close();
+					output = null;
+				}
+			}
+			finally {
+				new File(file).delete();
+			}
+		}
+	}
+
+	/** Reads the candidate pairs and features of a checkpoint file as the source of a pipeline. */
+	public static class Reader extends CandidateSource
+	{
+		private final String file;
+		private final List<String> feature_names;
+
+		/** Reads the feature names from the header of the given file. */
+		public Reader(String file) throws IOException
+		{
+			this.file = file;
+			DataInputStream input = open(file);
+			try {
+				feature_names = readHeader(input, file);
+			}
+			finally {
+				input.close();
+			}
+		}
+
+		@Override
+		public List<String> getFeatureNames()
+		{
+			return feature_names;
+		}
+
+		@Override
+		protected void generate() throws IOException, InterruptedException
+		{
+			DataInputStream input = open(file);
+			try {
+				readHeader(input, file);
+				int[] ids1 = new int[0];
+				int[] ids2 = new int[0];
+				double[][] columns = new double[feature_names.size()][0];
+				double[] features = new double[feature_names.size()];
+				int size;
+				while ((size = input.readInt()) >= 0) {
+					if (ids1.length < size) {
+						ids1 = new int[size];
+						ids2 = new int[size];
+						columns = new double[feature_names.size()][size];
+					}
+					for (int i = 0; i < size; i++) {
+						ids1[i] = input.readInt();
+					}
+					for (int i = 0; i < size; i++) {
+						ids2[i] = input.readInt();
+					}
+					for (double[] column : columns) {
+						for (int i = 0; i < size; i++) {
+							column[i] = input.readDouble();
+						}
+					}
+					for (int i = 0; i < size; i++) {
+						for (int column = 0; column < columns.length; column++) {
+							features[column] = columns[column][i];
+						}
+						emit(ids1[i], ids2[i], features);
+					}
+				}
+			}
+			finally {
+				input.close();
+			}
+		}
+
+		private static DataInputStream open(String file) throws IOException
+		{
+			return new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+		}
+
+		private static List<String> readHeader(DataInputStream input, String file) throws IOException
+		{
+			if (input.readInt() != MAGIC) {
+				throw new IOException("Not a checkpoint file: " + file);
+			}
+			int version = input.readInt();
+			if (version != VERSION) {
+				throw new IOException("Unsupported version " + version + " of checkpoint file " + file);
+			}
+			int feature_count = input.readInt();
+			List<String> result = new ArrayList<String>(feature_count);
+			for (int i = 0; i < feature_count; i++) {
+				result.add(input.readUTF());
+			}
+			return Collections.unmodifiableList(result);
+		}
+	}
+}
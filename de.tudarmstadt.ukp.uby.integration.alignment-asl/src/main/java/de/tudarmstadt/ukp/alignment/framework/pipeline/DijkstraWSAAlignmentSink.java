@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.alignment.framework.pipeline;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TreeSet;
+
+import de.tudarmstadt.ukp.alignment.framework.graph.CreateAlignmentFromGraphOutput;
+import de.tudarmstadt.ukp.alignment.framework.graph.NodeWithDistance;
+
+/**
+ * Creates an alignment from the distances calculated by a
+ * {@link DijkstraWSAStage} and writes it in the format of
+ * {@link CreateAlignmentFromGraphOutput#createAlignment}. As the targets of a
+ * source node are chosen among all its candidates, the distances are
+ * collected until the last batch.
+ */
+public class DijkstraWSAAlignmentSink implements CandidateSink
+{
+	private final String output;
+	private final int depth;
+	private final boolean allowMultiple;
+	private final boolean alignSingle;
+	private final String backoff_file;
+
+	private final HashMap<String, TreeSet<NodeWithDistance>> alignment_results = new HashMap<String, TreeSet<NodeWithDistance>>();
+	private int column;
+
+	/**
+	 * @param output the alignment file
+	 * @param depth the maximum distance of aligned targets
+	 * @param allowMultiple allow 1:n alignments
+	 * @param alignSingle allow instant alignment in case of only one candidate
+	 * @param backoff_file a similarity-based alignment file used as backoff, or null
+	 */
+	public DijkstraWSAAlignmentSink(String output, int depth, boolean allowMultiple, boolean alignSingle, String backoff_file)
+	{
+		this.output = output;
+		this.depth = depth;
+		this.allowMultiple = allowMultiple;
+		this.alignSingle = alignSingle;
+		this.backoff_file = backoff_file;
+	}
+
+	@Override
+	public void open(List<String> feature_names)
+	{
+		column = feature_names.indexOf(DijkstraWSAStage.NAME);
+		if (column < 0) {
+			throw new IllegalArgumentException("Pipeline has no feature " + DijkstraWSAStage.NAME);
+		}
+		alignment_results.clear();
+	}
+
+	@Override
+	public void consume(CandidateBatch batch)
+	{
+		for (int i = 0; i < batch.size(); i++) {
+			String id1 = Integer.toString(batch.getId1(i));
+			TreeSet<NodeWithDistance> candidates = alignment_results.get(id1);
+			if (candidates == null) {
+				candidates = new TreeSet<NodeWithDistance>();
+				alignment_results.put(id1, candidates);
+			}
+			candidates.add(new NodeWithDistance(batch.getId2(i), (int) batch.getFeature(column, i)));
+		}
+	}
+
+	@Override
+	public void close() throws Exception
+	{
+		PrintStream p = new PrintStream(new BufferedOutputStream(new FileOutputStream(output)));
+		boolean written = false;
+		try {
+			CreateAlignmentFromGraphOutput.writeAlignment(alignment_results, depth, allowMultiple, alignSingle, backoff_file, p);
+			written = true;
+		}
+		finally {
+			p.close();
+			if (!written) {
+				new File(output).delete();
+			}
+		}
+		alignment_results.clear();
+	}
+
+	/** Drops the collected distances. The alignment file is only written by {@link #close()}. */
+	@Override
+	public void abort()
+	{
+		alignment_results.clear();
+	}
+}
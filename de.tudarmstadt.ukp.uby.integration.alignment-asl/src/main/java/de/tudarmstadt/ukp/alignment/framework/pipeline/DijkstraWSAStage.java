@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.alignment.framework.pipeline;
+
+import java.io.IOException;
+
+import de.tudarmstadt.ukp.alignment.framework.graph.CalculateDijkstraWSA;
+import de.tudarmstadt.ukp.alignment.framework.graph.ShortestPathEngine;
+
+/**
+ * Calculates the distances between the candidate pairs in the joint graph of
+ * both resources like {@link CalculateDijkstraWSA}. Candidates which are not
+ * connected by a path of at most <code>max_depth</code> edges get the distance
+ * {@link CalculateDijkstraWSA#NO_PATH}.
+ */
+public class DijkstraWSAStage implements FeatureStage
+{
+	public static final String NAME = "DWSA distances";
+
+	private final ShortestPathEngine engine;
+	private final int max_depth;
+	private final int threads;
+
+	/**
+	 * @param graph_file the joint graph as text or binary edge file
+	 * @param max_depth The maximum length of the paths searched for
+	 * @param threads The number of threads searching the paths of a batch
+	 */
+	public DijkstraWSAStage(String graph_file, int max_depth, int threads) throws IOException
+	{
+		this(ShortestPathEngine.load(graph_file), max_depth, threads);
+	}
+
+	public DijkstraWSAStage(ShortestPathEngine engine, int max_depth, int threads)
+	{
+		if (threads < 1) {
+			throw new IllegalArgumentException("Number of threads must be positive: " + threads);
+		}
+		this.engine = engine;
+		this.max_depth = max_depth;
+		this.threads = threads;
+	}
+
+	@Override
+	public String getName()
+	{
+		return NAME;
+	}
+
+	@Override
+	public void process(CandidateBatch batch, int column)
+	{
+		int[] lengths = engine.getShortestPathLengths(batch.getIds1(), batch.getIds2(), max_depth, threads);
+		for (int i = 0; i < lengths.length; i++) {
+			batch.setFeature(column, i, (lengths[i] == ShortestPathEngine.UNREACHABLE
+					? CalculateDijkstraWSA.NO_PATH : lengths[i]));
+		}
+	}
+}
@@ -0,0 +1,32 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.alignment.framework.pipeline;
+
+/**
+ * A stage of an {@link AlignmentPipeline}, which calculates one feature of
+ * the candidate pairs, e.g., the similarity of their glosses or their
+ * distance in the joint graph. Each stage runs in its own thread.
+ */
+public interface FeatureStage
+{
+	/** Returns the name of the feature, e.g., for the attributes of an arff file. */
+	String getName();
+
+	/** Calculates the feature of all pairs of the given batch and stores it in the given column. */
+	void process(CandidateBatch batch, int column) throws Exception;
+}
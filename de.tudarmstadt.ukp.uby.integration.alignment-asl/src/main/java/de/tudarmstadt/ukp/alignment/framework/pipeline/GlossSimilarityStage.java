@@ -0,0 +1,63 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.alignment.framework.pipeline;
+
+import de.tudarmstadt.ukp.alignment.framework.gloss.GlossVectorSpace;
+import de.tudarmstadt.ukp.alignment.framework.graph.OneResourceBuilder;
+
+/**
+ * Calculates the cosine similarity between the glosses of the candidate pairs
+ * like {@link de.tudarmstadt.ukp.alignment.framework.gloss.GlossSimilarityCalculator#calculateSimilarityForCandidatesParallel},
+ * using a {@link GlossVectorSpace} of the glosses of both resources.
+ */
+public class GlossSimilarityStage implements FeatureStage
+{
+	public static final String NAME = "Cosine similarity";
+
+	private final GlossVectorSpace space;
+
+	/**
+	 * @param pos Consider pos-tagged lexemes or only lemmas
+	 * @param tfidf Use tfidf weighting
+	 */
+	public GlossSimilarityStage(OneResourceBuilder gb1, OneResourceBuilder gb2, boolean pos, boolean tfidf)
+	{
+		this(new GlossVectorSpace(pos ? gb1.senseIdGlossPos : gb1.senseIdGloss,
+				pos ? gb2.senseIdGlossPos : gb2.senseIdGloss, tfidf));
+	}
+
+	public GlossSimilarityStage(GlossVectorSpace space)
+	{
+		this.space = space;
+	}
+
+	@Override
+	public String getName()
+	{
+		return NAME;
+	}
+
+	@Override
+	public void process(CandidateBatch batch, int column)
+	{
+		for (int i = 0; i < batch.size(); i++) {
+			batch.setFeature(column, i, space.getSimilarity(Integer.toString(batch.getId1(i)),
+					Integer.toString(batch.getId2(i))));
+		}
+	}
+}
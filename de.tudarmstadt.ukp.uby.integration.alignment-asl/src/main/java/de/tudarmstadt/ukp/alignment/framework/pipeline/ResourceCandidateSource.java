@@ -0,0 +1,61 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.alignment.framework.pipeline;
+
+import de.tudarmstadt.ukp.alignment.framework.candidates.BlockingKey;
+import de.tudarmstadt.ukp.alignment.framework.candidates.CandidateGenerator;
+import de.tudarmstadt.ukp.alignment.framework.graph.OneResourceBuilder;
+
+/**
+ * Generates the alignment candidates of two resources by a
+ * {@link CandidateGenerator}, i.e. the same pairs as
+ * {@link de.tudarmstadt.ukp.alignment.framework.candidates.CandidateExtractor#createCandidateFileFull(OneResourceBuilder, OneResourceBuilder)}
+ * writes to the candidate file: sorted by the first and second ID and without
+ * duplicates.
+ */
+public class ResourceCandidateSource extends CandidateSource
+{
+	private final CandidateGenerator generator;
+
+	/**
+	 * Generates the possible alignment candidates, i.e. those with matching lemma and POS.
+	 *
+	 * @param gb1 First LSR
+	 * @param gb2 Second LSR, whose POS setting decides whether the lemmas must match in POS
+	 */
+	public ResourceCandidateSource(OneResourceBuilder gb1, OneResourceBuilder gb2)
+	{
+		this(new CandidateGenerator(gb1, gb2, BlockingKey.LEMMA_POS));
+	}
+
+	/**
+	 * @param generator the generator of the candidates, e.g., with further blocking keys or capped blocks
+	 */
+	public ResourceCandidateSource(CandidateGenerator generator)
+	{
+		this.generator = generator;
+	}
+
+	@Override
+	protected void generate() throws Exception
+	{
+		for (long pair : generator.generate()) {
+			emit(CandidateGenerator.getId1(pair), CandidateGenerator.getId2(pair));
+		}
+	}
+}
@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.alignment.framework.pipeline;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import weka.classifiers.Classifier;
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.SerializationHelper;
+import weka.core.Utils;
+
+/**
+ * Classifies the candidate pairs with a WEKA model created by
+ * {@link de.tudarmstadt.ukp.alignment.framework.combined.WekaMachineLearning#createModelFromGoldstandard}
+ * and writes the pairs classified as aligned in the format of
+ * {@link de.tudarmstadt.ukp.alignment.framework.combined.WekaMachineLearning#createFinalAlignmentFile},
+ * without creating and labelling an arff file. The features of the pipeline
+ * must be those of the gold standard the model was trained on, in the same
+ * order.
+ */
+public class WekaClassificationSink implements CandidateSink
+{
+	private final String model;
+	private final String output;
+
+	private Classifier classifier;
+	private Instances header;
+	private int aligned_class;
+	private BufferedWriter writer;
+
+	/**
+	 * @param model the serialized WEKA model
+	 * @param output the alignment file
+	 */
+	public WekaClassificationSink(String model, String output)
+	{
+		this.model = model;
+		this.output = output;
+	}
+
+	@Override
+	public void open(List<String> feature_names) throws Exception
+	{
+		classifier = (Classifier) SerializationHelper.read(model);
+
+		// The same attributes as the arff files of WekaMachineLearning
+		ArrayList<Attribute> attributes = new ArrayList<Attribute>();
+		attributes.add(new Attribute("Pair_ID", (List<String>) null));
+		for (String name : feature_names) {
+			attributes.add(new Attribute(name));
+		}
+		Attribute class_attribute = new Attribute("class", Arrays.asList("0", "1"));
+		attributes.add(class_attribute);
+		header = new Instances(output, attributes, 0);
+		header.setClassIndex(attributes.size() - 1);
+		aligned_class = class_attribute.indexOfValue("1");
+
+		writer = new BufferedWriter(new FileWriter(output));
+		writer.write("f " + model + " ML Alignment");
+		writer.newLine();
+	}
+
+	@Override
+	public void consume(CandidateBatch batch) throws Exception
+	{
+		int feature_count = batch.getFeatureCount();
+		for (int i = 0; i < batch.size(); i++) {
+			double[] values = new double[feature_count + 2];
+			values[0] = Utils.missingValue(); // the ID is removed by the model anyway
+			for (int column = 0; column < feature_count; column++) {
+				values[column + 1] = batch.getFeature(column, i);
+			}
+			values[feature_count + 1] = Utils.missingValue();
+			Instance instance = new DenseInstance(1.0, values);
+			instance.setDataset(header);
+			if ((int) classifier.classifyInstance(instance) != aligned_class) {
+				continue;
+			}
+			StringBuilder line = new StringBuilder();
+			line.append(batch.getId1(i)).append('\t').append(batch.getId2(i)).append('\t');
+			for (int column = 0; column < feature_count; column++) {
+				if (column > 0) {
+					line.append("###");
+				}
+				line.append(batch.getFeature(column, i));
+			}
+			writer.write(line.toString());
+			writer.newLine();
+		}
+	}
+
+	@Override
+	public void close() throws Exception
+	{
+		writer.close();
+		writer = null;
+	}
+
+	/** Closes and deletes the incomplete alignment file. */
+	@Override
+	public void abort() throws Exception
+	{
+		try {
+			if (writer != null) {
+				writer.close();
+				writer = null;
+			}
+		}
+		finally {
+			new File(output).delete();
+		}
+	}
+}
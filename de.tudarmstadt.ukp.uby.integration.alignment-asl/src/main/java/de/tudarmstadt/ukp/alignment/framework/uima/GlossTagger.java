@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.alignment.framework.uima;
+
+import static org.apache.uima.fit.factory.AnalysisEngineFactory.createEngineDescription;
+
+import org.apache.uima.UIMAFramework;
+import org.apache.uima.analysis_engine.AnalysisEngine;
+import org.apache.uima.analysis_engine.AnalysisEngineDescription;
+import org.apache.uima.analysis_engine.AnalysisEngineProcessException;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.util.CasPool;
+
+import de.tudarmstadt.ukp.dkpro.core.languagetool.LanguageToolLemmatizer;
+import de.tudarmstadt.ukp.dkpro.core.opennlp.OpenNlpPosTagger;
+import de.tudarmstadt.ukp.dkpro.core.opennlp.OpenNlpSegmenter;
+import de.tudarmstadt.ukp.dkpro.core.stopwordremover.StopWordRemover;
+import de.tudarmstadt.ukp.lmf.model.enums.ELanguageIdentifier;
+
+/**
+ * Lemmatises and POS-tags single glosses with the components of
+ * {@link Toolkit#lemmatizeEnglish(String)} and {@link Toolkit#lemmatizeGerman(String)}.
+ * In contrast to these methods, the analysis engines are created only once,
+ * and each gloss is processed in a CAS of its own, which is taken from a pool
+ * and reset afterwards. Up to the given number of threads may call
+ * {@link #tag(String)} at the same time.
+ */
+public class GlossTagger
+{
+	private final String language;
+	private final AnalysisEngine engine;
+	private final CasPool casPool;
+	private final Toolkit.PosGetter getter = new Toolkit.PosGetter();
+
+	/**
+	 * Creates the analysis engines for the given language.
+	 *
+	 * @param lang the language of the glosses, {@link ELanguageIdentifier#ENGLISH} or {@link ELanguageIdentifier#GERMAN}
+	 * @param threads the maximum number of glosses processed at the same time
+	 */
+	public GlossTagger(String lang, int threads) throws ResourceInitializationException
+	{
+		if (threads < 1) {
+			throw new IllegalArgumentException("Number of threads must be positive: " + threads);
+		}
+
+		AnalysisEngineDescription pipeline;
+		if (ELanguageIdentifier.ENGLISH.equals(lang)) {
+			Toolkit.initializePOS();
+			language = "en";
+			pipeline = createEngineDescription(
+					createEngineDescription(OpenNlpSegmenter.class),
+					createEngineDescription(StopWordRemover.class,
+							StopWordRemover.PARAM_MODEL_LOCATION, new String[]{"src/main/resources/stopwords_english_punctuation.txt"}),
+					createEngineDescription(LanguageToolLemmatizer.class),
+					createEngineDescription(OpenNlpPosTagger.class));
+		}
+		else if (ELanguageIdentifier.GERMAN.equals(lang)) {
+			Toolkit.initializePOSGerman();
+			language = "de";
+			pipeline = createEngineDescription(
+					createEngineDescription(OpenNlpSegmenter.class),
+					createEngineDescription(StopWordRemover.class,
+							StopWordRemover.PARAM_MODEL_LOCATION, new String[]{"src/main/resources/snowball_german_stopwords.txt"}),
+					createEngineDescription(LanguageToolLemmatizer.class),
+					createEngineDescription(OpenNlpPosTagger.class,
+							OpenNlpPosTagger.PARAM_LANGUAGE, "de"));
+		}
+		else {
+			throw new IllegalArgumentException("Unsupported gloss language: " + lang);
+		}
+
+		engine = UIMAFramework.produceAnalysisEngine(pipeline, threads, 0);
+		casPool = new CasPool(threads, engine);
+	}
+
+	/**
+	 * Returns the tokens of the given gloss, without stop words, in the form
+	 * <code>lemma#pos</code>.
+	 */
+	public String[] tag(String gloss) throws AnalysisEngineProcessException
+	{
+		CAS cas = casPool.getCas(0);
+		try {
+			cas.setDocumentLanguage(language);
+			cas.setDocumentText(gloss);
+			engine.process(cas);
+			return (String[]) getter.retrieveData(cas);
+		}
+		finally {
+			casPool.releaseCas(cas);
+		}
+	}
+
+	/** Releases the analysis engines. */
+	public void destroy()
+	{
+		engine.destroy();
+	}
+}
@@ -0,0 +1,270 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.alignment.framework.candidates;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import de.tudarmstadt.ukp.alignment.framework.graph.OneResourceBuilder;
+
+public class CandidateGeneratorTest
+{
+	@Test
+	public void testLemmaPos() throws Exception
+	{
+		TreeMap<String, Set<String>> lexemes1 = new TreeMap<String, Set<String>>();
+		lexemes1.put("bank#noun", senses("101", "102"));
+		lexemes1.put("bench#noun", senses("102"));
+		lexemes1.put("bank#verb", senses("103"));
+		lexemes1.put("river#noun", senses("104"));
+		TreeMap<String, Set<String>> lexemes2 = new TreeMap<String, Set<String>>();
+		lexemes2.put("bank#noun", senses("201"));
+		lexemes2.put("bench#noun", senses("201", "202"));
+		lexemes2.put("bank#verb", senses("203"));
+		OneResourceBuilder gb1 = resource(true, lexemes1, null);
+
+		CandidateGenerator generator = new CandidateGenerator(gb1, resource(true, lexemes2, null),
+				BlockingKey.LEMMA_POS).setThreads(2);
+		// The pair 102 201 of both noun blocks is returned once.
+		assertArrayEquals(new long[] {pair(101, 201), pair(102, 201), pair(102, 202), pair(103, 203)},
+				generator.generate());
+		assertEquals(3, generator.getStatistics().getBlockCount());
+		assertEquals(5, generator.getStatistics().getBlockPairCount());
+		assertEquals(4, generator.getStatistics().getPairCount());
+		assertEquals(0, generator.getStatistics().getCappedBlockCount());
+
+		// Without POS, the nouns and verbs of a lemma form one block.
+		TreeMap<String, Set<String>> lemmas2 = new TreeMap<String, Set<String>>();
+		lemmas2.put("bank", senses("201", "203"));
+		generator = new CandidateGenerator(gb1, resource(false, lemmas2, null), BlockingKey.LEMMA_POS);
+		assertArrayEquals(new long[] {pair(101, 201), pair(101, 203), pair(102, 201), pair(102, 203),
+				pair(103, 201), pair(103, 203)}, generator.generate());
+
+		generator = new CandidateGenerator(gb1, resource(true, lexemes2, null), BlockingKey.LEMMA_POS)
+				.setLexemeFilter(Collections.singleton("bank#verb"));
+		assertArrayEquals(new long[] {pair(103, 203)}, generator.generate());
+	}
+
+	@Test
+	public void testNormalizedLemma() throws Exception
+	{
+		TreeMap<String, Set<String>> lexemes1 = new TreeMap<String, Set<String>>();
+		lexemes1.put("Data_base#noun", senses("101"));
+		lexemes1.put("café#noun", senses("102"));
+		TreeMap<String, Set<String>> lexemes2 = new TreeMap<String, Set<String>>();
+		lexemes2.put("data-base#noun", senses("201"));
+		lexemes2.put("Data_base#noun", senses("202"));
+		lexemes2.put("cafe#noun", senses("203"));
+		OneResourceBuilder gb1 = resource(true, lexemes1, null);
+		OneResourceBuilder gb2 = resource(true, lexemes2, null);
+
+		assertArrayEquals(new long[] {pair(101, 202)},
+				new CandidateGenerator(gb1, gb2, BlockingKey.LEMMA_POS).generate());
+		long[] expected = {pair(101, 201), pair(101, 202), pair(102, 203)};
+		assertArrayEquals(expected, new CandidateGenerator(gb1, gb2, BlockingKey.NORMALIZED_LEMMA).generate());
+		// The pairs of both keys are merged without duplicates.
+		assertArrayEquals(expected, new CandidateGenerator(gb1, gb2, BlockingKey.LEMMA_POS,
+				BlockingKey.NORMALIZED_LEMMA).generate());
+	}
+
+	@Test
+	public void testRandom() throws Exception
+	{
+		Random random = new Random(1);
+		for (boolean pos2 : new boolean[] {true, false}) {
+			TreeMap<String, Set<String>> lexemes1 = randomLexemes(random, true, 100000);
+			TreeMap<String, Set<String>> lexemes2 = randomLexemes(random, pos2, 500000);
+			TreeSet<Long> expected = new TreeSet<Long>();
+			for (Map.Entry<String, Set<String>> entry : lexemes1.entrySet()) {
+				String lexeme = (pos2 ? entry.getKey() : entry.getKey().substring(0, entry.getKey().indexOf('#')));
+				if (!lexemes2.containsKey(lexeme)) {
+					continue;
+				}
+				for (String id1 : entry.getValue()) {
+					for (String id2 : lexemes2.get(lexeme)) {
+						expected.add(pair(Integer.parseInt(id1), Integer.parseInt(id2)));
+					}
+				}
+			}
+
+			for (int threads : new int[] {1, 4}) {
+				long[] pairs = new CandidateGenerator(resource(true, lexemes1, null), resource(pos2, lexemes2, null),
+						BlockingKey.LEMMA_POS).setThreads(threads).generate();
+				assertEquals(new ArrayList<Long>(expected), toList(pairs));
+			}
+		}
+	}
+
+	@Test
+	public void testMaxPairsPerBlock() throws Exception
+	{
+		Random random = new Random(1);
+		for (int trial = 0; trial < 200; trial++) {
+			int count1 = 1 + random.nextInt(8);
+			int count2 = 1 + random.nextInt(8);
+			int max_pairs = 1 + random.nextInt(10);
+			TreeMap<String, String> glosses1 = new TreeMap<String, String>();
+			TreeMap<String, String> glosses2 = new TreeMap<String, String>();
+			for (int i = 0; i < count1; i++) {
+				glosses1.put(Integer.toString(100 + i), "t" + random.nextInt(5) + " t" + random.nextInt(5)
+						+ "  t" + random.nextInt(5));
+			}
+			for (int j = 0; j < count2; j++) {
+				// Some senses have no gloss.
+				if (random.nextInt(5) > 0) {
+					glosses2.put(Integer.toString(200 + j), "t" + random.nextInt(5) + " t" + random.nextInt(5)
+							+ " x" + random.nextInt(3));
+				}
+			}
+			TreeMap<String, Set<String>> lexemes1 = new TreeMap<String, Set<String>>();
+			lexemes1.put("set", new TreeSet<String>(glosses1.keySet()));
+			TreeMap<String, Set<String>> lexemes2 = new TreeMap<String, Set<String>>();
+			Set<String> senses2 = new TreeSet<String>();
+			for (int j = 0; j < count2; j++) {
+				senses2.add(Integer.toString(200 + j));
+			}
+			lexemes2.put("set", senses2);
+
+			// All pairs by decreasing overlap of the gloss tokens and then in the order of the senses
+			List<long[]> all = new ArrayList<long[]>();
+			for (int i = 0; i < count1; i++) {
+				for (int j = 0; j < count2; j++) {
+					Set<String> tokens = tokens(glosses1.get(Integer.toString(100 + i)));
+					tokens.retainAll(tokens(glosses2.get(Integer.toString(200 + j))));
+					all.add(new long[] {-tokens.size(), i * count2 + j, pair(100 + i, 200 + j)});
+				}
+			}
+			Collections.sort(all, new Comparator<long[]>()
+			{
+				@Override
+				public int compare(long[] o1, long[] o2)
+				{
+					return (o1[0] != o2[0] ? Long.compare(o1[0], o2[0]) : Long.compare(o1[1], o2[1]));
+				}
+			});
+			long[] expected = new long[Math.min(max_pairs, all.size())];
+			for (int k = 0; k < expected.length; k++) {
+				expected[k] = all.get(k)[2];
+			}
+			Arrays.sort(expected);
+
+			CandidateGenerator generator = new CandidateGenerator(resource(false, lexemes1, glosses1),
+					resource(false, lexemes2, glosses2), BlockingKey.LEMMA_POS).setMaxPairsPerBlock(max_pairs);
+			assertArrayEquals(expected, generator.generate());
+			assertEquals(count1 * count2 > max_pairs ? 1 : 0, generator.getStatistics().getCappedBlockCount());
+			assertEquals(count1 * count2, generator.getStatistics().getBlockPairCount());
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testNonNumericSenseId() throws Exception
+	{
+		TreeMap<String, Set<String>> lexemes1 = new TreeMap<String, Set<String>>();
+		lexemes1.put("bank", senses("WN_Sense_1"));
+		TreeMap<String, Set<String>> lexemes2 = new TreeMap<String, Set<String>>();
+		lexemes2.put("bank", senses("201"));
+		new CandidateGenerator(resource(false, lexemes1, null), resource(false, lexemes2, null),
+				BlockingKey.LEMMA_POS).generate();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNoBlockingKey()
+	{
+		new CandidateGenerator(null, null);
+	}
+
+	private static OneResourceBuilder resource(boolean pos, Map<String, Set<String>> lemmaPosSenses,
+			Map<String, String> senseIdGloss)
+	{
+		OneResourceBuilder result = new OneResourceBuilder(0, null, false, pos);
+		result.lemmaPosSenses = lemmaPosSenses;
+		result.senseIdGloss = senseIdGloss;
+		return result;
+	}
+
+	private static TreeMap<String, Set<String>> randomLexemes(Random random, boolean pos, int first_id)
+	{
+		TreeMap<String, Set<String>> result = new TreeMap<String, Set<String>>();
+		int id = first_id;
+		for (int lemma = 0; lemma < 500; lemma++) {
+			for (String part_of_speech : new String[] {"noun", "verb"}) {
+				if (random.nextInt(3) == 0) {
+					continue;
+				}
+				String lexeme = (pos ? "l" + lemma + "#" + part_of_speech : "l" + lemma);
+				Set<String> senses = result.get(lexeme);
+				if (senses == null) {
+					senses = new TreeSet<String>();
+					result.put(lexeme, senses);
+				}
+				for (int i = random.nextInt(4); i >= 0; i--) {
+					// Some senses belong to several lexemes.
+					senses.add(Integer.toString(random.nextInt(10) == 0 && id > first_id
+							? first_id + random.nextInt(id - first_id) : id++));
+				}
+			}
+		}
+		return result;
+	}
+
+	private static Set<String> senses(String... ids)
+	{
+		return new TreeSet<String>(Arrays.asList(ids));
+	}
+
+	private static Set<String> tokens(String gloss)
+	{
+		Set<String> result = new HashSet<String>();
+		if (gloss != null) {
+			for (String token : gloss.split(" ")) {
+				if (!token.isEmpty()) {
+					result.add(token);
+				}
+			}
+		}
+		return result;
+	}
+
+	private static long pair(int id1, int id2)
+	{
+		return ((long) id1 << 32) | id2;
+	}
+
+	private static List<Long> toList(long[] pairs)
+	{
+		List<Long> result = new ArrayList<Long>();
+		for (long pair : pairs) {
+			result.add(pair);
+		}
+		return result;
+	}
+}
@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.alignment.framework.gloss;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import de.tudarmstadt.ukp.alignment.framework.Global;
+import de.tudarmstadt.ukp.alignment.framework.graph.OneResourceBuilder;
+
+public class GlossSimilarityCalculatorTest
+{
+	@Test
+	public void testParallelSimilarityFile() throws Exception
+	{
+		Global.init();
+		Random random = new Random(1);
+		OneResourceBuilder gb1 = resource(Global.WN_Synset_prefix, GlossVectorSpaceTest.randomGlosses(random, 100));
+		OneResourceBuilder gb2 = resource(Global.WKT_EN_prefix, GlossVectorSpaceTest.randomGlosses(random, 150));
+
+		// The candidates include pairs without a gloss.
+		File candidates = File.createTempFile("candidates", ".txt");
+		PrintStream p = new PrintStream(candidates);
+		p.println("p sp 0 0");
+		List<String> ids1 = new ArrayList<String>(gb1.senseIdGloss.keySet());
+		List<String> ids2 = new ArrayList<String>(gb2.senseIdGloss.keySet());
+		ids1.add("0");
+		ids2.add("1");
+		int pair_count = 0;
+		for (String id1 : ids1) {
+			for (String id2 : ids2) {
+				if (random.nextInt(5) == 0 || id1.equals("0") || id2.equals("1")) {
+					p.println("q " + id1 + " " + id2);
+					pair_count++;
+				}
+			}
+		}
+		p.close();
+
+		new File("target").mkdirs();
+		String prefix = "target/" + gb1.prefix_string + "_" + gb2.prefix_string;
+		String similarity_file = prefix + "_glossSimilarities_plain";
+		try {
+			GlossSimilarityCalculator.combinedLexemeFreqInGlosses.clear();
+			GlossSimilarityCalculator.combinedLemmaFreqInGlosses.clear();
+			GlossSimilarityCalculator.createIdfFiles(gb1, gb2);
+			for (boolean tfidf : new boolean[] {false, true}) {
+				String file = similarity_file + (tfidf ? "_tfidf" : "") + ".txt";
+				GlossSimilarityCalculator.calculateSimilarityForCandidates(gb1, gb2, false, tfidf,
+						candidates.getPath());
+				List<String> expected = readLines(file);
+				new File(file).delete();
+				GlossSimilarityCalculator.calculateSimilarityForCandidatesParallel(gb1, gb2, false, tfidf,
+						candidates.getPath(), 3);
+				List<String> actual = readLines(file);
+
+				// The same lines in the same order, with the similarities equal up to the float weights
+				assertEquals(pair_count + 1, expected.size());
+				assertEquals(expected.size(), actual.size());
+				assertEquals(expected.get(0), actual.get(0));
+				assertTrue(expected.get(0).startsWith("f "));
+				for (int i = 1; i < expected.size(); i++) {
+					String[] expected_fields = expected.get(i).split("\t");
+					String[] fields = actual.get(i).split("\t");
+					assertEquals(3, fields.length);
+					assertEquals(expected_fields[0], fields[0]);
+					assertEquals(expected_fields[1], fields[1]);
+					assertEquals(Double.parseDouble(expected_fields[2]), Double.parseDouble(fields[2]),
+							GlossVectorSpaceTest.DKPRO_DELTA);
+				}
+			}
+		}
+		finally {
+			candidates.delete();
+			new File(similarity_file + ".txt").delete();
+			new File(similarity_file + "_tfidf.txt").delete();
+			new File(prefix + "_combined_lexeme_idf.txt").delete();
+			new File(prefix + "_combined_lemma_idf.txt").delete();
+		}
+	}
+
+	/** Returns a resource with the given glosses, whose lemma frequencies are the numbers of glosses containing them. */
+	private static OneResourceBuilder resource(int prefix, Map<String, String> glosses)
+	{
+		OneResourceBuilder result = new OneResourceBuilder(prefix, null, false, false);
+		result.senseIdGloss = glosses;
+		result.gloss_count = glosses.size();
+		result.lexemeFreqInGlosses = new HashMap<String, Integer>();
+		result.lemmaFreqInGlosses = new HashMap<String, Integer>();
+		for (String gloss : glosses.values()) {
+			Set<String> lemmas = new HashSet<String>(Arrays.asList(gloss.split(" ")));
+			for (String lemma : lemmas) {
+				Integer frequency = result.lemmaFreqInGlosses.get(lemma);
+				result.lemmaFreqInGlosses.put(lemma, frequency == null ? 1 : frequency + 1);
+			}
+		}
+		return result;
+	}
+
+	private static List<String> readLines(String file) throws IOException
+	{
+		List<String> result = new ArrayList<String>();
+		BufferedReader input = new BufferedReader(new FileReader(file));
+		try {
+			String line;
+			while ((line = input.readLine()) != null) {
+				result.add(line);
+			}
+		}
+		finally {
+			input.close();
+		}
+		return result;
+	}
+}
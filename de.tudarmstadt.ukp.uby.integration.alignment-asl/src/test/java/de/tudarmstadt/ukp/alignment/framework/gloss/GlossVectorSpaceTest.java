@@ -0,0 +1,223 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.alignment.framework.gloss;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+
+import org.junit.Test;
+
+import dkpro.similarity.algorithms.api.TextSimilarityMeasure;
+import dkpro.similarity.algorithms.lexical.string.CosineSimilarity;
+
+public class GlossVectorSpaceTest
+{
+	private static final double DELTA = 1e-6;
+
+	/**
+	 * Tolerance of the comparison with the DKPro measure, which calculates in doubles, while the weights of
+	 * the vector space are floats with a relative error of about 1e-7.
+	 */
+	static final double DKPRO_DELTA = 1e-5;
+
+	@Test
+	public void testSimilarity()
+	{
+		Map<String, String> glosses1 = new HashMap<String, String>();
+		glosses1.put("1", "a b c");
+		glosses1.put("2", "a a b");
+		glosses1.put("3", null);
+		Map<String, String> glosses2 = new HashMap<String, String>();
+		glosses2.put("10", "c b a");
+		glosses2.put("11", "d e");
+		glosses2.put("12", " a  a ");
+		GlossVectorSpace space = new GlossVectorSpace(glosses1, glosses2, false);
+
+		assertEquals(5, space.getVocabularySize());
+		assertEquals(1.0, space.getSimilarity("1", "10"), DELTA);
+		assertEquals(0.0, space.getSimilarity("1", "11"), DELTA);
+		assertEquals(2 / Math.sqrt(5), space.getSimilarity("2", "12"), DELTA);
+		assertEquals(0.0, space.getSimilarity("3", "10"), DELTA);
+		assertEquals(0.0, space.getSimilarity("4", "10"), DELTA);
+		assertEquals(0.0, space.getSimilarity("10", "1"), DELTA);
+	}
+
+	@Test
+	public void testRandomGlosses()
+	{
+		Random random = new Random(1);
+		Map<String, String> glosses1 = randomGlosses(random, 200);
+		Map<String, String> glosses2 = randomGlosses(random, 300);
+		for (boolean tfidf : new boolean[] {false, true}) {
+			GlossVectorSpace space = new GlossVectorSpace(glosses1, glosses2, tfidf);
+			Map<String, Integer> document_frequencies = new HashMap<String, Integer>();
+			if (tfidf) {
+				countDocuments(glosses1, document_frequencies);
+				countDocuments(glosses2, document_frequencies);
+			}
+			int gloss_count = glosses1.size() + glosses2.size();
+			for (Entry<String, String> gloss1 : glosses1.entrySet()) {
+				Map<String, Double> vector1 = vector(gloss1.getValue(), document_frequencies, gloss_count);
+				for (Entry<String, String> gloss2 : glosses2.entrySet()) {
+					Map<String, Double> vector2 = vector(gloss2.getValue(), document_frequencies, gloss_count);
+					assertEquals(cosine(vector1, vector2),
+							space.getSimilarity(gloss1.getKey(), gloss2.getKey()), DELTA);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testDkproCosineSimilarity() throws Exception
+	{
+		// The similarities of GlossSimilarityCalculator.calculateSimilarityForCandidates
+		Random random = new Random(2);
+		Map<String, String> glosses1 = randomGlosses(random, 100);
+		Map<String, String> glosses2 = randomGlosses(random, 150);
+		File idf_file = File.createTempFile("idf", ".txt");
+		try {
+			writeIdfFile(idf_file, glosses1, glosses2);
+			for (boolean tfidf : new boolean[] {false, true}) {
+				GlossVectorSpace space = new GlossVectorSpace(glosses1, glosses2, tfidf);
+				TextSimilarityMeasure measure = (tfidf
+						? new CosineSimilarity(CosineSimilarity.WeightingModeTf.FREQUENCY_LOGPLUSONE,
+								CosineSimilarity.WeightingModeIdf.LOGPLUSONE, CosineSimilarity.NormalizationMode.L2,
+								idf_file.getPath())
+						: new CosineSimilarity());
+				for (Entry<String, String> gloss1 : glosses1.entrySet()) {
+					List<String> tokens1 = Arrays.asList(gloss1.getValue().split(" "));
+					for (Entry<String, String> gloss2 : glosses2.entrySet()) {
+						List<String> tokens2 = Arrays.asList(gloss2.getValue().split(" "));
+						assertEquals(measure.getSimilarity(tokens1, tokens2),
+								space.getSimilarity(gloss1.getKey(), gloss2.getKey()), DKPRO_DELTA);
+					}
+				}
+			}
+		}
+		finally {
+			idf_file.delete();
+		}
+	}
+
+	/**
+	 * Writes the idf of the terms of the given glosses in the format of
+	 * {@link GlossSimilarityCalculator#createIdfFiles}, with the number of glosses containing a term as its
+	 * frequency.
+	 */
+	private static void writeIdfFile(File file, Map<String, String> glosses1, Map<String, String> glosses2)
+		throws IOException
+	{
+		Map<String, Integer> document_frequencies = new HashMap<String, Integer>();
+		countDocuments(glosses1, document_frequencies);
+		countDocuments(glosses2, document_frequencies);
+		double gloss_count = glosses1.size() + glosses2.size();
+		PrintStream p = new PrintStream(file);
+		try {
+			for (Entry<String, Integer> entry : document_frequencies.entrySet()) {
+				p.println(entry.getKey() + "\t" + Math.log(gloss_count / entry.getValue()));
+			}
+		}
+		finally {
+			p.close();
+		}
+	}
+
+	static Map<String, String> randomGlosses(Random random, int count)
+	{
+		Map<String, String> result = new HashMap<String, String>();
+		for (int i = 0; i < count; i++) {
+			StringBuilder gloss = new StringBuilder();
+			int length = 1 + random.nextInt(12);
+			for (int j = 0; j < length; j++) {
+				if (j > 0) {
+					gloss.append(' ');
+				}
+				gloss.append("t").append(random.nextInt(40));
+			}
+			result.put(Integer.toString(random.nextInt()), gloss.toString());
+		}
+		return result;
+	}
+
+	private static List<String> tokens(String gloss)
+	{
+		List<String> result = new ArrayList<String>();
+		for (String token : gloss.split(" ")) {
+			if (!token.isEmpty()) {
+				result.add(token);
+			}
+		}
+		return result;
+	}
+
+	private static void countDocuments(Map<String, String> glosses, Map<String, Integer> document_frequencies)
+	{
+		for (String gloss : glosses.values()) {
+			for (String token : vector(gloss, null, 0).keySet()) {
+				Integer count = document_frequencies.get(token);
+				document_frequencies.put(token, count == null ? 1 : count + 1);
+			}
+		}
+	}
+
+	/** Term frequencies of a gloss, weighted by tf-idf if document frequencies are given. */
+	private static Map<String, Double> vector(String gloss, Map<String, Integer> document_frequencies, int gloss_count)
+	{
+		Map<String, Double> result = new HashMap<String, Double>();
+		for (String token : tokens(gloss)) {
+			Double count = result.get(token);
+			result.put(token, count == null ? 1.0 : count + 1);
+		}
+		if (document_frequencies != null && !document_frequencies.isEmpty()) {
+			for (Entry<String, Double> entry : result.entrySet()) {
+				double idf = Math.log((double) gloss_count / document_frequencies.get(entry.getKey()));
+				entry.setValue(Math.log(1 + entry.getValue()) * Math.log(1 + idf));
+			}
+		}
+		return result;
+	}
+
+	/** Cosine similarity of two glosses as calculated for each candidate pair sequentially. */
+	private static double cosine(Map<String, Double> vector1, Map<String, Double> vector2)
+	{
+		double dot = 0.0;
+		double norm1 = 0.0;
+		double norm2 = 0.0;
+		for (Entry<String, Double> entry : vector1.entrySet()) {
+			norm1 += entry.getValue() * entry.getValue();
+			Double weight2 = vector2.get(entry.getKey());
+			if (weight2 != null) {
+				dot += entry.getValue() * weight2;
+			}
+		}
+		for (double weight : vector2.values()) {
+			norm2 += weight * weight;
+		}
+		return (norm1 == 0.0 || norm2 == 0.0 ? 0.0 : dot / Math.sqrt(norm1 * norm2));
+	}
+}
@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.alignment.framework.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class CalculateDijkstraWSATest
+{
+	@Test
+	public void testResultFile()
+	{
+		assertEquals("target/graph_result.txt", CalculateDijkstraWSA.getResultFile("target/graph.txt"));
+		assertEquals("target/graph_result.txt", CalculateDijkstraWSA.getResultFile("target/graph.bin"));
+		assertEquals("target.d/graph_result.txt", CalculateDijkstraWSA.getResultFile("target.d/graph"));
+	}
+
+	@Test
+	public void testBinaryGraph() throws IOException
+	{
+		File directory = createDirectory();
+		try {
+			EdgeList edges = new EdgeList();
+			edges.add(1, 2);
+			edges.add(2, 3);
+			edges.add(10, 11);
+			File graph = new File(directory, "graph.bin");
+			edges.writeBinary(graph.getPath());
+			long length = graph.length();
+			File candidates = new File(directory, "candidates.txt");
+			PrintStream p = new PrintStream(candidates);
+			p.println("p sp 3 3");
+			p.println("q 1 3");
+			p.println("q 1 10");
+			p.println("q 3 2");
+			p.close();
+
+			CalculateDijkstraWSA.calculateDijkstraWSAdistances(graph.getPath(), candidates.getPath(), 5, 2);
+
+			// The graph is left unchanged.
+			assertTrue(EdgeList.isBinary(graph.getPath()));
+			assertEquals(length, graph.length());
+			assertEquals(Arrays.asList("1\t3\t2", "1\t10\t" + CalculateDijkstraWSA.NO_PATH, "3\t2\t1"),
+					readLines(new File(directory, "graph_result.txt")));
+		}
+		finally {
+			for (File file : directory.listFiles()) {
+				file.delete();
+			}
+			directory.delete();
+		}
+	}
+
+	private static File createDirectory() throws IOException
+	{
+		File result = File.createTempFile("dwsa", "");
+		result.delete();
+		result.mkdir();
+		return result;
+	}
+
+	private static List<String> readLines(File file) throws IOException
+	{
+		List<String> result = new ArrayList<String>();
+		BufferedReader input = new BufferedReader(new FileReader(file));
+		try {
+			String line;
+			while ((line = input.readLine()) != null) {
+				result.add(line);
+			}
+		}
+		finally {
+			input.close();
+		}
+		return result;
+	}
+}
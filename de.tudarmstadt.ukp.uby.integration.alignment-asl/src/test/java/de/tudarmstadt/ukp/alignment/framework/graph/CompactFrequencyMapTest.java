@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.alignment.framework.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+public class CompactFrequencyMapTest
+{
+	@Test
+	public void testRandom()
+	{
+		Random random = new Random(1);
+		HashMap<String, Integer> expected = new HashMap<String, Integer>();
+		for (int i = 0; i < 5000; i++) {
+			String key = StringDictionaryTest.randomString(random);
+			Integer frequency = expected.get(key);
+			expected.put(key, frequency == null ? 1 : frequency + random.nextInt(1000));
+		}
+		expected.put("max", Integer.MAX_VALUE);
+		CompactFrequencyMap map = new CompactFrequencyMap(expected);
+
+		assertEquals(expected.size(), map.size());
+		assertEquals(expected, map);
+		assertEquals(map, expected);
+		for (Map.Entry<String, Integer> entry : expected.entrySet()) {
+			assertTrue(map.containsKey(entry.getKey()));
+			assertEquals(entry.getValue(), map.get(entry.getKey()));
+		}
+		assertNull(map.get("unknown"));
+		assertFalse(map.containsKey("unknown"));
+		assertNull(map.get(Integer.valueOf(1)));
+
+		// The entries are iterated in the order of the UTF-8 bytes of the keys.
+		TreeMap<String, Integer> sorted = new TreeMap<String, Integer>(StringDictionaryTest.UTF8_ORDER);
+		sorted.putAll(expected);
+		assertEquals(new ArrayList<String>(sorted.keySet()), new ArrayList<String>(map.keySet()));
+		assertEquals(new ArrayList<Integer>(sorted.values()), new ArrayList<Integer>(map.values()));
+	}
+
+	@Test
+	public void testCopy()
+	{
+		// The map is a copy, which does not change with the given map.
+		HashMap<String, Integer> frequencies = new HashMap<String, Integer>();
+		frequencies.put("Baum", 3);
+		frequencies.put("Bäume", 1);
+		CompactFrequencyMap map = new CompactFrequencyMap(frequencies);
+		frequencies.put("Baum", 4);
+		frequencies.put("Wald", 1);
+		assertEquals(2, map.size());
+		assertEquals(Integer.valueOf(3), map.get("Baum"));
+		assertEquals(Integer.valueOf(1), map.get("Bäume"));
+		assertNull(map.get("Wald"));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testImmutable()
+	{
+		new CompactFrequencyMap(new HashMap<String, Integer>()).put("Baum", 1);
+	}
+}
@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.alignment.framework.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+public class CompactRelationMapTest
+{
+	@Test
+	public void testRandom()
+	{
+		Random random = new Random(1);
+		CompactRelationMap.Builder builder = new CompactRelationMap.Builder();
+		TreeMap<String, HashSet<String>> expected = new TreeMap<String, HashSet<String>>(StringDictionaryTest.UTF8_ORDER);
+		TreeMap<String, HashSet<String>> expected_inverse = new TreeMap<String, HashSet<String>>(
+				StringDictionaryTest.UTF8_ORDER);
+		for (int i = 0; i < 5000; i++) {
+			// Few keys and values, so that keys and pairs repeat
+			String key = StringDictionaryTest.randomString(random);
+			String value = Integer.toString(random.nextInt(2000));
+			if (i % 10 == 0 && i > 0) {
+				builder.add(key, value);
+			}
+			builder.add(key, value);
+			add(expected, key, value);
+			add(expected_inverse, value, key);
+		}
+		CompactRelationMap map = builder.build();
+		CompactRelationMap inverse = builder.buildInverse();
+
+		assertRelation(expected, map);
+		assertRelation(expected_inverse, inverse);
+		assertNull(map.get("unknown"));
+		assertFalse(map.containsKey("unknown"));
+		assertNull(map.get(Integer.valueOf(1)));
+	}
+
+	@Test
+	public void testRepeatedPairs()
+	{
+		CompactRelationMap.Builder builder = new CompactRelationMap.Builder()
+				.add("bank#noun", "2")
+				.add("bank#noun", "10")
+				.add("bänk#noun", "2")
+				.add("bank#noun", "2");
+		CompactRelationMap map = builder.build();
+		assertEquals(2, map.size());
+		assertEquals(new HashSet<String>(Arrays.asList("2", "10")), map.get("bank#noun"));
+		assertEquals(2, map.get("bank#noun").size());
+		assertTrue(map.get("bank#noun").contains("10"));
+		assertFalse(map.get("bank#noun").contains("3"));
+		// The values of a key are sorted by their UTF-8 bytes, not as numbers.
+		int key = map.getKeyDictionary().indexOf("bank#noun");
+		int[] values = map.getValueIndexes(key);
+		assertEquals(2, values.length);
+		assertEquals("10", map.getValueDictionary().get(values[0]));
+		assertEquals("2", map.getValueDictionary().get(values[1]));
+
+		CompactRelationMap inverse = builder.buildInverse();
+		assertEquals(new HashSet<String>(Arrays.asList("bank#noun", "bänk#noun")), inverse.get("2"));
+		assertEquals(new HashSet<String>(Arrays.asList("bank#noun")), inverse.get("10"));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testImmutable()
+	{
+		new CompactRelationMap.Builder().add("a", "1").build().put("b", new HashSet<String>());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testImmutableValues()
+	{
+		new CompactRelationMap.Builder().add("a", "1").build().get("a").add("2");
+	}
+
+	private static void add(Map<String, HashSet<String>> map, String key, String value)
+	{
+		HashSet<String> values = map.get(key);
+		if (values == null) {
+			values = new HashSet<String>();
+			map.put(key, values);
+		}
+		values.add(value);
+	}
+
+	/** Checks a map against the expected map, whose keys are sorted by their UTF-8 bytes. */
+	private static void assertRelation(TreeMap<String, HashSet<String>> expected, CompactRelationMap map)
+	{
+		assertEquals(expected.size(), map.size());
+		assertEquals(expected, map);
+		assertEquals(map, expected);
+		List<String> keys = new ArrayList<String>();
+		for (Map.Entry<String, Set<String>> entry : map.entrySet()) {
+			keys.add(entry.getKey());
+			assertEquals(expected.get(entry.getKey()), entry.getValue());
+		}
+		// The entries are iterated in the order of the keys.
+		assertEquals(new ArrayList<String>(expected.keySet()), keys);
+		for (Map.Entry<String, HashSet<String>> entry : expected.entrySet()) {
+			assertTrue(map.containsKey(entry.getKey()));
+			Set<String> values = map.get(entry.getKey());
+			assertEquals(entry.getValue().size(), values.size());
+			for (String value : entry.getValue()) {
+				assertTrue(values.contains(value));
+			}
+			assertFalse(values.contains("unknown"));
+
+			// The value indexes are sorted and distinct.
+			int[] indexes = map.getValueIndexes(map.getKeyDictionary().indexOf(entry.getKey()));
+			assertEquals(entry.getValue().size(), indexes.length);
+			for (int i = 0; i < indexes.length; i++) {
+				assertTrue(i == 0 || indexes[i - 1] < indexes[i]);
+				assertTrue(entry.getValue().contains(map.getValueDictionary().get(indexes[i])));
+			}
+		}
+	}
+}
@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.alignment.framework.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+public class CompactStringMapTest
+{
+	@Test
+	public void testRandom()
+	{
+		Random random = new Random(1);
+		CompactStringMap.Builder builder = new CompactStringMap.Builder();
+		HashMap<String, String> expected = new HashMap<String, String>();
+		for (int i = 0; i < 5000; i++) {
+			// Short keys repeat, and the last value of a key is kept.
+			String key = StringDictionaryTest.randomString(random);
+			StringBuilder value = new StringBuilder();
+			int words = random.nextInt(20);
+			for (int j = 0; j < words; j++) {
+				value.append(StringDictionaryTest.randomString(random)).append(' ');
+			}
+			builder.put(key, value.toString());
+			expected.put(key, value.toString());
+		}
+		CompactStringMap map = builder.build();
+
+		assertEquals(expected.size(), map.size());
+		assertEquals(expected, map);
+		assertEquals(map, expected);
+		for (Map.Entry<String, String> entry : expected.entrySet()) {
+			assertTrue(map.containsKey(entry.getKey()));
+			assertEquals(entry.getValue(), map.get(entry.getKey()));
+		}
+		assertNull(map.get("unknown"));
+		assertFalse(map.containsKey("unknown"));
+		assertNull(map.get(Integer.valueOf(1)));
+
+		// The entries are iterated in the order of the UTF-8 bytes of the keys.
+		TreeMap<String, String> sorted = new TreeMap<String, String>(StringDictionaryTest.UTF8_ORDER);
+		sorted.putAll(expected);
+		assertEquals(new ArrayList<String>(sorted.keySet()), new ArrayList<String>(map.keySet()));
+		assertEquals(new ArrayList<String>(sorted.values()), new ArrayList<String>(map.values()));
+	}
+
+	@Test
+	public void testLastPutWins()
+	{
+		CompactStringMap map = new CompactStringMap.Builder()
+				.put("2", "first gloss")
+				.put("1", "Glosse für Bäume")
+				.put("2", "")
+				.put("3", "third gloss")
+				.put("2", "last gloss")
+				.build();
+		assertEquals(3, map.size());
+		assertEquals("Glosse für Bäume", map.get("1"));
+		assertEquals("last gloss", map.get("2"));
+		assertEquals("third gloss", map.get("3"));
+	}
+
+	@Test
+	public void testBuildTwice()
+	{
+		// The values are copied into the buffer of each map, so the builder may be used further.
+		CompactStringMap.Builder builder = new CompactStringMap.Builder().put("1", "語").put("2", "");
+		CompactStringMap first = builder.build();
+		CompactStringMap second = builder.put("1", "word").put("3", "\ud834\udd1e").build();
+		assertEquals(2, first.size());
+		assertEquals("語", first.get("1"));
+		assertEquals("", first.get("2"));
+		assertEquals(3, second.size());
+		assertEquals("word", second.get("1"));
+		assertEquals("", second.get("2"));
+		assertEquals("\ud834\udd1e", second.get("3"));
+	}
+
+	@Test
+	public void testEmpty()
+	{
+		CompactStringMap map = new CompactStringMap.Builder().build();
+		assertTrue(map.isEmpty());
+		assertNull(map.get(""));
+		assertFalse(map.entrySet().iterator().hasNext());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testImmutable()
+	{
+		new CompactStringMap.Builder().put("1", "gloss").build().put("2", "gloss");
+	}
+}
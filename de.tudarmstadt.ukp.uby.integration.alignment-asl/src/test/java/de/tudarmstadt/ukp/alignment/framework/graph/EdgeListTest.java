@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.alignment.framework.graph;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+public class EdgeListTest
+{
+	@Test
+	public void testCompact()
+	{
+		EdgeList edges = new EdgeList();
+		edges.add(3, 1);
+		edges.add(1, 3);
+		edges.add(2, 2);
+		edges.add(1, 2);
+		edges.add(3, 1);
+		edges.add(-5, 1);
+		edges.compact();
+
+		assertEquals(3, edges.size());
+		assertEdge(edges, 0, -5, 1);
+		assertEdge(edges, 1, 1, 2);
+		assertEdge(edges, 2, 1, 3);
+	}
+
+	@Test
+	public void testCompactRandom()
+	{
+		Random random = new Random(1);
+		EdgeList edges = new EdgeList();
+		TreeSet<Long> expected = new TreeSet<Long>();
+		for (int i = 0; i < 5000; i++) {
+			int source = random.nextInt(300);
+			int target = random.nextInt(300);
+			edges.add(source, target);
+			if (source != target) {
+				expected.add(((long) Math.min(source, target) << 32) | Math.max(source, target));
+			}
+		}
+		edges.compact();
+
+		assertEquals(expected.size(), edges.size());
+		int i = 0;
+		for (long edge : expected) {
+			assertEdge(edges, i++, (int) (edge >> 32), (int) edge);
+		}
+	}
+
+	@Test
+	public void testCsr()
+	{
+		EdgeList edges = new EdgeList();
+		edges.add(20, 10);
+		edges.add(10, 30);
+		edges.add(30, 30);
+		int[][] csr = edges.toCsr();
+
+		assertArrayEquals(new int[] {10, 20, 30}, csr[0]);
+		assertArrayEquals(new int[] {0, 2, 3, 4}, csr[1]);
+		assertArrayEquals(new int[] {1, 2, 0, 0}, csr[2]);
+	}
+
+	@Test
+	public void testFiles() throws IOException
+	{
+		Random random = new Random(1);
+		EdgeList edges = new EdgeList();
+		for (int i = 0; i < 2000; i++) {
+			edges.add(random.nextInt(1000) + 100000, random.nextInt(1000) + 100000);
+		}
+
+		File text = File.createTempFile("edges", ".txt");
+		File binary = File.createTempFile("edges", ".bin");
+		try {
+			edges.writeGrphText(text.getPath());
+			assertFalse(EdgeList.isBinary(text.getPath()));
+			EdgeList read = EdgeList.readGrphText(text.getPath());
+			assertEquals(edges.size(), read.size());
+			for (int i = 0; i < edges.size(); i++) {
+				assertEdge(read, i, edges.getSource(i), edges.getTarget(i));
+			}
+
+			read.compact();
+			read.writeBinary(binary.getPath());
+			assertTrue(EdgeList.isBinary(binary.getPath()));
+			int[][] expected = read.toCsr();
+			int[][] csr = EdgeList.readBinary(binary.getPath());
+			for (int i = 0; i < expected.length; i++) {
+				assertArrayEquals(expected[i], csr[i]);
+			}
+
+			// Compaction does not change the distances.
+			ShortestPathEngine engine = ShortestPathEngine.load(binary.getPath());
+			assertEquals(read.size(), engine.getEdgeCount());
+			Map<Integer, List<Integer>> graph = ShortestPathEngineTest.adjacency(edges);
+			for (int i = 0; i < 1000; i++) {
+				int id1 = random.nextInt(1000) + 100000;
+				int id2 = random.nextInt(1000) + 100000;
+				if (engine.containsNode(id1) && engine.containsNode(id2)) {
+					assertEquals(ShortestPathEngineTest.bfs(graph, id1, id2, Integer.MAX_VALUE),
+							engine.getShortestPathLength(id1, id2, Integer.MAX_VALUE));
+				}
+			}
+		}
+		finally {
+			text.delete();
+			binary.delete();
+		}
+	}
+
+	private static void assertEdge(EdgeList edges, int index, int source, int target)
+	{
+		assertEquals(source, edges.getSource(index));
+		assertEquals(target, edges.getTarget(index));
+	}
+}
@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.alignment.framework.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ShortestPathEngineTest
+{
+	@Test
+	public void testPath()
+	{
+		EdgeList edges = new EdgeList();
+		edges.add(1, 2);
+		edges.add(3, 2);
+		edges.add(3, 4);
+		edges.add(4, 4); // self-loop
+		edges.add(10, 11);
+		ShortestPathEngine engine = new ShortestPathEngine(edges);
+
+		assertEquals(6, engine.getNodeCount());
+		assertEquals(4, engine.getEdgeCount());
+		assertTrue(engine.containsNode(4));
+		assertFalse(engine.containsNode(5));
+
+		assertEquals(0, engine.getShortestPathLength(1, 1, 5));
+		assertEquals(1, engine.getShortestPathLength(2, 1, 5));
+		assertEquals(3, engine.getShortestPathLength(1, 4, 5));
+		assertEquals(3, engine.getShortestPathLength(4, 1, 3));
+		assertEquals(ShortestPathEngine.UNREACHABLE, engine.getShortestPathLength(1, 4, 2));
+		assertEquals(ShortestPathEngine.UNREACHABLE, engine.getShortestPathLength(1, 10, 5));
+		assertEquals(ShortestPathEngine.UNREACHABLE, engine.getShortestPathLength(1, 5, 5));
+		assertEquals(ShortestPathEngine.UNREACHABLE, engine.getShortestPathLength(5, 1, 5));
+	}
+
+	@Test
+	public void testRandomGraph()
+	{
+		Random random = new Random(1);
+		EdgeList edges = new EdgeList();
+		for (int i = 0; i < 600; i++) {
+			edges.add(random.nextInt(500), random.nextInt(500));
+		}
+		ShortestPathEngine engine = new ShortestPathEngine(edges);
+		Map<Integer, List<Integer>> graph = adjacency(edges);
+
+		// Repeated first nodes, nodes without edges and IDs outside the graph
+		int[] ids1 = new int[2000];
+		int[] ids2 = new int[2000];
+		for (int i = 0; i < ids1.length; i++) {
+			ids1[i] = random.nextInt(50);
+			ids2[i] = random.nextInt(520);
+		}
+		for (int max_depth : new int[] {1, 3, Integer.MAX_VALUE}) {
+			int[] expected = new int[ids1.length];
+			for (int i = 0; i < ids1.length; i++) {
+				expected[i] = bfs(graph, ids1[i], ids2[i], max_depth);
+				assertEquals(expected[i], engine.getShortestPathLength(ids1[i], ids2[i], max_depth));
+			}
+			for (int threads : new int[] {1, 4}) {
+				int[] result = engine.getShortestPathLengths(ids1, ids2, max_depth, threads);
+				for (int i = 0; i < ids1.length; i++) {
+					assertEquals(expected[i], result[i]);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testSeveralEngines()
+	{
+		// The engines share the search state of the thread.
+		EdgeList path = new EdgeList();
+		path.add(1, 2);
+		path.add(2, 3);
+		ShortestPathEngine small = new ShortestPathEngine(path);
+		Random random = new Random(2);
+		EdgeList edges = new EdgeList();
+		for (int i = 0; i < 300; i++) {
+			edges.add(random.nextInt(200), random.nextInt(200));
+		}
+		ShortestPathEngine large = new ShortestPathEngine(edges);
+		Map<Integer, List<Integer>> graph = adjacency(edges);
+
+		for (int i = 0; i < 100; i++) {
+			assertEquals(2, small.getShortestPathLength(1, 3, 5));
+			assertEquals(ShortestPathEngine.UNREACHABLE, small.getShortestPathLength(1, 3, 1));
+			int id1 = random.nextInt(200);
+			int id2 = random.nextInt(200);
+			assertEquals(bfs(graph, id1, id2, 4), large.getShortestPathLength(id1, id2, 4));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDifferentLengths()
+	{
+		EdgeList edges = new EdgeList();
+		edges.add(1, 2);
+		new ShortestPathEngine(edges).getShortestPathLengths(new int[] {1}, new int[0], 1, 1);
+	}
+
+	static Map<Integer, List<Integer>> adjacency(EdgeList edges)
+	{
+		Map<Integer, List<Integer>> graph = new HashMap<Integer, List<Integer>>();
+		for (int i = 0; i < edges.size(); i++) {
+			// Nodes with only a self-loop are part of the graph, too.
+			List<Integer> sources = neighbours(graph, edges.getSource(i));
+			List<Integer> targets = neighbours(graph, edges.getTarget(i));
+			if (edges.getSource(i) != edges.getTarget(i)) {
+				sources.add(edges.getTarget(i));
+				targets.add(edges.getSource(i));
+			}
+		}
+		return graph;
+	}
+
+	private static List<Integer> neighbours(Map<Integer, List<Integer>> graph, int node)
+	{
+		List<Integer> result = graph.get(node);
+		if (result == null) {
+			result = new ArrayList<Integer>();
+			graph.put(node, result);
+		}
+		return result;
+	}
+
+	/** Plain breadth-first search from the source. */
+	static int bfs(Map<Integer, List<Integer>> graph, int source, int target, int max_depth)
+	{
+		if (!graph.containsKey(source) || !graph.containsKey(target)) {
+			return ShortestPathEngine.UNREACHABLE;
+		}
+		Map<Integer, Integer> distances = new HashMap<Integer, Integer>();
+		ArrayDeque<Integer> queue = new ArrayDeque<Integer>();
+		distances.put(source, 0);
+		queue.add(source);
+		while (!queue.isEmpty()) {
+			int node = queue.poll();
+			int distance = distances.get(node);
+			if (node == target) {
+				return distance;
+			}
+			if (distance == max_depth) {
+				continue;
+			}
+			for (int neighbour : graph.get(node)) {
+				if (!distances.containsKey(neighbour)) {
+					distances.put(neighbour, distance + 1);
+					queue.add(neighbour);
+				}
+			}
+		}
+		return ShortestPathEngine.UNREACHABLE;
+	}
+}
@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.alignment.framework.graph;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+public class StringDictionaryTest
+{
+	static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/** The order of the UTF-8 bytes of strings as unsigned bytes. */
+	static final Comparator<String> UTF8_ORDER = new Comparator<String>()
+	{
+		@Override
+		public int compare(String o1, String o2)
+		{
+			byte[] bytes1 = o1.getBytes(UTF8);
+			byte[] bytes2 = o2.getBytes(UTF8);
+			for (int i = 0; i < Math.min(bytes1.length, bytes2.length); i++) {
+				int difference = (bytes1[i] & 0xFF) - (bytes2[i] & 0xFF);
+				if (difference != 0) {
+					return difference;
+				}
+			}
+			return bytes1.length - bytes2.length;
+		}
+	};
+
+	/** Characters of one to four UTF-8 bytes, including some above the surrogates. */
+	private static final String[] CHARACTERS = {"a", "b", "z", "#", "ä", "ß", "é", "ж",
+			"語", "\ue000", "\ufffd", "\ud834\udd1e"};
+
+	@Test
+	public void testRandom()
+	{
+		Random random = new Random(1);
+		List<String> strings = new ArrayList<String>();
+		for (int i = 0; i < 3000; i++) {
+			strings.add(randomString(random));
+		}
+		// Repeated strings are stored once.
+		strings.addAll(strings.subList(0, 500));
+		Collections.shuffle(strings, random);
+
+		StringDictionary dictionary = new StringDictionary(strings);
+		TreeSet<String> expected = new TreeSet<String>(UTF8_ORDER);
+		expected.addAll(strings);
+		assertEquals(expected.size(), dictionary.size());
+		int index = 0;
+		for (String string : expected) {
+			assertEquals(string, dictionary.get(index));
+			assertEquals(index, dictionary.indexOf(string));
+			index++;
+		}
+		for (int i = 0; i < 3000; i++) {
+			String string = randomString(random);
+			// Prefixes and extensions of the strings test the comparison of lengths.
+			for (String key : new String[] {string, string + "a", string.substring(0, string.length() / 2)}) {
+				assertEquals(expected.contains(key) ? expected.headSet(key).size() : -1, dictionary.indexOf(key));
+			}
+		}
+	}
+
+	@Test
+	public void testUnsignedOrder()
+	{
+		// Signed bytes would sort the multi-byte characters before the ASCII ones, and String.compareTo
+		// sorts the surrogates of U+1D11E before U+FFFD.
+		StringDictionary dictionary = new StringDictionary(Arrays.asList("\ud834\udd1e", "\ufffd", "ä", "z"));
+		assertEquals(Arrays.asList("z", "ä", "\ufffd", "\ud834\udd1e"), Arrays.asList(dictionary.get(0),
+				dictionary.get(1), dictionary.get(2), dictionary.get(3)));
+		assertEquals(0, dictionary.indexOf("z"));
+		assertEquals(1, dictionary.indexOf("ä"));
+		assertEquals(2, dictionary.indexOf("\ufffd"));
+		assertEquals(3, dictionary.indexOf("\ud834\udd1e"));
+		assertEquals(-1, dictionary.indexOf("å"));
+	}
+
+	@Test
+	public void testUnpairedSurrogate()
+	{
+		// As in String.getBytes, an unpaired surrogate is encoded as '?'.
+		StringDictionary dictionary = new StringDictionary(Arrays.asList("a\ud834", "b"));
+		assertEquals(2, dictionary.size());
+		assertEquals("a?", dictionary.get(0));
+		assertEquals(0, dictionary.indexOf("a\ud834"));
+		assertEquals(0, dictionary.indexOf("a?"));
+		assertEquals(0, dictionary.indexOf("a\udd1e"));
+	}
+
+	@Test
+	public void testEmpty()
+	{
+		StringDictionary dictionary = new StringDictionary(Collections.<String>emptyList());
+		assertEquals(0, dictionary.size());
+		assertEquals(-1, dictionary.indexOf(""));
+
+		dictionary = new StringDictionary(Arrays.asList("", "a", ""));
+		assertEquals(2, dictionary.size());
+		assertEquals(0, dictionary.indexOf(""));
+		assertEquals("", dictionary.get(0));
+		assertEquals(1, dictionary.indexOf("a"));
+	}
+
+	/** Returns a string of up to six random characters, from a small set so that strings repeat. */
+	static String randomString(Random random)
+	{
+		StringBuilder result = new StringBuilder();
+		int length = random.nextInt(7);
+		for (int i = 0; i < length; i++) {
+			result.append(CHARACTERS[random.nextInt(CHARACTERS.length)]);
+		}
+		return result.toString();
+	}
+}
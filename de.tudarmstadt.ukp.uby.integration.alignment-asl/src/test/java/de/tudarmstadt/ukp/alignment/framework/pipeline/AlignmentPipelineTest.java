@@ -0,0 +1,348 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.alignment.framework.pipeline;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+import de.tudarmstadt.ukp.alignment.framework.graph.CalculateDijkstraWSA;
+import de.tudarmstadt.ukp.alignment.framework.graph.EdgeList;
+import de.tudarmstadt.ukp.alignment.framework.graph.OneResourceBuilder;
+import de.tudarmstadt.ukp.alignment.framework.graph.ShortestPathEngine;
+
+public class AlignmentPipelineTest
+{
+	private static final int PAIRS = 2500;
+
+	@Test
+	public void testRun() throws Exception
+	{
+		final int[] ids1 = new int[PAIRS];
+		final int[] ids2 = new int[PAIRS];
+		ShortestPathEngine engine = createPairs(ids1, ids2);
+
+		CollectingSink sink = new CollectingSink();
+		AlignmentPipeline pipeline = new AlignmentPipeline(new ArraySource(ids1, ids2), 100, 1)
+				.addStage(new SumStage())
+				.addStage(new DijkstraWSAStage(engine, 3, 2))
+				.addSink(sink);
+		assertEquals(Arrays.asList(SumStage.NAME, DijkstraWSAStage.NAME), pipeline.getFeatureNames());
+		assertEquals(PAIRS, pipeline.run());
+
+		assertEquals(pipeline.getFeatureNames(), sink.feature_names);
+		assertEquals(1, sink.opened);
+		assertEquals(1, sink.closed);
+		assertEquals(PAIRS, sink.ids1.size());
+		boolean no_path = false;
+		for (int i = 0; i < PAIRS; i++) {
+			// The pairs keep their order.
+			assertEquals(ids1[i], (int) sink.ids1.get(i));
+			assertEquals(ids2[i], (int) sink.ids2.get(i));
+			assertEquals(ids1[i] + ids2[i], sink.features.get(i)[0], 0.0);
+			int length = engine.getShortestPathLength(ids1[i], ids2[i], 3);
+			if (length == ShortestPathEngine.UNREACHABLE) {
+				assertEquals(CalculateDijkstraWSA.NO_PATH, sink.features.get(i)[1], 0.0);
+				no_path = true;
+			}
+			else {
+				assertEquals(length, sink.features.get(i)[1], 0.0);
+			}
+		}
+		assertTrue(no_path);
+	}
+
+	@Test
+	public void testEmptySource() throws Exception
+	{
+		CollectingSink sink = new CollectingSink();
+		AlignmentPipeline pipeline = new AlignmentPipeline(new ArraySource(new int[0], new int[0]))
+				.addStage(new SumStage())
+				.addSink(sink);
+		assertEquals(0, pipeline.run());
+		assertEquals(1, sink.opened);
+		assertEquals(1, sink.closed);
+		assertTrue(sink.ids1.isEmpty());
+	}
+
+	@Test
+	public void testResourceCandidateSource() throws Exception
+	{
+		OneResourceBuilder gb1 = new OneResourceBuilder(0, null, false, true);
+		gb1.lemmaPosSenses = new TreeMap<String, Set<String>>();
+		gb1.lemmaPosSenses.put("bank#noun", new HashSet<String>(Arrays.asList("101", "102")));
+		gb1.lemmaPosSenses.put("bench#noun", new HashSet<String>(Arrays.asList("102")));
+		gb1.lemmaPosSenses.put("bank#verb", new HashSet<String>(Arrays.asList("103")));
+		OneResourceBuilder gb2 = new OneResourceBuilder(0, null, false, true);
+		gb2.lemmaPosSenses = new TreeMap<String, Set<String>>();
+		gb2.lemmaPosSenses.put("bank#noun", new HashSet<String>(Arrays.asList("201")));
+		gb2.lemmaPosSenses.put("bench#noun", new HashSet<String>(Arrays.asList("201", "202")));
+		gb2.lemmaPosSenses.put("bank#verb", new HashSet<String>(Arrays.asList("203")));
+
+		CollectingSink sink = new CollectingSink();
+		assertEquals(4, new AlignmentPipeline(new ResourceCandidateSource(gb1, gb2), 3, 1).addSink(sink).run());
+		// The pair 102 201 of both noun blocks is passed once, and the pairs are sorted.
+		assertEquals(Arrays.asList(101, 102, 102, 103), sink.ids1);
+		assertEquals(Arrays.asList(201, 201, 202, 203), sink.ids2);
+	}
+
+	@Test
+	public void testCheckpoint() throws Exception
+	{
+		int[] ids1 = new int[PAIRS];
+		int[] ids2 = new int[PAIRS];
+		ShortestPathEngine engine = createPairs(ids1, ids2);
+
+		File file = File.createTempFile("features", ".bin");
+		try {
+			CollectingSink expected = new CollectingSink();
+			new AlignmentPipeline(new ArraySource(ids1, ids2), 64, 2)
+					.addStage(new DijkstraWSAStage(engine, 5, 1))
+					.addSink(new CheckpointFile.Writer(file.getPath()))
+					.addSink(expected)
+					.run();
+
+			// The features of the checkpoint precede those of further stages.
+			CollectingSink sink = new CollectingSink();
+			AlignmentPipeline pipeline = new AlignmentPipeline(new CheckpointFile.Reader(file.getPath()), 100, 2)
+					.addStage(new SumStage())
+					.addSink(sink);
+			assertEquals(Arrays.asList(DijkstraWSAStage.NAME, SumStage.NAME), pipeline.getFeatureNames());
+			assertEquals(PAIRS, pipeline.run());
+			assertEquals(expected.ids1, sink.ids1);
+			assertEquals(expected.ids2, sink.ids2);
+			for (int i = 0; i < PAIRS; i++) {
+				assertEquals(expected.features.get(i)[0], sink.features.get(i)[0], 0.0);
+				assertEquals(ids1[i] + ids2[i], sink.features.get(i)[1], 0.0);
+			}
+		}
+		finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testFailure() throws Exception
+	{
+		int[] ids1 = new int[PAIRS];
+		int[] ids2 = new int[PAIRS];
+		createPairs(ids1, ids2);
+
+		File file = File.createTempFile("features", ".bin");
+		try {
+			CollectingSink sink = new CollectingSink();
+			AlignmentPipeline pipeline = new AlignmentPipeline(new ArraySource(ids1, ids2), 10, 1)
+					.addStage(new SumStage())
+					.addStage(new FeatureStage()
+					{
+						@Override
+						public String getName()
+						{
+							return "failure";
+						}
+
+						@Override
+						public void process(CandidateBatch batch, int column)
+						{
+							throw new IllegalStateException("failure");
+						}
+					})
+					.addSink(new CheckpointFile.Writer(file.getPath()))
+					.addSink(sink);
+			try {
+				pipeline.run();
+				fail("Failure of a stage not thrown");
+			}
+			catch (IllegalStateException e) {
+				assertEquals("failure", e.getMessage());
+			}
+			assertEquals(1, sink.opened);
+			assertEquals(0, sink.closed);
+			assertEquals(1, sink.aborted);
+			// The incomplete checkpoint is removed.
+			assertFalse(file.exists());
+		}
+		finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testSinkFailure() throws Exception
+	{
+		int[] ids1 = new int[PAIRS];
+		int[] ids2 = new int[PAIRS];
+		createPairs(ids1, ids2);
+
+		CollectingSink first = new CollectingSink();
+		CollectingSink failing = new CollectingSink()
+		{
+			@Override
+			public void close()
+			{
+				super.close();
+				throw new IllegalStateException("close");
+			}
+		};
+		CollectingSink last = new CollectingSink()
+		{
+			@Override
+			public void abort()
+			{
+				super.abort();
+				throw new IllegalStateException("abort");
+			}
+		};
+		AlignmentPipeline pipeline = new AlignmentPipeline(new ArraySource(ids1, ids2), 100, 1)
+				.addSink(first)
+				.addSink(failing)
+				.addSink(last);
+		try {
+			pipeline.run();
+			fail("Failure of a sink not thrown");
+		}
+		catch (IllegalStateException e) {
+			assertEquals("close", e.getMessage());
+			// The failure of an abort does not hide that of the sink.
+			assertEquals(1, e.getSuppressed().length);
+			assertEquals("abort", e.getSuppressed()[0].getMessage());
+		}
+		// Only the sinks which were not closed successfully are aborted.
+		assertEquals(1, first.closed);
+		assertEquals(0, first.aborted);
+		assertEquals(1, failing.aborted);
+		assertEquals(0, last.closed);
+		assertEquals(1, last.aborted);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBatchSize()
+	{
+		new AlignmentPipeline(new ArraySource(new int[0], new int[0]), 0, 1);
+	}
+
+	/** Fills the given arrays with random pairs of a random graph, which is returned. */
+	private static ShortestPathEngine createPairs(int[] ids1, int[] ids2)
+	{
+		Random random = new Random(1);
+		EdgeList edges = new EdgeList();
+		for (int i = 0; i < 300; i++) {
+			edges.add(random.nextInt(200), random.nextInt(200));
+		}
+		for (int i = 0; i < ids1.length; i++) {
+			ids1[i] = random.nextInt(210);
+			ids2[i] = random.nextInt(210);
+		}
+		return new ShortestPathEngine(edges);
+	}
+
+	private static class ArraySource extends CandidateSource
+	{
+		private final int[] ids1;
+		private final int[] ids2;
+
+		ArraySource(int[] ids1, int[] ids2)
+		{
+			this.ids1 = ids1;
+			this.ids2 = ids2;
+		}
+
+		@Override
+		protected void generate() throws InterruptedException
+		{
+			for (int i = 0; i < ids1.length; i++) {
+				emit(ids1[i], ids2[i]);
+			}
+		}
+	}
+
+	private static class SumStage implements FeatureStage
+	{
+		static final String NAME = "sum";
+
+		@Override
+		public String getName()
+		{
+			return NAME;
+		}
+
+		@Override
+		public void process(CandidateBatch batch, int column)
+		{
+			for (int i = 0; i < batch.size(); i++) {
+				batch.setFeature(column, i, batch.getId1(i) + batch.getId2(i));
+			}
+		}
+	}
+
+	private static class CollectingSink implements CandidateSink
+	{
+		List<String> feature_names;
+		int opened = 0;
+		int closed = 0;
+		int aborted = 0;
+		final List<Integer> ids1 = new ArrayList<Integer>();
+		final List<Integer> ids2 = new ArrayList<Integer>();
+		final List<double[]> features = new ArrayList<double[]>();
+
+		@Override
+		public void open(List<String> feature_names)
+		{
+			this.feature_names = feature_names;
+			opened++;
+		}
+
+		@Override
+		public void consume(CandidateBatch batch)
+		{
+			for (int i = 0; i < batch.size(); i++) {
+				ids1.add(batch.getId1(i));
+				ids2.add(batch.getId2(i));
+				double[] values = new double[batch.getFeatureCount()];
+				for (int column = 0; column < values.length; column++) {
+					values[column] = batch.getFeature(column, i);
+				}
+				features.add(values);
+			}
+		}
+
+		@Override
+		public void close()
+		{
+			closed++;
+		}
+
+		@Override
+		public void abort()
+		{
+			aborted++;
+		}
+	}
+}
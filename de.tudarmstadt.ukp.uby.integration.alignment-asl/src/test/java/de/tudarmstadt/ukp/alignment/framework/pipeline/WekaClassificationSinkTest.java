@@ -0,0 +1,182 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.alignment.framework.pipeline;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+import de.tudarmstadt.ukp.alignment.framework.combined.WekaMachineLearning;
+
+public class WekaClassificationSinkTest
+{
+	private static final int PAIRS = 300;
+
+	@Test
+	public void testClassification() throws Exception
+	{
+		int[] ids1 = new int[PAIRS];
+		int[] ids2 = new int[PAIRS];
+		double[][] features = new double[PAIRS][];
+		for (int i = 0; i < PAIRS; i++) {
+			ids1[i] = 1000 + i / 3;
+			ids2[i] = 2000 + i;
+			features[i] = new double[] {(i % 8) / 8.0, i % 5};
+		}
+
+		File directory = createDirectory();
+		try {
+			// A model trained on a gold standard in which the pairs with a large similarity are aligned
+			String goldstandard = new File(directory, "goldstandard.arff").getPath();
+			writeArff(goldstandard, ids1, ids2, features, true);
+			String model = new File(directory, "model.ser").getPath();
+			WekaMachineLearning.createModelFromGoldstandard(goldstandard, model, false);
+
+			// The alignment created from arff files
+			String unlabeled = new File(directory, "unlabeled.arff").getPath();
+			writeArff(unlabeled, ids1, ids2, features, false);
+			String labeled = new File(directory, "labeled.arff").getPath();
+			WekaMachineLearning.applyModelToUnlabeledArff(unlabeled, model, labeled);
+			String expected = new File(directory, "expected.tsv").getPath();
+			WekaMachineLearning.createFinalAlignmentFile(labeled, expected);
+
+			String actual = new File(directory, "actual.tsv").getPath();
+			assertEquals(PAIRS, new AlignmentPipeline(new FeatureSource(ids1, ids2, features), 64, 1)
+					.addSink(new WekaClassificationSink(model, actual))
+					.run());
+
+			Map<String, double[]> expected_alignment = readAlignment(expected);
+			Map<String, double[]> alignment = readAlignment(actual);
+			assertFalse(alignment.isEmpty());
+			assertTrue(alignment.size() < PAIRS);
+			assertEquals(expected_alignment.keySet(), alignment.keySet());
+			for (Map.Entry<String, double[]> entry : alignment.entrySet()) {
+				double[] expected_values = expected_alignment.get(entry.getKey());
+				assertEquals(expected_values.length, entry.getValue().length);
+				for (int i = 0; i < expected_values.length; i++) {
+					assertEquals(expected_values[i], entry.getValue()[i], 1e-6);
+				}
+			}
+		}
+		finally {
+			for (File file : directory.listFiles()) {
+				file.delete();
+			}
+			directory.delete();
+		}
+	}
+
+	/** Writes the pairs in the format of {@link WekaMachineLearning#createArffFile}, labelled or unlabelled. */
+	private static void writeArff(String file, int[] ids1, int[] ids2, double[][] features, boolean labelled)
+		throws IOException
+	{
+		PrintStream p = new PrintStream(file);
+		try {
+			p.println("@RELATION " + file);
+			p.println();
+			p.println("@ATTRIBUTE Pair_ID STRING");
+			p.println("@ATTRIBUTE sim NUMERIC");
+			p.println("@ATTRIBUTE dwsa NUMERIC");
+			p.println("@ATTRIBUTE class {0,1}");
+			p.println();
+			p.println("@DATA");
+			for (int i = 0; i < ids1.length; i++) {
+				String label = labelled ? (features[i][0] >= 0.5 ? "1" : "0") : "?";
+				p.println(ids1[i] + "###" + ids2[i] + "," + features[i][0] + "," + features[i][1] + "," + label);
+			}
+		}
+		finally {
+			p.close();
+		}
+	}
+
+	/** Reads the aligned pairs and their feature values, skipping the header line. */
+	private static Map<String, double[]> readAlignment(String file) throws IOException
+	{
+		Map<String, double[]> result = new TreeMap<String, double[]>();
+		BufferedReader input = new BufferedReader(new FileReader(file));
+		try {
+			String line;
+			while ((line = input.readLine()) != null) {
+				if (line.startsWith("f")) {
+					continue;
+				}
+				String[] fields = line.split("\t");
+				String[] values = fields[2].split("###");
+				double[] features = new double[values.length];
+				for (int i = 0; i < values.length; i++) {
+					features[i] = Double.parseDouble(values[i]);
+				}
+				result.put(fields[0] + "\t" + fields[1], features);
+			}
+		}
+		finally {
+			input.close();
+		}
+		return result;
+	}
+
+	private static File createDirectory() throws IOException
+	{
+		File result = File.createTempFile("weka", "");
+		result.delete();
+		result.mkdir();
+		return result;
+	}
+
+	/** Passes the pairs with the values of two features. */
+	private static class FeatureSource extends CandidateSource
+	{
+		private final int[] ids1;
+		private final int[] ids2;
+		private final double[][] features;
+
+		FeatureSource(int[] ids1, int[] ids2, double[][] features)
+		{
+			this.ids1 = ids1;
+			this.ids2 = ids2;
+			this.features = features;
+		}
+
+		@Override
+		public List<String> getFeatureNames()
+		{
+			return Arrays.asList("sim", "dwsa");
+		}
+
+		@Override
+		protected void generate() throws InterruptedException
+		{
+			for (int i = 0; i < ids1.length; i++) {
+				emit(ids1[i], ids2[i], features[i]);
+			}
+		}
+	}
+}
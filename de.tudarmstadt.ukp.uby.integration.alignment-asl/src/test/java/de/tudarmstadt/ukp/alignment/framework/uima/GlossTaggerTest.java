@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.alignment.framework.uima;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import de.tudarmstadt.ukp.lmf.model.enums.ELanguageIdentifier;
+
+public class GlossTaggerTest
+{
+	private static final String[] GLOSSES = {
+		"a domesticated carnivorous mammal that typically has a long snout",
+		"the act of running quickly on foot",
+		"an instance of questioning",
+		"Cats are sleeping in the garden."
+	};
+
+	@Test
+	public void testTag() throws Exception
+	{
+		GlossTagger tagger = new GlossTagger(ELanguageIdentifier.ENGLISH, 1);
+		try {
+			for (String gloss : GLOSSES) {
+				String[] lexemes = tagger.tag(gloss);
+				assertTrue(lexemes.length > 0);
+				for (String lexeme : lexemes) {
+					assertTrue(lexeme, lexeme.indexOf('#') > 0);
+				}
+				// The same tokens as the pipeline created for each gloss
+				assertEquals(Arrays.asList(Toolkit.lemmatizeEnglish(gloss)), Arrays.asList(lexemes));
+			}
+		}
+		finally {
+			tagger.destroy();
+		}
+	}
+
+	@Test
+	public void testTagParallel() throws Exception
+	{
+		final GlossTagger tagger = new GlossTagger(ELanguageIdentifier.ENGLISH, 4);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<String[]> expected = new ArrayList<String[]>();
+			for (String gloss : GLOSSES) {
+				expected.add(tagger.tag(gloss));
+			}
+			List<Future<String[]>> results = new ArrayList<Future<String[]>>();
+			for (int i = 0; i < 10 * GLOSSES.length; i++) {
+				final String gloss = GLOSSES[i % GLOSSES.length];
+				results.add(executor.submit(new Callable<String[]>()
+				{
+					@Override
+					public String[] call() throws Exception
+					{
+						return tagger.tag(gloss);
+					}
+				}));
+			}
+			for (int i = 0; i < results.size(); i++) {
+				assertArrayEquals(expected.get(i % GLOSSES.length), results.get(i).get());
+			}
+		}
+		finally {
+			executor.shutdownNow();
+			tagger.destroy();
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnsupportedLanguage() throws Exception
+	{
+		new GlossTagger("xx", 1);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testThreads() throws Exception
+	{
+		new GlossTagger(ELanguageIdentifier.ENGLISH, 0);
+	}
+}
@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.lmf.api;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+
+import de.tudarmstadt.ukp.lmf.model.core.LexicalResource;
+import de.tudarmstadt.ukp.lmf.transform.DBConfig;
+
+/**
+ * Thread-safe variant of {@link Uby} which can be shared by several threads.
+ * <p>
+ * All threads use the same Hibernate {@link SessionFactory}, so the mappings are parsed only
+ * once. Each thread performs its lookups in its own {@link Session}, which is opened on the first
+ * lookup of the thread and remains open until {@link #releaseSession()} is called by the thread.
+ * In order to keep the memory used by a session bounded, request serving threads should release
+ * their session at the end of each request. UBY-LMF instances returned to a thread are attached
+ * to the session of that thread and must not be passed to other threads.
+ * <p>
+ * The number of database connections shared by all threads is configured using
+ * {@link DBConfig#setConnectionPoolSize(int)}.
+ *
+ * @see Uby
+ */
+public class ConcurrentUby extends Uby
+{
+	private final ThreadLocal<Session> threadSession = new ThreadLocal<Session>();
+	private final Set<Session> openSessions = Collections.newSetFromMap(
+			new ConcurrentHashMap<Session, Boolean>());
+
+    /**
+     * Constructor for a {@link ConcurrentUby} instance used for searching of different elements
+     * in a database containing UBY-LMF {@link LexicalResource} from several threads.
+     *
+     * The connection to the database is specified using a {@link DBConfig} instance.
+     *
+     * @param dbConfig
+     *            configuration of the database containing UBY-LMF lexical resource.
+     * @throws IllegalArgumentException
+     *             if the specified dbConfig is null
+     */
+	public ConcurrentUby(DBConfig dbConfig) throws IllegalArgumentException
+	{
+		super(dbConfig, false);
+	}
+
+    /**
+     * Returns the Hibernate {@link Session} of the calling thread. The session is opened if the
+     * calling thread does not have an open session yet.
+     *
+     * @return the session of the calling thread
+     */
+	@Override
+	public Session getSession()
+	{
+		Session result = threadSession.get();
+		if (result == null || !result.isOpen()) {
+			result = sessionFactory.openSession();
+			result.setDefaultReadOnly(true);
+			threadSession.set(result);
+			openSessions.add(result);
+		}
+		return result;
+	}
+
+    /**
+     * Opens the Hibernate session of the calling thread.
+     *
+     * @deprecated sessions are opened on demand, use {@link #getSession()} instead
+     */
+	@Override
+	@Deprecated
+	public void openSession()
+	{
+		getSession();
+	}
+
+    /**
+     * Closes the Hibernate session of the calling thread.
+     *
+     * @deprecated use {@link #releaseSession()} instead
+     */
+	@Override
+	@Deprecated
+	public void closeSession()
+	{
+		releaseSession();
+	}
+
+    /**
+     * Closes the Hibernate session of the calling thread. All UBY-LMF instances previously
+     * returned to this thread become detached. The next lookup of the thread opens a new
+     * session.
+     */
+	public void releaseSession()
+	{
+		Session result = threadSession.get();
+		threadSession.remove();
+		if (result != null) {
+			openSessions.remove(result);
+			if (result.isOpen()) {
+				result.close();
+			}
+		}
+	}
+
+    /**
+     * Closes the sessions of all threads and the Hibernate {@link SessionFactory} used by this
+     * {@link ConcurrentUby} instance. The instance must not be used afterwards.
+     */
+	public void close()
+	{
+		for (Session openSession : openSessions) {
+			if (openSession.isOpen()) {
+				openSession.close();
+			}
+		}
+		openSessions.clear();
+		sessionFactory.close();
+	}
+
+	@Override
+	protected void finalize()
+		throws Throwable
+	{
+		// sessions are owned by the threads and closed by close()
+	}
+}
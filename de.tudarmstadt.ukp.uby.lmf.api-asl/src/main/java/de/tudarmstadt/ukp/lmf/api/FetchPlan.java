@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.lmf.api;
+
+import de.tudarmstadt.ukp.lmf.model.core.Definition;
+import de.tudarmstadt.ukp.lmf.model.core.LexicalEntry;
+import de.tudarmstadt.ukp.lmf.model.core.Sense;
+import de.tudarmstadt.ukp.lmf.model.meta.SemanticLabel;
+
+/**
+ * Describes which parts of the object graph of {@link LexicalEntry} and {@link Sense} instances
+ * are loaded eagerly by the lookup methods of {@link Uby}.
+ * <p>
+ * Every collection included in a fetch plan is loaded for all returned elements at once, so the
+ * number of queries depends on the fetch plan and not on the number of returned elements.
+ * Collections not included in the fetch plan are loaded lazily on first access.
+ *
+ * @see Uby#getLexicalEntries(String, de.tudarmstadt.ukp.lmf.model.enums.EPartOfSpeech,
+ *      de.tudarmstadt.ukp.lmf.model.core.Lexicon, FetchPlan)
+ * @see Uby#fetch(java.util.Collection, FetchPlan)
+ */
+public enum FetchPlan
+{
+	/** Nothing is loaded eagerly. */
+	NONE(false, false, false),
+
+	/** The senses of lexical entries are loaded eagerly. */
+	SENSES(true, false, false),
+
+	/** Senses and their {@link Definition} instances including text representations. */
+	SENSES_WITH_DEFINITIONS(true, true, false),
+
+	/** Senses and their {@link SemanticLabel} instances. */
+	SENSES_WITH_LABELS(true, false, true),
+
+	/** Senses, their definitions including text representations and their semantic labels. */
+	SENSES_WITH_DEFINITIONS_AND_LABELS(true, true, true);
+
+	private final boolean senses;
+	private final boolean definitions;
+	private final boolean semanticLabels;
+
+	private FetchPlan(boolean senses, boolean definitions, boolean semanticLabels)
+	{
+		this.senses = senses;
+		this.definitions = definitions;
+		this.semanticLabels = semanticLabels;
+	}
+
+    /**
+     * @return true if the senses of lexical entries are loaded eagerly
+     */
+	public boolean isSenses()
+	{
+		return senses;
+	}
+
+    /**
+     * @return true if the definitions of senses and their text representations are loaded
+     *         eagerly
+     */
+	public boolean isDefinitions()
+	{
+		return definitions;
+	}
+
+    /**
+     * @return true if the semantic labels of senses are loaded eagerly
+     */
+	public boolean isSemanticLabels()
+	{
+		return semanticLabels;
+	}
+}
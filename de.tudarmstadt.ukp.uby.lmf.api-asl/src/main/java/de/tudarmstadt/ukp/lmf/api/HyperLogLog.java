@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.lmf.api;
+
+/**
+ * HyperLogLog sketch estimating the number of distinct strings added to it in constant memory.
+ * A sketch of precision p uses 2^p registers of one byte and has a standard error of about
+ * 1.04 / sqrt(2^p), e.g. 0.8% for the default precision of 14. Small cardinalities are
+ * estimated by linear counting and thus are nearly exact.
+ * <p>
+ * Sketches of the same precision can be merged, which yields the sketch of the union of the added
+ * strings. This allows estimating the distinct count of any combination of partitions, e.g. of
+ * several parts-of-speech of a lexicon, from one sketch per partition.
+ *
+ * @see UbyStatistics#computeStatistics(int)
+ */
+public class HyperLogLog
+{
+	public static final int DEFAULT_PRECISION = 14;
+
+	private final int precision;
+	private final byte[] registers;
+
+    /**
+     * Creates an empty sketch of the {@link #DEFAULT_PRECISION}.
+     */
+	public HyperLogLog()
+	{
+		this(DEFAULT_PRECISION);
+	}
+
+    /**
+     * Creates an empty sketch of the specified precision.
+     *
+     * @param precision
+     *            the number of bits of the register index, between 4 and 18
+     * @throws IllegalArgumentException
+     *             if the precision is out of range
+     */
+	public HyperLogLog(int precision) throws IllegalArgumentException
+	{
+		if (precision < 4 || precision > 18) {
+			throw new IllegalArgumentException("precision must be between 4 and 18");
+		}
+		this.precision = precision;
+		this.registers = new byte[1 << precision];
+	}
+
+    /**
+     * Returns the precision of this sketch.
+     *
+     * @return the number of bits of the register index
+     */
+	public int getPrecision()
+	{
+		return precision;
+	}
+
+    /**
+     * Adds the specified string to this sketch.
+     *
+     * @param value
+     *            the string to be counted
+     */
+	public void add(String value)
+	{
+		long hash = hash(value);
+		int index = (int) (hash >>> (64 - precision));
+		// Position of the first one bit of the remaining bits, bounded by a sentinel bit.
+		int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+		if (rank > registers[index]) {
+			registers[index] = (byte) rank;
+		}
+	}
+
+    /**
+     * Adds the strings of the specified sketch to this sketch.
+     *
+     * @param other
+     *            the sketch to be merged into this sketch
+     * @throws IllegalArgumentException
+     *             if the precisions of the sketches differ
+     */
+	public void merge(HyperLogLog other) throws IllegalArgumentException
+	{
+		if (other.precision != precision) {
+			throw new IllegalArgumentException("precisions differ: " + precision + " and "
+					+ other.precision);
+		}
+		for (int i = 0; i < registers.length; i++) {
+			if (other.registers[i] > registers[i]) {
+				registers[i] = other.registers[i];
+			}
+		}
+	}
+
+    /**
+     * Estimates the number of distinct strings added to this sketch.
+     *
+     * @return the estimated cardinality
+     */
+	public long estimate()
+	{
+		int m = registers.length;
+		double sum = 0;
+		int zeros = 0;
+		for (byte register : registers) {
+			sum += 1.0 / (1L << register);
+			if (register == 0) {
+				zeros++;
+			}
+		}
+
+		double alpha;
+		if (m == 16) {
+			alpha = 0.673;
+		}
+		else if (m == 32) {
+			alpha = 0.697;
+		}
+		else if (m == 64) {
+			alpha = 0.709;
+		}
+		else {
+			alpha = 0.7213 / (1 + 1.079 / m);
+		}
+		double estimate = alpha * m * m / sum;
+		if (estimate <= 2.5 * m && zeros > 0) {
+			estimate = m * Math.log((double) m / zeros); // linear counting
+		}
+		return Math.round(estimate);
+	}
+
+    /**
+     * 64-bit FNV-1a hash of the characters followed by the MurmurHash3 finalizer, which spreads
+     * the bits of similar strings.
+     */
+	private static long hash(String value)
+	{
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < value.length(); i++) {
+			hash ^= value.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+}
@@ -0,0 +1,202 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.lmf.api;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.hibernate.Criteria;
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.criterion.CriteriaQuery;
+import org.hibernate.criterion.Criterion;
+import org.hibernate.criterion.DetachedCriteria;
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Restrictions;
+import org.hibernate.engine.spi.TypedValue;
+
+/**
+ * {@link Iterator} over UBY-LMF elements that pages by the ordered identifier of the
+ * iterated element instead of by row offset.
+ * <p>
+ * In contrast to {@link CriteriaIterator}, every page is selected with
+ * <code>id &gt; lastSeenId ORDER BY id</code>, so the cost of loading a page does not grow
+ * with the number of already consumed elements. All pages are loaded in one read-only
+ * Hibernate session which is cleared before each page and closed when the iteration ends
+ * (or when {@link #close()} is called). Elements returned by previous pages are therefore
+ * detached, just like the elements returned by {@link CriteriaIterator}.
+ * <p>
+ * The consumed criteria is extended by the paging restriction and order and must not be
+ * reused for other queries.
+ *
+ * @param <T> Class of the object that is iterated
+ *
+ * @see CriteriaIterator
+ */
+@SuppressWarnings("unchecked")
+public class KeysetCriteriaIterator<T> implements Iterator<T> {
+
+	private static final String ID_PROPERTY = "id";
+
+	private int bufferSize;	    // Max. number of objects to load into memory
+	private int fetchSize;	    // JDBC fetch size used for each page
+	private DetachedCriteria criteria;  // Hibernate Criteria
+	private Criteria execCriteria;	// Criteria bound to the session
+	private KeysetRestriction keyset; // Restriction holding the last seen id
+	private Iterator<T> buffer;	// Buffer with loaded objects
+	private T lastElement;		// Last element returned by the iterator
+	private boolean exhausted;	// True if no more pages are available
+	private Session session;	// Hibernate session used for all pages
+	private SessionFactory sessionFactory; // Hibernate session factory
+
+	/**
+	 * @param criteria   Criteria which holds selection settings for the iterated element
+	 * @param bufferSize Max. number of objects to load into memory
+	 */
+	public KeysetCriteriaIterator(DetachedCriteria criteria, SessionFactory sessionFactory,
+			int bufferSize){
+		this(criteria, sessionFactory, bufferSize, bufferSize);
+	}
+
+	/**
+	 * @param criteria   Criteria which holds selection settings for the iterated element
+	 * @param bufferSize Max. number of objects to load into memory
+	 * @param fetchSize  JDBC fetch size hint used when loading a page
+	 */
+	public KeysetCriteriaIterator(DetachedCriteria criteria, SessionFactory sessionFactory,
+			int bufferSize, int fetchSize){
+		if (bufferSize <= 0) {
+			throw new IllegalArgumentException("bufferSize must be positive");
+		}
+		this.bufferSize = bufferSize;
+		this.fetchSize = fetchSize;
+		this.criteria = criteria;
+		this.sessionFactory = sessionFactory;
+		this.keyset = new KeysetRestriction(ID_PROPERTY);
+	}
+
+	@Override
+	public boolean hasNext() {
+		boolean hasNext = buffer==null ? false : buffer.hasNext();
+		if(!hasNext && !exhausted)
+			hasNext = fillBuffer();
+		return hasNext;
+	}
+
+	@Override
+	public T next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		lastElement = buffer.next();
+		return lastElement;
+	}
+
+	/**
+	 * Fills the buffer with the next page of objects from the database.
+	 */
+	private boolean fillBuffer(){
+		if(session == null){
+			session = sessionFactory.openSession();
+			session.setDefaultReadOnly(true);
+			execCriteria = criteria.getExecutableCriteria(session);
+			execCriteria.add(keyset).addOrder(Order.asc(ID_PROPERTY));
+			if (fetchSize > 0) {
+				execCriteria.setFetchSize(fetchSize);
+			}
+		}
+		else {
+			if (lastElement != null) {
+				keyset.setLastKey(session.getIdentifier(lastElement));
+			}
+			session.clear();
+		}
+
+		@SuppressWarnings("rawtypes")
+		List result = execCriteria.setMaxResults(bufferSize).list();
+
+		if(result.size() < bufferSize)
+			exhausted = true;
+		if(result.size() == 0){
+			close();
+			return false;
+		}
+		buffer = result.iterator();
+		return true;
+	}
+
+	/**
+	 * Closes the Hibernate session used by this iterator. Calling this method is only
+	 * required if the iteration is stopped before all elements have been consumed.
+	 */
+	public void close() {
+		exhausted = true;
+		if(session != null && session.isOpen())
+			session.close();
+	}
+
+	@Override
+	public void remove() {
+	}
+
+	/**
+	 * Restriction <code>property &gt; lastKey</code> whose value is updated after each page.
+	 * Renders to an always true condition as long as no key has been seen.
+	 */
+	private static class KeysetRestriction implements Criterion {
+
+		private static final long serialVersionUID = 1L;
+
+		private final String propertyName;
+		private Object lastKey;
+
+		KeysetRestriction(String propertyName) {
+			this.propertyName = propertyName;
+		}
+
+		void setLastKey(Object lastKey) {
+			this.lastKey = lastKey;
+		}
+
+		@Override
+		public String toSqlString(Criteria criteria, CriteriaQuery criteriaQuery)
+			throws HibernateException {
+			if (lastKey == null) {
+				return "1=1";
+			}
+			return Restrictions.gt(propertyName, lastKey).toSqlString(criteria, criteriaQuery);
+		}
+
+		@Override
+		public TypedValue[] getTypedValues(Criteria criteria, CriteriaQuery criteriaQuery)
+			throws HibernateException {
+			if (lastKey == null) {
+				return new TypedValue[0];
+			}
+			return Restrictions.gt(propertyName, lastKey).getTypedValues(criteria, criteriaQuery);
+		}
+
+		@Override
+		public String toString() {
+			return propertyName + ">" + lastKey;
+		}
+	}
+
+}
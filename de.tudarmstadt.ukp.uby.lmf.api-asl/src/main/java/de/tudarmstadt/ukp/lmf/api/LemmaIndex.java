@@ -0,0 +1,483 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.lmf.api;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+import org.hibernate.Query;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+
+import de.tudarmstadt.ukp.lmf.model.core.LexicalEntry;
+import de.tudarmstadt.ukp.lmf.model.enums.EPartOfSpeech;
+import de.tudarmstadt.ukp.lmf.model.morphology.FormRepresentation;
+
+/**
+ * In-memory index of the written forms of the lemmas of all {@link LexicalEntry} instances of a
+ * UBY-LMF database. The index answers exact, prefix, case- and diacritic-insensitive and bounded
+ * edit distance lookups without querying the database, e.g. for autocompletion.
+ * <p>
+ * The written forms are kept in sorted arrays, one partition per lexicon and part-of-speech. Each
+ * partition is additionally sorted by the normalized written forms (see
+ * {@link #normalize(String)}). A sorted array serves as an implicit trie: all forms sharing a
+ * prefix are contiguous, so prefix lookups are binary searches, and the edit distance lookup
+ * skips all forms sharing a prefix which already exceeds the maximum distance.
+ * <p>
+ * The index is a snapshot of the database and is not updated afterwards. Exact and prefix lookups
+ * are case-sensitive regardless of the collation of the database.
+ *
+ * @see Uby#createLemmaIndex()
+ */
+public class LemmaIndex
+{
+	private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+	private final List<Partition> partitions;
+	private int size;
+
+    /**
+     * Loads the written forms of the lemmas of all lexical entries using the specified session.
+     *
+     * @param session
+     *            a session of the UBY-LMF database to be indexed
+     */
+	public LemmaIndex(Session session)
+	{
+		Map<String, List<String[]>> rows = new LinkedHashMap<String, List<String[]>>();
+		Map<String, Partition> keys = new LinkedHashMap<String, Partition>();
+		Query query = session.createQuery("select form.writtenForm, entry.id, entry.partOfSpeech,"
+				+ " lexicon.id from LexicalEntry entry join entry.lemma lemma"
+				+ " join lemma.formRepresentations form join entry.lexicon lexicon");
+		query.setReadOnly(true);
+		query.setFetchSize(1000);
+		ScrollableResults results = query.scroll(ScrollMode.FORWARD_ONLY);
+		try {
+			while (results.next()) {
+				String writtenForm = (String) results.get(0);
+				if (writtenForm == null) {
+					continue;
+				}
+				EPartOfSpeech pos = (EPartOfSpeech) results.get(2);
+				String lexiconId = (String) results.get(3);
+				String key = lexiconId + "|" + pos;
+				List<String[]> partitionRows = rows.get(key);
+				if (partitionRows == null) {
+					partitionRows = new ArrayList<String[]>();
+					rows.put(key, partitionRows);
+					keys.put(key, new Partition(lexiconId, pos));
+				}
+				partitionRows.add(new String[] { writtenForm, (String) results.get(1) });
+			}
+		}
+		finally {
+			results.close();
+		}
+
+		partitions = new ArrayList<Partition>();
+		for (Map.Entry<String, Partition> entry : keys.entrySet()) {
+			Partition partition = entry.getValue();
+			partition.build(rows.remove(entry.getKey()));
+			partitions.add(partition);
+			size += partition.forms.length;
+		}
+	}
+
+    /**
+     * Returns the number of indexed written forms.
+     *
+     * @return the number of (written form, lexical entry) pairs in this index
+     */
+	public int size()
+	{
+		return size;
+	}
+
+    /**
+     * Normalizes the specified written form for case- and diacritic-insensitive lookups, i.e.
+     * removes all combining marks after canonical decomposition and converts the form to lower
+     * case. E.g. "Educação" is normalized to "educacao".
+     *
+     * @param writtenForm
+     *            the written form to be normalized
+     * @return the normalized written form
+     */
+	public static String normalize(String writtenForm)
+	{
+		String result = Normalizer.normalize(writtenForm, Normalizer.Form.NFD);
+		result = COMBINING_MARKS.matcher(result).replaceAll("");
+		return result.toLowerCase(Locale.ROOT);
+	}
+
+    /**
+     * Returns the identifiers of the lexical entries having a lemma with the specified written
+     * form.
+     *
+     * @param lemma
+     *            the written form of the lemma
+     * @param pos
+     *            the part-of-speech of the lexical entries, or null for all parts-of-speech
+     * @param lexiconId
+     *            the identifier of the lexicon of the lexical entries, or null for all lexicons
+     * @return the identifiers of the matching lexical entries or an empty list
+     *
+     * @see FormRepresentation#getWrittenForm()
+     */
+	public List<String> getLexicalEntryIds(String lemma, EPartOfSpeech pos, String lexiconId)
+	{
+		List<String[]> matches = new ArrayList<String[]>();
+		for (Partition partition : getPartitions(pos, lexiconId)) {
+			int end = upperBound(partition.forms, lemma, false);
+			for (int i = lowerBound(partition.forms, lemma); i < end; i++) {
+				matches.add(new String[] { partition.forms[i], partition.entryIds[i] });
+			}
+		}
+		return toLexicalEntryIds(matches);
+	}
+
+    /**
+     * Returns the identifiers of the lexical entries having a lemma with a written form starting
+     * with the specified prefix, ordered by their written form.
+     *
+     * @param prefix
+     *            the prefix of the written forms
+     * @param pos
+     *            the part-of-speech of the lexical entries, or null for all parts-of-speech
+     * @param lexiconId
+     *            the identifier of the lexicon of the lexical entries, or null for all lexicons
+     * @param normalized
+     *            if true, the prefix and the written forms are compared after normalizing them
+     *            by {@link #normalize(String)}
+     * @return the identifiers of the matching lexical entries or an empty list
+     */
+	public List<String> getLexicalEntryIdsByPrefix(String prefix, EPartOfSpeech pos,
+			String lexiconId, boolean normalized)
+	{
+		String key = (normalized ? normalize(prefix) : prefix);
+		List<String[]> matches = new ArrayList<String[]>();
+		for (Partition partition : getPartitions(pos, lexiconId)) {
+			String[] forms = (normalized ? partition.normalizedForms : partition.forms);
+			int end = upperBound(forms, key, true);
+			for (int i = lowerBound(forms, key); i < end; i++) {
+				int entry = (normalized ? partition.normalizedOrder[i] : i);
+				matches.add(new String[] { forms[i], partition.entryIds[entry] });
+			}
+		}
+		return toLexicalEntryIds(matches);
+	}
+
+    /**
+     * Returns the identifiers of the lexical entries having a lemma whose normalized written form
+     * (see {@link #normalize(String)}) is within the specified Levenshtein distance of the
+     * normalized lemma, ordered by their normalized written form.
+     *
+     * @param lemma
+     *            the written form to be compared
+     * @param maxDistance
+     *            the maximum number of inserted, deleted or substituted characters
+     * @param pos
+     *            the part-of-speech of the lexical entries, or null for all parts-of-speech
+     * @param lexiconId
+     *            the identifier of the lexicon of the lexical entries, or null for all lexicons
+     * @return the identifiers of the matching lexical entries or an empty list
+     * @throws IllegalArgumentException
+     *             if the specified distance is negative
+     */
+	public List<String> getLexicalEntryIdsByEditDistance(String lemma, int maxDistance,
+			EPartOfSpeech pos, String lexiconId) throws IllegalArgumentException
+	{
+		if (maxDistance < 0) {
+			throw new IllegalArgumentException("maximum distance must not be negative");
+		}
+		String key = normalize(lemma);
+		List<String[]> matches = new ArrayList<String[]>();
+		for (Partition partition : getPartitions(pos, lexiconId)) {
+			for (int i : searchEditDistance(partition.normalizedForms, key, maxDistance)) {
+				matches.add(new String[] { partition.normalizedForms[i],
+						partition.entryIds[partition.normalizedOrder[i]] });
+			}
+		}
+		return toLexicalEntryIds(matches);
+	}
+
+    /**
+     * Returns the distinct written forms starting with the specified prefix, e.g. for
+     * autocompletion. The written forms are ordered by their normalized form if normalized is
+     * true and by the written form itself otherwise.
+     *
+     * @param prefix
+     *            the prefix of the written forms
+     * @param pos
+     *            the part-of-speech of the lexical entries, or null for all parts-of-speech
+     * @param lexiconId
+     *            the identifier of the lexicon of the lexical entries, or null for all lexicons
+     * @param normalized
+     *            if true, the prefix and the written forms are compared after normalizing them
+     * @param limit
+     *            the maximum number of returned written forms
+     * @return the first matching written forms
+     */
+	public List<String> getLemmasByPrefix(String prefix, EPartOfSpeech pos, String lexiconId,
+			boolean normalized, int limit)
+	{
+		String key = (normalized ? normalize(prefix) : prefix);
+		TreeSet<String[]> lemmas = new TreeSet<String[]>(new Comparator<String[]>()
+		{
+			@Override
+			public int compare(String[] lemma1, String[] lemma2)
+			{
+				int result = lemma1[0].compareTo(lemma2[0]);
+				return (result != 0 ? result : lemma1[1].compareTo(lemma2[1]));
+			}
+		});
+		for (Partition partition : getPartitions(pos, lexiconId)) {
+			// The first distinct forms of each partition suffice.
+			String[] forms = (normalized ? partition.normalizedForms : partition.forms);
+			int end = upperBound(forms, key, true);
+			int count = 0;
+			for (int i = lowerBound(forms, key); i < end && count < limit; i++) {
+				String writtenForm = partition.forms[normalized ? partition.normalizedOrder[i] : i];
+				if (lemmas.add(new String[] { forms[i], writtenForm })) {
+					count++;
+				}
+			}
+		}
+
+		List<String> result = new ArrayList<String>();
+		for (String[] lemma : lemmas) {
+			if (result.size() == limit) {
+				break;
+			}
+			result.add(lemma[1]);
+		}
+		return result;
+	}
+
+	private List<Partition> getPartitions(EPartOfSpeech pos, String lexiconId)
+	{
+		List<Partition> result = new ArrayList<Partition>();
+		for (Partition partition : partitions) {
+			if ((pos == null || pos == partition.pos)
+					&& (lexiconId == null || lexiconId.equals(partition.lexiconId))) {
+				result.add(partition);
+			}
+		}
+		return result;
+	}
+
+    /**
+     * Orders the consumed (form, lexical entry identifier) pairs by their form and returns the
+     * distinct identifiers.
+     */
+	private static List<String> toLexicalEntryIds(List<String[]> matches)
+	{
+		Collections.sort(matches, new Comparator<String[]>()
+		{
+			@Override
+			public int compare(String[] match1, String[] match2)
+			{
+				return match1[0].compareTo(match2[0]);
+			}
+		});
+		List<String> result = new ArrayList<String>(matches.size());
+		Set<String> seen = new HashSet<String>();
+		for (String[] match : matches) {
+			if (seen.add(match[1])) {
+				result.add(match[1]);
+			}
+		}
+		return result;
+	}
+
+    /**
+     * Returns the index of the first form which is not smaller than the key.
+     */
+	private static int lowerBound(String[] forms, String key)
+	{
+		int low = 0;
+		int high = forms.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (forms[mid].compareTo(key) < 0) {
+				low = mid + 1;
+			}
+			else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+    /**
+     * Returns the index of the first form which is greater than the key or, if prefix is true,
+     * which does not start with the key.
+     */
+	private static int upperBound(String[] forms, String key, boolean prefix)
+	{
+		int low = lowerBound(forms, key);
+		int high = forms.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (prefix ? forms[mid].startsWith(key) : forms[mid].equals(key)) {
+				low = mid + 1;
+			}
+			else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+    /**
+     * Returns the indexes of the sorted forms within the specified Levenshtein distance of the
+     * key. The rows of the distance matrix are shared by forms having a common prefix, and all
+     * forms sharing a prefix whose row exceeds the maximum distance are skipped.
+     */
+	private static List<Integer> searchEditDistance(String[] forms, String key, int maxDistance)
+	{
+		List<Integer> result = new ArrayList<Integer>();
+		int columns = key.length() + 1;
+		List<int[]> rows = new ArrayList<int[]>();
+		int[] first = new int[columns];
+		for (int j = 0; j < columns; j++) {
+			first[j] = j;
+		}
+		rows.add(first);
+
+		String previous = "";
+		int validDepth = 0; // Number of rows computed for the previous form
+		int i = 0;
+		while (i < forms.length) {
+			String form = forms[i];
+			int depth = Math.min(validDepth, commonPrefixLength(previous, form));
+			boolean pruned = false;
+			for (; depth < form.length(); depth++) {
+				if (rows.size() <= depth + 1) {
+					rows.add(new int[columns]);
+				}
+				int[] above = rows.get(depth);
+				int[] row = rows.get(depth + 1);
+				char c = form.charAt(depth);
+				row[0] = depth + 1;
+				int min = row[0];
+				for (int j = 1; j < columns; j++) {
+					int cost = (key.charAt(j - 1) == c ? 0 : 1);
+					row[j] = Math.min(Math.min(above[j] + 1, row[j - 1] + 1), above[j - 1] + cost);
+					min = Math.min(min, row[j]);
+				}
+				if (min > maxDistance) {
+					// No form starting with this prefix is within the distance.
+					previous = form;
+					validDepth = depth;
+					i = upperBound(forms, form.substring(0, depth + 1), true);
+					pruned = true;
+					break;
+				}
+			}
+			if (!pruned) {
+				if (rows.get(form.length())[columns - 1] <= maxDistance) {
+					result.add(i);
+				}
+				previous = form;
+				validDepth = form.length();
+				i++;
+			}
+		}
+		return result;
+	}
+
+	private static int commonPrefixLength(String string1, String string2)
+	{
+		int length = Math.min(string1.length(), string2.length());
+		int result = 0;
+		while (result < length && string1.charAt(result) == string2.charAt(result)) {
+			result++;
+		}
+		return result;
+	}
+
+    /**
+     * Sorted written forms of the lexical entries of one lexicon and part-of-speech.
+     */
+	private static class Partition
+	{
+		private final String lexiconId;
+		private final EPartOfSpeech pos;
+		private String[] forms;
+		private String[] entryIds;
+		private String[] normalizedForms;
+		private int[] normalizedOrder; // Index of the form of each normalized form
+
+		private Partition(String lexiconId, EPartOfSpeech pos)
+		{
+			this.lexiconId = lexiconId;
+			this.pos = pos;
+		}
+
+		private void build(List<String[]> rows)
+		{
+			Collections.sort(rows, new Comparator<String[]>()
+			{
+				@Override
+				public int compare(String[] row1, String[] row2)
+				{
+					int result = row1[0].compareTo(row2[0]);
+					return (result != 0 ? result : row1[1].compareTo(row2[1]));
+				}
+			});
+			forms = new String[rows.size()];
+			entryIds = new String[rows.size()];
+			final String[] normalized = new String[rows.size()];
+			Integer[] order = new Integer[rows.size()];
+			for (int i = 0; i < forms.length; i++) {
+				forms[i] = rows.get(i)[0];
+				entryIds[i] = rows.get(i)[1];
+				normalized[i] = normalize(forms[i]);
+				order[i] = i;
+			}
+
+			// The sort is stable, so equal normalized forms remain ordered by their form.
+			Arrays.sort(order, new Comparator<Integer>()
+			{
+				@Override
+				public int compare(Integer index1, Integer index2)
+				{
+					return normalized[index1].compareTo(normalized[index2]);
+				}
+			});
+			normalizedForms = new String[forms.length];
+			normalizedOrder = new int[forms.length];
+			for (int i = 0; i < forms.length; i++) {
+				normalizedOrder[i] = order[i];
+				normalizedForms[i] = normalized[order[i]];
+			}
+		}
+	}
+}
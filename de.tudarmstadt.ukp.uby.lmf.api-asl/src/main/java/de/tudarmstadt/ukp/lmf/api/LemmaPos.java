@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.lmf.api;
+
+import de.tudarmstadt.ukp.lmf.model.core.LexicalEntry;
+import de.tudarmstadt.ukp.lmf.model.enums.EPartOfSpeech;
+
+/**
+ * Immutable key consisting of a written lemma form and an optional part-of-speech, used for
+ * looking up many {@link LexicalEntry} instances at once.
+ *
+ * @see Uby#getLexicalEntries(java.util.Collection, de.tudarmstadt.ukp.lmf.model.core.Lexicon)
+ */
+public final class LemmaPos
+{
+	private final String lemma;
+	private final EPartOfSpeech pos;
+
+    /**
+     * Creates a new key.
+     *
+     * @param lemma
+     *            the written representation of the lemma
+     * @param pos
+     *            the part-of-speech, or null in order to match lexical entries regardless of
+     *            their part-of-speech
+     * @throws IllegalArgumentException
+     *             if the specified lemma is null
+     */
+	public LemmaPos(String lemma, EPartOfSpeech pos) throws IllegalArgumentException
+	{
+		if (lemma == null) {
+			throw new IllegalArgumentException("lemma is null");
+		}
+		this.lemma = lemma;
+		this.pos = pos;
+	}
+
+    /**
+     * Returns the written representation of the lemma of this key.
+     *
+     * @return the lemma of this key
+     */
+	public String getLemma()
+	{
+		return lemma;
+	}
+
+    /**
+     * Returns the part-of-speech of this key.
+     *
+     * @return the part-of-speech of this key or null if the key matches all parts-of-speech
+     */
+	public EPartOfSpeech getPos()
+	{
+		return pos;
+	}
+
+	@Override
+	public boolean equals(Object other)
+	{
+		if (this == other) {
+			return true;
+		}
+		if (!(other instanceof LemmaPos)) {
+			return false;
+		}
+		LemmaPos otherKey = (LemmaPos) other;
+		return lemma.equals(otherKey.lemma) && pos == otherKey.pos;
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return 31 * lemma.hashCode() + (pos == null ? 0 : pos.hashCode());
+	}
+
+	@Override
+	public String toString()
+	{
+		return lemma + "#" + pos;
+	}
+}
@@ -0,0 +1,298 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.lmf.api;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import de.tudarmstadt.ukp.lmf.model.core.Lexicon;
+import de.tudarmstadt.ukp.lmf.model.enums.EPartOfSpeech;
+import de.tudarmstadt.ukp.lmf.model.enums.ESenseAxisType;
+
+/**
+ * Immutable result of {@link UbyStatistics#computeStatistics(int)}: the per-lexicon counts and
+ * the per-lexicon-pair sense axis counts of a UBY-LMF database, along with {@link HyperLogLog}
+ * sketches of the distinct lemma and part-of-speech combinations of each lexicon and
+ * part-of-speech.
+ * <p>
+ * Lexicons are identified by their name. Counts of unknown lexicons are zero.
+ */
+public class ResourceStatistics
+{
+	private final Map<String, String> languageIdentifiers;
+	private final Map<String, Long> lexicalEntries;
+	private final Map<String, Long> senses;
+	private final Map<String, Long> senseRelations;
+	private final Map<String, String> senseIdPrefixes;
+	private final Map<String, Map<EPartOfSpeech, HyperLogLog>> lemmaPos;
+	private final Map<ESenseAxisType, Map<String, Long>> senseAxes;
+
+    /**
+     * Creates the statistics from the results of the passes over the database.
+     *
+     * @param languageIdentifiers
+     *            the language identifier of each lexicon, in the order of the report
+     * @param lexicalEntries
+     *            the number of lexical entries of each lexicon
+     * @param senses
+     *            the number of senses of each lexicon
+     * @param senseRelations
+     *            the number of sense relations of each lexicon
+     * @param senseIdPrefixes
+     *            the prefix of the sense identifiers of each lexicon
+     * @param lemmaPos
+     *            the sketch of the lemma and part-of-speech combinations of each lexicon and
+     *            part-of-speech
+     * @param senseAxes
+     *            the number of sense axes of each type by their sense identifier prefixes,
+     *            see {@link #getSenseAxisKey(String, String)}
+     */
+	ResourceStatistics(Map<String, String> languageIdentifiers, Map<String, Long> lexicalEntries,
+			Map<String, Long> senses, Map<String, Long> senseRelations,
+			Map<String, String> senseIdPrefixes,
+			Map<String, Map<EPartOfSpeech, HyperLogLog>> lemmaPos,
+			Map<ESenseAxisType, Map<String, Long>> senseAxes)
+	{
+		this.languageIdentifiers = languageIdentifiers;
+		this.lexicalEntries = lexicalEntries;
+		this.senses = senses;
+		this.senseRelations = senseRelations;
+		this.senseIdPrefixes = senseIdPrefixes;
+		this.lemmaPos = lemmaPos;
+		this.senseAxes = senseAxes;
+	}
+
+    /**
+     * Returns the names of the lexicons of the database.
+     *
+     * @return the lexicon names
+     */
+	public List<String> getLexiconNames()
+	{
+		return Collections.unmodifiableList(new ArrayList<String>(languageIdentifiers.keySet()));
+	}
+
+    /**
+     * Returns the number of lexical entries of the specified lexicon.
+     *
+     * @param lexiconName
+     *            the name of the lexicon
+     * @return the number of lexical entries
+     */
+	public long countLexicalEntries(String lexiconName)
+	{
+		return get(lexicalEntries, lexiconName);
+	}
+
+    /**
+     * Returns the number of senses of the specified lexicon.
+     *
+     * @param lexiconName
+     *            the name of the lexicon
+     * @return the number of senses
+     */
+	public long countSenses(String lexiconName)
+	{
+		return get(senses, lexiconName);
+	}
+
+    /**
+     * Returns the number of sense relations whose source is a sense of the specified lexicon.
+     *
+     * @param lexiconName
+     *            the name of the lexicon
+     * @return the number of sense relations
+     */
+	public long countSenseRelations(String lexiconName)
+	{
+		return get(senseRelations, lexiconName);
+	}
+
+    /**
+     * Estimates the number of distinct lemma and part-of-speech combinations of the specified
+     * lexicon.
+     *
+     * @param lexiconName
+     *            the name of the lexicon
+     * @return the estimated number of lemma and part-of-speech combinations
+     */
+	public long estimateLemmaPos(String lexiconName)
+	{
+		return estimateLemmaPos(lexiconName, null, null);
+	}
+
+    /**
+     * Estimates the number of distinct lemma and part-of-speech combinations of the specified
+     * lexicon, filtered by part-of-speech and language like
+     * {@link UbyStatistics#getLemmaPosPerLexiconAndPosPrefixAndLanguage(String, String, String)}.
+     *
+     * @param lexiconName
+     *            the name of the lexicon
+     * @param posPattern
+     *            an SQL LIKE pattern matching the parts-of-speech, e.g. "verb%", or null for all
+     *            parts-of-speech including lexical entries without part-of-speech
+     * @param languageIdentifier
+     *            the language identifier of the lexicon, or null for all languages
+     * @return the estimated number of lemma and part-of-speech combinations
+     */
+	public long estimateLemmaPos(String lexiconName, String posPattern, String languageIdentifier)
+	{
+		Map<EPartOfSpeech, HyperLogLog> sketches = lemmaPos.get(lexiconName);
+		if (sketches == null || (languageIdentifier != null
+				&& !languageIdentifier.equals(languageIdentifiers.get(lexiconName)))) {
+			return 0;
+		}
+
+		Pattern pattern = (posPattern == null ? null : toPattern(posPattern));
+		HyperLogLog union = new HyperLogLog();
+		for (Map.Entry<EPartOfSpeech, HyperLogLog> entry : sketches.entrySet()) {
+			if (pattern == null || (entry.getKey() != null
+					&& pattern.matcher(entry.getKey().toString()).matches())) {
+				union.merge(entry.getValue());
+			}
+		}
+		return union.estimate();
+	}
+
+    /**
+     * Returns the number of sense axes of the specified type between the senses of two lexicons.
+     * Like {@link UbyStatistics#countSenseAxesPerLexiconPair(ESenseAxisType, String, String)},
+     * the lexicons are identified by the identifier prefixes of their senses.
+     *
+     * @param type
+     *            the type of the sense axes
+     * @param lexiconName1
+     *            the name of the lexicon of the first senses
+     * @param lexiconName2
+     *            the name of the lexicon of the second senses
+     * @return the number of sense axes or zero if a lexicon does not exist
+     */
+	public long countSenseAxes(ESenseAxisType type, String lexiconName1, String lexiconName2)
+	{
+		String prefix1 = senseIdPrefixes.get(lexiconName1);
+		String prefix2 = senseIdPrefixes.get(lexiconName2);
+		Map<String, Long> counts = senseAxes.get(type);
+		if (prefix1 == null || prefix2 == null || counts == null) {
+			return 0;
+		}
+
+		long result = 0;
+		for (Map.Entry<String, Long> entry : counts.entrySet()) {
+			String[] key = entry.getKey().split("\t");
+			if (key[0].startsWith(prefix1) && key[1].startsWith(prefix2)) {
+				result += entry.getValue();
+			}
+		}
+		return result;
+	}
+
+    /**
+     * Writes the statistics as tab-separated tables: one line per lexicon with its language,
+     * lexical entries, senses, sense relations and estimated lemma and part-of-speech
+     * combinations, followed by one line per type and pair of lexicons having sense axes.
+     *
+     * @param writer
+     *            the writer of the report, which is not closed
+     * @throws IOException
+     *             if the report cannot be written
+     */
+	public void writeReport(Writer writer) throws IOException
+	{
+		writer.write("lexicon\tlanguage\tlexicalEntries\tsenses\tsenseRelations\tlemmaPos\n");
+		for (Map.Entry<String, String> lexicon : languageIdentifiers.entrySet()) {
+			String name = lexicon.getKey();
+			writer.write(name + "\t" + lexicon.getValue() + "\t" + countLexicalEntries(name)
+					+ "\t" + countSenses(name) + "\t" + countSenseRelations(name) + "\t"
+					+ estimateLemmaPos(name) + "\n");
+		}
+
+		writer.write("\nsenseAxisType\tlexicon1\tlexicon2\tsenseAxes\n");
+		for (ESenseAxisType type : ESenseAxisType.values()) {
+			for (String name1 : languageIdentifiers.keySet()) {
+				for (String name2 : languageIdentifiers.keySet()) {
+					long count = countSenseAxes(type, name1, name2);
+					if (count > 0) {
+						writer.write(type + "\t" + name1 + "\t" + name2 + "\t" + count + "\n");
+					}
+				}
+			}
+		}
+		writer.flush();
+	}
+
+    /**
+     * Returns the key of the sense axis counts for the specified sense identifiers, which
+     * consists of at most their first two segments separated by underscores. Any prefix of a sense
+     * identifier computed for a {@link Lexicon} is also a prefix of this key.
+     *
+     * @param senseOneId
+     *            the identifier of the first sense of a sense axis
+     * @param senseTwoId
+     *            the identifier of the second sense of a sense axis
+     * @return the key of the counts
+     */
+	static String getSenseAxisKey(String senseOneId, String senseTwoId)
+	{
+		return getIdPrefix(senseOneId) + "\t" + getIdPrefix(senseTwoId);
+	}
+
+	private static String getIdPrefix(String id)
+	{
+		// The segment after the last underscore is the running number of the sense.
+		int first = id.indexOf('_');
+		if (first < 0) {
+			return id;
+		}
+		int second = id.indexOf('_', first + 1);
+		return id.substring(0, second < 0 ? first : second);
+	}
+
+	private static long get(Map<String, Long> counts, String lexiconName)
+	{
+		Long result = counts.get(lexiconName);
+		return (result == null ? 0 : result);
+	}
+
+    /**
+     * Converts an SQL LIKE pattern into a regular expression.
+     */
+	private static Pattern toPattern(String likePattern)
+	{
+		StringBuilder result = new StringBuilder();
+		Matcher matcher = Pattern.compile("[%_]|[^%_]+").matcher(likePattern);
+		while (matcher.find()) {
+			String token = matcher.group();
+			if (token.equals("%")) {
+				result.append(".*");
+			}
+			else if (token.equals("_")) {
+				result.append('.');
+			}
+			else {
+				result.append(Pattern.quote(token));
+			}
+		}
+		return Pattern.compile(result.toString(), Pattern.CASE_INSENSITIVE);
+	}
+}
@@ -0,0 +1,568 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.lmf.api;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.hibernate.Query;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+
+import de.tudarmstadt.ukp.lmf.model.core.Lexicon;
+import de.tudarmstadt.ukp.lmf.model.enums.ERelNameSemantics;
+import de.tudarmstadt.ukp.lmf.model.semantics.SenseRelation;
+import de.tudarmstadt.ukp.lmf.model.semantics.SynsetRelation;
+
+/**
+ * In-memory graph of the {@link SynsetRelation} or {@link SenseRelation} instances with the
+ * specified relation names, e.g. {@link ERelNameSemantics#HYPERNYM}, for computing closures,
+ * lowest common subsumers, path lengths and similarities without loading the related synsets or
+ * senses.
+ * <p>
+ * The synset or sense identifiers are interned to int numbers by their position in a sorted
+ * array. The relations are stored in compressed sparse row layout, both from the source to the
+ * target and reversed. A relation is followed from its source to its target, so the graph of the
+ * hypernym relations is a taxonomy whose roots are the synsets or senses without hypernyms. The
+ * depths of the nodes in this taxonomy are computed in topological order when creating the graph.
+ * <p>
+ * The graph is immutable, so it can be shared by concurrent readers.
+ *
+ * @see Uby#createSynsetRelationGraph(Lexicon, String...)
+ * @see Uby#createSenseRelationGraph(Lexicon, String...)
+ */
+public class SemanticRelationGraph
+{
+	private final String[] nodeIds; // sorted
+	private final String[] relationNames;
+	private final int[] offsets; // range of the outgoing relations of each node
+	private final int[] targets;
+	private final short[] relations; // relation name of each outgoing relation
+	private final int[] inOffsets; // range of the incoming relations of each node
+	private final int[] sources;
+	private final int[] depths; // 0 if the node leads to a cycle
+	private final int maxDepth;
+
+	// Two breadth-first searches per thread, since the similarities compare the nodes reachable
+	// from two nodes. They are shared by all graphs and only refer to their own arrays, so a
+	// graph which is no longer used is not kept alive by the threads which searched it.
+	private static final ThreadLocal<Search[]> SEARCHES = new ThreadLocal<Search[]>()
+	{
+		@Override
+		protected Search[] initialValue()
+		{
+			return new Search[] { new Search(), new Search() };
+		}
+	};
+
+    /**
+     * Loads the synset relations with the specified relation names whose source belongs to the
+     * specified lexicon.
+     *
+     * @param session
+     *            a session of the UBY-LMF database
+     * @param lexicon
+     *            the lexicon of the source synsets, or null for all lexicons
+     * @param relationNames
+     *            the names of the relations to be loaded
+     * @return the graph of the synset relations
+     * @throws IllegalArgumentException
+     *             if no relation name is specified
+     */
+	public static SemanticRelationGraph createSynsetGraph(Session session, Lexicon lexicon,
+			String... relationNames) throws IllegalArgumentException
+	{
+		return load(session, "select source.id, relation.target.id, relation.relName"
+				+ " from SynsetRelation relation join relation.source source"
+				+ " where relation.target is not null and relation.relName in (:relationNames)"
+				+ (lexicon != null ? " and source.lexicon = :lexicon" : ""), lexicon,
+				relationNames);
+	}
+
+    /**
+     * Loads the sense relations with the specified relation names whose source belongs to the
+     * specified lexicon.
+     *
+     * @param session
+     *            a session of the UBY-LMF database
+     * @param lexicon
+     *            the lexicon of the source senses, or null for all lexicons
+     * @param relationNames
+     *            the names of the relations to be loaded
+     * @return the graph of the sense relations
+     * @throws IllegalArgumentException
+     *             if no relation name is specified
+     */
+	public static SemanticRelationGraph createSenseGraph(Session session, Lexicon lexicon,
+			String... relationNames) throws IllegalArgumentException
+	{
+		return load(session, "select source.id, relation.target.id, relation.relName"
+				+ " from SenseRelation relation join relation.source source"
+				+ (lexicon != null ? " join source.lexicalEntry entry" : "")
+				+ " where relation.target is not null and relation.relName in (:relationNames)"
+				+ (lexicon != null ? " and entry.lexicon = :lexicon" : ""), lexicon,
+				relationNames);
+	}
+
+	private static SemanticRelationGraph load(Session session, String hql, Lexicon lexicon,
+			String... relationNames) throws IllegalArgumentException
+	{
+		if (relationNames == null || relationNames.length == 0) {
+			throw new IllegalArgumentException("no relation name specified");
+		}
+		Query query = session.createQuery(hql);
+		query.setParameterList("relationNames", Arrays.asList(relationNames));
+		if (lexicon != null) {
+			query.setParameter("lexicon", lexicon);
+		}
+		query.setReadOnly(true);
+		query.setFetchSize(1000);
+		List<String[]> relations = new ArrayList<String[]>();
+		ScrollableResults results = query.scroll(ScrollMode.FORWARD_ONLY);
+		try {
+			while (results.next()) {
+				relations.add(new String[] { (String) results.get(0), (String) results.get(1),
+						(String) results.get(2) });
+			}
+		}
+		finally {
+			results.close();
+		}
+		return new SemanticRelationGraph(relations);
+	}
+
+    /**
+     * Creates a graph of the specified relations.
+     *
+     * @param relations
+     *            the relations as arrays of the source identifier, the target identifier and the
+     *            relation name
+     */
+	public SemanticRelationGraph(List<String[]> relations)
+	{
+		// Intern the identifiers and the relation names.
+		String[] ids = new String[relations.size() * 2];
+		List<String> names = new ArrayList<String>();
+		Map<String, Short> nameIndexes = new HashMap<String, Short>();
+		for (int i = 0; i < relations.size(); i++) {
+			String[] relation = relations.get(i);
+			ids[2 * i] = relation[0];
+			ids[2 * i + 1] = relation[1];
+			if (!nameIndexes.containsKey(relation[2])) {
+				nameIndexes.put(relation[2], (short) names.size());
+				names.add(relation[2]);
+			}
+		}
+		Arrays.sort(ids);
+		int count = 0;
+		for (int i = 0; i < ids.length; i++) {
+			if (count == 0 || !ids[i].equals(ids[count - 1])) {
+				ids[count++] = ids[i];
+			}
+		}
+		nodeIds = Arrays.copyOf(ids, count);
+		relationNames = names.toArray(new String[names.size()]);
+
+		int[] relationSources = new int[relations.size()];
+		int[] relationTargets = new int[relations.size()];
+		offsets = new int[count + 1];
+		inOffsets = new int[count + 1];
+		for (int i = 0; i < relations.size(); i++) {
+			relationSources[i] = Arrays.binarySearch(nodeIds, relations.get(i)[0]);
+			relationTargets[i] = Arrays.binarySearch(nodeIds, relations.get(i)[1]);
+			offsets[relationSources[i] + 1]++;
+			inOffsets[relationTargets[i] + 1]++;
+		}
+		for (int node = 0; node < count; node++) {
+			offsets[node + 1] += offsets[node];
+			inOffsets[node + 1] += inOffsets[node];
+		}
+		targets = new int[relations.size()];
+		this.relations = new short[relations.size()];
+		sources = new int[relations.size()];
+		int[] next = Arrays.copyOf(offsets, count);
+		int[] inNext = Arrays.copyOf(inOffsets, count);
+		for (int i = 0; i < relations.size(); i++) {
+			int edge = next[relationSources[i]]++;
+			targets[edge] = relationTargets[i];
+			this.relations[edge] = nameIndexes.get(relations.get(i)[2]);
+			sources[inNext[relationTargets[i]]++] = relationSources[i];
+		}
+
+		// Visit the nodes in topological order, starting from the roots along the reversed
+		// relations: a node is visited once the depths of all its targets are known.
+		depths = new int[count];
+		int[] pending = new int[count];
+		int[] queue = new int[count];
+		int tail = 0;
+		for (int node = 0; node < count; node++) {
+			pending[node] = offsets[node + 1] - offsets[node];
+			if (pending[node] == 0) {
+				depths[node] = 1;
+				queue[tail++] = node;
+			}
+		}
+		int depth = 0;
+		for (int head = 0; head < tail; head++) {
+			int node = queue[head];
+			depth = Math.max(depth, depths[node]);
+			for (int edge = inOffsets[node]; edge < inOffsets[node + 1]; edge++) {
+				int source = sources[edge];
+				depths[source] = Math.max(depths[source], depths[node] + 1);
+				if (--pending[source] == 0) {
+					queue[tail++] = source;
+				}
+			}
+		}
+		for (int node = 0; node < count; node++) {
+			if (pending[node] > 0) {
+				depths[node] = 0; // on a cycle or leading to one
+			}
+		}
+		maxDepth = depth;
+	}
+
+    /**
+     * Returns the number of synsets or senses taking part in a relation of this graph.
+     *
+     * @return the number of nodes
+     */
+	public int getNodeCount()
+	{
+		return nodeIds.length;
+	}
+
+    /**
+     * Returns the number of relations of this graph.
+     *
+     * @return the number of edges
+     */
+	public int getRelationCount()
+	{
+		return targets.length;
+	}
+
+    /**
+     * Returns the depth of the deepest node, i.e. of the taxonomy.
+     *
+     * @return the maximum depth
+     */
+	public int getMaxDepth()
+	{
+		return maxDepth;
+	}
+
+    /**
+     * Returns the identifiers of the direct targets of the relations of the specified node.
+     *
+     * @param id
+     *            the identifier of the source synset or sense
+     * @param relationName
+     *            the name of the relations to be followed, or null for all relations of this graph
+     * @return the identifiers of the targets or an empty list
+     */
+	public List<String> getTargets(String id, String relationName)
+	{
+		List<String> result = new ArrayList<String>();
+		int node = getNode(id);
+		if (node >= 0) {
+			for (int edge = offsets[node]; edge < offsets[node + 1]; edge++) {
+				if (relationName == null || relationName.equals(relationNames[relations[edge]])) {
+					result.add(nodeIds[targets[edge]]);
+				}
+			}
+		}
+		return result;
+	}
+
+    /**
+     * Returns the transitive closure of the relations of the specified node, e.g. all direct and
+     * indirect hypernyms.
+     *
+     * @param id
+     *            the identifier of the synset or sense
+     * @return the identifiers of all nodes reachable from the specified node, excluding the node
+     *         itself, in breadth-first order
+     */
+	public Set<String> getTransitiveClosure(String id)
+	{
+		Set<String> result = new LinkedHashSet<String>();
+		int node = getNode(id);
+		if (node >= 0) {
+			Search search = searches()[0].run(node, offsets, targets);
+			for (int i = 1; i < search.size; i++) {
+				result.add(nodeIds[search.queue[i]]);
+			}
+		}
+		return Collections.unmodifiableSet(result);
+	}
+
+    /**
+     * Returns the depth of the specified node in the taxonomy, i.e. the number of nodes on the
+     * longest path from the node to a root, which has the depth 1. Thus each node is deeper than
+     * all nodes subsuming it.
+     *
+     * @param id
+     *            the identifier of the synset or sense
+     * @return the depth or 0 if the node is unknown or a cycle is reachable from it
+     */
+	public int getDepth(String id)
+	{
+		int node = getNode(id);
+		return (node >= 0 ? depths[node] : 0);
+	}
+
+    /**
+     * Returns the lowest common subsumers of the specified nodes, i.e. the deepest nodes
+     * reachable from both nodes. A node subsumes itself.
+     *
+     * @param id1
+     *            the identifier of one synset or sense
+     * @param id2
+     *            the identifier of the other synset or sense
+     * @return the identifiers of the lowest common subsumers or an empty list if the nodes have no
+     *         common subsumer
+     */
+	public List<String> getLowestCommonSubsumers(String id1, String id2)
+	{
+		List<String> result = new ArrayList<String>();
+		int node1 = getNode(id1);
+		int node2 = getNode(id2);
+		if (node1 < 0 || node2 < 0) {
+			return result;
+		}
+		Search[] search = searches();
+		Search search1 = search[0].run(node1, offsets, targets);
+		Search search2 = search[1].run(node2, offsets, targets);
+		int maxCommonDepth = -1;
+		for (int i = 0; i < search2.size; i++) {
+			int node = search2.queue[i];
+			if (search1.reached(node)) {
+				if (depths[node] > maxCommonDepth) {
+					maxCommonDepth = depths[node];
+					result.clear();
+				}
+				if (depths[node] == maxCommonDepth) {
+					result.add(nodeIds[node]);
+				}
+			}
+		}
+		Collections.sort(result);
+		return result;
+	}
+
+    /**
+     * Returns the length of the shortest path between the specified nodes through a common
+     * subsumer, i.e. the least sum of the numbers of relations leading from both nodes to one of
+     * their common subsumers.
+     *
+     * @param id1
+     *            the identifier of one synset or sense
+     * @param id2
+     *            the identifier of the other synset or sense
+     * @return the number of relations on the shortest path, 0 if the identifiers are equal, or -1
+     *         if there is no path
+     */
+	public int getShortestPathLength(String id1, String id2)
+	{
+		if (id1 != null && id1.equals(id2)) {
+			return 0;
+		}
+		int node1 = getNode(id1);
+		int node2 = getNode(id2);
+		if (node1 < 0 || node2 < 0) {
+			return -1;
+		}
+		Search[] search = searches();
+		Search search1 = search[0].run(node1, offsets, targets);
+		Search search2 = search[1].run(node2, offsets, targets);
+		int result = -1;
+		for (int i = 0; i < search2.size; i++) {
+			int node = search2.queue[i];
+			if (search1.reached(node)) {
+				int length = search1.distances[node] + search2.distances[node];
+				if (result < 0 || length < result) {
+					result = length;
+				}
+			}
+		}
+		return result;
+	}
+
+    /**
+     * Returns the path similarity of the specified nodes, i.e. the inverse of the number of
+     * nodes on the shortest path between them.
+     *
+     * @param id1
+     *            the identifier of one synset or sense
+     * @param id2
+     *            the identifier of the other synset or sense
+     * @return the similarity between 0 and 1, which is 0 if there is no path
+     *
+     * @see #getShortestPathLength(String, String)
+     */
+	public double getPathSimilarity(String id1, String id2)
+	{
+		int length = getShortestPathLength(id1, id2);
+		return (length < 0 ? 0 : 1.0 / (length + 1));
+	}
+
+    /**
+     * Returns the Wu-Palmer similarity of the specified nodes, i.e. 2 * d / (l1 + l2 + 2 * d)
+     * maximized over their common subsumers, where d is the depth of the common subsumer and l1
+     * and l2 are the lengths of the paths from the nodes to the common subsumer.
+     *
+     * @param id1
+     *            the identifier of one synset or sense
+     * @param id2
+     *            the identifier of the other synset or sense
+     * @return the similarity between 0 and 1, which is 0 if the nodes have no common subsumer
+     *         whose depth is known
+     */
+	public double getWuPalmerSimilarity(String id1, String id2)
+	{
+		int node1 = getNode(id1);
+		int node2 = getNode(id2);
+		if (node1 < 0 || node2 < 0) {
+			return 0;
+		}
+		Search[] search = searches();
+		Search search1 = search[0].run(node1, offsets, targets);
+		Search search2 = search[1].run(node2, offsets, targets);
+		double result = 0;
+		for (int i = 0; i < search2.size; i++) {
+			int node = search2.queue[i];
+			int depth = depths[node];
+			if (search1.reached(node) && depth > 0) {
+				result = Math.max(result, 2.0 * depth
+						/ (search1.distances[node] + search2.distances[node] + 2.0 * depth));
+			}
+		}
+		return result;
+	}
+
+    /**
+     * Returns the Leacock-Chodorow similarity of the specified nodes, i.e.
+     * -log((l + 1) / (2 * D)), where l is the length of the shortest path between the nodes and D
+     * is the maximum depth of the taxonomy.
+     *
+     * @param id1
+     *            the identifier of one synset or sense
+     * @param id2
+     *            the identifier of the other synset or sense
+     * @return the similarity or 0 if there is no path
+     *
+     * @see #getShortestPathLength(String, String)
+     * @see #getMaxDepth()
+     */
+	public double getLeacockChodorowSimilarity(String id1, String id2)
+	{
+		int length = getShortestPathLength(id1, id2);
+		if (length < 0 || maxDepth == 0) {
+			return 0;
+		}
+		return -Math.log((length + 1) / (2.0 * maxDepth));
+	}
+
+	private int getNode(String id)
+	{
+		if (id == null) {
+			return -1;
+		}
+		int result = Arrays.binarySearch(nodeIds, id);
+		return (result >= 0 ? result : -1);
+	}
+
+    /**
+     * Returns the searches of the current thread with enough space for the nodes of this graph.
+     */
+	private Search[] searches()
+	{
+		Search[] result = SEARCHES.get();
+		for (Search search : result) {
+			search.ensureCapacity(nodeIds.length);
+		}
+		return result;
+	}
+
+    /**
+     * Breadth-first search along the relations, which is reused by one thread. A node has been
+     * reached by the last search if its stamp equals the stamp of the search, so the arrays need
+     * not be cleared between searches.
+     */
+	private static final class Search
+	{
+		int[] distances = new int[0]; // number of relations on the shortest path from the start
+		int[] stamps = new int[0];
+		int[] queue = new int[0]; // the reached nodes in breadth-first order
+		int size;
+		int stamp;
+
+		void ensureCapacity(int nodeCount)
+		{
+			if (stamps.length < nodeCount) {
+				distances = new int[nodeCount];
+				stamps = new int[nodeCount];
+				queue = new int[nodeCount];
+				stamp = 0;
+			}
+		}
+
+		/**
+		 * Finds the nodes reachable from the specified node, including the node itself, along
+		 * the relations of a graph given by the offsets of the outgoing relations of each node
+		 * and their targets.
+		 */
+		Search run(int start, int[] offsets, int[] targets)
+		{
+			if (++stamp == 0) {
+				Arrays.fill(stamps, 0);
+				stamp = 1;
+			}
+			stamps[start] = stamp;
+			distances[start] = 0;
+			queue[0] = start;
+			size = 1;
+			for (int head = 0; head < size; head++) {
+				int node = queue[head];
+				int distance = distances[node] + 1;
+				for (int edge = offsets[node]; edge < offsets[node + 1]; edge++) {
+					int target = targets[edge];
+					if (stamps[target] != stamp) {
+						stamps[target] = stamp;
+						distances[target] = distance;
+						queue[size++] = target;
+					}
+				}
+			}
+			return this;
+		}
+
+		boolean reached(int node)
+		{
+			return stamps[node] == stamp;
+		}
+	}
+}
@@ -0,0 +1,382 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.lmf.api;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.hibernate.Query;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+
+import de.tudarmstadt.ukp.lmf.model.core.Sense;
+import de.tudarmstadt.ukp.lmf.model.enums.ESenseAxisType;
+import de.tudarmstadt.ukp.lmf.model.multilingual.SenseAxis;
+
+/**
+ * In-memory adjacency index of all {@link SenseAxis} instances of the {@link Sense} instances
+ * of a UBY-LMF database. The index answers alignment lookups and follows alignment
+ * chains, e.g. from WordNet to Wiktionary to OmegaWiki, without querying the database.
+ * <p>
+ * The sense identifiers are interned to int numbers by their position in a sorted array. The
+ * alignments are stored in compressed sparse row layout: the aligned senses of each sense are a
+ * contiguous range of one int array, and the type and confidence of each sense axis are kept in
+ * parallel primitive arrays. Each sense axis is an undirected edge. A sense axis of which only
+ * one sense is set, e.g. one aligning a sense with a synset, is indexed for this sense, so that
+ * {@link #getSenseAxisIds(String, Set)} returns the same sense axes as the database query of
+ * {@link Uby#getSenseAxesBySense(Sense)}, but it does not align the sense with another sense.
+ * Sense axes aligning synsets only are not indexed.
+ * <p>
+ * The index is a snapshot of the database and is not updated afterwards.
+ *
+ * @see Uby#createSenseAlignmentIndex()
+ */
+public class SenseAlignmentIndex
+{
+	private static final ESenseAxisType[] TYPES = ESenseAxisType.values();
+
+	private final String[] senseIds; // sorted
+	private final String[] axisIds;
+	private final byte[] axisTypes; // ordinal, or -1 if the type is null
+	private final double[] axisConfidences; // NaN if the confidence is null
+	private final int[] offsets; // range of the edges of each sense
+	private final int[] targets; // aligned sense of each edge, or -1 if the sense axis has one sense
+	private final int[] edgeAxes; // sense axis of each edge
+
+    /**
+     * Loads all sense axes of senses using the specified session.
+     *
+     * @param session
+     *            a session of the UBY-LMF database to be indexed
+     */
+	public SenseAlignmentIndex(Session session)
+	{
+		List<String> axes = new ArrayList<String>();
+		List<String> ends = new ArrayList<String>();
+		byte[] types = new byte[1024];
+		double[] confidences = new double[1024];
+		Query query = session.createQuery("select axis.id, axis.senseOne.id, axis.senseTwo.id,"
+				+ " axis.senseAxisType, axis.confidence from SenseAxis axis"
+				+ " where axis.senseOne is not null or axis.senseTwo is not null");
+		query.setReadOnly(true);
+		query.setFetchSize(1000);
+		ScrollableResults results = query.scroll(ScrollMode.FORWARD_ONLY);
+		try {
+			while (results.next()) {
+				int axis = axes.size();
+				if (axis == types.length) {
+					types = Arrays.copyOf(types, axis * 2);
+					confidences = Arrays.copyOf(confidences, axis * 2);
+				}
+				axes.add((String) results.get(0));
+				ends.add((String) results.get(1));
+				ends.add((String) results.get(2));
+				ESenseAxisType type = (ESenseAxisType) results.get(3);
+				types[axis] = (byte) (type == null ? -1 : type.ordinal());
+				Double confidence = (Double) results.get(4);
+				confidences[axis] = (confidence == null ? Double.NaN : confidence);
+			}
+		}
+		finally {
+			results.close();
+		}
+
+		axisIds = axes.toArray(new String[axes.size()]);
+		axisTypes = Arrays.copyOf(types, axisIds.length);
+		axisConfidences = Arrays.copyOf(confidences, axisIds.length);
+
+		// Intern the sense identifiers; a missing sense is -1.
+		String[] sorted = new String[ends.size()];
+		int count = 0;
+		for (String end : ends) {
+			if (end != null) {
+				sorted[count++] = end;
+			}
+		}
+		Arrays.sort(sorted, 0, count);
+		int distinct = 0;
+		for (int i = 0; i < count; i++) {
+			if (distinct == 0 || !sorted[i].equals(sorted[distinct - 1])) {
+				sorted[distinct++] = sorted[i];
+			}
+		}
+		senseIds = Arrays.copyOf(sorted, distinct);
+		int[] senses = new int[ends.size()];
+		for (int i = 0; i < senses.length; i++) {
+			senses[i] = (ends.get(i) == null ? -1 : Arrays.binarySearch(senseIds, ends.get(i)));
+		}
+
+		// Count the edges of each sense, then fill the rows.
+		offsets = new int[senseIds.length + 1];
+		int edges = 0;
+		for (int axis = 0; axis < axisIds.length; axis++) {
+			int one = senses[2 * axis];
+			int two = senses[2 * axis + 1];
+			if (one >= 0) {
+				offsets[one + 1]++;
+				edges++;
+			}
+			if (two >= 0 && one != two) {
+				offsets[two + 1]++;
+				edges++;
+			}
+		}
+		for (int sense = 0; sense < senseIds.length; sense++) {
+			offsets[sense + 1] += offsets[sense];
+		}
+		targets = new int[edges];
+		edgeAxes = new int[edges];
+		int[] next = Arrays.copyOf(offsets, senseIds.length);
+		for (int axis = 0; axis < axisIds.length; axis++) {
+			int one = senses[2 * axis];
+			int two = senses[2 * axis + 1];
+			if (one >= 0) {
+				targets[next[one]] = two;
+				edgeAxes[next[one]++] = axis;
+			}
+			if (two >= 0 && one != two) {
+				targets[next[two]] = one;
+				edgeAxes[next[two]++] = axis;
+			}
+		}
+	}
+
+    /**
+     * Returns the number of indexed sense axes.
+     *
+     * @return the number of sense axes of senses
+     */
+	public int size()
+	{
+		return axisIds.length;
+	}
+
+    /**
+     * Returns the number of senses of at least one sense axis.
+     *
+     * @return the number of senses of sense axes
+     */
+	public int getSenseCount()
+	{
+		return senseIds.length;
+	}
+
+    /**
+     * Returns the identifiers of the senses aligned with the specified sense, once per sense
+     * axis. Sense axes of which the specified sense is the only sense are skipped.
+     *
+     * @param senseId
+     *            the identifier of the sense
+     * @param types
+     *            the types of the sense axes to be followed, or null for all types
+     * @return the identifiers of the aligned senses or an empty list if the sense is not aligned
+     */
+	public List<String> getAlignedSenseIds(String senseId, Set<ESenseAxisType> types)
+	{
+		List<String> result = new ArrayList<String>();
+		int sense = getSense(senseId);
+		if (sense >= 0) {
+			for (int edge = offsets[sense]; edge < offsets[sense + 1]; edge++) {
+				if (targets[edge] >= 0 && matches(edgeAxes[edge], types)) {
+					result.add(senseIds[targets[edge]]);
+				}
+			}
+		}
+		return result;
+	}
+
+    /**
+     * Returns the identifiers of the sense axes of the specified sense, including those of
+     * which it is the only sense.
+     *
+     * @param senseId
+     *            the identifier of the sense
+     * @param types
+     *            the types of the sense axes, or null for all types
+     * @return the identifiers of the sense axes or an empty list if the sense is not aligned
+     */
+	public List<String> getSenseAxisIds(String senseId, Set<ESenseAxisType> types)
+	{
+		List<String> result = new ArrayList<String>();
+		int sense = getSense(senseId);
+		if (sense >= 0) {
+			for (int edge = offsets[sense]; edge < offsets[sense + 1]; edge++) {
+				if (matches(edgeAxes[edge], types)) {
+					result.add(axisIds[edgeAxes[edge]]);
+				}
+			}
+		}
+		return result;
+	}
+
+    /**
+     * Returns true if and only if the specified senses are aligned by a sense axis, regardless
+     * of which of them is the first sense of the sense axis.
+     *
+     * @param senseId1
+     *            the identifier of one sense
+     * @param senseId2
+     *            the identifier of the other sense
+     * @return true if the senses are aligned
+     */
+	public boolean hasAxis(String senseId1, String senseId2)
+	{
+		return getAxis(senseId1, senseId2) >= 0;
+	}
+
+    /**
+     * Returns the confidence of the sense axis aligning the specified senses.
+     *
+     * @param senseId1
+     *            the identifier of one sense
+     * @param senseId2
+     *            the identifier of the other sense
+     * @return the confidence of the first sense axis aligning the senses, or null if the senses
+     *         are not aligned or the sense axis has no confidence
+     *
+     * @see SenseAxis#getConfidence()
+     */
+	public Double getConfidence(String senseId1, String senseId2)
+	{
+		int axis = getAxis(senseId1, senseId2);
+		if (axis < 0 || Double.isNaN(axisConfidences[axis])) {
+			return null;
+		}
+		return axisConfidences[axis];
+	}
+
+    /**
+     * Returns the senses reachable from the specified sense by following at most maxHops sense
+     * axes, e.g. the senses of a third resource aligned with the senses of a second resource
+     * which are aligned with the specified sense.
+     *
+     * @param senseId
+     *            the identifier of the sense to start from
+     * @param maxHops
+     *            the maximum number of sense axes to be followed
+     * @param types
+     *            the types of the sense axes to be followed, or null for all types
+     * @return the identifiers of the reachable senses, excluding the specified sense, mapped to
+     *         the least number of sense axes connecting them with the specified sense, in
+     *         breadth-first order
+     * @throws IllegalArgumentException
+     *             if maxHops is negative
+     */
+	public Map<String, Integer> getTransitivelyAlignedSenseIds(String senseId, int maxHops,
+			Set<ESenseAxisType> types) throws IllegalArgumentException
+	{
+		if (maxHops < 0) {
+			throw new IllegalArgumentException("maxHops must not be negative");
+		}
+		Map<String, Integer> result = new LinkedHashMap<String, Integer>();
+		int start = getSense(senseId);
+		if (start < 0) {
+			return result;
+		}
+
+		BitSet visited = new BitSet(senseIds.length);
+		visited.set(start);
+		int[] queue = new int[16];
+		queue[0] = start;
+		int head = 0;
+		int tail = 1;
+		for (int hops = 1; hops <= maxHops && head < tail; hops++) {
+			int levelEnd = tail;
+			for (; head < levelEnd; head++) {
+				int sense = queue[head];
+				for (int edge = offsets[sense]; edge < offsets[sense + 1]; edge++) {
+					int target = targets[edge];
+					if (target >= 0 && !visited.get(target) && matches(edgeAxes[edge], types)) {
+						visited.set(target);
+						if (tail == queue.length) {
+							queue = Arrays.copyOf(queue, tail * 2);
+						}
+						queue[tail++] = target;
+						result.put(senseIds[target], hops);
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+    /**
+     * Returns all senses connected with the specified sense by chains of sense axes of the
+     * specified types, e.g. the cross-lingual closure of a sense when following
+     * {@link ESenseAxisType#crosslingualSenseAlignment} sense axes only.
+     *
+     * @param senseId
+     *            the identifier of the sense to start from
+     * @param types
+     *            the types of the sense axes to be followed, or null for all types
+     * @return the identifiers of the connected senses, excluding the specified sense
+     *
+     * @see #getTransitivelyAlignedSenseIds(String, int, Set)
+     */
+	public Set<String> getClosure(String senseId, Set<ESenseAxisType> types)
+	{
+		return Collections.unmodifiableSet(getTransitivelyAlignedSenseIds(senseId,
+				Integer.MAX_VALUE, types).keySet());
+	}
+
+	private int getSense(String senseId)
+	{
+		if (senseId == null) {
+			return -1;
+		}
+		int result = Arrays.binarySearch(senseIds, senseId);
+		return (result >= 0 ? result : -1);
+	}
+
+	private int getAxis(String senseId1, String senseId2)
+	{
+		int sense1 = getSense(senseId1);
+		int sense2 = getSense(senseId2);
+		if (sense1 < 0 || sense2 < 0) {
+			return -1;
+		}
+		// Search the shorter row
+		if (offsets[sense2 + 1] - offsets[sense2] < offsets[sense1 + 1] - offsets[sense1]) {
+			int swap = sense1;
+			sense1 = sense2;
+			sense2 = swap;
+		}
+		for (int edge = offsets[sense1]; edge < offsets[sense1 + 1]; edge++) {
+			if (targets[edge] == sense2) {
+				return edgeAxes[edge];
+			}
+		}
+		return -1;
+	}
+
+	private boolean matches(int axis, Set<ESenseAxisType> types)
+	{
+		if (types == null) {
+			return true;
+		}
+		int type = axisTypes[axis];
+		return type >= 0 && types.contains(TYPES[type]);
+	}
+}
@@ -19,11 +19,20 @@ package de.tudarmstadt.ukp.lmf.api;
 
 import java.io.FileNotFoundException;
 import java.sql.SQLException;
+import java.text.Normalizer;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 import org.hibernate.Criteria;
+import org.hibernate.Query;
 import org.hibernate.SQLQuery;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
@@ -32,14 +41,17 @@ import org.hibernate.criterion.DetachedCriteria;
 import org.hibernate.criterion.Property;
 import org.hibernate.criterion.Restrictions;
 import org.hibernate.service.ServiceRegistryBuilder;
+import org.hibernate.stat.Statistics;
 
 import de.tudarmstadt.ukp.lmf.hibernate.HibernateConnect;
+import de.tudarmstadt.ukp.lmf.model.core.Definition;
 import de.tudarmstadt.ukp.lmf.model.core.LexicalEntry;
 import de.tudarmstadt.ukp.lmf.model.core.LexicalResource;
 import de.tudarmstadt.ukp.lmf.model.core.Lexicon;
 import de.tudarmstadt.ukp.lmf.model.core.Sense;
 import de.tudarmstadt.ukp.lmf.model.enums.ELanguageIdentifier;
 import de.tudarmstadt.ukp.lmf.model.enums.EPartOfSpeech;
+import de.tudarmstadt.ukp.lmf.model.enums.ERelNameSemantics;
 import de.tudarmstadt.ukp.lmf.model.meta.SemanticLabel;
 import de.tudarmstadt.ukp.lmf.model.multilingual.PredicateArgumentAxis;
 import de.tudarmstadt.ukp.lmf.model.multilingual.SenseAxis;
@@ -47,8 +59,10 @@ import de.tudarmstadt.ukp.lmf.model.semantics.MonolingualExternalRef;
 import de.tudarmstadt.ukp.lmf.model.semantics.PredicativeRepresentation;
 import de.tudarmstadt.ukp.lmf.model.semantics.SemanticArgument;
 import de.tudarmstadt.ukp.lmf.model.semantics.SemanticPredicate;
+import de.tudarmstadt.ukp.lmf.model.semantics.SenseRelation;
 import de.tudarmstadt.ukp.lmf.model.semantics.SynSemArgMap;
 import de.tudarmstadt.ukp.lmf.model.semantics.Synset;
+import de.tudarmstadt.ukp.lmf.model.semantics.SynsetRelation;
 import de.tudarmstadt.ukp.lmf.transform.DBConfig;
 
 /**
@@ -72,6 +86,16 @@ public class Uby
 	protected Configuration cfg;
 	protected SessionFactory sessionFactory;
 	protected Session session;
+	protected boolean keysetIteration = false;
+	protected int iteratorBufferSize = 500;
+	protected LemmaIndex lemmaIndex;
+	protected SenseAlignmentIndex senseAlignmentIndex;
+
+	/**
+	 * Maximum number of values in the <code>IN</code> clause of a single query issued by the
+	 * bulk lookup methods, e.g. {@link #getSensesByIds(Collection)}.
+	 */
+	protected static final int IN_CLAUSE_CHUNK_SIZE = 500;
 
     /**
      * Constructor for a {@link Uby} instance used for searching of different elements in a database
@@ -85,6 +109,22 @@ public class Uby
      *             if the specified dbConfig is null
      */
 	public Uby(DBConfig dbConfig) throws IllegalArgumentException
+	{
+		this(dbConfig, true);
+	}
+
+    /**
+     * Creates the Hibernate {@link SessionFactory} for the specified {@link DBConfig} and, if
+     * requested, opens the session used by this {@link Uby} instance.
+     *
+     * @param dbConfig
+     *            configuration of the database containing UBY-LMF lexical resource.
+     * @param openSession
+     *            if true, the session of this Uby instance is opened immediately
+     * @throws IllegalArgumentException
+     *             if the specified dbConfig is null
+     */
+	protected Uby(DBConfig dbConfig, boolean openSession) throws IllegalArgumentException
 	{
 		if(dbConfig == null) {
 			throw new IllegalArgumentException("database configuration is null");
@@ -94,7 +134,9 @@ public class Uby
 		ServiceRegistryBuilder serviceRegistryBuilder = new ServiceRegistryBuilder()
 				.applySettings(cfg.getProperties());
 		sessionFactory = cfg.buildSessionFactory(serviceRegistryBuilder.buildServiceRegistry());
-		openSession();
+		if (openSession) {
+			openSession();
+		}
 	}
 
     /**
@@ -172,6 +214,244 @@ public class Uby
 		return session;
 	}
 
+    /**
+     * Returns the statistics of the Hibernate {@link SessionFactory} used by this {@link Uby}
+     * instance, e.g. the number of second-level cache and query cache hits and misses.
+     * <p>
+     * Statistics are only collected if caching is enabled in the {@link DBConfig} consumed by
+     * the constructor of this Uby instance.
+     *
+     * @return the statistics of the session factory
+     *
+     * @see DBConfig#setCacheEnabled(boolean)
+     * @see Statistics#getSecondLevelCacheHitCount()
+     * @see Statistics#getQueryCacheHitCount()
+     */
+	public Statistics getCacheStatistics()
+	{
+		return sessionFactory.getStatistics();
+	}
+
+    /**
+     * Creates a {@link Criteria} for the specified class in the session of this {@link Uby}
+     * instance. If caching is enabled in the {@link DBConfig} of this Uby instance, the results
+     * of the criteria are stored in the query cache.
+     *
+     * @param clazz
+     *            the class of the elements to be selected
+     * @return a criteria selecting instances of the specified class
+     *
+     * @see DBConfig#setCacheEnabled(boolean)
+     */
+	protected Criteria createCriteria(Class<?> clazz)
+	{
+		Criteria criteria = getSession().createCriteria(clazz);
+		if (dbConfig != null && dbConfig.isCacheEnabled()) {
+			criteria.setCacheable(true);
+		}
+		return criteria;
+	}
+
+    /**
+     * Specifies how the iterators returned by this {@link Uby} instance, e.g.
+     * {@link #getLexicalEntryIterator(EPartOfSpeech, Lexicon)} or
+     * {@link #getSenseIterator(Lexicon)}, load their elements from the database.
+     * <p>
+     * By default, a {@link CriteriaIterator} is used, which opens a new session for every loaded
+     * page and pages by row offset. If keyset iteration is enabled, a
+     * {@link KeysetCriteriaIterator} is used instead, which pages by the ordered identifiers of
+     * the iterated elements within a single session. The time needed for loading a page then
+     * does not depend on the position of the page, which is recommended for iterating over large
+     * lexicons.
+     *
+     * @param keysetIteration
+     *            set to true in order to page by identifier, false in order to page by offset
+     *
+     * @see #setIteratorBufferSize(int)
+     */
+	public void setKeysetIteration(boolean keysetIteration)
+	{
+		this.keysetIteration = keysetIteration;
+	}
+
+    /**
+     * Returns true if the iterators returned by this {@link Uby} instance page by the ordered
+     * identifiers of the iterated elements.
+     *
+     * @return true if keyset iteration is enabled, false otherwise
+     *
+     * @see #setKeysetIteration(boolean)
+     */
+	public boolean isKeysetIteration()
+	{
+		return keysetIteration;
+	}
+
+    /**
+     * Sets the maximum number of elements loaded into memory at once by the iterators returned
+     * by this {@link Uby} instance. When keyset iteration is enabled, the value is also used as
+     * JDBC fetch size. The default value is 500.
+     *
+     * @param iteratorBufferSize
+     *            the number of elements loaded per page
+     * @throws IllegalArgumentException
+     *             if the specified buffer size is not positive
+     *
+     * @see #setKeysetIteration(boolean)
+     */
+	public void setIteratorBufferSize(int iteratorBufferSize) throws IllegalArgumentException
+	{
+		if (iteratorBufferSize <= 0) {
+			throw new IllegalArgumentException("iterator buffer size must be positive");
+		}
+		this.iteratorBufferSize = iteratorBufferSize;
+	}
+
+    /**
+     * Creates an {@link Iterator} over the elements selected by the specified criteria, using
+     * the iteration settings of this {@link Uby} instance.
+     *
+     * @param criteria
+     *            criteria which holds selection settings for the iterated elements
+     * @return an iterator over the selected elements
+     *
+     * @see #setKeysetIteration(boolean)
+     * @see #setIteratorBufferSize(int)
+     */
+	protected <T> Iterator<T> createIterator(DetachedCriteria criteria)
+	{
+		if (keysetIteration) {
+			return new KeysetCriteriaIterator<T>(criteria, sessionFactory, iteratorBufferSize);
+		}
+		return new CriteriaIterator<T>(criteria, sessionFactory, iteratorBufferSize);
+	}
+
+    /**
+     * Loads the written forms of all lemmas into a {@link LemmaIndex} and uses it for the lemma
+     * lookups of this {@link Uby} instance from now on, i.e.
+     * {@link #getLexicalEntries(String, EPartOfSpeech, Lexicon)} and
+     * {@link #getLexicalEntriesByLemmaPrefix(String, EPartOfSpeech, Lexicon)} no longer join the
+     * lemma tables, and the normalized and edit distance lookups become available.
+     * <p>
+     * The index is not updated if the database is modified afterwards.
+     *
+     * @return the created lemma index
+     *
+     * @see #setLemmaIndex(LemmaIndex)
+     */
+	public LemmaIndex createLemmaIndex()
+	{
+		lemmaIndex = new LemmaIndex(getSession());
+		return lemmaIndex;
+	}
+
+    /**
+     * Sets the {@link LemmaIndex} used for the lemma lookups of this {@link Uby} instance, e.g. an
+     * index shared by several instances accessing the same database.
+     *
+     * @param lemmaIndex
+     *            the lemma index, or null in order to query the database for lemmas
+     *
+     * @see #createLemmaIndex()
+     */
+	public void setLemmaIndex(LemmaIndex lemmaIndex)
+	{
+		this.lemmaIndex = lemmaIndex;
+	}
+
+    /**
+     * Returns the {@link LemmaIndex} used for the lemma lookups of this {@link Uby} instance.
+     *
+     * @return the lemma index or null if lemmas are looked up in the database
+     */
+	public LemmaIndex getLemmaIndex()
+	{
+		return lemmaIndex;
+	}
+
+    /**
+     * Loads all sense axes of senses into a {@link SenseAlignmentIndex} and uses it for
+     * the alignment lookups of this {@link Uby} instance from now on, i.e.
+     * {@link #getSenseAxesBySense(Sense)} and {@link #hasSensesAxis(Sense, Sense)} no longer
+     * query the sense axes by sense.
+     * <p>
+     * The index is not updated if the database is modified afterwards.
+     *
+     * @return the created sense alignment index
+     *
+     * @see #setSenseAlignmentIndex(SenseAlignmentIndex)
+     */
+	public SenseAlignmentIndex createSenseAlignmentIndex()
+	{
+		senseAlignmentIndex = new SenseAlignmentIndex(getSession());
+		return senseAlignmentIndex;
+	}
+
+    /**
+     * Sets the {@link SenseAlignmentIndex} used for the alignment lookups of this {@link Uby}
+     * instance, e.g. an index shared by several instances accessing the same database.
+     *
+     * @param senseAlignmentIndex
+     *            the sense alignment index, or null in order to query the database for sense axes
+     *
+     * @see #createSenseAlignmentIndex()
+     */
+	public void setSenseAlignmentIndex(SenseAlignmentIndex senseAlignmentIndex)
+	{
+		this.senseAlignmentIndex = senseAlignmentIndex;
+	}
+
+    /**
+     * Returns the {@link SenseAlignmentIndex} used for the alignment lookups of this {@link Uby}
+     * instance.
+     *
+     * @return the sense alignment index or null if sense axes are looked up in the database
+     */
+	public SenseAlignmentIndex getSenseAlignmentIndex()
+	{
+		return senseAlignmentIndex;
+	}
+
+    /**
+     * Loads the {@link SynsetRelation} instances with the specified names into a
+     * {@link SemanticRelationGraph}, e.g. for computing hypernym closures and similarities of
+     * synsets in memory.
+     *
+     * @param lexicon
+     *            the lexicon of the source synsets, or null for all lexicons
+     * @param relationNames
+     *            the names of the relations to be loaded, e.g.
+     *            {@link ERelNameSemantics#HYPERNYM}
+     * @return the graph of the synset relations
+     * @throws IllegalArgumentException
+     *             if no relation name is specified
+     */
+	public SemanticRelationGraph createSynsetRelationGraph(Lexicon lexicon,
+			String... relationNames) throws IllegalArgumentException
+	{
+		return SemanticRelationGraph.createSynsetGraph(getSession(), lexicon, relationNames);
+	}
+
+    /**
+     * Loads the {@link SenseRelation} instances with the specified names into a
+     * {@link SemanticRelationGraph}, e.g. for computing hypernym closures and similarities of
+     * senses in memory.
+     *
+     * @param lexicon
+     *            the lexicon of the source senses, or null for all lexicons
+     * @param relationNames
+     *            the names of the relations to be loaded, e.g.
+     *            {@link ERelNameSemantics#HYPERNYM}
+     * @return the graph of the sense relations
+     * @throws IllegalArgumentException
+     *             if no relation name is specified
+     */
+	public SemanticRelationGraph createSenseRelationGraph(Lexicon lexicon,
+			String... relationNames) throws IllegalArgumentException
+	{
+		return SemanticRelationGraph.createSenseGraph(getSession(), lexicon, relationNames);
+	}
+
     /**
      * Fetches a {@link LexicalResource} from the UBY-Database by its name.
      *
@@ -185,7 +465,7 @@ public class Uby
      */
 	public LexicalResource getLexicalResource(String name)
 	{
-		LexicalResource lexicalResource = (LexicalResource) session.get(
+		LexicalResource lexicalResource = (LexicalResource) getSession().get(
 				LexicalResource.class, name);
 		return lexicalResource;
 	}
@@ -217,7 +497,7 @@ public class Uby
      */
     public List<String> getLexiconNames()
     {
-        Criteria criteria = session.createCriteria(Lexicon.class);
+        Criteria criteria = createCriteria(Lexicon.class);
         criteria = criteria.setProjection(Property.forName("name"));
         @SuppressWarnings("unchecked")
         List<String> result = criteria.list();
@@ -253,7 +533,7 @@ public class Uby
      */
 	public Lexicon getLexiconByName(String lexiconName) throws IllegalArgumentException
 	{
-		Criteria criteria = session.createCriteria(Lexicon.class);
+		Criteria criteria = createCriteria(Lexicon.class);
 		criteria = criteria.add(Restrictions.eq("name", lexiconName));
 		Lexicon result = (Lexicon) criteria.uniqueResult();
 		if (result==null) {
@@ -276,7 +556,7 @@ public class Uby
      */
 	public Lexicon getLexiconById(String lexiconId) throws IllegalArgumentException
 	{
-		Criteria criteria = session.createCriteria(Lexicon.class);
+		Criteria criteria = createCriteria(Lexicon.class);
 		criteria = criteria.add(Restrictions.eq("id", lexiconId));
 		Lexicon result = (Lexicon) criteria.uniqueResult();
 		if (result==null) {
@@ -328,7 +608,12 @@ public class Uby
      */
 	public List<LexicalEntry> getLexicalEntries(String word, EPartOfSpeech pos, Lexicon lexicon)
 	{
-		Criteria criteria = session.createCriteria(LexicalEntry.class);
+		if (lemmaIndex != null) {
+			return getListByIds(LexicalEntry.class, lemmaIndex.getLexicalEntryIds(word, pos,
+					lexicon == null ? null : lexicon.getId()));
+		}
+
+		Criteria criteria = createCriteria(LexicalEntry.class);
 		if (pos != null) {
 			criteria = criteria.add(Restrictions.eq("partOfSpeech", pos));
 		}
@@ -351,6 +636,258 @@ public class Uby
 		return result;
 	}
 
+    /**
+     * Fetches the {@link LexicalEntry} instances for many lemma and part-of-speech combinations
+     * at once. The lookup is performed with a few queries selecting all requested written forms
+     * by <code>IN</code> clauses instead of one query per lemma.
+     * <p>
+     * Each key matches the same lexical entries as
+     * {@link #getLexicalEntries(String, EPartOfSpeech, Lexicon)} would return for the lemma and
+     * part-of-speech of the key. In particular, the lemmas are compared with the written forms by
+     * the collation of the database, e.g. case-insensitively in MySQL, so keys differing in case
+     * only may match the same lexical entries.
+     *
+     * @param keys
+     *            the lemma and part-of-speech combinations of the lexical entries to be fetched.
+     *            Keys with a null part-of-speech match lexical entries regardless of their
+     *            part-of-speech.
+     * @param lexicon
+     *            If not null, filters lexical entries by the specified lexicon. Note that the
+     *            Lexicon instance has to be obtained beforehand.
+     * @return A map containing a list of matching lexical entries for each of the consumed keys.
+     *         If no lexical entry matches a key, the key is mapped to an empty list.
+     *
+     * @see #getLexicalEntries(String, EPartOfSpeech, Lexicon)
+     */
+	public Map<LemmaPos, List<LexicalEntry>> getLexicalEntries(Collection<LemmaPos> keys,
+			Lexicon lexicon)
+	{
+		Map<LemmaPos, List<LexicalEntry>> result = new LinkedHashMap<LemmaPos, List<LexicalEntry>>();
+		Set<String> lemmas = new LinkedHashSet<String>();
+		for (LemmaPos key : keys) {
+			result.put(key, new ArrayList<LexicalEntry>());
+			lemmas.add(key.getLemma());
+		}
+		// Lemmas which the collation of the database may consider equal
+		Map<String, List<String>> lemmasByFolding = new HashMap<String, List<String>>();
+		for (String lemma : lemmas) {
+			String folding = fold(lemma);
+			List<String> equivalent = lemmasByFolding.get(folding);
+			if (equivalent == null) {
+				equivalent = new ArrayList<String>(1);
+				lemmasByFolding.put(folding, equivalent);
+			}
+			equivalent.add(lemma);
+		}
+		Map<String, List<String>> matchingLemmas = new HashMap<String, List<String>>();
+
+		String hql = "select form.writtenForm, entry from LexicalEntry entry"
+				+ " join entry.lemma lemma join lemma.formRepresentations form"
+				+ " where form.writtenForm in (:lemmas)";
+		if (lexicon != null) {
+			hql += " and entry.lexicon = :lexicon";
+		}
+
+		for (List<String> chunk : chunk(lemmas)) {
+			Query query = getSession().createQuery(hql).setParameterList("lemmas", chunk);
+			if (lexicon != null) {
+				query.setParameter("lexicon", lexicon);
+			}
+			query.setCacheable(dbConfig != null && dbConfig.isCacheEnabled());
+
+			@SuppressWarnings("unchecked")
+			List<Object[]> rows = query.list();
+			for (Object[] row : rows) {
+				String writtenForm = (String) row[0];
+				LexicalEntry entry = (LexicalEntry) row[1];
+				List<String> matching = matchingLemmas.get(writtenForm);
+				if (matching == null) {
+					matching = getMatchingLemmas(writtenForm, lemmasByFolding.get(fold(writtenForm)),
+							chunk);
+					matchingLemmas.put(writtenForm, matching);
+				}
+				for (String lemma : matching) {
+					addUnique(result.get(new LemmaPos(lemma, entry.getPartOfSpeech())), entry);
+					addUnique(result.get(new LemmaPos(lemma, null)), entry);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the requested lemmas which a written form returned by the database for them
+	 * matches. A written form matches at least one of them, so if a single requested lemma folds
+	 * to the same string, it is the match. Otherwise, e.g. if both "Bildung" and "bildung" are
+	 * requested, the database is asked which of the candidates equal the written form by its
+	 * collation.
+	 */
+	private List<String> getMatchingLemmas(String writtenForm, List<String> candidates,
+			List<String> requested)
+	{
+		if (candidates != null && candidates.size() == 1) {
+			return candidates;
+		}
+		List<String> result = new ArrayList<String>(1);
+		// If no candidate folds to the same string, the collation of the database differs
+		// further from the folding, e.g. by equating "ß" and "s".
+		for (String lemma : (candidates != null ? candidates : requested)) {
+			Number count = (Number) getSession().createQuery("select count(*)"
+					+ " from FormRepresentation_Lemma form"
+					+ " where form.writtenForm = :writtenForm and form.writtenForm = :lemma")
+					.setParameter("writtenForm", writtenForm)
+					.setParameter("lemma", lemma)
+					.uniqueResult();
+			if (count.longValue() > 0) {
+				result.add(lemma);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Folds a string for comparisons which ignore case and accents, as most collations of the
+	 * database do.
+	 */
+	private static String fold(String string)
+	{
+		return Normalizer.normalize(string, Normalizer.Form.NFD).replaceAll("\\p{M}", "")
+				.toLowerCase(Locale.ROOT);
+	}
+
+    /**
+     * Fetches a {@link List} of {@link LexicalEntry} instances which written representation is the
+     * specified word and loads the parts of their object graph specified by the consumed
+     * {@link FetchPlan} in a bounded number of queries.
+     *
+     * @param word
+     *            the written representation of the lexical entries to be fetched
+     * @param pos
+     *            the part-of-speech of the lexical entries to be fetched. Set to null in order to
+     *            skip part-of-speech filtering.
+     * @param lexicon
+     *            If not null, filters lexical entries by the specified lexicon.
+     * @param fetchPlan
+     *            the parts of the object graph to be loaded eagerly
+     * @return A list of lexical entries matching the specified criteria. If no lexical entry
+     *         matches the specified criteria, this method returns an empty list.
+     *
+     * @see #getLexicalEntries(String, EPartOfSpeech, Lexicon)
+     * @see FetchPlan
+     */
+	public List<LexicalEntry> getLexicalEntries(String word, EPartOfSpeech pos, Lexicon lexicon,
+			FetchPlan fetchPlan)
+	{
+		List<LexicalEntry> result = getLexicalEntries(word, pos, lexicon);
+		fetch(result, fetchPlan);
+		return result;
+	}
+
+    /**
+     * Fetches the {@link LexicalEntry} instances for many lemma and part-of-speech combinations
+     * at once and loads the parts of their object graph specified by the consumed
+     * {@link FetchPlan} in a bounded number of queries.
+     *
+     * @param keys
+     *            the lemma and part-of-speech combinations of the lexical entries to be fetched
+     * @param lexicon
+     *            If not null, filters lexical entries by the specified lexicon.
+     * @param fetchPlan
+     *            the parts of the object graph to be loaded eagerly
+     * @return A map containing a list of matching lexical entries for each of the consumed keys.
+     *
+     * @see #getLexicalEntries(Collection, Lexicon)
+     * @see FetchPlan
+     */
+	public Map<LemmaPos, List<LexicalEntry>> getLexicalEntries(Collection<LemmaPos> keys,
+			Lexicon lexicon, FetchPlan fetchPlan)
+	{
+		Map<LemmaPos, List<LexicalEntry>> result = getLexicalEntries(keys, lexicon);
+		Set<LexicalEntry> entries = new LinkedHashSet<LexicalEntry>();
+		for (List<LexicalEntry> keyEntries : result.values()) {
+			entries.addAll(keyEntries);
+		}
+		fetch(entries, fetchPlan);
+		return result;
+	}
+
+    /**
+     * Loads the parts of the object graph of the consumed {@link LexicalEntry} instances specified
+     * by the {@link FetchPlan}. Each collection of the fetch plan is loaded for all lexical entries
+     * at once, instead of one query per lexical entry and collection.
+     * <p>
+     * The lexical entries must have been obtained from this {@link Uby} instance.
+     *
+     * @param entries
+     *            the lexical entries to be initialized
+     * @param fetchPlan
+     *            the parts of the object graph to be loaded
+     *
+     * @see #fetchSenses(Collection, FetchPlan)
+     */
+	public void fetch(Collection<LexicalEntry> entries, FetchPlan fetchPlan)
+	{
+		if (fetchPlan == null || !fetchPlan.isSenses() || entries.isEmpty()) {
+			return;
+		}
+		fetchCollection("LexicalEntry", "senses", entries);
+
+		List<Sense> senses = new ArrayList<Sense>();
+		for (LexicalEntry entry : entries) {
+			senses.addAll(entry.getSenses());
+		}
+		fetchSenses(senses, fetchPlan);
+	}
+
+    /**
+     * Loads the parts of the object graph of the consumed {@link Sense} instances specified by the
+     * {@link FetchPlan}, e.g. definitions and semantic labels. Each collection of the fetch plan is
+     * loaded for all senses at once.
+     * <p>
+     * The senses must have been obtained from this {@link Uby} instance.
+     *
+     * @param senses
+     *            the senses to be initialized
+     * @param fetchPlan
+     *            the parts of the object graph to be loaded
+     *
+     * @see #fetch(Collection, FetchPlan)
+     */
+	public void fetchSenses(Collection<Sense> senses, FetchPlan fetchPlan)
+	{
+		if (fetchPlan == null || senses.isEmpty()) {
+			return;
+		}
+		if (fetchPlan.isDefinitions()) {
+			fetchCollection("Sense", "definitions", senses);
+			List<Definition> definitions = new ArrayList<Definition>();
+			for (Sense sense : senses) {
+				definitions.addAll(sense.getDefinitions());
+			}
+			fetchCollection("Definition", "textRepresentations", definitions);
+		}
+		if (fetchPlan.isSemanticLabels()) {
+			fetchCollection("Sense", "semanticLabels", senses);
+		}
+	}
+
+    /**
+     * Initializes the specified collection of all consumed owners using chunked join fetch
+     * queries.
+     */
+	private void fetchCollection(String entityName, String collection, Collection<?> owners)
+	{
+		if (owners.isEmpty()) {
+			return;
+		}
+		String hql = "select distinct owner from " + entityName + " owner"
+				+ " left join fetch owner." + collection
+				+ " where owner in (:owners)";
+		for (List<?> chunk : chunk(owners)) {
+			getSession().createQuery(hql).setParameterList("owners", chunk).list();
+		}
+	}
+
     /**
      * Returns an {@link Iterator} over {@link LexicalEntry} instances which written representation
      * is the specified word.
@@ -399,9 +936,7 @@ public class Uby
 			criteria = criteria.add(Restrictions.eq("lexicon", lexicon));
 		}
 
-		CriteriaIterator<LexicalEntry> lexEntryIterator = new CriteriaIterator<LexicalEntry>(
-				criteria, sessionFactory, 500);
-		return lexEntryIterator;
+		return createIterator(criteria);
 	}
 
     /**
@@ -413,9 +948,7 @@ public class Uby
 	{
 		DetachedCriteria criteria = DetachedCriteria.forClass(SenseAxis.class);
 
-		CriteriaIterator<SenseAxis> senseAxisIterator = new CriteriaIterator<SenseAxis>(
-				criteria, sessionFactory, 500);
-		return senseAxisIterator;
+		return createIterator(criteria);
 	}
 
     /**
@@ -429,7 +962,7 @@ public class Uby
      */
 	public LexicalEntry getLexicalEntryById(String lexicalEntryId)
 			throws IllegalArgumentException {
-		Criteria criteria = session.createCriteria(LexicalEntry.class).add(
+		Criteria criteria = createCriteria(LexicalEntry.class).add(
 				Restrictions.eq("id", lexicalEntryId));
 		LexicalEntry ret = null;
 		if (criteria.list() != null && criteria.list().size() > 0) {
@@ -465,7 +998,12 @@ public class Uby
      */
 	public List<LexicalEntry> getLexicalEntriesByLemmaPrefix(String lemma, EPartOfSpeech pos, Lexicon lexicon)
 	{
-		Criteria criteria = session.createCriteria(LexicalEntry.class);
+		if (lemmaIndex != null) {
+			return getListByIds(LexicalEntry.class, lemmaIndex.getLexicalEntryIdsByPrefix(lemma, pos,
+					lexicon == null ? null : lexicon.getId(), false));
+		}
+
+		Criteria criteria = createCriteria(LexicalEntry.class);
 		if (pos != null) {
 			criteria = criteria.add(Restrictions.eq("partOfSpeech", pos));
 		}
@@ -484,6 +1022,88 @@ public class Uby
 		return result;
 	}
 
+    /**
+     * Retrieves a {@link List} of {@link LexicalEntry} instances with lemmas that start with the
+     * parameter lemma, ignoring case and diacritics, e.g. "educa" matches "Educação". Requires a
+     * {@link LemmaIndex}.
+     *
+     * @param lemma
+     *            the lemma the lexical entries has to start with
+     * @param pos
+     *            the part-of-speech of the lexical entries to be fetched, or null for all
+     *            parts-of-speech
+     * @param lexicon
+     *            If not null, filters lexical entries by the specified lexicon.
+     * @return A list of lexical entries ordered by their normalized lemma. If no lexical entry
+     *         matches the specified criteria, this method returns an empty list.
+     * @throws IllegalStateException
+     *             if this Uby instance has no lemma index
+     *
+     * @see LemmaIndex#normalize(String)
+     * @see #createLemmaIndex()
+     */
+	public List<LexicalEntry> getLexicalEntriesByNormalizedLemmaPrefix(String lemma,
+			EPartOfSpeech pos, Lexicon lexicon) throws IllegalStateException
+	{
+		return getListByIds(LexicalEntry.class, requireLemmaIndex().getLexicalEntryIdsByPrefix(lemma, pos,
+				lexicon == null ? null : lexicon.getId(), true));
+	}
+
+    /**
+     * Retrieves a {@link List} of {@link LexicalEntry} instances with lemmas within the specified
+     * edit distance of the parameter lemma, ignoring case and diacritics, e.g. for correcting
+     * misspelled queries. Requires a {@link LemmaIndex}.
+     *
+     * @param lemma
+     *            the lemma to be compared
+     * @param maxDistance
+     *            the maximum number of inserted, deleted or substituted characters
+     * @param pos
+     *            the part-of-speech of the lexical entries to be fetched, or null for all
+     *            parts-of-speech
+     * @param lexicon
+     *            If not null, filters lexical entries by the specified lexicon.
+     * @return A list of lexical entries ordered by their normalized lemma. If no lexical entry
+     *         matches the specified criteria, this method returns an empty list.
+     * @throws IllegalStateException
+     *             if this Uby instance has no lemma index
+     * @throws IllegalArgumentException
+     *             if the specified distance is negative
+     *
+     * @see #createLemmaIndex()
+     */
+	public List<LexicalEntry> getLexicalEntriesByEditDistance(String lemma, int maxDistance,
+			EPartOfSpeech pos, Lexicon lexicon)
+		throws IllegalStateException, IllegalArgumentException
+	{
+		return getListByIds(LexicalEntry.class, requireLemmaIndex().getLexicalEntryIdsByEditDistance(lemma,
+				maxDistance, pos, lexicon == null ? null : lexicon.getId()));
+	}
+
+	private LemmaIndex requireLemmaIndex() throws IllegalStateException
+	{
+		if (lemmaIndex == null) {
+			throw new IllegalStateException("no lemma index, see createLemmaIndex()");
+		}
+		return lemmaIndex;
+	}
+
+    /**
+     * Fetches the elements with the specified identifiers in the order of the identifiers.
+     */
+	private <T> List<T> getListByIds(Class<T> clazz, List<String> ids)
+	{
+		Map<String, T> elements = getByIds(clazz, ids);
+		List<T> result = new ArrayList<T>(ids.size());
+		for (String id : ids) {
+			T element = elements.get(id);
+			if (element != null) {
+				result.add(element);
+			}
+		}
+		return result;
+	}
+
     /**
      * Returns a {@link List} of all {@link Lexicon} instances contained in the database accessed by
      * this {@link Uby} instance.
@@ -493,7 +1113,7 @@ public class Uby
      */
 	public List<Lexicon> getLexicons()
 	{
-		Criteria criteria = session.createCriteria(Lexicon.class);
+		Criteria criteria = createCriteria(Lexicon.class);
 		@SuppressWarnings("unchecked")
 		List<Lexicon> result = criteria.list();
 		if(result == null) {
@@ -520,7 +1140,7 @@ public class Uby
 	//TODO LanguageIdentifier is now a String
 	public List<Lexicon> getLexiconsByLanguage(String lang)
 	{
-		Criteria criteria = session.createCriteria(Lexicon.class);
+		Criteria criteria = createCriteria(Lexicon.class);
 		criteria = criteria.add(
 				Restrictions.eq("languageIdentifier", lang));
 		@SuppressWarnings("unchecked")
@@ -549,9 +1169,7 @@ public class Uby
 			criteria = criteria.createCriteria("lexicalEntry").add(
 					Restrictions.eq("lexicon", lexicon));
 		}
-		CriteriaIterator<Sense> senseIterator = new CriteriaIterator<Sense>(
-				criteria, sessionFactory, 500);
-		return senseIterator;
+		return createIterator(criteria);
 	}
 
     /**
@@ -571,9 +1189,7 @@ public class Uby
 		if (lexicon != null) {
 			criteria = criteria.add(Restrictions.eq("lexicon", lexicon));
 		}
-		CriteriaIterator<Synset> synsetIterator = new CriteriaIterator<Synset>(
-				criteria, sessionFactory, 500);
-		return synsetIterator;
+		return createIterator(criteria);
 	}
 
     /**
@@ -604,7 +1220,7 @@ public class Uby
      *         senses matching both constraints
      */
 	public List<Sense> getSensesByOriginalReference(String externalSys, String externalRef){
-		Criteria criteria = session.createCriteria(Sense.class);
+		Criteria criteria = createCriteria(Sense.class);
 		criteria = criteria.createCriteria("monolingualExternalRefs").add(
 				Restrictions.and(
 						Restrictions.eq("externalSystem", externalSys),
@@ -633,7 +1249,7 @@ public class Uby
      * @returns the {@link Synset} specified by the given arguments
      */
 	public Synset getSynsetByOriginalReference(String externalSys, String externalRef){
-		Criteria criteria = session.createCriteria(Synset.class);
+		Criteria criteria = createCriteria(Synset.class);
 		criteria = criteria.createCriteria("monolingualExternalRefs").add(
 				Restrictions.and(
 						Restrictions.eq("externalSystem", externalSys),
@@ -653,7 +1269,7 @@ public class Uby
      *         matching both constraints.
      **/
 	public List<Sense> getSensesByOriginalReference(String externalSys, String externalRef, Lexicon lexicon){
-	    Criteria criteria = session.createCriteria(Sense.class);
+	    Criteria criteria = createCriteria(Sense.class);
 		criteria = criteria.createCriteria("monolingualExternalRefs").add(
 				Restrictions.and(
 						Restrictions.eq("externalSystem", externalSys),
@@ -684,7 +1300,7 @@ public class Uby
      *         database does not contain any sense axes
      */
 	public List<SenseAxis> getSenseAxes(){
-		Criteria criteria = session.createCriteria(SenseAxis.class);
+		Criteria criteria = createCriteria(SenseAxis.class);
 		@SuppressWarnings("unchecked")
 		List<SenseAxis> result = criteria.list();
 		if(result == null) {
@@ -709,7 +1325,7 @@ public class Uby
      * @see #getSenseAxesByIdPattern(String)
      */
 	public List<SenseAxis> getSenseAxesByIdPattern(String senseAxisId){
-		Criteria criteria= session.createCriteria(SenseAxis.class);
+		Criteria criteria= createCriteria(SenseAxis.class);
 		criteria=criteria.add(Restrictions.sqlRestriction("senseAxisId like '%"+ senseAxisId+"%'"));
 
 		@SuppressWarnings("unchecked")
@@ -732,7 +1348,11 @@ public class Uby
      */
 	public List<SenseAxis> getSenseAxesBySense(Sense sense) {
 		if (sense != null && sense.getId() != null && !sense.getId().equals("")) {
-			Criteria criteria = session.createCriteria(SenseAxis.class);
+			if (senseAlignmentIndex != null) {
+				return getListByIds(SenseAxis.class,
+						senseAlignmentIndex.getSenseAxisIds(sense.getId(), null));
+			}
+			Criteria criteria = createCriteria(SenseAxis.class);
 			criteria = criteria.add(Restrictions.or(
 					Restrictions.eq("senseOne", sense),
 					Restrictions.eq("senseTwo", sense)));
@@ -745,6 +1365,52 @@ public class Uby
 		}
 	}
 
+    /**
+     * This method retrieves the {@link SenseAxis} instances binding any of the specified
+     * {@link Sense} instances at once. The lookup is performed with a few queries using
+     * <code>IN</code> clauses instead of one query per sense.
+     *
+     * @param senses
+     *            the senses for which the sense axes should be returned
+     * @return A map containing all sense axes that contain the sense for each of the consumed
+     *         senses. Senses without alignments are mapped to an empty list.
+     *
+     * @see #getSenseAxesBySense(Sense)
+     */
+	public Map<Sense, List<SenseAxis>> getSenseAxesBySenses(Collection<Sense> senses)
+	{
+		Map<Sense, List<SenseAxis>> result = new LinkedHashMap<Sense, List<SenseAxis>>();
+		Map<String, List<SenseAxis>> resultById = new HashMap<String, List<SenseAxis>>();
+		for (Sense sense : senses) {
+			if (sense != null && sense.getId() != null && !sense.getId().equals("")
+					&& !result.containsKey(sense)) {
+				List<SenseAxis> axes = new ArrayList<SenseAxis>();
+				result.put(sense, axes);
+				resultById.put(sense.getId(), axes);
+			}
+		}
+
+		for (List<Sense> chunk : chunk(result.keySet())) {
+			Criteria criteria = createCriteria(SenseAxis.class);
+			criteria = criteria.add(Restrictions.or(
+					Restrictions.in("senseOne", chunk),
+					Restrictions.in("senseTwo", chunk)));
+			@SuppressWarnings("unchecked")
+			List<SenseAxis> axes = criteria.list();
+			for (SenseAxis axis : axes) {
+				// compare identifiers, the senses of the axis may be uninitialized proxies;
+				// a sense axis aligning a sense with a synset only has a single sense
+				if (axis.getSenseOne() != null) {
+					addUnique(resultById.get(axis.getSenseOne().getId()), axis);
+				}
+				if (axis.getSenseTwo() != null) {
+					addUnique(resultById.get(axis.getSenseTwo().getId()), axis);
+				}
+			}
+		}
+		return result;
+	}
+
     /**
      * Consumes two {@link Sense} instances and returns true if and only if the consumed instances
      * are aligned by a {@link SenseAxis} instance.
@@ -764,13 +1430,16 @@ public class Uby
 		if (sense1 != null && sense2 != null && sense1.getId() != null
 				&& sense1.getId().length() > 0 && sense2.getId() != null
 				&& sense2.getId().length() > 0) {
+			if (senseAlignmentIndex != null) {
+				return senseAlignmentIndex.hasAxis(sense1.getId(), sense2.getId());
+			}
 			String sql = "Select senseOneId, senseTwoId from SenseAxis where "
 					+ "(senseOneId='" + sense1.getId() + "' and senseTwoId='"
 					+ sense2.getId() + "')" + "or(senseOneId='"
 					+ sense2.getId() + "' and senseTwoId='" + sense1.getId()
 					+ "')";
 
-			List<?> query = session.createSQLQuery(sql).list();
+			List<?> query = getSession().createSQLQuery(sql).list();
 			if (query.size() > 0) {
 				ret = true;
 			}
@@ -791,7 +1460,7 @@ public class Uby
      *         instance contains the consumed pattern this method returns an empty list.
      */
 	public List<Sense> getSensesbyIdPattern(String idPattern) {
-		Criteria criteria = session.createCriteria(Sense.class);
+		Criteria criteria = createCriteria(Sense.class);
 		criteria = criteria.add(Restrictions.sqlRestriction("senseId like '%"
 				+ idPattern + "%'"));
 		@SuppressWarnings("unchecked")
@@ -810,7 +1479,7 @@ public class Uby
      */
 	public Sense getSenseById(String senseId)
 			throws IllegalArgumentException {
-		Criteria criteria = session.createCriteria(Sense.class).add(
+		Criteria criteria = createCriteria(Sense.class).add(
 				Restrictions.eq("id", senseId));
 		List<?> result = criteria.list();
 		if (result.size() < 0) {
@@ -821,6 +1490,23 @@ public class Uby
 		return (Sense) result.get(0);
 	}
 
+    /**
+     * Fetches the {@link Sense} instances with the specified identifiers at once. The lookup is
+     * performed with a few queries using <code>IN</code> clauses instead of one query per
+     * identifier.
+     *
+     * @param senseIds
+     *            the unique identifiers of the senses to be returned
+     * @return a map from identifier to sense. Identifiers without a matching sense in the
+     *         database accessed by this {@link Uby} instance are not contained in the map.
+     *
+     * @see #getSenseById(String)
+     */
+	public Map<String, Sense> getSensesByIds(Collection<String> senseIds)
+	{
+		return this.<Sense>getByIds(Sense.class, senseIds);
+	}
+
     /**
      * This methods allows retrieving a {@link Synset} instance by its exact identifier.
      *
@@ -831,7 +1517,7 @@ public class Uby
      *             if a synset with this identifier does not exist
      */
 	public Synset getSynsetById(String synsetId) throws IllegalArgumentException{
-		Criteria criteria = session.createCriteria(Synset.class).add(
+		Criteria criteria = createCriteria(Synset.class).add(
 				Restrictions.eq("id", synsetId));
 		List<?> result = criteria.list();
 		if (result.size() < 0) {
@@ -842,6 +1528,66 @@ public class Uby
 		return (Synset) result.get(0);
 	}
 
+    /**
+     * Fetches the {@link Synset} instances with the specified identifiers at once. The lookup is
+     * performed with a few queries using <code>IN</code> clauses instead of one query per
+     * identifier.
+     *
+     * @param synsetIds
+     *            the unique identifiers of the synsets to be returned
+     * @return a map from identifier to synset. Identifiers without a matching synset in the
+     *         database accessed by this {@link Uby} instance are not contained in the map.
+     *
+     * @see #getSynsetById(String)
+     */
+	public Map<String, Synset> getSynsetsByIds(Collection<String> synsetIds)
+	{
+		return this.<Synset>getByIds(Synset.class, synsetIds);
+	}
+
+    /**
+     * Fetches the instances of the specified class with the specified identifiers using chunked
+     * <code>IN</code> queries.
+     */
+	private <T> Map<String, T> getByIds(Class<T> clazz, Collection<String> ids)
+	{
+		Map<String, T> result = new HashMap<String, T>();
+		for (List<String> chunk : chunk(new LinkedHashSet<String>(ids))) {
+			Criteria criteria = createCriteria(clazz);
+			criteria = criteria.add(Restrictions.in("id", chunk));
+			@SuppressWarnings("unchecked")
+			List<T> elements = criteria.list();
+			for (T element : elements) {
+				result.put((String) getSession().getIdentifier(element), element);
+			}
+		}
+		return result;
+	}
+
+    /**
+     * Splits the consumed values into lists of at most {@link #IN_CLAUSE_CHUNK_SIZE} elements.
+     */
+	private static <T> List<List<T>> chunk(Collection<T> values)
+	{
+		List<List<T>> result = new ArrayList<List<T>>();
+		List<T> current = null;
+		for (T value : values) {
+			if (current == null || current.size() == IN_CLAUSE_CHUNK_SIZE) {
+				current = new ArrayList<T>(IN_CLAUSE_CHUNK_SIZE);
+				result.add(current);
+			}
+			current.add(value);
+		}
+		return result;
+	}
+
+	private static <T> void addUnique(List<T> list, T element)
+	{
+		if (list != null && !list.contains(element)) {
+			list.add(element);
+		}
+	}
+
 
     /**
      * @deprecated use {@link #wordNetSenses(String, String)} or
@@ -866,7 +1612,7 @@ public class Uby
 		 * This direct query avoids the joining huge table done by using normal hibernate, while we just need the ID
 		 */
 		String sqlQueryString="SELECT synsetId FROM MonolingualExternalRef WHERE externalReference = '"+refId.trim() +"'";
-		SQLQuery query = session.createSQLQuery(sqlQueryString);
+		SQLQuery query = getSession().createSQLQuery(sqlQueryString);
 		@SuppressWarnings("rawtypes")
 		Iterator iter = query.list().iterator();
 		String ss_id ="";
@@ -874,7 +1620,7 @@ public class Uby
 			ss_id = (String) iter.next();
 		}
 
-		Criteria criteria=session.createCriteria(Sense.class);
+		Criteria criteria=createCriteria(Sense.class);
 		criteria=criteria.add(Restrictions.sqlRestriction("synsetId='"+ss_id.trim()+"'"));
 		return criteria.list();
 	}
@@ -909,7 +1655,7 @@ public class Uby
 		refId=refId+SynsetOffset;
 
 
-		Criteria criteria=session.createCriteria(Sense.class);
+		Criteria criteria=createCriteria(Sense.class);
 		criteria=criteria.createCriteria("monolingualExternalRefs").add(Restrictions.sqlRestriction("externalReference='"+refId.trim()+"'"));
 		@SuppressWarnings("unchecked")
 		List<Sense> result = criteria.list();
@@ -947,7 +1693,7 @@ public class Uby
 		}
 
 		refId=refId+temp[0];
-		Criteria criteria=session.createCriteria(Sense.class);
+		Criteria criteria=createCriteria(Sense.class);
 		criteria=criteria.createCriteria("synset").createCriteria("monolingualExternalRefs").add(Restrictions.sqlRestriction("externalReference='"+refId.trim()+"'"));
 		@SuppressWarnings("unchecked")
 		List<Sense> result = criteria.list();
@@ -1012,13 +1758,13 @@ public class Uby
 		 * This direct query avoids the joining huge table done by using normal hibernate, while we just need the ID
 		 */
 		String sqlQueryString="SELECT synsetId FROM MonolingualExternalRef WHERE externalReference = '"+refId.trim() +"'";
-		SQLQuery query = session.createSQLQuery(sqlQueryString);
+		SQLQuery query = getSession().createSQLQuery(sqlQueryString);
 		String ss_id = (String) query.uniqueResult();
 		if(ss_id == null) {
 			return new ArrayList<Sense>(0);
 		}
 
-		Criteria criteria=session.createCriteria(Sense.class);
+		Criteria criteria=createCriteria(Sense.class);
 		criteria=criteria.add(Restrictions.sqlRestriction("synsetId='"+ss_id.trim()+"'"));
 		@SuppressWarnings("unchecked")
 		List<Sense> result = criteria.list();
@@ -1084,13 +1830,13 @@ public class Uby
 		 * This direct query avoids the joining huge table done by using normal hibernate, while we just need the ID
 		 */
 		String sqlQueryString="SELECT senseId FROM MonolingualExternalRef WHERE externalReference = '"+refId.trim() +"'";
-		SQLQuery query = session.createSQLQuery(sqlQueryString);
+		SQLQuery query = getSession().createSQLQuery(sqlQueryString);
 		String ss_id = (String) query.uniqueResult();
 		if(ss_id == null) {
 			return null;
 		}
 
-		Criteria criteria=session.createCriteria(Sense.class);
+		Criteria criteria=createCriteria(Sense.class);
 		criteria=criteria.add(Restrictions.sqlRestriction("senseId='"+ss_id.trim()+"'"));
 
 		Sense result = (Sense) criteria.uniqueResult();
@@ -1120,7 +1866,7 @@ public class Uby
 	 */
 	@Deprecated
 	public List<Sense> getSensesByOWSynTransId(String synTransId) {
-		Criteria criteria = session.createCriteria(Sense.class);
+		Criteria criteria = createCriteria(Sense.class);
 		criteria = criteria.add(Restrictions.eq("index",
 				Integer.parseInt(synTransId.trim())));
 		@SuppressWarnings("unchecked")
@@ -1139,7 +1885,7 @@ public class Uby
      *         labels
      */
 	public List<SemanticLabel> getSemanticLabelsbySenseId(String senseId){
-		Criteria criteria= session.createCriteria(SemanticLabel.class);
+		Criteria criteria= createCriteria(SemanticLabel.class);
 		criteria=criteria.add(Restrictions.sqlRestriction("senseId='"+ senseId+"'"));
 		@SuppressWarnings("unchecked")
 		List<SemanticLabel> result = criteria.list();
@@ -1161,7 +1907,7 @@ public class Uby
      *         semantic labels matching the criteria
      */
 	public List<SemanticLabel> getSemanticLabelsbySenseIdbyType(String senseId, String type){
-		Criteria criteria= session.createCriteria(SemanticLabel.class);
+		Criteria criteria= createCriteria(SemanticLabel.class);
 		criteria=criteria.add(Restrictions.sqlRestriction("senseId='"+ senseId +"' and type ='"+type+"'"));
 		@SuppressWarnings("unchecked")
 		List<SemanticLabel> result = criteria.list();
@@ -1176,7 +1922,7 @@ public class Uby
      * @return semantic predicate
      */
 	public SemanticPredicate getSemanticPredicateById(String predicateId){
-		Criteria criteria = session.createCriteria(SemanticPredicate.class);
+		Criteria criteria = createCriteria(SemanticPredicate.class);
 		criteria=criteria.add(Restrictions.sqlRestriction("semanticPredicateId='"+predicateId+"'"));
 		return (SemanticPredicate) criteria.uniqueResult();
 
@@ -1196,7 +1942,7 @@ public class Uby
 	 */
 	public List<SemanticPredicate> getSemanticPredicatesByLabelAndLexicon(String label, Lexicon lexicon){
 		System.err.println(lexicon.getId());
-		Criteria criteria = session.createCriteria(SemanticPredicate.class);
+		Criteria criteria = createCriteria(SemanticPredicate.class);
 		criteria = criteria.add(
 				Restrictions.and(
 						Restrictions.eq("label", label),
@@ -1224,7 +1970,7 @@ public class Uby
 	 *         criteria
 	 */
 	public List<SemanticPredicate> getSemanticPredicates(Lexicon lexicon) {
-		Criteria criteria = session.createCriteria(SemanticPredicate.class);
+		Criteria criteria = createCriteria(SemanticPredicate.class);
 		if (lexicon != null) {
 			String lexId = lexicon.getId();
 			criteria = criteria.add(Restrictions.sqlRestriction("lexiconId='"
@@ -1256,9 +2002,7 @@ public class Uby
 			criteria = criteria.add(Restrictions.sqlRestriction("lexiconId='"
 					+ lexId + "'"));
 		}
-		CriteriaIterator<SemanticPredicate> predicateIterator = new CriteriaIterator<SemanticPredicate>(
-				criteria, sessionFactory, 500);
-		return predicateIterator;
+		return createIterator(criteria);
 	}
 
     /**
@@ -1273,7 +2017,7 @@ public class Uby
      *         return null.
      */
 	public SemanticArgument getSemanticArgumentById(String argumentId){
-		Criteria criteria = session.createCriteria(SemanticArgument.class);
+		Criteria criteria = createCriteria(SemanticArgument.class);
 		criteria=criteria.add(Restrictions.sqlRestriction("semanticArgumentId='"+argumentId+"'"));
 		return (SemanticArgument) criteria.uniqueResult();
 	}
@@ -1291,7 +2035,7 @@ public class Uby
 	 *         criteria
 	 */
 	public List<SemanticArgument> getSemanticArgumentsByLabelAndPredicate(String roleLabel, SemanticPredicate predicate){
-		Criteria criteria = session.createCriteria(SemanticArgument.class);
+		Criteria criteria = createCriteria(SemanticArgument.class);
 		System.err.println(" predicateid " + predicate.getId());
 		criteria = criteria.add(
 				Restrictions.and(
@@ -1317,7 +2061,7 @@ public class Uby
     public List<SynSemArgMap> getSynSemArgMaps()
     {
 
-        Criteria criteriaSynSem = session.createCriteria(SynSemArgMap.class);
+        Criteria criteriaSynSem = createCriteria(SynSemArgMap.class);
         @SuppressWarnings("unchecked")
 		List<SynSemArgMap> result = criteriaSynSem.list();
 
@@ -1329,7 +2073,9 @@ public class Uby
 		throws Throwable
 	{
 		//dbConfig = null; -- FindBugs: This finalizer nulls out fields. This is usually an error, as it does not aid garbage collection, and the object is going to be garbage collected anyway.
-		session.close();
+		if (session != null && session.isOpen()) {
+			session.close();
+		}
 	}
 
 	/**
@@ -1341,7 +2087,7 @@ public class Uby
 	 */
 	public List<SemanticPredicate> getSemanticPredicatesBySenseId(
 			String senseId) {
-		Criteria criteria= session.createCriteria(PredicativeRepresentation.class);
+		Criteria criteria= createCriteria(PredicativeRepresentation.class);
 		criteria=criteria.add(Restrictions.sqlRestriction("senseId='"+ senseId+"'"));
 		@SuppressWarnings("unchecked")
 		List<PredicativeRepresentation> representations = criteria.list();
@@ -1361,7 +2107,7 @@ public class Uby
 	 */
 	public List<Sense> getSensesBySemanticPredicateId(
 			String semanticPredicateId) {
-		Criteria criteria= session.createCriteria(PredicativeRepresentation.class);
+		Criteria criteria= createCriteria(PredicativeRepresentation.class);
 		criteria=criteria.add(Restrictions.sqlRestriction("predicate='"+ semanticPredicateId+"'"));
 		@SuppressWarnings("unchecked")
 		List<PredicativeRepresentation> representations = criteria.list();
@@ -1380,7 +2126,7 @@ public class Uby
      *         database does not contain any sense axes
      */
 	public List<PredicateArgumentAxis> getPredicateArgumentAxes(){
-		Criteria criteria = session.createCriteria(PredicateArgumentAxis.class);
+		Criteria criteria = createCriteria(PredicateArgumentAxis.class);
 		@SuppressWarnings("unchecked")
 		List<PredicateArgumentAxis> result = criteria.list();
 		if(result == null) {
@@ -1404,7 +2150,7 @@ public class Uby
      * @see #getSenseAxesBySense(Sense)
      */
 	public List<PredicateArgumentAxis> getPredicateArgumentAxesByIdPattern(String axisId){
-		Criteria criteria= session.createCriteria(PredicateArgumentAxis.class);
+		Criteria criteria= createCriteria(PredicateArgumentAxis.class);
 		criteria=criteria.add(Restrictions.sqlRestriction("predicateArgumentAxisId like '%"+ axisId+"%'"));
 
 		@SuppressWarnings("unchecked")
@@ -1427,7 +2173,7 @@ public class Uby
      */
 	public List<PredicateArgumentAxis> getPredicateArgumentAxesByPredicate(SemanticPredicate predicate) {
 		if (predicate != null && predicate.getId() != null && !predicate.getId().equals("")) {
-			Criteria criteria = session.createCriteria(PredicateArgumentAxis.class);
+			Criteria criteria = createCriteria(PredicateArgumentAxis.class);
 			criteria = criteria.add(Restrictions.or(
 					Restrictions.eq("semanticPredicateOne", predicate),
 					Restrictions.eq("semanticPredicateTwo", predicate)));
@@ -1465,7 +2211,7 @@ public class Uby
 					+ pred2.getId() + "' and semanticPredicateTwo='" + pred1.getId()
 					+ "')";
 
-			List<?> query = session.createSQLQuery(sql).list();
+			List<?> query = getSession().createSQLQuery(sql).list();
 			if (query.size() > 0) {
 				ret = true;
 			}
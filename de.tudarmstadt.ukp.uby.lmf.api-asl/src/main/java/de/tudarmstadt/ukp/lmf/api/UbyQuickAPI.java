@@ -190,6 +190,9 @@ public class UbyQuickAPI extends Uby
 
 		String id = sense.getId();
 		if (id != null && !id.equals("")) {
+			if (senseAlignmentIndex != null) {
+				return senseAlignmentIndex.getAlignedSenseIds(id, null);
+			}
 			// Select senseOneId, senseTwoId from SenseAxis where
 			// senseOneId='WN_Sense_100' or senseTwoId='WN_Sense_100'
 			String sql = "Select senseOneId, senseTwoId from SenseAxis where senseOneId='"
@@ -239,6 +242,9 @@ public class UbyQuickAPI extends Uby
 	public List<String> alignedSenseIDs(String senseId) {
 		List<String> list = new ArrayList<String>();
 		if (senseId != null && !senseId.equals("")) {
+			if (senseAlignmentIndex != null) {
+				return senseAlignmentIndex.getAlignedSenseIds(senseId, null);
+			}
 			// Select senseOneId, senseTwoId from SenseAxis where
 			// senseOneId='WN_Sense_100' or senseTwoId='WN_Sense_100'
 			String sql = "Select senseOneId, senseTwoId from SenseAxis where senseOneId='"
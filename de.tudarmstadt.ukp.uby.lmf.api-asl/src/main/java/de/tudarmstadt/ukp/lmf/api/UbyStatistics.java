@@ -18,17 +18,33 @@
 package de.tudarmstadt.ukp.lmf.api;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.hibernate.Criteria;
+import org.hibernate.HibernateException;
+import org.hibernate.Query;
+import org.hibernate.ScrollMode;
 import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
 import org.hibernate.criterion.MatchMode;
 import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Property;
 import org.hibernate.criterion.Restrictions;
+import org.hibernate.service.ServiceRegistryBuilder;
 
+import de.tudarmstadt.ukp.lmf.hibernate.HibernateConnect;
 import de.tudarmstadt.ukp.lmf.model.core.LexicalEntry;
 import de.tudarmstadt.ukp.lmf.model.core.LexicalResource;
 import de.tudarmstadt.ukp.lmf.model.core.Lexicon;
@@ -50,6 +66,8 @@ import de.tudarmstadt.ukp.lmf.transform.DBConfig;
  */
 public class UbyStatistics extends Uby{
 
+	protected ResourceStatistics statistics;
+
 	/**
 	 * Creates a {@link UbyStatistics} instance based on the consumed parameter.
 	 * 
@@ -64,6 +82,187 @@ public class UbyStatistics extends Uby{
 		super(dbConfig);
 	}
 
+	/**
+	 * Computes the statistics of all lexicons and lexicon pairs at once and uses them
+	 * for the count methods of this {@link UbyStatistics} instance from now on, instead of
+	 * running one query per method call. Each of the core tables is scanned once; the scans
+	 * run in parallel, each in its own session. If the connection pool configured by
+	 * {@link DBConfig#setConnectionPoolSize(int)} has fewer than <code>threads</code>
+	 * connections, the scans use a separate session factory with a pool of
+	 * <code>threads</code> connections, which is closed afterwards.<p>
+	 * The numbers of distinct lemma and part-of-speech combinations are estimated using
+	 * {@link HyperLogLog} sketches, which are nearly exact for small lexicons and have a
+	 * standard error of about 1% otherwise.
+	 *
+	 * @param threads
+	 * 			the number of scans running in parallel
+	 *
+	 * @return the computed statistics, which can also be written as a report
+	 *
+	 * @throws IllegalArgumentException if threads is less than one
+	 *
+	 * @see ResourceStatistics#writeReport(java.io.Writer)
+	 */
+	public ResourceStatistics computeStatistics(int threads) throws IllegalArgumentException {
+		if (threads < 1) {
+			throw new IllegalArgumentException("threads must be positive");
+		}
+
+		Map<String, String> languageIdentifiers = new LinkedHashMap<String, String>();
+		for (Object[] row : list(session, "select name, languageIdentifier from Lexicon order by name")) {
+			languageIdentifiers.put((String) row[0], (String) row[1]);
+		}
+
+		final SessionFactory passFactory;
+		if (threads > dbConfig.getConnectionPoolSize()) {
+			Configuration passCfg = HibernateConnect.getConfiguration(dbConfig);
+			passCfg.setProperty("hibernate.c3p0.max_size", Integer.toString(threads));
+			passFactory = passCfg.buildSessionFactory(new ServiceRegistryBuilder()
+					.applySettings(passCfg.getProperties()).buildServiceRegistry());
+		}
+		else {
+			passFactory = sessionFactory;
+		}
+
+		ExecutorService workers = Executors.newFixedThreadPool(threads);
+		try {
+			Future<List<Object[]>> lexicalEntryRows = workers.submit(new StatisticsPass<List<Object[]>>(passFactory) {
+				@Override
+				protected List<Object[]> run(Session session) {
+					return list(session, "select lexicon.name, count(entry) from LexicalEntry entry"
+							+ " join entry.lexicon lexicon group by lexicon.name");
+				}
+			});
+			Future<List<Object[]>> senseRows = workers.submit(new StatisticsPass<List<Object[]>>(passFactory) {
+				@Override
+				protected List<Object[]> run(Session session) {
+					return list(session, "select lexicon.name, count(sense), min(sense.id) from Sense sense"
+							+ " join sense.lexicalEntry entry join entry.lexicon lexicon group by lexicon.name");
+				}
+			});
+			Future<List<Object[]>> senseRelationRows = workers.submit(new StatisticsPass<List<Object[]>>(passFactory) {
+				@Override
+				protected List<Object[]> run(Session session) {
+					return list(session, "select lexicon.name, count(relation) from SenseRelation relation"
+							+ " join relation.source sense join sense.lexicalEntry entry"
+							+ " join entry.lexicon lexicon group by lexicon.name");
+				}
+			});
+			Future<Map<String, Map<EPartOfSpeech, HyperLogLog>>> lemmaPos = workers.submit(
+					new StatisticsPass<Map<String, Map<EPartOfSpeech, HyperLogLog>>>(passFactory) {
+				@Override
+				protected Map<String, Map<EPartOfSpeech, HyperLogLog>> run(Session session) {
+					return sketchLemmaPos(session);
+				}
+			});
+			Future<Map<ESenseAxisType, Map<String, Long>>> senseAxes = workers.submit(
+					new StatisticsPass<Map<ESenseAxisType, Map<String, Long>>>(passFactory) {
+				@Override
+				protected Map<ESenseAxisType, Map<String, Long>> run(Session session) {
+					return countSenseAxes(session);
+				}
+			});
+
+			Map<String, Long> senses = new HashMap<String, Long>();
+			Map<String, String> senseIdPrefixes = new HashMap<String, String>();
+			for (Object[] row : senseRows.get()) {
+				senses.put((String) row[0], (Long) row[1]);
+				senseIdPrefixes.put((String) row[0], getSenseIdPrefix((String) row[2]));
+			}
+			statistics = new ResourceStatistics(languageIdentifiers, toCounts(lexicalEntryRows.get()),
+					senses, toCounts(senseRelationRows.get()), senseIdPrefixes, lemmaPos.get(),
+					senseAxes.get());
+			return statistics;
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new HibernateException(e);
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new HibernateException(e.getCause());
+		}
+		finally {
+			workers.shutdownNow();
+			if (passFactory != sessionFactory) {
+				passFactory.close();
+			}
+		}
+	}
+
+	/**
+	 * Returns the statistics used by the count methods of this {@link UbyStatistics} instance.
+	 *
+	 * @return the statistics or null if the count methods query the database
+	 *
+	 * @see #computeStatistics(int)
+	 */
+	public ResourceStatistics getStatistics() {
+		return statistics;
+	}
+
+	/**
+	 * Scans the lemmas of all lexical entries and adds their lemma+pos strings to one
+	 * sketch per lexicon and part-of-speech.
+	 */
+	protected Map<String, Map<EPartOfSpeech, HyperLogLog>> sketchLemmaPos(Session session) {
+		Map<String, Map<EPartOfSpeech, HyperLogLog>> result = new HashMap<String, Map<EPartOfSpeech, HyperLogLog>>();
+		ScrollableResults rows = scroll(session, "select lexicon.name, entry.partOfSpeech, form.writtenForm"
+				+ " from LexicalEntry entry join entry.lexicon lexicon join entry.lemma lemma"
+				+ " join lemma.formRepresentations form");
+		try {
+			while (rows.next()) {
+				String lexiconName = (String) rows.get(0);
+				EPartOfSpeech pos = (EPartOfSpeech) rows.get(1);
+				Map<EPartOfSpeech, HyperLogLog> sketches = result.get(lexiconName);
+				if (sketches == null) {
+					sketches = new HashMap<EPartOfSpeech, HyperLogLog>();
+					result.put(lexiconName, sketches);
+				}
+				HyperLogLog sketch = sketches.get(pos);
+				if (sketch == null) {
+					sketch = new HyperLogLog();
+					sketches.put(pos, sketch);
+				}
+				// Same strings as getLemmaPosPerLexicon
+				sketch.add((String) rows.get(2) + "_" + (pos != null ? pos.toString() : "null"));
+			}
+		}
+		finally {
+			rows.close();
+		}
+		return result;
+	}
+
+	/**
+	 * Scans all sense axes between senses and counts them by type and the identifier
+	 * prefixes of their senses.
+	 */
+	protected Map<ESenseAxisType, Map<String, Long>> countSenseAxes(Session session) {
+		Map<ESenseAxisType, Map<String, Long>> result = new HashMap<ESenseAxisType, Map<String, Long>>();
+		ScrollableResults rows = scroll(session, "select axis.senseAxisType, axis.senseOne.id, axis.senseTwo.id"
+				+ " from SenseAxis axis where axis.senseOne is not null and axis.senseTwo is not null");
+		try {
+			while (rows.next()) {
+				ESenseAxisType type = (ESenseAxisType) rows.get(0);
+				Map<String, Long> counts = result.get(type);
+				if (counts == null) {
+					counts = new HashMap<String, Long>();
+					result.put(type, counts);
+				}
+				String key = ResourceStatistics.getSenseAxisKey((String) rows.get(1), (String) rows.get(2));
+				Long count = counts.get(key);
+				counts.put(key, count == null ? 1L : count + 1);
+			}
+		}
+		finally {
+			rows.close();
+		}
+		return result;
+	}
+
 
 	/**
 	 * Counts the number of {@link Sense} instances in the {@link Lexicon}
@@ -76,6 +275,9 @@ public class UbyStatistics extends Uby{
 	 * lexicon with the specified name does not exist
 	 */
 	public long countSensesPerLexicon(String lexiconName){
+		if (statistics != null) {
+			return statistics.countSenses(lexiconName);
+		}
 		Criteria criteria = session.createCriteria(Sense.class);
 		criteria = criteria.createCriteria("lexicalEntry").createCriteria("lexicon");
 		criteria = criteria.add(Restrictions.eq("name", lexiconName));
@@ -94,6 +296,9 @@ public class UbyStatistics extends Uby{
 	 * lexicon with the specified name does not exist
 	 */
 	public long countLexicalEntriesPerLexicon(String lexiconName){
+		if (statistics != null) {
+			return statistics.countLexicalEntries(lexiconName);
+		}
 		Criteria criteria = session.createCriteria(LexicalEntry.class);
 		criteria = criteria.createCriteria("lexicon");
 		criteria = criteria.add(Restrictions.eq("name", lexiconName));
@@ -102,13 +307,17 @@ public class UbyStatistics extends Uby{
 	}
 
 	/**
-	 * Count the number of lemma+pos combinations per lexicon
+	 * Count the number of lemma+pos combinations per lexicon.
+	 * The number is estimated if the statistics have been computed.
 	 * @param lexiconName
 	 * 			Name of the lexicon
 	 * @return the number of lemma+pos combinations in the lexicon
+	 * @see #computeStatistics(int)
 	 */
 	public long countLemmaPosPerLexicon(String lexiconName){
-			System.out.println(lexiconName);
+			if (statistics != null) {
+				return statistics.estimateLemmaPos(lexiconName);
+			}
 			Set<String> l = getLemmaPosPerLexicon(lexiconName);
 			int res = 0;
 			if (!l.isEmpty()){
@@ -145,9 +354,14 @@ public class UbyStatistics extends Uby{
 	 * 			The partOfSpeech prefix
 	 * @param lang
 	 * 			The language identifier of the lexicon
-	 * @return the number of lemma+pos combinations
+	 * @return the number of lemma+pos combinations, which is estimated if
+	 * the statistics have been computed
+	 * @see #computeStatistics(int)
 	 */
 	public long countLemmaPosPerLexiconAndPosPrefixAndLanguage(String lexiconName, String prefix, String lang){
+			if (statistics != null) {
+				return statistics.estimateLemmaPos(lexiconName, prefix, lang);
+			}
 			Set<String> l= getLemmaPosPerLexiconAndPosPrefixAndLanguage(lexiconName, prefix, lang);
 			int res = 0;
 			if (!l.isEmpty()){
@@ -183,7 +397,7 @@ public class UbyStatistics extends Uby{
 							.add(Property.forName("f.writtenForm"))
 						    .add(Property.forName("e.partOfSpeech")));
 			ScrollableResults res = criteria.scroll();
-			ArrayList<String> out = new ArrayList<String>();
+			Set<String> out = new HashSet<String>();
 			while (res.next()){
 				Object[] r = res.get();
 				if (r[1] != null){ // some resources do not have POS
@@ -193,8 +407,8 @@ public class UbyStatistics extends Uby{
 				}
 
 			}
-			HashSet<String> out2 = new HashSet<String>(out);
-		return out2;
+			res.close();
+		return out;
 	}
 
 	/**
@@ -240,7 +454,7 @@ public class UbyStatistics extends Uby{
 							.add(Property.forName("f.writtenForm"))
 						    .add(Property.forName("e.partOfSpeech")));
 			ScrollableResults res = criteria.scroll();
-			ArrayList<String> out = new ArrayList<String>();
+			Set<String> out = new HashSet<String>();
 			while (res.next()){
 				Object[] r = res.get();
 				if (r[1] != null){
@@ -249,8 +463,8 @@ public class UbyStatistics extends Uby{
 					out.add((String)r[0]+"_null");
 				}
 			}
-			HashSet<String> out2 = new HashSet<String>(out);
-		return out2;
+			res.close();
+		return out;
 
 	}
 
@@ -265,6 +479,9 @@ public class UbyStatistics extends Uby{
 	 * lexicon with the specified name does not exist
 	 */
 	public long countSenseRelationsPerLexicon(String lexiconName) {
+		if (statistics != null) {
+			return statistics.countSenseRelations(lexiconName);
+		}
 		Criteria criteria = session.createCriteria(SenseRelation.class);
 		criteria = criteria.createCriteria("source");
 		criteria = criteria.createCriteria("lexicalEntry");
@@ -350,7 +567,10 @@ public class UbyStatistics extends Uby{
 	 * @see ESenseAxisType
 	 */
 	public long countSenseAxesPerLexiconPair(ESenseAxisType type, String lex1Name, String lex2Name){
-		
+		if (statistics != null) {
+			return statistics.countSenseAxes(type, lex1Name, lex2Name);
+		}
+
 		// get prefix for res1Name
 		Criteria c1 = session.createCriteria(Sense.class,"s");
 		c1 = c1.createCriteria("lexicalEntry");
@@ -370,14 +590,8 @@ public class UbyStatistics extends Uby{
 		String pref1 = "";
 		String pref2 = "";
 		if (res1!=null && res2!=null){
-			pref1 = res1.split("_")[0];
-			if (res1.split("_")[1].equals("en")  ||res1.split("_")[1].equals("de") ){
-				pref1 +=  "_" + res1.split("_")[1];
-			}
-			pref2 = res2.split("_")[0];
-			if (res2.split("_")[1].equals("en")  || res2.split("_")[1].equals("de") ){
-				pref2 +=  "_" + res2.split("_")[1];
-			}
+			pref1 = getSenseIdPrefix(res1);
+			pref2 = getSenseIdPrefix(res2);
 		// get alignments with these prefixes
 		Criteria criteria = session.createCriteria(SenseAxis.class);
 		criteria = criteria.add(Restrictions.eq("senseAxisType", type));
@@ -436,14 +650,8 @@ public class UbyStatistics extends Uby{
 		String pref1 = "";
 		String pref2 = "";
 		if (res1!=null && res2!=null){
-			pref1 = res1.split("_")[0];
-			if (res1.split("_")[1].equals("en")  ||res1.split("_")[1].equals("de") ){
-				pref1 +=  "_" + res1.split("_")[1];
-			}
-			pref2 = res2.split("_")[0];
-			if (res2.split("_")[1].equals("en")  || res2.split("_")[1].equals("de") ){
-				pref2 +=  "_" + res2.split("_")[1];
-			}
+			pref1 = getSenseIdPrefix(res1);
+			pref2 = getSenseIdPrefix(res2);
 			// get alignments with these prefixes
 			Criteria criteria = session.createCriteria(SenseAxis.class);
 			criteria = criteria.add(Restrictions.eq("senseAxisType", type));
@@ -454,4 +662,65 @@ public class UbyStatistics extends Uby{
 		}
 		else return new ArrayList<SenseAxis>();
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Returns the prefix identifying the lexicon of the sense with the given identifier,
+	 * i.e. the first segment of the identifier and the language segment of English and
+	 * German resources.
+	 */
+	protected static String getSenseIdPrefix(String senseId) {
+		String[] segments = senseId.split("_");
+		String result = segments[0];
+		if (segments.length > 1 && (segments[1].equals("en") || segments[1].equals("de"))) {
+			result += "_" + segments[1];
+		}
+		return result;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<Object[]> list(Session session, String hql) {
+		Query query = session.createQuery(hql);
+		query.setReadOnly(true);
+		return query.list();
+	}
+
+	private static ScrollableResults scroll(Session session, String hql) {
+		Query query = session.createQuery(hql);
+		query.setReadOnly(true);
+		query.setFetchSize(1000);
+		return query.scroll(ScrollMode.FORWARD_ONLY);
+	}
+
+	private static Map<String, Long> toCounts(List<Object[]> rows) {
+		Map<String, Long> result = new HashMap<String, Long>();
+		for (Object[] row : rows) {
+			result.put((String) row[0], (Long) row[1]);
+		}
+		return result;
+	}
+
+	/**
+	 * A scan of {@link #computeStatistics(int)}, which runs in its own session.
+	 */
+	private abstract class StatisticsPass<T> implements Callable<T> {
+
+		private final SessionFactory factory;
+
+		public StatisticsPass(SessionFactory factory) {
+			this.factory = factory;
+		}
+
+		@Override
+		public T call() {
+			Session session = factory.openSession();
+			try {
+				return run(session);
+			}
+			finally {
+				session.close();
+			}
+		}
+
+		protected abstract T run(Session session);
+	}
+}
@@ -42,6 +42,33 @@ public class HibernateConnect
 {
 	private static Log logger = LogFactory.getLog(HibernateConnect.class.getName());
 
+	/** Prefix of all cache regions created for a UBY-LMF database. */
+	public static final String CACHE_REGION_PREFIX = "uby";
+
+	/** Entities cached in the second-level cache if caching is enabled. */
+	public static final String[] CACHED_ENTITIES = {
+		"de.tudarmstadt.ukp.lmf.model.core.Lexicon",
+		"de.tudarmstadt.ukp.lmf.model.core.LexicalEntry",
+		"de.tudarmstadt.ukp.lmf.model.morphology.Lemma",
+		"FormRepresentation_Lemma",
+		"de.tudarmstadt.ukp.lmf.model.core.Sense",
+		"de.tudarmstadt.ukp.lmf.model.core.Definition",
+		"TextRepresentation_Definition",
+		"de.tudarmstadt.ukp.lmf.model.semantics.Synset",
+		"de.tudarmstadt.ukp.lmf.model.meta.SemanticLabel",
+		"de.tudarmstadt.ukp.lmf.model.multilingual.SenseAxis"
+	};
+
+	/** Collections cached in the second-level cache if caching is enabled. */
+	public static final String[] CACHED_COLLECTIONS = {
+		"de.tudarmstadt.ukp.lmf.model.core.LexicalEntry.senses",
+		"de.tudarmstadt.ukp.lmf.model.morphology.Lemma.formRepresentations",
+		"de.tudarmstadt.ukp.lmf.model.core.Sense.definitions",
+		"de.tudarmstadt.ukp.lmf.model.core.Sense.semanticLabels",
+		"de.tudarmstadt.ukp.lmf.model.core.Definition.textRepresentations",
+		"de.tudarmstadt.ukp.lmf.model.semantics.Synset.senses"
+	};
+
     /**
      * Creates Hibernate {@link Configuration} and adds all files from Hibernate mapping folder to
      * the model.
@@ -57,6 +84,8 @@ public class HibernateConnect
 				dbConfig.getJdbc_url(), dbConfig.getJdbc_driver_class(),
 				dbConfig.getDb_vendor(), dbConfig.getUser(),
 				dbConfig.getPassword(), dbConfig.isShowSQL()));
+		cfg.setProperty("hibernate.c3p0.max_size",
+				Integer.toString(dbConfig.getConnectionPoolSize()));
 
 		// load hibernate mappings
 		ClassLoader cl = HibernateConnect.class.getClassLoader();
@@ -75,9 +104,46 @@ public class HibernateConnect
 			e.printStackTrace();
 		}
 
+		if (dbConfig.isCacheEnabled()) {
+			configureCache(cfg, dbConfig);
+		}
+
 		return cfg;
 	}
 
+    /**
+     * Enables the read-only second-level cache and the query cache for the consumed
+     * {@link Configuration}. Each of the entities and collections listed in
+     * {@link #CACHED_ENTITIES} and {@link #CACHED_COLLECTIONS} is cached in a separate region.
+     * Sizes and eviction policy of the regions are defined by the Ehcache configuration resource
+     * specified in the consumed {@link DBConfig}.
+     *
+     * @param cfg
+     *            the Hibernate configuration with all mappings added
+     * @param dbConfig
+     *            database configuration holder
+     *
+     * @see DBConfig#setCacheEnabled(boolean)
+     */
+	protected static void configureCache(Configuration cfg, DBConfig dbConfig)
+	{
+		cfg.setProperty("hibernate.cache.use_second_level_cache", "true");
+		cfg.setProperty("hibernate.cache.use_query_cache", "true");
+		cfg.setProperty("hibernate.cache.region.factory_class",
+				"org.hibernate.cache.ehcache.EhCacheRegionFactory");
+		cfg.setProperty("hibernate.cache.region_prefix", CACHE_REGION_PREFIX);
+		cfg.setProperty("net.sf.ehcache.configurationResourceName",
+				dbConfig.getCacheConfiguration());
+		cfg.setProperty("hibernate.generate_statistics", "true");
+
+		for (String entityName : CACHED_ENTITIES) {
+			cfg.setCacheConcurrencyStrategy(entityName, "read-only");
+		}
+		for (String collectionRole : CACHED_COLLECTIONS) {
+			cfg.setCollectionCacheConcurrencyStrategy(collectionRole, "read-only");
+		}
+	}
+
 
     /**
      * This method creates and returns Hibernate Properties.
@@ -161,7 +227,7 @@ public class HibernateConnect
         // Enable Hibernate's automatic session context management
         p.setProperty("hibernate.current_session_context_class","thread");
 
-        // Disable the second-level cache
+        // Disable the second-level cache (enabled by configureCache if requested)
         p.setProperty("hibernate.cache.provider_class","org.hibernate.cache.NoCacheProvider");
         //p.setProperty("hibernate.cache.provider_class","org.hibernate.connection.C3P0ConnectionProvider");
         p.setProperty("hibernate.order_inserts", "true");
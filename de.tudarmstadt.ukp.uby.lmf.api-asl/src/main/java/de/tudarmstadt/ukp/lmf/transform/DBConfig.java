@@ -36,6 +36,9 @@ public class DBConfig
 	private String password; // Password for accessing the database
 	private boolean showSQL = false; // If true all SQL queries are printed on
 										// the console
+	private boolean cacheEnabled = false; // If true read-only second-level and query cache is used
+	private String cacheConfiguration = DEFAULT_CACHE_CONFIGURATION; // Ehcache configuration resource
+	private int connectionPoolSize = 1; // Max. number of pooled database connections
 
 	/*
 	 * true if the user wants to load Hibernate mapping files used only for reading LMF database
@@ -225,6 +228,103 @@ public class DBConfig
 		this.showSQL = showSQL;
 	}
 
+    /**
+     * Returns the maximum number of database connections pooled for the database accessed using
+     * this {@link DBConfig} instance.
+     *
+     * @return the maximum number of pooled connections
+     *
+     * @see #setConnectionPoolSize(int)
+     */
+	public int getConnectionPoolSize()
+	{
+		return connectionPoolSize;
+	}
+
+    /**
+     * Sets the maximum number of database connections pooled for the database accessed using this
+     * {@link DBConfig} instance.
+     * <p>
+     *
+     * By default, only one connection is pooled. When several threads access the database
+     * concurrently, e.g. using a {@link de.tudarmstadt.ukp.lmf.api.ConcurrentUby} instance, the
+     * pool size should be set to the number of threads.
+     *
+     * @param connectionPoolSize
+     *            the maximum number of pooled connections to set
+     * @throws IllegalArgumentException
+     *             if the specified pool size is not positive
+     */
+	public void setConnectionPoolSize(int connectionPoolSize) throws IllegalArgumentException
+	{
+		if (connectionPoolSize <= 0) {
+			throw new IllegalArgumentException("connection pool size must be positive");
+		}
+		this.connectionPoolSize = connectionPoolSize;
+	}
+
+    /**
+     * Returns true if the read-only second-level cache and the query cache are enabled for the
+     * database accessed using this {@link DBConfig} instance.
+     *
+     * @return true if caching is enabled, false otherwise
+     *
+     * @see #setCacheEnabled(boolean)
+     */
+	public boolean isCacheEnabled()
+	{
+		return cacheEnabled;
+	}
+
+    /**
+     * Specifies if the read-only second-level cache and the query cache should be used when
+     * accessing the database using this {@link DBConfig} instance.
+     * <p>
+     *
+     * Caching should only be enabled for reading a UBY-LMF database which is not modified anymore,
+     * e.g. when accessing it through the Uby API. By default, caching is disabled.
+     *
+     * @param cacheEnabled
+     *            set to true if the caches should be used, set to false otherwise
+     *
+     * @see #setCacheConfiguration(String)
+     */
+	public void setCacheEnabled(boolean cacheEnabled)
+	{
+		this.cacheEnabled = cacheEnabled;
+	}
+
+    /**
+     * Returns the classpath resource holding the Ehcache configuration used if caching is enabled.
+     *
+     * @return the name of the Ehcache configuration resource
+     *
+     * @see #setCacheEnabled(boolean)
+     */
+	public String getCacheConfiguration()
+	{
+		return cacheConfiguration;
+	}
+
+    /**
+     * Sets the classpath resource holding the Ehcache configuration used if caching is enabled.
+     * The configuration determines the maximum number of cached elements per cache region and the
+     * eviction policy.
+     * <p>
+     *
+     * By default, the bundled configuration {@value #DEFAULT_CACHE_CONFIGURATION} is used, which
+     * bounds the size of every region and evicts the least recently used elements.
+     *
+     * @param cacheConfiguration
+     *            the name of the Ehcache configuration resource to set
+     *
+     * @see #setCacheEnabled(boolean)
+     */
+	public void setCacheConfiguration(String cacheConfiguration)
+	{
+		this.cacheConfiguration = cacheConfiguration;
+	}
+
     /**
      * Returns the {@link String} instance representing the name of the accessed databases' host.
      * 
@@ -261,4 +361,5 @@ public class DBConfig
     
     public static final String H2 = "h2";
     public static final String MYSQL = "mysql";
+    public static final String DEFAULT_CACHE_CONFIGURATION = "/uby-ehcache.xml";
 }
@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.lmf.model.miscellaneous;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+/**
+ * Reads and writes the value of a field of a UBY-LMF class using method
+ * handles, which are created once and can be invoked without the argument
+ * arrays, access checks, and exception wrapping of {@link Method#invoke}.
+ * Accessors are meant to be created once per field and cached along with
+ * the other metadata of the class, e.g., when converting UBY-LMF to XML
+ * or saving it to a database.<p>
+ *
+ * Exceptions thrown by the underlying getter or setter are passed on
+ * unchanged if they are unchecked, checked exceptions are wrapped in a
+ * {@link RuntimeException}.
+ *
+ * @see AccessType
+ */
+public final class FieldAccessor {
+
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+	private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+	private final String name;
+	private final MethodHandle getter;
+	private final MethodHandle setter;
+
+	private FieldAccessor(String name, MethodHandle getter, MethodHandle setter) {
+		this.name = name;
+		this.getter = getter;
+		this.setter = setter;
+	}
+
+	/**
+	 * Creates an accessor using the given getter and setter methods.
+	 *
+	 * @param name the name of the field, used in error messages
+	 * @param getter the getter of the field or null if the field cannot be read
+	 * @param setter the setter of the field or null if the field cannot be written
+	 * @return an accessor invoking the given methods
+	 * @throws IllegalArgumentException if one of the methods is not accessible
+	 */
+	public static FieldAccessor forMethods(String name, Method getter, Method setter)
+			throws IllegalArgumentException {
+		MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+		try {
+			return new FieldAccessor(name,
+					getter == null ? null : lookup.unreflect(getter).asType(GETTER_TYPE),
+					setter == null ? null : lookup.unreflect(setter).asType(SETTER_TYPE));
+		} catch (IllegalAccessException e) {
+			throw new IllegalArgumentException("Unable to access " + name, e);
+		}
+	}
+
+	/**
+	 * Creates an accessor reading and writing the given field directly,
+	 * regardless of its visibility.
+	 *
+	 * @param field the field to be accessed
+	 * @return an accessor reading and writing the given field
+	 * @throws IllegalArgumentException if the field is not accessible
+	 */
+	public static FieldAccessor forField(Field field) throws IllegalArgumentException {
+		field.setAccessible(true);
+		MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+		try {
+			return new FieldAccessor(field.getName(),
+					lookup.unreflectGetter(field).asType(GETTER_TYPE),
+					lookup.unreflectSetter(field).asType(SETTER_TYPE));
+		} catch (IllegalAccessException e) {
+			throw new IllegalArgumentException("Unable to access " + field.getName(), e);
+		}
+	}
+
+	/**
+	 * Returns the name of the accessed field.
+	 *
+	 * @return the name of the field
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns true if this accessor is able to read the field.
+	 *
+	 * @return true if a getter is available
+	 */
+	public boolean isReadable() {
+		return getter != null;
+	}
+
+	/**
+	 * Returns true if this accessor is able to write the field.
+	 *
+	 * @return true if a setter is available
+	 */
+	public boolean isWritable() {
+		return setter != null;
+	}
+
+	/**
+	 * Returns the value of the field of the given object.
+	 *
+	 * @param object the object whose field should be read
+	 * @return the value of the field
+	 * @throws UnsupportedOperationException if the field cannot be read
+	 */
+	public Object get(Object object) throws UnsupportedOperationException {
+		if (getter == null) {
+			throw new UnsupportedOperationException("Missing getter for " + name);
+		}
+		try {
+			return (Object) getter.invokeExact(object);
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new RuntimeException("Unable to read " + name, e);
+		}
+	}
+
+	/**
+	 * Sets the field of the given object to the given value.
+	 *
+	 * @param object the object whose field should be written
+	 * @param value the new value of the field
+	 * @throws UnsupportedOperationException if the field cannot be written
+	 */
+	public void set(Object object, Object value) throws UnsupportedOperationException {
+		if (setter == null) {
+			throw new UnsupportedOperationException("Missing setter for " + name);
+		}
+		try {
+			setter.invokeExact(object, value);
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new RuntimeException("Unable to write " + name, e);
+		}
+	}
+
+}
@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.lmf.model.miscellaneous;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import de.tudarmstadt.ukp.lmf.model.core.Sense;
+
+/**
+ * Test the methods of {@link FieldAccessor} class.
+ */
+public class FieldAccessorTest {
+
+	/**
+	 * Tests an accessor using the getter and setter of a field.
+	 */
+	@Test
+	public void testForMethods() throws Exception {
+		FieldAccessor accessor = FieldAccessor.forMethods("id",
+				Sense.class.getMethod("getId"), Sense.class.getMethod("setId", String.class));
+		Sense sense = new Sense("test_id");
+		assertEquals("test_id", accessor.get(sense));
+
+		accessor.set(sense, "other_id");
+		assertEquals("other_id", sense.getId());
+		assertTrue(accessor.isReadable());
+		assertTrue(accessor.isWritable());
+	}
+
+	/**
+	 * Tests that primitive values are boxed and unboxed.
+	 */
+	@Test
+	public void testPrimitiveField() throws Exception {
+		FieldAccessor accessor = FieldAccessor.forMethods("index",
+				Sense.class.getMethod("getIndex"), Sense.class.getMethod("setIndex", int.class));
+		Sense sense = new Sense();
+		accessor.set(sense, Integer.valueOf(3));
+		assertEquals(3, sense.getIndex());
+		assertEquals(Integer.valueOf(3), accessor.get(sense));
+	}
+
+	/**
+	 * Tests an accessor reading a private field directly.
+	 */
+	@Test
+	public void testForField() throws Exception {
+		FieldAccessor accessor = FieldAccessor.forField(
+				Sense.class.getDeclaredField("transparentMeaning"));
+		Sense sense = new Sense();
+		accessor.set(sense, Boolean.TRUE);
+		assertEquals(Boolean.TRUE, accessor.get(sense));
+		assertEquals("transparentMeaning", accessor.getName());
+	}
+
+	/**
+	 * Tests that writing fails if no setter is available.
+	 */
+	@Test(expected = UnsupportedOperationException.class)
+	public void testMissingSetter() throws Exception {
+		FieldAccessor accessor = FieldAccessor.forMethods("id",
+				Sense.class.getMethod("getId"), null);
+		assertFalse(accessor.isWritable());
+		accessor.set(new Sense(), "test_id");
+	}
+
+}
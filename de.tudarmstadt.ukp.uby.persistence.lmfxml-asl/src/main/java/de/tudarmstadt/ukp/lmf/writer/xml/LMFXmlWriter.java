@@ -25,8 +25,9 @@ import java.io.OutputStream;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerConfigurationException;
@@ -44,6 +45,7 @@ import de.tudarmstadt.ukp.lmf.model.interfaces.IHasID;
 import de.tudarmstadt.ukp.lmf.model.miscellaneous.AccessType;
 import de.tudarmstadt.ukp.lmf.model.miscellaneous.EAccessType;
 import de.tudarmstadt.ukp.lmf.model.miscellaneous.EVarType;
+import de.tudarmstadt.ukp.lmf.model.miscellaneous.FieldAccessor;
 import de.tudarmstadt.ukp.lmf.model.miscellaneous.VarType;
 import de.tudarmstadt.ukp.lmf.writer.LMFWriter;
 import de.tudarmstadt.ukp.lmf.writer.LMFWriterException;
@@ -64,6 +66,10 @@ class LMFXmlWriter extends LMFWriter{
 	
 	private static Log logger = LogFactory.getLog(LMFXmlWriter.class);
 
+	// fields to be written for each LMF class, determined once per class
+	private static final Map<Class<?>, List<XmlField>> xmlFields
+			= new ConcurrentHashMap<Class<?>, List<XmlField>>();
+
 	/**
 	 * Constructs a LMFXmlWriter, XML will be saved to file in outputPath
 	 * @param outputPath
@@ -151,6 +157,8 @@ class LMFXmlWriter extends LMFWriter{
 	 * Depending on the value of the annotation, the method reads the values of the objects
 	 * fields by invoking a getter or by directly accessing the field.
 	 * 
+	 * The fields and their accessors are determined only once for each class.
+	 * 
 	 * @param lmfObject An LMF Object for which an Element should be created
 	 * @param writeEndElement If TRUE the closing Tag for the XML-Element will be created
 	 *  
@@ -169,65 +177,11 @@ class LMFXmlWriter extends LMFWriter{
 		AttributesImpl atts = new AttributesImpl();
 		List<Object> children = new ArrayList<Object>();
 		
-		// find all field, also the inherited ones 
-		ArrayList<Field> fields = new ArrayList<Field>();
-		fields.addAll(Arrays.asList(something.getDeclaredFields()));
-		Class<?> superClass = something.getSuperclass();
-		while(superClass != null){
-			fields.addAll(Arrays.asList(superClass.getDeclaredFields()));
-			superClass = superClass.getSuperclass();
-		}
-		
 		// Iterating over all fields
-		for(Field field : fields){
-			String fieldName = field.getName().replace("_", "");
-			Class<?> fieldClass = field.getType();
-			VarType varType = field.getAnnotation(VarType.class);
-			// No VarType-Annotation found for the field, then don't save to XML 
-			if(varType == null)
-				continue;
-			
-			EVarType type = varType.type();
-			
-			// VarType is NONE, don't save to XML
-			if(type.equals(EVarType.NONE))
-				continue;
-			
-			Object retObj = null;
-			
-			/*
-			 * Determine how to access the variable
-			 */
-			AccessType accessType = field.getAnnotation(AccessType.class);
-			if(accessType == null || accessType.equals(EAccessType.GETTER)){
-				// access using a canonical getter
-				String setFieldName = fieldName;
-				
-				if(fieldName.startsWith("is")) // E.g. isHead --> setHead
-					setFieldName = setFieldName.replaceFirst("is", "");
-				
-				// Get-Method for the field
-				String getFuncName = setFieldName.substring(0,1).toUpperCase() + setFieldName.substring(1);
-				if(fieldClass.equals(Boolean.class)){
-					getFuncName = "is"+getFuncName;
-				}
-				else getFuncName = "get"+getFuncName;
-				
-				Method getMethod = null;
-				try {
-					getMethod = something.getMethod(getFuncName);
-					retObj = getMethod.invoke(lmfObject); // Run the Get-Method
-				} catch (Exception e) {
-					logger.warn("There was an error on accessing the method " + getFuncName + " in "+ elementName +" class. Falling back to field access");
-					field.setAccessible(true);
-					retObj = field.get(lmfObject);
-				}
-			}
-			else{
-				// Directly read the value of the field
-				field.setAccessible(true);
-				retObj = field.get(lmfObject);
-			}
+		for(XmlField xmlField : getXmlFields(something, elementName)){
+			String fieldName = xmlField.name;
+			EVarType type = xmlField.type;
+			Object retObj = xmlField.get(lmfObject, elementName);
 			
 			if(retObj != null){
 				if(type.equals(EVarType.ATTRIBUTE)){ // Save Attribute to the new element
@@ -267,6 +221,99 @@ class LMFXmlWriter extends LMFWriter{
 		if(writeEndElement)
 			th.endElement("", "", elementName);
 	}	
+	
+	/**
+	 * Returns the fields of the given class which should be written to XML,
+	 * including the inherited ones. The accessors of the fields are created on
+	 * the first call for each class and reused afterwards.
+	 * 
+	 * @param something the class of an LMF object
+	 * @param elementName the name of the XML element, used for logging
+	 * @return the fields having a {@link VarType} other than {@link EVarType#NONE}
+	 */
+	private static List<XmlField> getXmlFields(Class<?> something, String elementName){
+		List<XmlField> result = xmlFields.get(something);
+		if(result != null)
+			return result;
+		
+		// find all field, also the inherited ones 
+		result = new ArrayList<XmlField>();
+		Class<?> clazz = something;
+		while(clazz != null){
+			for(Field field : clazz.getDeclaredFields()){
+				VarType varType = field.getAnnotation(VarType.class);
+				// No VarType-Annotation found for the field, or VarType is NONE, then don't save to XML 
+				if(varType != null && !varType.type().equals(EVarType.NONE))
+					result.add(new XmlField(field, varType.type(), elementName));
+			}
+			clazz = clazz.getSuperclass();
+		}
+		xmlFields.put(something, result);
+		return result;
+	}
+	
+	/**
+	 * A field of an LMF class which is written to XML along with the
+	 * accessor used for reading its value.
+	 */
+	private static class XmlField {
+		
+		final Field field;
+		final String name;
+		final EVarType type;
+		final FieldAccessor accessor;
+		
+		XmlField(Field field, EVarType type, String elementName){
+			this.field = field;
+			this.name = field.getName().replace("_", "");
+			this.type = type;
+			
+			/*
+			 * Determine how to access the variable
+			 */
+			FieldAccessor getterAccessor = null;
+			AccessType accessType = field.getAnnotation(AccessType.class);
+			if(accessType == null || accessType.type().equals(EAccessType.GETTER)){
+				// access using a canonical getter
+				String setFieldName = name;
+				
+				if(name.startsWith("is")) // E.g. isHead --> setHead
+					setFieldName = setFieldName.replaceFirst("is", "");
+				
+				// Get-Method for the field
+				String getFuncName = setFieldName.substring(0,1).toUpperCase() + setFieldName.substring(1);
+				if(field.getType().equals(Boolean.class)){
+					getFuncName = "is"+getFuncName;
+				}
+				else getFuncName = "get"+getFuncName;
+				
+				try {
+					Method getMethod = field.getDeclaringClass().getMethod(getFuncName);
+					getterAccessor = FieldAccessor.forMethods(field.getName(), getMethod, null);
+				} catch (Exception e) {
+					logger.warn("There was an error on accessing the method " + getFuncName + " in "+ elementName +" class. Falling back to field access");
+				}
+			}
+			
+			// Directly read the value of the field
+			if(getterAccessor == null)
+				getterAccessor = FieldAccessor.forField(field);
+			this.accessor = getterAccessor;
+		}
+		
+		/**
+		 * Reads the value of this field from the given object.
+		 */
+		Object get(Object lmfObject, String elementName){
+			try {
+				return accessor.get(lmfObject); // Run the Get-Method
+			} catch (RuntimeException e) {
+				logger.warn("There was an error on accessing the field " + name + " in "+ elementName +" class. Falling back to field access");
+				return FieldAccessor.forField(field).get(lmfObject);
+			}
+		}
+		
+	}
 		
 	/**
 	 * Creates XML TransformerHandler
@@ -17,26 +17,50 @@
  ******************************************************************************/
 package de.tudarmstadt.ukp.lmf.transform;
 
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.xml.transform.OutputKeys;
+
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.hibernate.Hibernate;
 import org.hibernate.Query;
 import org.hibernate.ScrollMode;
 import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
 import org.hibernate.criterion.DetachedCriteria;
 import org.hibernate.criterion.Restrictions;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.metadata.ClassMetadata;
+import org.hibernate.type.CollectionType;
+import org.hibernate.type.Type;
 import org.xml.sax.SAXException;
 
 import de.tudarmstadt.ukp.lmf.api.CriteriaIterator;
 import de.tudarmstadt.ukp.lmf.model.core.LexicalEntry;
 import de.tudarmstadt.ukp.lmf.model.core.LexicalResource;
 import de.tudarmstadt.ukp.lmf.model.core.Lexicon;
-import de.tudarmstadt.ukp.lmf.model.interfaces.IHasID;
+import de.tudarmstadt.ukp.lmf.model.miscellaneous.EVarType;
 import de.tudarmstadt.ukp.lmf.model.multilingual.PredicateArgumentAxis;
 import de.tudarmstadt.ukp.lmf.model.multilingual.SenseAxis;
 import de.tudarmstadt.ukp.lmf.model.semantics.SemanticPredicate;
@@ -44,9 +68,16 @@ import de.tudarmstadt.ukp.lmf.model.semantics.SynSemCorrespondence;
 import de.tudarmstadt.ukp.lmf.model.semantics.Synset;
 import de.tudarmstadt.ukp.lmf.model.syntax.SubcategorizationFrame;
 import de.tudarmstadt.ukp.lmf.model.syntax.SubcategorizationFrameSet;
+import de.tudarmstadt.ukp.lmf.transform.UBYLMFClassMetadata.UBYLMFFieldMetadata;
 
 /**
  * Converts a given lexical resource from a UBY database to a UBY-XML file.
+ * Besides the sequential export, the lexicons can be exported in parallel
+ * to separate shard files (see
+ * {@link #transformParallel(LexicalResource, File, int, int, boolean)}).
+ * The elements of the lexicons are loaded in pages: for each page of
+ * top-level elements, the children are loaded level by level for all
+ * elements of the page at once (see {@link #setPageSize(int)}).
  * @author Yevgen Chebotar
  * @author Zijad Maksuti
  * @author Christian M. Meyer
@@ -56,8 +87,27 @@ public class DBToXMLTransformer extends UBYHibernateTransformer {
 
 	private static final Log logger = LogFactory.getLog(DBToXMLTransformer.class);
 
+	/** Classes of the elements of a lexicon in the order they are written. */
+	protected static final Class<?>[] LEXICON_CLASSES = {
+			LexicalEntry.class,
+			SubcategorizationFrame.class,
+			SubcategorizationFrameSet.class,
+			SemanticPredicate.class,
+			Synset.class,
+			SynSemCorrespondence.class,
+			//ConstraintSet.class
+	};
+
+	/** Default number of top-level elements loaded at once. */
+	public static final int DEFAULT_PAGE_SIZE = 500;
+
+	/** Maximum number of owners in one query initializing their children. */
+	protected static final int FETCH_CHUNK_SIZE = 500;
+
 	protected LexicalResource lexicalResource;
-	protected DBConfig dbConfig;
+	protected int pageSize = DEFAULT_PAGE_SIZE;
+	protected OutputStream outputStream;
+	protected String dtdPath;
 
 	/** Constructs a new {@link DBToXMLTransformer} instance which is used to
 	 *  convert UBY from a database to an XML file.
@@ -67,7 +117,6 @@ public class DBToXMLTransformer extends UBYHibernateTransformer {
 	public DBToXMLTransformer(final DBConfig dbConfig, final String outputPath,
 			String dtdPath) throws FileNotFoundException, SAXException {
 		this(dbConfig, new FileOutputStream(outputPath), dtdPath);
-		this.dbConfig = dbConfig;
 	}
 
 	/** Constructs a new {@link DBToXMLTransformer} instance which is used to
@@ -79,6 +128,8 @@ public class DBToXMLTransformer extends UBYHibernateTransformer {
 			final OutputStream outputStream, final String dtdPath)
 			throws SAXException {
 		super(dbConfig);
+		this.outputStream = outputStream;
+		this.dtdPath = dtdPath;
 		writeStartDocument(outputStream, dtdPath);
 	}
 
@@ -200,64 +251,9 @@ public class DBToXMLTransformer extends UBYHibernateTransformer {
 
 				// Iterate over all possible sub-elements of this Lexicon and
 				// write them to the XML
-				Class<?>[] lexiconClassesToSave = {
-						LexicalEntry.class,
-						SubcategorizationFrame.class,
-						SubcategorizationFrameSet.class,
-						SemanticPredicate.class,
-						Synset.class,
-						SynSemCorrespondence.class,
-						//ConstraintSet.class
-				};
-
-				//  "Unfortunately, MySQL does not treat large offset values efficiently by default and will still read all the rows prior to an offset value. It is common to see a query with an offset above 100,000 take over 20 times longer than an offset of zero!"
-				// http://www.numerati.com/2012/06/26/reading-large-result-sets-with-hibernate-and-mysql/
-				for(Class<?> clazz : lexiconClassesToSave) {
-					/*DetachedCriteria criteria = DetachedCriteria.forClass(clazz)
-							.add(Restrictions.sqlRestriction("lexiconId = '" + lexicon.getId() + "'"));
-					CriteriaIterator<Object> iter = new CriteriaIterator<Object>(criteria, sessionFactory, bufferSize);
-					while (iter.hasNext()) {
-						Object obj = iter.next();
-						writeElement(obj);
-						session.evict(obj);
-						commitCounter++;
-						if (commitCounter % 1000 == 0)
-							logger.info("progress: " + commitCounter  + " class instances written to file");
-					}*/
-					Session lookupSession = sessionFactory.openSession();
-					Query query = lookupSession.createQuery("FROM " + clazz.getSimpleName()
-							+ " WHERE lexiconId = '" + lexicon.getId() + "' ORDER BY id");
-					query.setReadOnly(true);
-					if (DBConfig.MYSQL.equals(dbConfig.getDBType())) {
-                        query.setFetchSize(Integer.MIN_VALUE); // MIN_VALUE gives hint to JDBC driver to stream results
-                    }
-                    else {
-                        query.setFetchSize(1000);
-                    }
-					ScrollableResults results = query.scroll(ScrollMode.FORWARD_ONLY);
-					while (results.next()) {
-						// For streamed query results, no further queries are allowed (incl. lazy proxy queries!)
-						// Detach the object from the lookup session and reload it using the "official" session.
-						Object[] rows = results.get();
-						Object row = rows[0];
-						lookupSession.evict(row);
-						lookupSession.evict(rows);
-						rows = null;
-						row = session.get(row.getClass(), ((IHasID) row).getId());
-						writeElement(row);
-						session.evict(row);
-						row = null;
-						commitCounter++;
-						if (commitCounter % 1000 == 0) {
-                            logger.info("progress: " + commitCounter  + " class instances written to file");
-                        }
-						if (commitCounter % 10000 == 0) {
-							closeSession();
-							openSession();
-						}
-				  }
-				  results.close();
-				  lookupSession.close();
+				for(Class<?> clazz : LEXICON_CLASSES) {
+					commitCounter += writeElements(this, session, clazz,
+							"lexiconId", lexicon.getId(), null, null);
 				}
 				writeEndElement(lexicon);
 			}
@@ -300,6 +296,474 @@ public class DBToXMLTransformer extends UBYHibernateTransformer {
 		writeEndDocument();
 	}
 
+	/**
+	 * Sets the number of top-level elements (e.g., lexical entries) which
+	 * are loaded at once along with all of their children. Larger pages
+	 * require fewer queries, but more memory.
+	 *
+	 * @param pageSize the number of top-level elements per page
+	 * @throws IllegalArgumentException if the page size is less than one
+	 */
+	public void setPageSize(final int pageSize) throws IllegalArgumentException {
+		if (pageSize < 1) {
+			throw new IllegalArgumentException("pageSize must be positive");
+		}
+		this.pageSize = pageSize;
+	}
+
+	/** Returns the number of top-level elements which are loaded at once. */
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	/**
+	 * Writes all elements of the given class which belong to the specified
+	 * lexicon or lexical resource, ordered by their IDs. Optionally, only the
+	 * elements within the given range of IDs are written. The IDs are
+	 * streamed in a separate session, while the elements are loaded page by
+	 * page using the given session (see
+	 * {@link #writePage(UBYXMLTransformer, Session, Class, List)}), which is
+	 * cleared after each page.
+	 *
+	 * @param writer the transformer used for writing the XML
+	 * @param readSession the session used for loading the elements
+	 * @param clazz the class of the elements
+	 * @param ownerColumn the column referring to the lexicon or lexical resource
+	 * @param ownerId the ID of the lexicon or the name of the lexical resource
+	 * @param fromId the smallest ID to be written or null
+	 * @param toId the first ID not to be written anymore or null
+	 * @return the number of written elements
+	 * @throws SAXException if writing to the XML fails
+	 */
+	protected int writeElements(final UBYXMLTransformer writer,
+			final Session readSession, final Class<?> clazz,
+			final String ownerColumn, final String ownerId,
+			final String fromId, final String toId) throws SAXException {
+		//  "Unfortunately, MySQL does not treat large offset values efficiently by default and will still read all the rows prior to an offset value. It is common to see a query with an offset above 100,000 take over 20 times longer than an offset of zero!"
+		// http://www.numerati.com/2012/06/26/reading-large-result-sets-with-hibernate-and-mysql/
+		int count = 0;
+		Session lookupSession = sessionFactory.openSession();
+		try {
+			Query query = createIdRangeQuery(lookupSession, "SELECT id FROM " + clazz.getSimpleName(),
+					ownerColumn, ownerId, fromId, toId);
+			query.setReadOnly(true);
+			if (DBConfig.MYSQL.equals(dbConfig.getDBType())) {
+				query.setFetchSize(Integer.MIN_VALUE); // MIN_VALUE gives hint to JDBC driver to stream results
+			}
+			else {
+				query.setFetchSize(1000);
+			}
+			// For streamed query results, no further queries are allowed on the
+			// lookup session, so the elements are loaded using the reading session.
+			List<String> page = new ArrayList<String>(pageSize);
+			ScrollableResults results = query.scroll(ScrollMode.FORWARD_ONLY);
+			try {
+				while (results.next()) {
+					page.add(results.getString(0));
+					if (page.size() == pageSize) {
+						count += writePage(writer, readSession, clazz, page);
+						page.clear();
+						logger.info("progress: " + count + " " + clazz.getSimpleName()
+								+ " instances of " + ownerId + " written to file");
+					}
+				}
+			}
+			finally {
+				results.close();
+			}
+			count += writePage(writer, readSession, clazz, page);
+		}
+		finally {
+			lookupSession.close();
+		}
+		return count;
+	}
+
+	/**
+	 * Loads the elements of the given class having the specified IDs along
+	 * with all of their children and writes them. The children are loaded
+	 * by {@link #fetchChildren(Session, Collection)}, so the number of
+	 * queries depends on the depth of the elements rather than on their
+	 * number. The session is cleared afterwards.
+	 *
+	 * @return the number of written elements
+	 */
+	protected int writePage(final UBYXMLTransformer writer, final Session readSession,
+			final Class<?> clazz, final List<String> ids) throws SAXException {
+		if (ids.isEmpty()) {
+			return 0;
+		}
+		List<?> rows = readSession.createQuery("FROM " + clazz.getSimpleName()
+				+ " WHERE id IN (:ids) ORDER BY id")
+				.setParameterList("ids", ids)
+				.setReadOnly(true)
+				.list();
+		fetchChildren(readSession, rows);
+		for (Object row : rows) {
+			writer.writeElement(row);
+		}
+		readSession.clear();
+		return rows.size();
+	}
+
+	/**
+	 * Initializes the children (see {@link EVarType#CHILD} and
+	 * {@link EVarType#CHILDREN}) of the given objects level by level. On
+	 * each level, the objects are grouped by their entity, and each child
+	 * property is loaded for all objects of the group using join fetch
+	 * queries of at most {@value #FETCH_CHUNK_SIZE} objects.
+	 *
+	 * @param session the session the objects belong to
+	 * @param objects the objects whose children should be loaded
+	 */
+	protected void fetchChildren(final Session session, final Collection<?> objects) {
+		SessionFactoryImplementor factory = (SessionFactoryImplementor) sessionFactory;
+		Collection<?> level = objects;
+		while (!level.isEmpty()) {
+			Map<String, List<Object>> owners = new LinkedHashMap<String, List<Object>>();
+			for (Object obj : level) {
+				String entityName = session.getEntityName(obj);
+				List<Object> group = owners.get(entityName);
+				if (group == null) {
+					group = new ArrayList<Object>();
+					owners.put(entityName, group);
+				}
+				group.add(obj);
+			}
+
+			List<Object> children = new ArrayList<Object>();
+			for (Map.Entry<String, List<Object>> entry : owners.entrySet()) {
+				String entityName = entry.getKey();
+				List<Object> group = entry.getValue();
+				ClassMetadata entityMeta = factory.getClassMetadata(entityName);
+				Class<?> clazz = Hibernate.getClass(group.get(0));
+				for (UBYLMFFieldMetadata fieldMeta : getClassMetadata(clazz).getFields()) {
+					EVarType varType = fieldMeta.getVarType();
+					if (varType != EVarType.CHILD && varType != EVarType.CHILDREN) {
+						continue;
+					}
+
+					// Only associations with other entities are loaded.
+					Type type = getPropertyType(entityMeta, fieldMeta.getName());
+					boolean isEntity = (type != null && (type.isEntityType()
+							|| (type.isCollectionType() && ((CollectionType) type)
+									.getElementType(factory).isEntityType())));
+					if (!isEntity) {
+						continue;
+					}
+
+					fetchProperty(session, entityName, fieldMeta.getName(), group);
+					for (Object owner : group) {
+						Object value = fieldMeta.getValue(owner);
+						if (value instanceof Collection) {
+							children.addAll((Collection<?>) value);
+						}
+						else
+						if (value != null) {
+							children.add(value);
+						}
+					}
+				}
+			}
+			level = children;
+		}
+	}
+
+	/** Returns the Hibernate type of the given property or null if the
+	 *  property is not mapped. */
+	protected Type getPropertyType(final ClassMetadata entityMeta, final String property) {
+		for (String name : entityMeta.getPropertyNames()) {
+			if (name.equals(property)) {
+				return entityMeta.getPropertyType(property);
+			}
+		}
+		return null;
+	}
+
+	/** Initializes the given property of all owners using join fetch
+	 *  queries. The owners need to be contained in the given session. */
+	protected void fetchProperty(final Session session, final String entityName,
+			final String property, final List<Object> owners) {
+		String hql = "SELECT DISTINCT owner FROM " + entityName + " owner"
+				+ " LEFT JOIN FETCH owner." + property
+				+ " WHERE owner IN (:owners)";
+		for (int i = 0; i < owners.size(); i += FETCH_CHUNK_SIZE) {
+			session.createQuery(hql)
+					.setParameterList("owners", owners.subList(i,
+							Math.min(i + FETCH_CHUNK_SIZE, owners.size())))
+					.list();
+		}
+	}
+
+	protected Query createIdRangeQuery(final Session session, final String hql,
+			final String ownerColumn, final String ownerId,
+			final String fromId, final String toId) {
+		Query query = session.createQuery(hql
+				+ " WHERE " + ownerColumn + " = :ownerId"
+				+ (fromId != null ? " AND id >= :fromId" : "")
+				+ (toId != null ? " AND id < :toId" : "")
+				+ " ORDER BY id");
+		query.setString("ownerId", ownerId);
+		if (fromId != null) {
+			query.setString("fromId", fromId);
+		}
+		if (toId != null) {
+			query.setString("toId", toId);
+		}
+		return query;
+	}
+
+	/**
+	 * Transforms a {@link LexicalResource} instance retrieved from a database
+	 * to XML using several worker threads. The XML is split into shard files,
+	 * each of which contains the elements of one class of one lexicon, the
+	 * sense axes, or the predicate argument axes. Classes with more than
+	 * <code>shardSize</code> elements are split into several shards by ranges
+	 * of their IDs. The shards contain XML fragments, which form the same
+	 * document as the sequential {@link #transform(LexicalResource)} when
+	 * being concatenated in the order of the returned list.<p>
+	 *
+	 * If <code>concatenate</code> is true, the shards are concatenated to the
+	 * output of this transformer and deleted afterwards. Otherwise, the
+	 * output of this transformer is left empty and the names of the shard
+	 * files are written to the file <code>manifest.txt</code> in the shard
+	 * directory, one per line and in document order.<p>
+	 *
+	 * Each worker holds two sessions (one streaming the IDs and one loading
+	 * the elements), while the main session determines the shards, so
+	 * 2 * threads + 1 connections are needed. The connection pool is
+	 * enlarged accordingly if {@link DBConfig#getConnectionPoolSize()} is
+	 * smaller.
+	 *
+	 * @param lexicalResource the lexical resource retrieved from the database
+	 * @param shardDirectory the directory of the shard files, which is created if necessary
+	 * @param threads the number of worker threads
+	 * @param shardSize the maximum number of top-level elements of a shard
+	 * @param concatenate if true, the shards are concatenated to one document
+	 * @return the shard files in document order or an empty list if the
+	 *   shards have been concatenated
+	 *
+	 * @throws SAXException if a severe error occurs when writing to a file
+	 * @throws IOException if the shard files cannot be written or concatenated
+	 * @throws IllegalArgumentException if threads or shardSize is less than one
+	 */
+	public List<File> transformParallel(final LexicalResource lexicalResource,
+			final File shardDirectory, final int threads, final int shardSize,
+			final boolean concatenate)
+			throws SAXException, IOException, IllegalArgumentException {
+		if (threads < 1) {
+			throw new IllegalArgumentException("threads must be positive");
+		}
+		if (shardSize < 1) {
+			throw new IllegalArgumentException("shardSize must be positive");
+		}
+		if (!shardDirectory.isDirectory() && !shardDirectory.mkdirs()) {
+			throw new IOException("Unable to create " + shardDirectory);
+		}
+
+		List<File> shards = new ArrayList<File>();
+		List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+		ensureConnectionPoolSize(2 * threads + 1);
+		ExecutorService workers = Executors.newFixedThreadPool(threads);
+		openSession();
+		try {
+			String lexicalResourceName = lexicalResource.getName();
+			this.lexicalResource = (LexicalResource) session.get(LexicalResource.class, lexicalResourceName);
+			logger.info("Started writing lexicalResource " +  lexicalResourceName + " using " + threads + " threads");
+
+			// Start and end tags are written right away, the elements by the workers.
+			ShardWriter header = new ShardWriter(newShard(shardDirectory, shards), dtdPath, true);
+			header.writeStartElement(this.lexicalResource);
+			header.close();
+			for (Lexicon lexicon : this.lexicalResource.getLexicons()) {
+				ShardWriter start = new ShardWriter(newShard(shardDirectory, shards), null, false);
+				start.writeStartElement(lexicon);
+				start.close();
+				for (Class<?> clazz : LEXICON_CLASSES) {
+					submitShards(workers, results, shardDirectory, shards, shardSize,
+							clazz, "lexiconId", lexicon.getId());
+				}
+				ShardWriter end = new ShardWriter(newShard(shardDirectory, shards), null, false);
+				end.writeEndElement(lexicon);
+				end.close();
+			}
+			submitShards(workers, results, shardDirectory, shards, shardSize,
+					SenseAxis.class, "lexicalResourceId", lexicalResourceName);
+			submitShards(workers, results, shardDirectory, shards, shardSize,
+					PredicateArgumentAxis.class, "lexicalResourceId", lexicalResourceName);
+			ShardWriter footer = new ShardWriter(newShard(shardDirectory, shards), null, false);
+			footer.writeEndElement(this.lexicalResource);
+			footer.close();
+
+			commitCounter = 0;
+			for (Future<Integer> result : results) {
+				commitCounter += result.get();
+			}
+			logger.info("Wrote " + commitCounter + " elements to " + shards.size() + " shards");
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SAXException(e);
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof SAXException) {
+				throw (SAXException) e.getCause();
+			}
+			throw new SAXException(e);
+		}
+		finally {
+			workers.shutdownNow();
+			closeSession();
+		}
+
+		if (concatenate) {
+			concatenateShards(shards);
+			return new ArrayList<File>();
+		}
+		writeManifest(new File(shardDirectory, "manifest.txt"), shards);
+		return shards;
+	}
+
+	/** Submits workers writing the elements of the given class, split into
+	 *  shards of at most shardSize elements. */
+	protected void submitShards(final ExecutorService workers,
+			final List<Future<Integer>> results, final File shardDirectory,
+			final List<File> shards, final int shardSize, final Class<?> clazz,
+			final String ownerColumn, final String ownerId) throws IOException {
+		// Determine the first ID of each shard.
+		List<String> firstIds = new ArrayList<String>();
+		Query query = createIdRangeQuery(session, "SELECT id FROM " + clazz.getSimpleName(),
+				ownerColumn, ownerId, null, null);
+		query.setReadOnly(true);
+		query.setFetchSize(1000);
+		ScrollableResults ids = query.scroll(ScrollMode.FORWARD_ONLY);
+		try {
+			int count = 0;
+			while (ids.next()) {
+				if (count++ % shardSize == 0) {
+					firstIds.add(ids.getString(0));
+				}
+			}
+		}
+		finally {
+			ids.close();
+		}
+
+		for (int i = 0; i < firstIds.size(); i++) {
+			final File shard = newShard(shardDirectory, shards);
+			final String fromId = (i == 0 ? null : firstIds.get(i));
+			final String toId = (i + 1 < firstIds.size() ? firstIds.get(i + 1) : null);
+			results.add(workers.submit(new Callable<Integer>() {
+				@Override
+				public Integer call() throws Exception {
+					ShardWriter writer = new ShardWriter(shard, null, false);
+					Session readSession = sessionFactory.openSession();
+					try {
+						return writeElements(writer, readSession, clazz,
+								ownerColumn, ownerId, fromId, toId);
+					}
+					finally {
+						readSession.close();
+						writer.close();
+					}
+				}
+			}));
+		}
+	}
+
+	protected File newShard(final File shardDirectory, final List<File> shards) {
+		File result = new File(shardDirectory, String.format("shard-%06d.xml", shards.size()));
+		shards.add(result);
+		return result;
+	}
+
+	protected void writeShard(final File shard, final String text) throws IOException {
+		Writer writer = new OutputStreamWriter(new FileOutputStream(shard), "UTF-8");
+		try {
+			writer.write(text);
+		}
+		finally {
+			writer.close();
+		}
+	}
+
+	protected void writeManifest(final File manifest, final List<File> shards)
+			throws IOException {
+		StringBuilder text = new StringBuilder();
+		for (File shard : shards) {
+			text.append(shard.getName()).append('\n');
+		}
+		writeShard(manifest, text.toString());
+	}
+
+	/** Appends the given shards to the output of this transformer and
+	 *  deletes them. */
+	protected void concatenateShards(final List<File> shards) throws IOException {
+		byte[] buffer = new byte[64 * 1024];
+		for (File shard : shards) {
+			InputStream in = new FileInputStream(shard);
+			try {
+				int length;
+				while ((length = in.read(buffer)) > 0) {
+					outputStream.write(buffer, 0, length);
+				}
+			}
+			finally {
+				in.close();
+			}
+			if (!shard.delete()) {
+				logger.warn("Unable to delete " + shard);
+			}
+		}
+		outputStream.flush();
+	}
+
+	/**
+	 * Writes UBY-LMF objects to a shard file. Except for the first shard,
+	 * the files contain neither an XML declaration nor a document type, and
+	 * the elements started by {@link #writeStartElement(Object)} are not
+	 * closed. Their end tags are written to later shards by
+	 * {@link #writeEndElement(Object)}.
+	 */
+	protected class ShardWriter extends UBYXMLTransformer {
+
+		protected OutputStream shardStream;
+
+		public ShardWriter(final File shard, final String dtdPath,
+				final boolean xmlDeclaration) throws IOException, SAXException {
+			metadata = DBToXMLTransformer.this.metadata;
+			shardStream = new BufferedOutputStream(new FileOutputStream(shard));
+			writeStartDocument(shardStream, dtdPath, xmlDeclaration);
+		}
+
+		/** Appends the end tag of an element started in a previous shard.
+		 *  The serializer only ends elements it started itself, so the tag
+		 *  is written to the shard file directly, using the encoding of the
+		 *  serializer, which adds the line break when the shard is closed. */
+		@Override
+		protected void writeEndElement(final Object lmfObject) throws SAXException {
+			String elementName = lmfObject.getClass().getSimpleName();
+			try {
+				shardStream.write(("</" + elementName + ">").getBytes(
+						th.getTransformer().getOutputProperty(OutputKeys.ENCODING)));
+			}
+			catch (IOException e) {
+				throw new SAXException(e);
+			}
+		}
+
+		/** Ends the document and closes the shard file. */
+		public void close() throws SAXException, IOException {
+			writeEndDocument();
+			shardStream.close();
+		}
+
+		@Override
+		protected String getResourceAlias() {
+			return DBToXMLTransformer.this.getResourceAlias();
+		}
+	}
+
 	@Override
 	protected String getResourceAlias() {
 		return lexicalResource.getName();
@@ -0,0 +1,513 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package de.tudarmstadt.ukp.lmf.transform;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hibernate.Session;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.jdbc.Work;
+import org.hibernate.mapping.Backref;
+import org.hibernate.mapping.Collection;
+import org.hibernate.mapping.Column;
+import org.hibernate.mapping.IndexBackref;
+import org.hibernate.mapping.IndexedCollection;
+import org.hibernate.mapping.ManyToOne;
+import org.hibernate.mapping.OneToMany;
+import org.hibernate.mapping.PersistentClass;
+import org.hibernate.mapping.Property;
+import org.hibernate.mapping.Selectable;
+import org.hibernate.mapping.SimpleValue;
+import org.hibernate.property.Getter;
+import org.hibernate.type.StandardBasicTypes;
+import org.hibernate.type.Type;
+
+import de.tudarmstadt.ukp.lmf.model.interfaces.IHasParentSpecificTable;
+import de.tudarmstadt.ukp.lmf.model.miscellaneous.EVarType;
+import de.tudarmstadt.ukp.lmf.transform.UBYLMFClassMetadata.UBYLMFFieldMetadata;
+
+/**
+ * Writes UBY-LMF objects and all their children to the database using
+ * multi-row JDBC <code>INSERT</code> statements instead of saving each
+ * object with Hibernate. Tables, columns, and types are derived from the
+ * Hibernate mapping, the children of an object are determined by the
+ * {@link UBYLMFClassMetadata} of its class, just like in
+ * {@link UBYHibernateTransformer#saveCascade(Object, Object)}.
+ * <p>
+ * The rows are buffered per table and written in the order the tables
+ * were first used, so that the rows of a parent are written before the rows
+ * of its children. Buffered rows are written by {@link #flush()}, which
+ * needs to be called before committing the transaction of the session.
+ * Objects written by this writer are not associated with the session.
+ * <p>
+ * Identifiers of entities using the <code>increment</code> generator are
+ * allocated by this writer. Writers used in parallel must therefore share
+ * the same map of identifier counters, and the corresponding tables must
+ * not be written by Hibernate at the same time.
+ */
+public class JdbcBulkWriter {
+
+	/** Maximum number of rows inserted by a single statement. */
+	protected static final int ROWS_PER_STATEMENT = 100;
+
+	/** Number of buffered rows which causes the buffers to be written. */
+	protected static final int FLUSH_ROWS = 10000;
+
+	protected final Configuration cfg;
+	protected final Session session;
+	protected final SessionFactoryImplementor sessionFactory;
+	protected final Dialect dialect;
+	protected final Map<String, AtomicLong> idCounters;
+
+	protected final Map<Class<?>, UBYLMFClassMetadata> metadata;
+	protected final Map<String, EntityMapping> entities;
+	protected final Map<String, RowBuffer> buffers;
+	protected final Map<Object, Object> generatedIds;
+	protected final Map<String, Integer> nextIndex;
+	protected int bufferedRows;
+
+	/**
+	 * Creates a new writer for the given session.
+	 * @param cfg configuration the session factory of the session was built from
+	 * @param session session whose connection and transaction are used
+	 * @param idCounters counters of the increment identifiers, shared by all
+	 *   writers of the same database
+	 */
+	public JdbcBulkWriter(final Configuration cfg, final Session session,
+			final Map<String, AtomicLong> idCounters) {
+		this.cfg = cfg;
+		this.session = session;
+		this.sessionFactory = (SessionFactoryImplementor) session.getSessionFactory();
+		this.dialect = sessionFactory.getDialect();
+		this.idCounters = idCounters;
+		metadata = new HashMap<Class<?>, UBYLMFClassMetadata>();
+		entities = new HashMap<String, EntityMapping>();
+		buffers = new LinkedHashMap<String, RowBuffer>();
+		generatedIds = new IdentityHashMap<Object, Object>();
+		nextIndex = new HashMap<String, Integer>();
+	}
+
+	/** Writes the given element of the given list of the parent. The list
+	 *  should be a member of the parent, and is used to find the mapped
+	 *  collection linking the element to its parent. The element is not
+	 *  added to the list. */
+	@SuppressWarnings("rawtypes")
+	public void save(final Object obj, final Object parent, final List list) {
+		String ownerEntity = parent.getClass().getName();
+		EntityMapping owner = getEntityMapping(ownerEntity);
+		if (owner != null) {
+			for (Property property : owner.collections.values()) {
+				Object value = property.getGetter(owner.mappedClass).get(parent);
+				if (value == list) {
+					save(obj, ownerEntity, getIdentifier(parent, owner),
+							property.getName());
+					return;
+				}
+			}
+		}
+		insert(obj, getEntityName(obj, parent.getClass()), null, null, -1);
+		generatedIds.clear();
+	}
+
+	/** Writes the given element of the collection with the given property
+	 *  name of the specified parent. The position of the element in indexed
+	 *  collections is counted by this writer. */
+	public void save(final Object obj, final String parentEntity,
+			final Object parentId, final String property) {
+		String role = parentEntity + "." + property;
+		String indexKey = role + "#" + parentId;
+		Integer index = nextIndex.get(indexKey);
+		if (index == null)
+			index = 0;
+		nextIndex.put(indexKey, index + 1);
+		save(obj, parentEntity, parentId, property, index);
+	}
+
+	/** Writes the given element of the collection with the given property
+	 *  name of the specified parent at the given position. */
+	public void save(final Object obj, final String parentEntity,
+			final Object parentId, final String property, final int index) {
+		String role = parentEntity + "." + property;
+		Collection collection = cfg.getCollectionMapping(role);
+		if (collection == null || collection.isInverse()
+				|| !(collection.getElement() instanceof OneToMany))
+			throw new IllegalArgumentException("No one-to-many collection " + role);
+
+		String entityName = ((OneToMany) collection.getElement()).getReferencedEntityName();
+		insert(obj, entityName, role, parentId, index);
+		generatedIds.clear();
+	}
+
+	/** Writes the given object without linking it to a parent. */
+	public void save(final Object obj) {
+		insert(obj, getEntityName(obj, obj.getClass()), null, null, -1);
+		generatedIds.clear();
+	}
+
+	/** Writes all buffered rows. The Hibernate session is flushed before, so
+	 *  that parents saved by Hibernate are written before their children. */
+	public void flush() {
+		session.flush();
+		if (bufferedRows == 0)
+			return;
+
+		session.doWork(new Work() {
+			@Override
+			public void execute(final Connection connection) throws SQLException {
+				for (RowBuffer buffer : buffers.values())
+					buffer.write(connection);
+			}
+		});
+		bufferedRows = 0;
+	}
+
+	/** Buffers the rows of the given object and its children. */
+	protected void insert(final Object obj, final String entityName,
+			final String role, final Object ownerId, final int index) {
+		EntityMapping entity = getEntityMapping(entityName);
+		if (entity == null) {
+			System.err.println("CAN'T SAVE " + obj.getClass().getSimpleName()
+					+ ": no mapping for " + entityName);
+			return;
+		}
+		Object id = getIdentifier(obj, entity);
+
+		// Children referenced by the row need to be written first, the children
+		// in collections need the identifier of the row.
+		List<Object[]> collectionChildren = new ArrayList<Object[]>();
+		UBYLMFClassMetadata classMeta = getClassMetadata(obj.getClass());
+		for (UBYLMFFieldMetadata fieldMeta : classMeta.getFields()) {
+			EVarType varType = fieldMeta.getVarType();
+			if (varType != EVarType.CHILDREN && varType != EVarType.CHILD)
+				continue;
+
+			Object retObj = null;
+			try {
+				retObj = fieldMeta.getValue(obj);
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+			if (retObj == null)
+				continue;
+
+			Property property = entity.properties.get(fieldMeta.getName());
+			if (property == null)
+				property = entity.collections.get(fieldMeta.getName());
+			if (property != null && property.getValue() instanceof ManyToOne) {
+				insert(retObj, ((ManyToOne) property.getValue()).getReferencedEntityName(),
+						null, null, -1);
+			}
+			else
+			if (varType == EVarType.CHILD)
+				collectionChildren.add(new Object[]{retObj, null});
+			else
+				collectionChildren.add(new Object[]{retObj, property});
+		}
+
+		String bufferKey = entityName + "|" + role;
+		RowBuffer buffer = buffers.get(bufferKey);
+		if (buffer == null) {
+			buffer = new RowBuffer(entity, role);
+			buffers.put(bufferKey, buffer);
+		}
+		buffer.add(obj, id, ownerId, index);
+		bufferedRows++;
+
+		for (Object[] child : collectionChildren) {
+			Property property = (Property) child[1];
+			if (property != null && property.getValue() instanceof Collection
+					&& !((Collection) property.getValue()).isInverse()
+					&& ((Collection) property.getValue()).getElement() instanceof OneToMany) {
+				Collection collection = (Collection) property.getValue();
+				String childEntity = ((OneToMany) collection.getElement()).getReferencedEntityName();
+				int childIndex = 0;
+				for (Object el : (Iterable<?>) child[0])
+					insert(el, childEntity, collection.getRole(), id, childIndex++);
+			}
+			else
+			if (child[0] instanceof Iterable) {
+				for (Object el : (Iterable<?>) child[0])
+					insert(el, getEntityName(el, obj.getClass()), null, null, -1);
+			}
+			else
+				insert(child[0], getEntityName(child[0], obj.getClass()), null, null, -1);
+		}
+
+		if (bufferedRows >= FLUSH_ROWS)
+			flush();
+	}
+
+	/** Returns the entity name of the given object, derived in the same way
+	 *  as in {@link UBYHibernateTransformer#saveCascade(Object, Object)}. */
+	protected String getEntityName(final Object obj, final Class<?> parentClass) {
+		if (obj instanceof IHasParentSpecificTable)
+			return obj.getClass().getSimpleName() + "_" + parentClass.getSimpleName();
+		else
+			return obj.getClass().getName();
+	}
+
+	/** Returns the identifier of the given object. Identifiers of the
+	 *  increment generator are allocated on the first call. */
+	protected Object getIdentifier(final Object obj, final EntityMapping entity) {
+		Object result = generatedIds.get(obj);
+		if (result != null)
+			return result;
+
+		if (!entity.increment)
+			return (entity.idGetter == null ? null : entity.idGetter.get(obj));
+
+		long next = getIdCounter(entity).incrementAndGet();
+		if (Integer.class.equals(entity.idType.getReturnedClass()))
+			result = Integer.valueOf((int) next);
+		else
+			result = Long.valueOf(next);
+		generatedIds.put(obj, result);
+		return result;
+	}
+
+	protected AtomicLong getIdCounter(final EntityMapping entity) {
+		synchronized (idCounters) {
+			AtomicLong result = idCounters.get(entity.table);
+			if (result != null)
+				return result;
+
+			final long[] max = new long[1];
+			session.doWork(new Work() {
+				@Override
+				public void execute(final Connection connection) throws SQLException {
+					PreparedStatement statement = connection.prepareStatement(
+							"SELECT MAX(" + entity.idColumn + ") FROM " + entity.table);
+					try {
+						ResultSet resultSet = statement.executeQuery();
+						if (resultSet.next())
+							max[0] = resultSet.getLong(1);
+						resultSet.close();
+					} finally {
+						statement.close();
+					}
+				}
+			});
+			result = new AtomicLong(max[0]);
+			idCounters.put(entity.table, result);
+			return result;
+		}
+	}
+
+	protected UBYLMFClassMetadata getClassMetadata(final Class<?> clazz) {
+		UBYLMFClassMetadata result = metadata.get(clazz);
+		if (result == null) {
+			result = new UBYLMFClassMetadata(clazz);
+			metadata.put(clazz, result);
+		}
+		return result;
+	}
+
+	protected EntityMapping getEntityMapping(final String entityName) {
+		EntityMapping result = entities.get(entityName);
+		if (result == null && !entities.containsKey(entityName)) {
+			PersistentClass persistentClass = cfg.getClassMapping(entityName);
+			if (persistentClass != null)
+				result = new EntityMapping(persistentClass);
+			entities.put(entityName, result);
+		}
+		return result;
+	}
+
+	protected String getColumnName(final Selectable selectable) {
+		return ((Column) selectable).getQuotedName(dialect);
+	}
+
+
+	/** Table, columns, and properties of a mapped entity. */
+	protected class EntityMapping {
+
+		protected final Class<?> mappedClass;
+		protected final String table;
+		protected final String idColumn;
+		protected final Type idType;
+		protected final Getter idGetter;
+		protected final boolean increment;
+		protected final Map<String, Property> properties;
+		protected final Map<String, Property> collections;
+
+		public EntityMapping(final PersistentClass persistentClass) {
+			mappedClass = persistentClass.getMappedClass();
+			table = persistentClass.getTable().getQuotedName(dialect);
+			SimpleValue identifier = (SimpleValue) persistentClass.getIdentifier();
+			idColumn = getColumnName((Selectable) identifier.getColumnIterator().next());
+			idType = identifier.getType();
+			idGetter = (persistentClass.getIdentifierProperty() == null ? null
+					: persistentClass.getIdentifierProperty().getGetter(mappedClass));
+			increment = "increment".equals(identifier.getIdentifierGeneratorStrategy());
+
+			properties = new LinkedHashMap<String, Property>();
+			collections = new LinkedHashMap<String, Property>();
+			Iterator<?> iter = persistentClass.getPropertyIterator();
+			while (iter.hasNext()) {
+				Property property = (Property) iter.next();
+				if (property instanceof Backref || property instanceof IndexBackref)
+					continue;
+				if (property.getValue() instanceof Collection)
+					collections.put(property.getName(), property);
+				else
+					properties.put(property.getName(), property);
+			}
+		}
+	}
+
+
+	/** Buffered rows of an entity (and the collection role linking them to
+	 *  their parent, if any). */
+	protected class RowBuffer {
+
+		protected final EntityMapping entity;
+		protected final List<String> columns;
+		protected final List<Property> rowProperties;
+		protected final List<Getter> getters;
+		protected final List<Type> types;
+		protected final boolean hasOwner;
+		protected final boolean hasIndex;
+		protected final List<Object[]> rows;
+		protected int columnCount;
+
+		public RowBuffer(final EntityMapping entity, final String role) {
+			this.entity = entity;
+			columns = new ArrayList<String>();
+			rowProperties = new ArrayList<Property>();
+			getters = new ArrayList<Getter>();
+			types = new ArrayList<Type>();
+			rows = new ArrayList<Object[]>();
+
+			columns.add(entity.idColumn);
+			types.add(entity.idType);
+
+			Collection collection = (role == null ? null : cfg.getCollectionMapping(role));
+			hasOwner = (collection != null);
+			hasIndex = (collection instanceof IndexedCollection);
+			if (hasOwner) {
+				Iterator<?> keyIter = collection.getKey().getColumnIterator();
+				columns.add(getColumnName((Selectable) keyIter.next()));
+				types.add(collection.getKey().getType());
+			}
+			if (hasIndex) {
+				Iterator<?> indexIter = ((IndexedCollection) collection).getIndex().getColumnIterator();
+				columns.add(getColumnName((Selectable) indexIter.next()));
+				types.add(StandardBasicTypes.INTEGER);
+			}
+
+			for (Property property : entity.properties.values()) {
+				if (!property.isInsertable() || property.getColumnSpan() != 1)
+					continue;
+				Selectable selectable = (Selectable) property.getColumnIterator().next();
+				if (selectable.isFormula())
+					continue;
+				String column = getColumnName(selectable);
+				if (columns.contains(column))
+					continue;
+
+				columns.add(column);
+				rowProperties.add(property);
+				getters.add(property.getGetter(entity.mappedClass));
+				if (property.getValue() instanceof ManyToOne) {
+					String referenced = ((ManyToOne) property.getValue()).getReferencedEntityName();
+					types.add(cfg.getClassMapping(referenced).getIdentifier().getType());
+				}
+				else
+					types.add(property.getType());
+			}
+			columnCount = columns.size();
+		}
+
+		public void add(final Object obj, final Object id, final Object ownerId,
+				final int index) {
+			Object[] row = new Object[columnCount];
+			int i = 0;
+			row[i++] = id;
+			if (hasOwner)
+				row[i++] = ownerId;
+			if (hasIndex)
+				row[i++] = Integer.valueOf(index);
+			for (int p = 0; p < rowProperties.size(); p++) {
+				Property property = rowProperties.get(p);
+				Object value = getters.get(p).get(obj);
+				if (value != null && property.getValue() instanceof ManyToOne) {
+					String referenced = ((ManyToOne) property.getValue()).getReferencedEntityName();
+					value = getIdentifier(value, getEntityMapping(referenced));
+				}
+				row[i++] = value;
+			}
+			rows.add(row);
+		}
+
+		public void write(final Connection connection) throws SQLException {
+			int offset = 0;
+			while (offset < rows.size()) {
+				int count = Math.min(ROWS_PER_STATEMENT, rows.size() - offset);
+				PreparedStatement statement = connection.prepareStatement(getInsertSQL(count));
+				try {
+					int param = 1;
+					for (int r = offset; r < offset + count; r++) {
+						Object[] row = rows.get(r);
+						for (int c = 0; c < columnCount; c++)
+							types.get(c).nullSafeSet(statement, row[c], param++,
+									(SessionImplementor) session);
+					}
+					statement.executeUpdate();
+				} finally {
+					statement.close();
+				}
+				offset += count;
+			}
+			rows.clear();
+		}
+
+		protected String getInsertSQL(final int rowCount) {
+			StringBuilder result = new StringBuilder();
+			result.append("INSERT INTO ").append(entity.table).append(" (");
+			for (int c = 0; c < columnCount; c++) {
+				if (c > 0)
+					result.append(", ");
+				result.append(columns.get(c));
+			}
+			result.append(") VALUES ");
+			for (int r = 0; r < rowCount; r++) {
+				result.append(r > 0 ? ", (" : "(");
+				for (int c = 0; c < columnCount; c++)
+					result.append(c > 0 ? ", ?" : "?");
+				result.append(")");
+			}
+			return result.toString();
+		}
+	}
+
+}
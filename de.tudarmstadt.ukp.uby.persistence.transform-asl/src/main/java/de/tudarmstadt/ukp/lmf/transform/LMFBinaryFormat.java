@@ -0,0 +1,361 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.lmf.transform;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Constants and low-level encoding of the binary UBY dump format written by
+ * {@link LMFBinaryWriter} and read by {@link LMFBinaryReader}. A dump
+ * consists of
+ * <ul>
+ *   <li>a header (magic number and format version),</li>
+ *   <li>data blocks holding the top-level elements of the lexical
+ *     resource (e.g., lexical entries, synsets, or sense axes) as
+ *     length-prefixed records along with a dictionary of the strings
+ *     used by these records,</li>
+ *   <li>a footer with the lexical resource and its lexicons (without
+ *     children), a table of the data blocks, and sorted indexes of the
+ *     element IDs, the lemmas, and the senses and synsets referred to by
+ *     sense axes,</li>
+ *   <li>a trailer of fixed length pointing to the footer sections.</li>
+ * </ul>
+ * Each block is stored as a frame of its compressed length, its raw length,
+ * and the deflated bytes. Frames of uncompressed dumps have a compressed
+ * length of {@value #STORED} followed by the raw bytes, such that they can
+ * be decoded directly from a memory-mapped file. Integers within a block are encoded as variable
+ * length quantities of seven bits per byte. An index is stored as
+ * frames of {@value #INDEX_INTERVAL} sorted entries and a summary frame
+ * containing the first key of each of them, such that a lookup needs to
+ * read a single index frame.
+ */
+public final class LMFBinaryFormat {
+
+	/** Marks the beginning and the end of a binary UBY dump. */
+	public static final int MAGIC = 0x55425944; // "UBYD"
+	public static final int VERSION = 2;
+
+	/** Size of the header: magic number and version. */
+	public static final int HEADER_SIZE = 8;
+
+	/** Size of the trailer: offsets of the footer sections, version,
+	 *  and magic number. */
+	public static final int TRAILER_SIZE = 5 * 8 + 4 + 4;
+
+	/** Compressed length of frames which are stored uncompressed. */
+	public static final int STORED = -1;
+
+	/** Number of entries per index frame. */
+	public static final int INDEX_INTERVAL = 128;
+
+	public static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/** Inflater of each thread, which is created when the thread reads its
+	 *  first compressed frame and reused afterwards. */
+	private static final ThreadLocal<Inflater> INFLATER = new ThreadLocal<Inflater>();
+
+	private LMFBinaryFormat() {
+	}
+
+	/** Writes the given raw bytes as a compressed frame, or as a stored
+	 *  frame if the deflater is null, and returns the number of bytes
+	 *  written. */
+	public static int writeFrame(final OutputStream output, final Output raw,
+			final Deflater deflater) throws IOException {
+		if (deflater == null) {
+			Output frame = new Output(8);
+			frame.writeInt(STORED);
+			frame.writeInt(raw.size());
+			frame.writeTo(output);
+			raw.writeTo(output);
+			return 8 + raw.size();
+		}
+
+		deflater.reset();
+		deflater.setInput(raw.getBuffer(), 0, raw.size());
+		deflater.finish();
+		Output compressed = new Output(Math.max(64, raw.size() / 2));
+		byte[] chunk = new byte[8192];
+		while (!deflater.finished()) {
+			int length = deflater.deflate(chunk);
+			compressed.write(chunk, 0, length);
+		}
+
+		Output frame = new Output(8);
+		frame.writeInt(compressed.size());
+		frame.writeInt(raw.size());
+		frame.writeTo(output);
+		compressed.writeTo(output);
+		return 8 + compressed.size();
+	}
+
+	/** Reads the frame at the given offset of the file and decompresses
+	 *  it if necessary. */
+	public static Input readFrame(final RandomAccessFile file, final long offset)
+			throws IOException {
+		byte[] data;
+		int compressedLength;
+		int rawLength;
+		synchronized (file) {
+			file.seek(offset);
+			compressedLength = file.readInt();
+			rawLength = file.readInt();
+			data = new byte[compressedLength == STORED ? rawLength : compressedLength];
+			file.readFully(data);
+		}
+		if (compressedLength == STORED) {
+			return new Input(ByteBuffer.wrap(data));
+		}
+		return new Input(ByteBuffer.wrap(inflate(data, rawLength, offset)));
+	}
+
+	/** Reads the frame at the given offset of a memory-mapped file, which
+	 *  is split into segments of the given size. Stored frames within a
+	 *  single segment are decoded without copying them. */
+	public static Input readFrame(final ByteBuffer[] segments, final int segmentSize,
+			final long offset) throws IOException {
+		byte[] header = new byte[8];
+		copy(segments, segmentSize, offset, header);
+		Input frameHeader = new Input(ByteBuffer.wrap(header));
+		int compressedLength = frameHeader.readInt();
+		int rawLength = frameHeader.readInt();
+
+		long start = offset + 8;
+		int length = (compressedLength == STORED ? rawLength : compressedLength);
+		int segment = (int) (start / segmentSize);
+		int position = (int) (start % segmentSize);
+		if (compressedLength == STORED && segment < segments.length
+				&& position + length <= segments[segment].limit()) {
+			ByteBuffer slice = segments[segment].duplicate();
+			slice.position(position);
+			slice.limit(position + length);
+			return new Input(slice.slice());
+		}
+
+		byte[] data = new byte[length];
+		copy(segments, segmentSize, start, data);
+		if (compressedLength == STORED) {
+			return new Input(ByteBuffer.wrap(data));
+		}
+		return new Input(ByteBuffer.wrap(inflate(data, rawLength, offset)));
+	}
+
+	/** Copies bytes starting at the given offset of a memory-mapped file
+	 *  into the given array. */
+	protected static void copy(final ByteBuffer[] segments, final int segmentSize,
+			long offset, final byte[] target) throws IOException {
+		int copied = 0;
+		while (copied < target.length) {
+			int segment = (int) (offset / segmentSize);
+			if (segment >= segments.length) {
+				throw new IOException("Truncated frame at offset " + offset);
+			}
+			ByteBuffer buffer = segments[segment].duplicate();
+			buffer.position((int) (offset % segmentSize));
+			int length = Math.min(buffer.remaining(), target.length - copied);
+			if (length == 0) {
+				throw new IOException("Truncated frame at offset " + offset);
+			}
+			buffer.get(target, copied, length);
+			copied += length;
+			offset += length;
+		}
+	}
+
+	protected static byte[] inflate(final byte[] compressed, final int rawLength,
+			final long offset) throws IOException {
+		Inflater inflater = INFLATER.get();
+		if (inflater == null) {
+			inflater = new Inflater();
+			INFLATER.set(inflater);
+		}
+		byte[] raw = new byte[rawLength];
+		inflater.reset();
+		inflater.setInput(compressed);
+		try {
+			int length = 0;
+			while (length < rawLength) {
+				int inflated = inflater.inflate(raw, length, rawLength - length);
+				if (inflated == 0 && (inflater.finished() || inflater.needsInput())) {
+					break;
+				}
+				length += inflated;
+			}
+			if (length < rawLength) {
+				throw new IOException("Truncated frame at offset " + offset);
+			}
+		}
+		catch (DataFormatException e) {
+			throw new IOException("Corrupt frame at offset " + offset, e);
+		}
+		return raw;
+	}
+
+	/**
+	 * Growable byte buffer with methods for writing the encoded values.
+	 */
+	public static class Output extends ByteArrayOutputStream {
+
+		public Output(final int size) {
+			super(size);
+		}
+
+		/** Returns the internal buffer, which is valid up to
+		 *  {@link #size()}. */
+		public byte[] getBuffer() {
+			return buf;
+		}
+
+		public void writeInt(final int value) {
+			write(value >>> 24);
+			write(value >>> 16);
+			write(value >>> 8);
+			write(value);
+		}
+
+		public void writeLong(final long value) {
+			writeInt((int) (value >>> 32));
+			writeInt((int) value);
+		}
+
+		/** Writes a non-negative integer using one to five bytes. */
+		public void writeVarInt(final int value) {
+			writeVarLong(value & 0xFFFFFFFFL);
+		}
+
+		/** Writes a non-negative long using one to ten bytes. */
+		public void writeVarLong(long value) {
+			while ((value & ~0x7FL) != 0) {
+				write((int) ((value & 0x7F) | 0x80));
+				value >>>= 7;
+			}
+			write((int) value);
+		}
+
+		/** Writes a signed integer, such that small negative values
+		 *  take few bytes as well. */
+		public void writeSignedVarInt(final int value) {
+			writeVarInt((value << 1) ^ (value >> 31));
+		}
+
+		public void writeString(final String value) {
+			byte[] bytes = value.getBytes(UTF8);
+			writeVarInt(bytes.length);
+			write(bytes, 0, bytes.length);
+		}
+
+		public void writeBytes(final Output other) {
+			write(other.buf, 0, other.count);
+		}
+
+	}
+
+	/**
+	 * Byte buffer with a read position and methods for reading the encoded
+	 * values. The buffer is read using absolute positions, so several
+	 * inputs may share it.
+	 */
+	public static class Input {
+
+		protected ByteBuffer data;
+		protected int position;
+
+		public Input(final ByteBuffer data) {
+			this.data = data;
+		}
+
+		/** Returns a new input of the same data starting at the given
+		 *  position. */
+		public Input duplicate(final int position) {
+			Input result = new Input(data);
+			result.position = position;
+			return result;
+		}
+
+		public int getPosition() {
+			return position;
+		}
+
+		public void setPosition(final int position) {
+			this.position = position;
+		}
+
+		public boolean hasRemaining() {
+			return position < data.limit();
+		}
+
+		public int readByte() {
+			return data.get(position++) & 0xFF;
+		}
+
+		public int readInt() {
+			return (readByte() << 24) | (readByte() << 16)
+					| (readByte() << 8) | readByte();
+		}
+
+		public long readLong() {
+			return ((long) readInt() << 32) | (readInt() & 0xFFFFFFFFL);
+		}
+
+		public int readVarInt() {
+			return (int) readVarLong();
+		}
+
+		public long readVarLong() {
+			long result = 0;
+			int shift = 0;
+			while (true) {
+				int b = readByte();
+				result |= (long) (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					return result;
+				}
+				shift += 7;
+			}
+		}
+
+		public int readSignedVarInt() {
+			int value = readVarInt();
+			return (value >>> 1) ^ -(value & 1);
+		}
+
+		public String readString() {
+			int length = readVarInt();
+			byte[] bytes = new byte[length];
+			ByteBuffer buffer = data.duplicate();
+			buffer.position(position);
+			buffer.get(bytes);
+			position += length;
+			return new String(bytes, UTF8);
+		}
+
+		public void skip(final int length) {
+			position += length;
+		}
+
+	}
+
+}
@@ -0,0 +1,821 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.lmf.transform;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import de.tudarmstadt.ukp.lmf.model.core.LexicalEntry;
+import de.tudarmstadt.ukp.lmf.model.core.LexicalResource;
+import de.tudarmstadt.ukp.lmf.model.core.Lexicon;
+import de.tudarmstadt.ukp.lmf.model.core.Sense;
+import de.tudarmstadt.ukp.lmf.model.enums.EPartOfSpeech;
+import de.tudarmstadt.ukp.lmf.model.interfaces.IHasID;
+import de.tudarmstadt.ukp.lmf.model.miscellaneous.EVarType;
+import de.tudarmstadt.ukp.lmf.model.multilingual.PredicateArgumentAxis;
+import de.tudarmstadt.ukp.lmf.model.multilingual.SenseAxis;
+import de.tudarmstadt.ukp.lmf.model.semantics.SemanticArgument;
+import de.tudarmstadt.ukp.lmf.model.semantics.SemanticPredicate;
+import de.tudarmstadt.ukp.lmf.model.semantics.Synset;
+import de.tudarmstadt.ukp.lmf.transform.LMFBinaryFormat.Input;
+import de.tudarmstadt.ukp.lmf.transform.UBYLMFClassMetadata.UBYLMFFieldMetadata;
+
+/**
+ * Provides random access to a binary UBY dump written by
+ * {@link LMFBinaryWriter}. Opening a dump only reads its footer, i.e., the
+ * lexical resource, the lexicons, and the summaries of the indexes. Each
+ * lookup reads one index frame and decompresses the blocks of the matching
+ * records; the most recently used frames and blocks are cached.<p>
+ *
+ * Alternatively, a dump can be opened memory-mapped, which serves as a
+ * read-only lexicon store without a database: uncompressed frames are
+ * decoded directly from the mapped file, so the heap only holds the
+ * footer, the record offsets of the cached blocks, and the returned
+ * objects, while the file is shared with other processes through the
+ * page cache. This works best
+ * for uncompressed dumps with small blocks (see
+ * {@link LMFBinaryWriter#setCompressed(boolean)}).<p>
+ *
+ * The lookup methods correspond to those of the <code>Uby</code> API.
+ * Each call returns newly created objects including all of their children
+ * (e.g., the senses of a lexical entry). Like in {@link LMFXMLReader},
+ * references to other elements (e.g., the synset of a sense) are
+ * represented by objects having only their ID set, which can be
+ * resolved using the corresponding lookup method. The reader may be
+ * used by several threads.
+ */
+public class LMFBinaryReader implements Closeable {
+
+	/** Number of decompressed blocks and index frames kept in memory. */
+	protected static final int CACHE_SIZE = 64;
+
+	/** Maximum number of bytes mapped by a single buffer. */
+	protected static final int SEGMENT_SIZE = 1 << 30;
+
+	protected RandomAccessFile file;
+	protected ByteBuffer[] segments; // Only for memory-mapped dumps
+	protected LexicalResource lexicalResource;
+	protected List<Lexicon> lexicons;
+	protected long[] blockOffsets;
+	protected IndexSummary idIndex;
+	protected IndexSummary lemmaIndex;
+	protected IndexSummary axisIndex;
+	protected Map<Long, Object> cache;
+	protected Map<String, Class<?>> elementClasses;
+	protected Map<Class<?>, Map<String, UBYLMFFieldMetadata>> metadata;
+
+	/** Opens the given binary UBY dump. */
+	public LMFBinaryReader(final File file) throws IOException {
+		this(file, false);
+	}
+
+	/** Opens the given binary UBY dump, optionally memory-mapped. */
+	public LMFBinaryReader(final File file, final boolean memoryMapped)
+			throws IOException {
+		this.file = new RandomAccessFile(file, "r");
+		try {
+			if (memoryMapped) {
+				FileChannel channel = this.file.getChannel();
+				long length = channel.size();
+				segments = new ByteBuffer[(int) ((length + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+				for (int i = 0; i < segments.length; i++) {
+					long start = (long) i * SEGMENT_SIZE;
+					segments[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+							start, Math.min(SEGMENT_SIZE, length - start));
+				}
+			}
+
+			cache = Collections.synchronizedMap(new LinkedHashMap<Long, Object>(16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(final Map.Entry<Long, Object> eldest) {
+					return size() > CACHE_SIZE;
+				}
+			});
+			metadata = new ConcurrentHashMap<Class<?>, Map<String, UBYLMFFieldMetadata>>();
+			elementClasses = new HashMap<String, Class<?>>();
+			elementClasses.put("LexicalResource", LexicalResource.class);
+			elementClasses.put("Lexicon", Lexicon.class);
+			for (Class<?> container : new Class<?>[] {LexicalResource.class, Lexicon.class}) {
+				for (UBYLMFFieldMetadata fieldMeta : getFieldMetadata(container).values()) {
+					if (fieldMeta.getVarType() == EVarType.CHILD
+							|| fieldMeta.getVarType() == EVarType.CHILDREN) {
+						Class<?> clazz = LMFXMLReader.getElementClass(fieldMeta);
+						elementClasses.put(clazz.getSimpleName(), clazz);
+					}
+				}
+			}
+
+			readFooter();
+		}
+		catch (IOException e) {
+			this.file.close();
+			throw e;
+		}
+		catch (RuntimeException e) {
+			this.file.close();
+			throw e;
+		}
+	}
+
+	/** Reads the trailer and the sections of the footer it refers to. */
+	protected void readFooter() throws IOException {
+		long length = file.length();
+		if (length < LMFBinaryFormat.HEADER_SIZE + LMFBinaryFormat.TRAILER_SIZE) {
+			throw new IOException("Not a binary UBY dump");
+		}
+		file.seek(0);
+		if (file.readInt() != LMFBinaryFormat.MAGIC) {
+			throw new IOException("Not a binary UBY dump");
+		}
+		int version = file.readInt();
+		if (version != LMFBinaryFormat.VERSION) {
+			throw new IOException("Unsupported version " + version);
+		}
+
+		file.seek(length - LMFBinaryFormat.TRAILER_SIZE);
+		long headerOffset = file.readLong();
+		long blockTableOffset = file.readLong();
+		long idIndexOffset = file.readLong();
+		long lemmaIndexOffset = file.readLong();
+		long axisIndexOffset = file.readLong();
+		file.readInt();
+		if (file.readInt() != LMFBinaryFormat.MAGIC) {
+			throw new IOException("Incomplete binary UBY dump");
+		}
+
+		lexicons = new ArrayList<Lexicon>();
+		Block header = new Block(readFrame(headerOffset));
+		for (int i = 0; i < header.size(); i++) {
+			Object lmfObject = header.read(i);
+			if (lmfObject instanceof LexicalResource) {
+				lexicalResource = (LexicalResource) lmfObject;
+			}
+			else {
+				lexicons.add((Lexicon) lmfObject);
+			}
+		}
+
+		Input blockTable = readFrame(blockTableOffset);
+		blockOffsets = new long[blockTable.readVarInt()];
+		long offset = 0;
+		for (int i = 0; i < blockOffsets.length; i++) {
+			offset += blockTable.readVarLong();
+			blockOffsets[i] = offset;
+		}
+
+		idIndex = new IndexSummary(readFrame(idIndexOffset));
+		lemmaIndex = new IndexSummary(readFrame(lemmaIndexOffset));
+		axisIndex = new IndexSummary(readFrame(axisIndexOffset));
+	}
+
+	/** Returns the lexical resource of the dump without its children or
+	 *  null if none has been written. */
+	public LexicalResource getLexicalResource() {
+		return lexicalResource;
+	}
+
+	/** Returns all lexicons of the dump without their children. */
+	public List<Lexicon> getLexicons() {
+		return new ArrayList<Lexicon>(lexicons);
+	}
+
+	/** Returns the names of all lexicons of the dump. */
+	public List<String> getLexiconNames() {
+		List<String> result = new ArrayList<String>();
+		for (Lexicon lexicon : lexicons) {
+			result.add(lexicon.getName());
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the lexicon with the given name.
+	 *
+	 * @throws IllegalArgumentException if no lexicon with the given name is found
+	 */
+	public Lexicon getLexiconByName(final String lexiconName) throws IllegalArgumentException {
+		for (Lexicon lexicon : lexicons) {
+			if (lexiconName.equals(lexicon.getName())) {
+				return lexicon;
+			}
+		}
+		throw new IllegalArgumentException("Dump does not contain a lexicon called " + lexiconName);
+	}
+
+	/**
+	 * Returns the lexicon with the given ID.
+	 *
+	 * @throws IllegalArgumentException if no lexicon with the given ID is found
+	 */
+	public Lexicon getLexiconById(final String lexiconId) throws IllegalArgumentException {
+		for (Lexicon lexicon : lexicons) {
+			if (lexiconId.equals(lexicon.getId())) {
+				return lexicon;
+			}
+		}
+		throw new IllegalArgumentException("Dump does not contain a lexicon with id " + lexiconId);
+	}
+
+	/** Returns the lexical entries whose lemma has the given written
+	 *  form, optionally filtered by the given lexicon. */
+	public List<LexicalEntry> getLexicalEntries(final String word,
+			final Lexicon lexicon) throws IOException {
+		return getLexicalEntries(word, null, lexicon);
+	}
+
+	/** Returns the lexical entries whose lemma has the given written
+	 *  form, optionally filtered by part of speech and lexicon. */
+	public List<LexicalEntry> getLexicalEntries(final String word,
+			final EPartOfSpeech pos, final Lexicon lexicon) throws IOException {
+		List<LexicalEntry> result = new ArrayList<LexicalEntry>();
+		for (RecordPointer pointer : lookup(lemmaIndex, word)) {
+			Block block = getBlock(pointer.blockOffset);
+			if (!isInLexicon(block, pointer.record, lexicon)) {
+				continue;
+			}
+			LexicalEntry lexicalEntry = (LexicalEntry) block.read(pointer.record);
+			if (pos == null || pos == lexicalEntry.getPartOfSpeech()) {
+				result.add(lexicalEntry);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the lexical entry with the given ID.
+	 *
+	 * @throws IllegalArgumentException if no lexical entry with the given ID exists
+	 */
+	public LexicalEntry getLexicalEntryById(final String lexicalEntryId)
+			throws IllegalArgumentException, IOException {
+		return getById(LexicalEntry.class, lexicalEntryId);
+	}
+
+	/**
+	 * Returns the sense with the given ID.
+	 *
+	 * @throws IllegalArgumentException if no sense with the given ID exists
+	 */
+	public Sense getSenseById(final String senseId)
+			throws IllegalArgumentException, IOException {
+		return getById(Sense.class, senseId);
+	}
+
+	/**
+	 * Returns the synset with the given ID.
+	 *
+	 * @throws IllegalArgumentException if no synset with the given ID exists
+	 */
+	public Synset getSynsetById(final String synsetId)
+			throws IllegalArgumentException, IOException {
+		return getById(Synset.class, synsetId);
+	}
+
+	/**
+	 * Returns the semantic predicate with the given ID.
+	 *
+	 * @throws IllegalArgumentException if no semantic predicate with the given ID exists
+	 */
+	public SemanticPredicate getSemanticPredicateById(final String predicateId)
+			throws IllegalArgumentException, IOException {
+		return getById(SemanticPredicate.class, predicateId);
+	}
+
+	/**
+	 * Returns the semantic argument with the given ID.
+	 *
+	 * @throws IllegalArgumentException if no semantic argument with the given ID exists
+	 */
+	public SemanticArgument getSemanticArgumentById(final String argumentId)
+			throws IllegalArgumentException, IOException {
+		return getById(SemanticArgument.class, argumentId);
+	}
+
+	/**
+	 * Returns the element of the given class having the given ID. The
+	 * element may be a top-level element or a child of one.
+	 *
+	 * @throws IllegalArgumentException if no such element exists
+	 */
+	public <T> T getById(final Class<T> clazz, final String id)
+			throws IllegalArgumentException, IOException {
+		for (RecordPointer pointer : lookup(idIndex, id)) {
+			Object result = findElement(getBlock(pointer.blockOffset).read(pointer.record),
+					clazz, id);
+			if (result != null) {
+				return clazz.cast(result);
+			}
+		}
+		throw new IllegalArgumentException(clazz.getSimpleName()
+				+ " with the ID " + id + " does not exist");
+	}
+
+	/** Returns all sense axes of the dump. */
+	public List<SenseAxis> getSenseAxes() {
+		return toList(iterator(SenseAxis.class, null));
+	}
+
+	/** Returns the sense axes aligning the given sense with another
+	 *  sense. */
+	public List<SenseAxis> getSenseAxesBySense(final Sense sense) throws IOException {
+		List<SenseAxis> result = new ArrayList<SenseAxis>();
+		for (RecordPointer pointer : lookup(axisIndex, sense.getId())) {
+			SenseAxis senseAxis = (SenseAxis) getBlock(pointer.blockOffset).read(pointer.record);
+			if (isSense(senseAxis.getSenseOne(), sense) || isSense(senseAxis.getSenseTwo(), sense)) {
+				result.add(senseAxis);
+			}
+		}
+		return result;
+	}
+
+	/** Returns the sense axes aligning the given synset with another
+	 *  synset. */
+	public List<SenseAxis> getSenseAxesBySynset(final Synset synset) throws IOException {
+		List<SenseAxis> result = new ArrayList<SenseAxis>();
+		for (RecordPointer pointer : lookup(axisIndex, synset.getId())) {
+			SenseAxis senseAxis = (SenseAxis) getBlock(pointer.blockOffset).read(pointer.record);
+			if ((senseAxis.getSynsetOne() != null && synset.getId().equals(senseAxis.getSynsetOne().getId()))
+					|| (senseAxis.getSynsetTwo() != null && synset.getId().equals(senseAxis.getSynsetTwo().getId()))) {
+				result.add(senseAxis);
+			}
+		}
+		return result;
+	}
+
+	/** Returns true if there is a sense axis between the given senses. */
+	public boolean hasSensesAxis(final Sense sense1, final Sense sense2) throws IOException {
+		for (SenseAxis senseAxis : getSenseAxesBySense(sense1)) {
+			if (isSense(senseAxis.getSenseOne(), sense2) || isSense(senseAxis.getSenseTwo(), sense2)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/** Returns all predicate argument axes of the dump. */
+	public List<PredicateArgumentAxis> getPredicateArgumentAxes() {
+		return toList(iterator(PredicateArgumentAxis.class, null));
+	}
+
+	/** Returns an iterator over the lexical entries of the given lexicon
+	 *  or of all lexicons if the lexicon is null. */
+	public Iterator<LexicalEntry> getLexicalEntryIterator(final Lexicon lexicon) {
+		return iterator(LexicalEntry.class, lexicon);
+	}
+
+	/** Returns an iterator over the synsets of the given lexicon or of all
+	 *  lexicons if the lexicon is null. */
+	public Iterator<Synset> getSynsetIterator(final Lexicon lexicon) {
+		return iterator(Synset.class, lexicon);
+	}
+
+	/** Returns an iterator over the sense axes of the dump. */
+	public Iterator<SenseAxis> getSenseAxisIterator() {
+		return iterator(SenseAxis.class, null);
+	}
+
+	/**
+	 * Returns an iterator over the top-level elements of the given class
+	 * (e.g., <code>SemanticPredicate.class</code>), which reads the blocks
+	 * of the dump sequentially. The methods of the iterator throw an
+	 * {@link IllegalStateException} if the dump cannot be read.
+	 *
+	 * @param clazz the class of the elements
+	 * @param lexicon if not null, only the elements of this lexicon are returned
+	 */
+	public <T> Iterator<T> iterator(final Class<T> clazz, final Lexicon lexicon) {
+		return new Iterator<T>() {
+			protected int blockIdx = -1;
+			protected Block block;
+			protected int record;
+			protected T next;
+
+			@Override
+			public boolean hasNext() {
+				while (next == null) {
+					if (block == null || record >= block.size()) {
+						if (blockIdx + 1 >= blockOffsets.length) {
+							return false;
+						}
+						blockIdx++;
+						try {
+							block = getBlock(blockOffsets[blockIdx]);
+						}
+						catch (IOException e) {
+							throw new IllegalStateException("Unable to read block", e);
+						}
+						record = 0;
+						continue;
+					}
+					if (clazz == block.getClass(record)
+							&& isInLexicon(block, record, lexicon)) {
+						next = clazz.cast(block.read(record));
+					}
+					record++;
+				}
+				return true;
+			}
+
+			@Override
+			public T next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				T result = next;
+				next = null;
+				return result;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/** Closes the dump. The mapped buffers are released by the garbage
+	 *  collector. */
+	@Override
+	public void close() throws IOException {
+		cache.clear();
+		segments = null;
+		file.close();
+	}
+
+	protected static boolean isSense(final Sense reference, final Sense sense) {
+		return reference != null && sense.getId().equals(reference.getId());
+	}
+
+	protected boolean isInLexicon(final Block block, final int record,
+			final Lexicon lexicon) {
+		if (lexicon == null) {
+			return true;
+		}
+		int lexiconIdx = block.getLexicon(record);
+		return lexiconIdx > 0 && lexiconIdx <= lexicons.size()
+				&& lexicon.getId() != null
+				&& lexicon.getId().equals(lexicons.get(lexiconIdx - 1).getId());
+	}
+
+	/** Searches the given object and its children for an element of the
+	 *  given class with the given ID. */
+	protected Object findElement(final Object lmfObject, final Class<?> clazz,
+			final String id) {
+		if (clazz.isInstance(lmfObject) && id.equals(((IHasID) lmfObject).getId())) {
+			return lmfObject;
+		}
+		for (UBYLMFFieldMetadata fieldMeta : getFieldMetadata(lmfObject.getClass()).values()) {
+			Object value = fieldMeta.getValue(lmfObject);
+			if (value == null) {
+				continue;
+			}
+			if (fieldMeta.getVarType() == EVarType.CHILD) {
+				Object result = findElement(value, clazz, id);
+				if (result != null) {
+					return result;
+				}
+			}
+			else
+			if (fieldMeta.getVarType() == EVarType.CHILDREN) {
+				for (Object child : (Iterable<?>) value) {
+					Object result = findElement(child, clazz, id);
+					if (result != null) {
+						return result;
+					}
+				}
+			}
+		}
+		return null;
+	}
+
+	/** Returns the records of the given index having the given key. */
+	protected Set<RecordPointer> lookup(final IndexSummary index, final String key)
+			throws IOException {
+		Set<RecordPointer> result = new LinkedHashSet<RecordPointer>();
+		// Start with the last frame whose first key is smaller, since
+		// equal keys may be at the end of that frame.
+		int low = 0;
+		int high = index.firstKeys.size();
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (index.firstKeys.get(mid).compareTo(key) < 0) {
+				low = mid + 1;
+			}
+			else {
+				high = mid;
+			}
+		}
+
+		for (int frame = Math.max(low - 1, 0); frame < index.offsets.length; frame++) {
+			if (index.firstKeys.get(frame).compareTo(key) > 0) {
+				break;
+			}
+			IndexFrame entries = getIndexFrame(index.offsets[frame]);
+			for (int i = 0; i < entries.keys.length; i++) {
+				if (key.equals(entries.keys[i])) {
+					result.add(new RecordPointer(entries.blockOffsets[i], entries.records[i]));
+				}
+			}
+		}
+		return result;
+	}
+
+	protected Block getBlock(final long offset) throws IOException {
+		// Blocks are cached in memory-mapped dumps as well, since decoding
+		// the record offsets requires scanning the whole block.
+		Object result = cache.get(offset);
+		if (result == null) {
+			result = new Block(readFrame(offset));
+			cache.put(offset, result);
+		}
+		return (Block) result;
+	}
+
+	protected IndexFrame getIndexFrame(final long offset) throws IOException {
+		if (segments != null) {
+			return new IndexFrame(readFrame(offset));
+		}
+		Object result = cache.get(offset);
+		if (result == null) {
+			result = new IndexFrame(readFrame(offset));
+			cache.put(offset, result);
+		}
+		return (IndexFrame) result;
+	}
+
+	protected Input readFrame(final long offset) throws IOException {
+		if (segments != null) {
+			return LMFBinaryFormat.readFrame(segments, SEGMENT_SIZE, offset);
+		}
+		return LMFBinaryFormat.readFrame(file, offset);
+	}
+
+	/** Returns the fields of the given class indexed by their name. */
+	protected Map<String, UBYLMFFieldMetadata> getFieldMetadata(final Class<?> clazz) {
+		Map<String, UBYLMFFieldMetadata> result = metadata.get(clazz);
+		if (result == null) {
+			result = new LinkedHashMap<String, UBYLMFFieldMetadata>();
+			for (UBYLMFFieldMetadata fieldMeta : new UBYLMFClassMetadata(clazz).getFields()) {
+				if (fieldMeta.getVarType() != EVarType.NONE) {
+					result.put(fieldMeta.getName(), fieldMeta);
+				}
+			}
+			metadata.put(clazz, result);
+		}
+		return result;
+	}
+
+	protected static <T> List<T> toList(final Iterator<T> iter) {
+		List<T> result = new ArrayList<T>();
+		while (iter.hasNext()) {
+			result.add(iter.next());
+		}
+		return result;
+	}
+
+	/**
+	 * Decompressed block consisting of a string dictionary and records.
+	 * The records are decoded on each access, so the returned objects
+	 * are never shared. The strings are decoded on their first access.
+	 */
+	protected class Block {
+
+		protected Input data;
+		protected int[] stringOffsets;
+		protected String[] strings;
+		protected int[] recordOffsets;
+
+		protected Block(final Input input) {
+			stringOffsets = new int[input.readVarInt()];
+			strings = new String[stringOffsets.length];
+			for (int i = 0; i < stringOffsets.length; i++) {
+				stringOffsets[i] = input.getPosition();
+				input.skip(input.readVarInt());
+			}
+			recordOffsets = new int[input.readVarInt()];
+			for (int i = 0; i < recordOffsets.length; i++) {
+				int length = input.readVarInt();
+				recordOffsets[i] = input.getPosition();
+				input.skip(length);
+			}
+			data = input;
+		}
+
+		protected String getString(final int ref) {
+			String result = strings[ref];
+			if (result == null) {
+				result = data.duplicate(stringOffsets[ref]).readString();
+				strings[ref] = result;
+			}
+			return result;
+		}
+
+		protected int size() {
+			return recordOffsets.length;
+		}
+
+		protected int getLexicon(final int record) {
+			return newInput(record).readVarInt();
+		}
+
+		protected Class<?> getClass(final int record) {
+			Input input = newInput(record);
+			input.readVarInt();
+			return elementClasses.get(getString(input.readVarInt()));
+		}
+
+		protected Object read(final int record) {
+			Input input = newInput(record);
+			input.readVarInt();
+			String elementName = getString(input.readVarInt());
+			Class<?> clazz = elementClasses.get(elementName);
+			if (clazz == null) {
+				throw new IllegalStateException("Unknown element " + elementName);
+			}
+			return readObject(input, clazz);
+		}
+
+		protected Input newInput(final int record) {
+			return data.duplicate(recordOffsets[record]);
+		}
+
+		protected Object readObject(final Input input, final Class<?> clazz) {
+			Object lmfObject = LMFXMLReader.newInstance(clazz);
+			Map<String, UBYLMFFieldMetadata> fields = getFieldMetadata(clazz);
+
+			// Lists are set even if they remain empty.
+			for (UBYLMFFieldMetadata fieldMeta : fields.values()) {
+				if (fieldMeta.getVarType() == EVarType.CHILDREN) {
+					fieldMeta.setValue(lmfObject, new ArrayList<Object>());
+				}
+			}
+
+			int fieldRef;
+			while ((fieldRef = input.readVarInt()) != 0) {
+				String fieldName = getString(fieldRef - 1);
+				UBYLMFFieldMetadata fieldMeta = fields.get(fieldName);
+				if (fieldMeta == null) {
+					throw new IllegalStateException("Unknown field " + fieldName
+							+ " of " + clazz.getSimpleName());
+				}
+				fieldMeta.setValue(lmfObject, readValue(input, fieldMeta));
+			}
+			return lmfObject;
+		}
+
+		protected Object readValue(final Input input, final UBYLMFFieldMetadata fieldMeta) {
+			switch (fieldMeta.getVarType()) {
+				case CHILD:
+					return readObject(input, fieldMeta.getType());
+
+				case CHILDREN:
+					int count = input.readVarInt();
+					List<Object> children = new ArrayList<Object>(count);
+					for (int i = 0; i < count; i++) {
+						children.add(readObject(input, fieldMeta.getGenericElementType()));
+					}
+					return children;
+
+				case IDREF:
+					IHasID idref = (IHasID) LMFXMLReader.newInstance(fieldMeta.getType());
+					idref.setId(getString(input.readVarInt()));
+					return idref;
+
+				case IDREFS:
+					int idCount = input.readVarInt();
+					List<Object> idrefs = new ArrayList<Object>(idCount);
+					for (int i = 0; i < idCount; i++) {
+						IHasID obj = (IHasID) LMFXMLReader.newInstance(fieldMeta.getGenericElementType());
+						obj.setId(getString(input.readVarInt()));
+						idrefs.add(obj);
+					}
+					return idrefs;
+
+				default:
+					if (fieldMeta.isBoolean()) {
+						return input.readByte() != 0;
+					}
+					else
+					if (fieldMeta.isInteger()) {
+						return input.readSignedVarInt();
+					}
+					else
+					if (fieldMeta.isDouble()) {
+						return Double.longBitsToDouble(input.readLong());
+					}
+					else
+					if (fieldMeta.isDate()) {
+						return new Date(input.readLong());
+					}
+					return LMFXMLReader.convertAttribute(fieldMeta, getString(input.readVarInt()));
+			}
+		}
+
+	}
+
+	/**
+	 * Sorted entries of one index frame.
+	 */
+	protected static class IndexFrame {
+
+		protected String[] keys;
+		protected long[] blockOffsets;
+		protected int[] records;
+
+		protected IndexFrame(final Input input) {
+			int count = input.readVarInt();
+			keys = new String[count];
+			blockOffsets = new long[count];
+			records = new int[count];
+			for (int i = 0; i < count; i++) {
+				keys[i] = input.readString();
+				blockOffsets[i] = input.readVarLong();
+				records[i] = input.readVarInt();
+			}
+		}
+
+	}
+
+	/**
+	 * First key and offset of each frame of an index.
+	 */
+	protected static class IndexSummary {
+
+		protected List<String> firstKeys;
+		protected long[] offsets;
+
+		protected IndexSummary(final Input input) {
+			int count = input.readVarInt();
+			firstKeys = new ArrayList<String>(count);
+			offsets = new long[count];
+			for (int i = 0; i < count; i++) {
+				firstKeys.add(input.readString());
+				offsets[i] = input.readVarLong();
+			}
+		}
+
+	}
+
+	/**
+	 * Position of a record within the dump.
+	 */
+	protected static class RecordPointer {
+
+		protected long blockOffset;
+		protected int record;
+
+		protected RecordPointer(final long blockOffset, final int record) {
+			this.blockOffset = blockOffset;
+			this.record = record;
+		}
+
+		@Override
+		public int hashCode() {
+			return (int) (blockOffset ^ (blockOffset >>> 32)) * 31 + record;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (!(obj instanceof RecordPointer)) {
+				return false;
+			}
+			RecordPointer other = (RecordPointer) obj;
+			return blockOffset == other.blockOffset && record == other.record;
+		}
+
+	}
+
+}
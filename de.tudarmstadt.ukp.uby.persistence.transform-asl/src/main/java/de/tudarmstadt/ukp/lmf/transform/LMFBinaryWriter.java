@@ -0,0 +1,534 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.lmf.transform;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.Deflater;
+
+import javax.xml.stream.XMLStreamException;
+
+import de.tudarmstadt.ukp.lmf.model.core.LexicalEntry;
+import de.tudarmstadt.ukp.lmf.model.core.LexicalResource;
+import de.tudarmstadt.ukp.lmf.model.core.Lexicon;
+import de.tudarmstadt.ukp.lmf.model.interfaces.IHasID;
+import de.tudarmstadt.ukp.lmf.model.miscellaneous.EVarType;
+import de.tudarmstadt.ukp.lmf.model.morphology.FormRepresentation;
+import de.tudarmstadt.ukp.lmf.model.multilingual.SenseAxis;
+import de.tudarmstadt.ukp.lmf.transform.LMFBinaryFormat.Output;
+import de.tudarmstadt.ukp.lmf.transform.UBYLMFClassMetadata.UBYLMFFieldMetadata;
+
+/**
+ * Writes UBY-LMF objects to the compressed binary dump format described in
+ * {@link LMFBinaryFormat}, which can be read by {@link LMFBinaryReader}
+ * without loading the whole resource. The fields are encoded based on
+ * their {@link UBYLMFClassMetadata}, i.e., the dump contains the same
+ * information as UBY-XML.<p>
+ *
+ * The objects are expected in the order returned by {@link LMFXMLReader}:
+ * the {@link LexicalResource} and each {@link Lexicon} without their
+ * children, each followed by their top-level elements, e.g.:
+ * <pre>
+ * LMFBinaryWriter writer = new LMFBinaryWriter(binaryFile);
+ * writer.write(new LMFXMLReader(xmlFile));
+ * writer.close();
+ * </pre>
+ * The IDs and lemmas are kept in memory until the writer is closed, since
+ * the indexes need to be sorted.<p>
+ *
+ * Compressed dumps are small and meant for shipping a resource. For
+ * read-only lookups in production, an uncompressed dump with small blocks
+ * (see {@link #setCompressed(boolean)} and {@link #setBlockSize(int)}) can
+ * be opened memory-mapped by {@link LMFBinaryReader}, such that lookups
+ * neither inflate blocks nor keep them on the heap.
+ */
+public class LMFBinaryWriter implements Closeable {
+
+	/** Default number of bytes of uncompressed records per block. */
+	public static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+
+	protected OutputStream outputStream;
+	protected long position;
+	protected int blockSize = DEFAULT_BLOCK_SIZE;
+	protected boolean compressed = true;
+	protected Deflater deflater;
+	protected Map<Class<?>, UBYLMFClassMetadata> metadata;
+
+	protected LexicalResource lexicalResource;
+	protected List<Lexicon> lexicons;
+	protected Set<Class<?>> lexiconElements; // Top-level classes within a lexicon
+
+	// The current block.
+	protected Output records;
+	protected Map<String, Integer> strings;
+	protected List<String> stringList;
+	protected int recordCount;
+
+	protected List<Long> blockOffsets;
+	protected List<IndexEntry> idIndex;
+	protected List<IndexEntry> lemmaIndex;
+	protected List<IndexEntry> axisIndex;
+
+	/** Instanciates a new writer for the given file. */
+	public LMFBinaryWriter(final File file) throws IOException {
+		this(new BufferedOutputStream(new FileOutputStream(file)));
+	}
+
+	/** Instanciates a new writer for the given output stream. The
+	 *  stream is closed along with the writer. */
+	public LMFBinaryWriter(final OutputStream outputStream) throws IOException {
+		this.outputStream = outputStream;
+		deflater = new Deflater();
+		metadata = new HashMap<Class<?>, UBYLMFClassMetadata>();
+		lexicons = new ArrayList<Lexicon>();
+		lexiconElements = new HashSet<Class<?>>();
+		for (UBYLMFFieldMetadata fieldMeta : getClassMetadata(Lexicon.class).getFields()) {
+			if (fieldMeta.getVarType() == EVarType.CHILDREN) {
+				lexiconElements.add(fieldMeta.getGenericElementType());
+			}
+		}
+
+		records = new Output(DEFAULT_BLOCK_SIZE + 1024);
+		strings = new HashMap<String, Integer>();
+		stringList = new ArrayList<String>();
+		blockOffsets = new ArrayList<Long>();
+		idIndex = new ArrayList<IndexEntry>();
+		lemmaIndex = new ArrayList<IndexEntry>();
+		axisIndex = new ArrayList<IndexEntry>();
+
+		Output header = new Output(LMFBinaryFormat.HEADER_SIZE);
+		header.writeInt(LMFBinaryFormat.MAGIC);
+		header.writeInt(LMFBinaryFormat.VERSION);
+		header.writeTo(outputStream);
+		position = header.size();
+	}
+
+	/**
+	 * Sets the number of bytes of uncompressed records collected in a
+	 * block before it is compressed and written. Larger blocks compress
+	 * better, but each lookup needs to decompress a whole block.
+	 *
+	 * @param blockSize the number of bytes per block
+	 * @throws IllegalArgumentException if the block size is less than one
+	 */
+	public void setBlockSize(final int blockSize) throws IllegalArgumentException {
+		if (blockSize < 1) {
+			throw new IllegalArgumentException("blockSize must be positive");
+		}
+		this.blockSize = blockSize;
+	}
+
+	/** Returns the number of bytes of uncompressed records per block. */
+	public int getBlockSize() {
+		return blockSize;
+	}
+
+	/** Sets whether the blocks, the footer, and the indexes are compressed
+	 *  (default) or stored uncompressed. */
+	public void setCompressed(final boolean compressed) {
+		this.compressed = compressed;
+	}
+
+	/** Returns true if the blocks are compressed. */
+	public boolean isCompressed() {
+		return compressed;
+	}
+
+	/** Writes all remaining objects of the given reader and closes it. */
+	public void write(final LMFXMLReader reader)
+			throws XMLStreamException, IOException {
+		try {
+			Object lmfObject;
+			while ((lmfObject = reader.read()) != null) {
+				write(lmfObject);
+			}
+		}
+		finally {
+			reader.close();
+		}
+	}
+
+	/** Writes the given object, which is either the lexical resource, a
+	 *  lexicon, or a top-level element of one of them. */
+	public void write(final Object lmfObject) throws IOException {
+		if (lmfObject instanceof LexicalResource) {
+			writeLexicalResource((LexicalResource) lmfObject);
+		}
+		else
+		if (lmfObject instanceof Lexicon) {
+			writeLexicon((Lexicon) lmfObject);
+		}
+		else {
+			writeElement(lmfObject);
+		}
+	}
+
+	/** Sets the lexical resource of the dump. Only its attributes are
+	 *  written; the lexicons and other children need to be written
+	 *  separately. */
+	public void writeLexicalResource(final LexicalResource lexicalResource) {
+		this.lexicalResource = lexicalResource;
+	}
+
+	/** Adds a lexicon to the dump. Only its attributes are written; the
+	 *  lexical entries and other children written afterwards are
+	 *  assigned to this lexicon. */
+	public void writeLexicon(final Lexicon lexicon) {
+		lexicons.add(lexicon);
+	}
+
+	/** Writes a top-level element of the lexical resource (e.g., a sense
+	 *  axis) or of the last lexicon (e.g., a lexical entry) including all
+	 *  of its children. */
+	public void writeElement(final Object lmfObject) throws IOException {
+		int lexicon = 0;
+		if (!lexicons.isEmpty() && lexiconElements.contains(lmfObject.getClass())) {
+			lexicon = lexicons.size();
+		}
+		writeRecord(lmfObject, lexicon, true);
+
+		if (lmfObject instanceof LexicalEntry) {
+			LexicalEntry lexicalEntry = (LexicalEntry) lmfObject;
+			if (lexicalEntry.getLemma() != null) {
+				for (FormRepresentation formRepresentation
+						: lexicalEntry.getLemma().getFormRepresentations()) {
+					if (formRepresentation.getWrittenForm() != null) {
+						lemmaIndex.add(new IndexEntry(formRepresentation.getWrittenForm(),
+								blockOffsets.size(), recordCount - 1));
+					}
+				}
+			}
+		}
+
+		if (lmfObject instanceof SenseAxis) {
+			// Adjacency of the senses and synsets aligned by the axis.
+			SenseAxis senseAxis = (SenseAxis) lmfObject;
+			for (IHasID aligned : new IHasID[] {senseAxis.getSenseOne(), senseAxis.getSenseTwo(),
+					senseAxis.getSynsetOne(), senseAxis.getSynsetTwo()}) {
+				if (aligned != null && aligned.getId() != null) {
+					axisIndex.add(new IndexEntry(aligned.getId(),
+							blockOffsets.size(), recordCount - 1));
+				}
+			}
+		}
+
+		if (records.size() >= blockSize) {
+			blockOffsets.add(writeBlock());
+		}
+	}
+
+	/** Writes the remaining block, the footer and the trailer, and closes
+	 *  the output stream. */
+	@Override
+	public void close() throws IOException {
+		try {
+			if (recordCount > 0) {
+				blockOffsets.add(writeBlock());
+			}
+
+			// Lexical resource and lexicons.
+			if (lexicalResource != null) {
+				writeRecord(lexicalResource, 0, false);
+			}
+			for (Lexicon lexicon : lexicons) {
+				writeRecord(lexicon, 0, false);
+			}
+			long headerOffset = writeBlock();
+
+			// Block table.
+			Output blockTable = new Output(blockOffsets.size() * 3 + 8);
+			blockTable.writeVarInt(blockOffsets.size());
+			long previous = 0;
+			for (long offset : blockOffsets) {
+				blockTable.writeVarLong(offset - previous);
+				previous = offset;
+			}
+			long blockTableOffset = position;
+			position += LMFBinaryFormat.writeFrame(outputStream, blockTable, getDeflater());
+
+			long idIndexOffset = writeIndex(idIndex);
+			long lemmaIndexOffset = writeIndex(lemmaIndex);
+			long axisIndexOffset = writeIndex(axisIndex);
+
+			Output trailer = new Output(LMFBinaryFormat.TRAILER_SIZE);
+			trailer.writeLong(headerOffset);
+			trailer.writeLong(blockTableOffset);
+			trailer.writeLong(idIndexOffset);
+			trailer.writeLong(lemmaIndexOffset);
+			trailer.writeLong(axisIndexOffset);
+			trailer.writeInt(LMFBinaryFormat.VERSION);
+			trailer.writeInt(LMFBinaryFormat.MAGIC);
+			trailer.writeTo(outputStream);
+			position += trailer.size();
+		}
+		finally {
+			deflater.end();
+			outputStream.close();
+		}
+	}
+
+	/** Encodes the given object as a new record of the current block. */
+	protected void writeRecord(final Object lmfObject, final int lexicon,
+			final boolean withChildren) {
+		Output record = new Output(256);
+		record.writeVarInt(lexicon);
+		record.writeVarInt(getStringRef(getElementName(lmfObject.getClass())));
+		writeObject(record, lmfObject, withChildren);
+		records.writeVarInt(record.size());
+		records.writeBytes(record);
+		recordCount++;
+	}
+
+	/** Encodes the fields of the given object, i.e., a reference to the
+	 *  name of each field having a value followed by the value. The
+	 *  children are written recursively and added to the ID index. */
+	@SuppressWarnings("unchecked")
+	protected void writeObject(final Output output, final Object lmfObject,
+			final boolean withChildren) {
+		if (withChildren && lmfObject instanceof IHasID) {
+			String id = ((IHasID) lmfObject).getId();
+			if (id != null) {
+				idIndex.add(new IndexEntry(id, blockOffsets.size(), recordCount));
+			}
+		}
+
+		for (UBYLMFFieldMetadata fieldMeta : getClassMetadata(lmfObject.getClass()).getFields()) {
+			EVarType varType = fieldMeta.getVarType();
+			if (varType == EVarType.NONE
+					|| (!withChildren && (varType == EVarType.CHILD || varType == EVarType.CHILDREN))) {
+				continue;
+			}
+
+			Object value = fieldMeta.getValue(lmfObject);
+			if (value == null) {
+				continue;
+			}
+			switch (varType) {
+				case ATTRIBUTE:
+				case ATTRIBUTE_OPTIONAL:
+					output.writeVarInt(getStringRef(fieldMeta.getName()) + 1);
+					writeAttribute(output, fieldMeta, value);
+					break;
+
+				case CHILD:
+					output.writeVarInt(getStringRef(fieldMeta.getName()) + 1);
+					writeObject(output, value, true);
+					break;
+
+				case CHILDREN:
+					List<Object> children = new ArrayList<Object>();
+					for (Object child : (Iterable<Object>) value) {
+						children.add(child);
+					}
+					if (children.isEmpty()) {
+						break;
+					}
+					output.writeVarInt(getStringRef(fieldMeta.getName()) + 1);
+					output.writeVarInt(children.size());
+					for (Object child : children) {
+						writeObject(output, child, true);
+					}
+					break;
+
+				case IDREF:
+					String id = ((IHasID) value).getId();
+					if (id != null) {
+						output.writeVarInt(getStringRef(fieldMeta.getName()) + 1);
+						output.writeVarInt(getStringRef(id));
+					}
+					break;
+
+				case IDREFS:
+					List<String> ids = new ArrayList<String>();
+					for (Object obj : (Iterable<Object>) value) {
+						ids.add(((IHasID) obj).getId());
+					}
+					if (ids.isEmpty()) {
+						break;
+					}
+					output.writeVarInt(getStringRef(fieldMeta.getName()) + 1);
+					output.writeVarInt(ids.size());
+					for (String idref : ids) {
+						output.writeVarInt(getStringRef(idref));
+					}
+					break;
+
+				case NONE:
+					break;
+			}
+		}
+		output.writeVarInt(0);
+	}
+
+	/** Encodes an attribute value. Numbers, truth values, and dates are
+	 *  written directly, all other values as strings which are converted
+	 *  like UBY-XML attributes when reading. */
+	protected void writeAttribute(final Output output,
+			final UBYLMFFieldMetadata fieldMeta, final Object value) {
+		if (fieldMeta.isBoolean()) {
+			output.write(((Boolean) value).booleanValue() ? 1 : 0);
+		}
+		else
+		if (fieldMeta.isInteger()) {
+			output.writeSignedVarInt(((Integer) value).intValue());
+		}
+		else
+		if (fieldMeta.isDouble()) {
+			output.writeLong(Double.doubleToLongBits(((Double) value).doubleValue()));
+		}
+		else
+		if (fieldMeta.isDate()) {
+			output.writeLong(((Date) value).getTime());
+		}
+		else {
+			output.writeVarInt(getStringRef(value.toString()));
+		}
+	}
+
+	/** Returns the index of the given string within the dictionary of the
+	 *  current block, adding the string if necessary. */
+	protected int getStringRef(final String value) {
+		Integer result = strings.get(value);
+		if (result == null) {
+			result = stringList.size();
+			strings.put(value, result);
+			stringList.add(value);
+		}
+		return result;
+	}
+
+	/** Compresses and writes the current block, i.e., the string
+	 *  dictionary followed by the records, and starts a new block.
+	 *  Returns the offset of the written block. */
+	protected long writeBlock() throws IOException {
+		Output raw = new Output(records.size() + stringList.size() * 16 + 16);
+		raw.writeVarInt(stringList.size());
+		for (String value : stringList) {
+			raw.writeString(value);
+		}
+		raw.writeVarInt(recordCount);
+		raw.writeBytes(records);
+
+		long result = position;
+		position += LMFBinaryFormat.writeFrame(outputStream, raw, getDeflater());
+		records.reset();
+		strings.clear();
+		stringList.clear();
+		recordCount = 0;
+		return result;
+	}
+
+	/** Sorts the given index entries and writes them in frames of
+	 *  {@link LMFBinaryFormat#INDEX_INTERVAL} entries followed by their
+	 *  summary. Returns the offset of the summary. */
+	protected long writeIndex(final List<IndexEntry> index) throws IOException {
+		Collections.sort(index);
+		int frameCount = (index.size() + LMFBinaryFormat.INDEX_INTERVAL - 1)
+				/ LMFBinaryFormat.INDEX_INTERVAL;
+		Output summary = new Output(frameCount * 24 + 8);
+		summary.writeVarInt(frameCount);
+		for (int i = 0; i < index.size(); i += LMFBinaryFormat.INDEX_INTERVAL) {
+			List<IndexEntry> entries = index.subList(i,
+					Math.min(i + LMFBinaryFormat.INDEX_INTERVAL, index.size()));
+			Output frame = new Output(entries.size() * 24);
+			frame.writeVarInt(entries.size());
+			for (IndexEntry entry : entries) {
+				frame.writeString(entry.key);
+				frame.writeVarLong(blockOffsets.get(entry.block));
+				frame.writeVarInt(entry.record);
+			}
+			summary.writeString(entries.get(0).key);
+			summary.writeVarLong(position);
+			position += LMFBinaryFormat.writeFrame(outputStream, frame, getDeflater());
+		}
+		index.clear();
+
+		long result = position;
+		position += LMFBinaryFormat.writeFrame(outputStream, summary, getDeflater());
+		return result;
+	}
+
+	/** Returns the deflater or null if the frames are stored
+	 *  uncompressed. */
+	protected Deflater getDeflater() {
+		return (compressed ? deflater : null);
+	}
+
+	protected UBYLMFClassMetadata getClassMetadata(final Class<?> clazz) {
+		UBYLMFClassMetadata result = metadata.get(clazz);
+		if (result == null) {
+			result = new UBYLMFClassMetadata(clazz);
+			metadata.put(clazz, result);
+		}
+		return result;
+	}
+
+	/** Returns the element name of the given class, which is the simple
+	 *  name of the LMF class also for Hibernate proxies. */
+	protected static String getElementName(final Class<?> clazz) {
+		String result = clazz.getSimpleName();
+		int hibernateSuffixIdx = result.indexOf("_$$");
+		if (hibernateSuffixIdx > 0) {
+			result = result.substring(0, hibernateSuffixIdx);
+		}
+		return result;
+	}
+
+	/**
+	 * Key of an index referring to a record by the number of its block and
+	 * its position within the block.
+	 */
+	protected static class IndexEntry implements Comparable<IndexEntry> {
+
+		protected String key;
+		protected int block;
+		protected int record;
+
+		protected IndexEntry(final String key, final int block, final int record) {
+			this.key = key;
+			this.block = block;
+			this.record = record;
+		}
+
+		@Override
+		public int compareTo(final IndexEntry other) {
+			int result = key.compareTo(other.key);
+			if (result == 0) {
+				result = (block < other.block ? -1 : (block > other.block ? 1 : 0));
+			}
+			if (result == 0) {
+				result = (record < other.record ? -1 : (record > other.record ? 1 : 0));
+			}
+			return result;
+		}
+
+	}
+
+}
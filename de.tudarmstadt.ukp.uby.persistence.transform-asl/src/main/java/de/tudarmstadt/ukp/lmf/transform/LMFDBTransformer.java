@@ -47,9 +47,14 @@ public abstract class LMFDBTransformer extends UBYHibernateTransformer {
 	
 	/** Start the transformation. That is, the transformer will sequentially
 	 *  invoke the createNext* methods which are to convert the 
-	 *  resource-specific information types into UBY-LMF model objects. */
+	 *  resource-specific information types into UBY-LMF model objects. 
+	 *  The created elements are written using JDBC bulk inserts if enabled
+	 *  by {@link #setBulkInsert(boolean)}. If deferred index creation is 
+	 *  enabled by {@link #setDeferIndexes(boolean)}, the indexes are built
+	 *  after all elements have been saved. */
 	public void transform() {
 		System.out.println("START DB TRANSFORM");
+		beginBulkLoad();
 		openSession();
 
 		LexicalResource lexicalResource = createLexicalResource();
@@ -119,6 +124,7 @@ public abstract class LMFDBTransformer extends UBYHibernateTransformer {
 
 		finish();
 		closeSession();
+		endBulkLoad();
 	}
 
 	/** Creates LexicalResource object. */
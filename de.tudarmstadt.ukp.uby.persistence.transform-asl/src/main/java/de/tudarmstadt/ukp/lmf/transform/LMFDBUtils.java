@@ -19,15 +19,38 @@
 package de.tudarmstadt.ukp.lmf.transform;
 
 import java.io.FileNotFoundException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.hibernate.HibernateException;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
 import org.hibernate.cfg.Configuration;
+import org.hibernate.cfg.Environment;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.engine.spi.Mapping;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.jdbc.Work;
+import org.hibernate.mapping.ForeignKey;
+import org.hibernate.mapping.Index;
 import org.hibernate.mapping.Table;
 import org.hibernate.service.ServiceRegistryBuilder;
 import org.hibernate.tool.hbm2ddl.SchemaExport;
@@ -35,7 +58,19 @@ import org.hibernate.tool.hbm2ddl.SchemaUpdate;
 
 import de.tudarmstadt.ukp.lmf.hibernate.HibernateConnect;
 
+/**
+ * Utility methods for creating and maintaining the tables of a UBY database.
+ * <p>
+ * For bulk loads, the tables can be created without the secondary indexes
+ * and foreign key constraints declared in the Hibernate mapping (see
+ * {@link #createTables(DBConfig, boolean)}), or these can be removed from
+ * existing tables using {@link #dropIndexes(DBConfig)}. After the data has
+ * been loaded, {@link #createIndexes(DBConfig, int)} builds all of them in
+ * one pass and updates the table statistics.
+ */
 public class LMFDBUtils {
+
+	private static final Log logger = LogFactory.getLog(LMFDBUtils.class);
 	
 	/**
 	 * Create all LMF Tables in the database based on the hibernate mapping
@@ -57,6 +92,260 @@ public class LMFDBUtils {
 	}
 	
 	
+	/**
+	 * Create all LMF Tables in the database based on the hibernate mapping.
+	 * If indexes is false, the secondary indexes and foreign key constraints
+	 * are not created, which speeds up loading large amounts of data. They
+	 * need to be created afterwards using {@link #createIndexes(DBConfig, int)}.
+	 * @param dbConfig
+	 * @param indexes create secondary indexes and foreign key constraints
+	 * @throws FileNotFoundException
+	 */
+	public static void createTables(final DBConfig dbConfig, boolean indexes)
+			throws FileNotFoundException{
+		if (indexes) {
+			createTables(dbConfig);
+			return;
+		}
+
+		System.out.println("CREATE TABLES WITHOUT INDEXES");
+		final Configuration cfg = HibernateConnect.getConfiguration(dbConfig);
+		cfg.setProperty("hibernate.hbm2ddl.auto", "none");
+		cfg.buildMappings();
+		SchemaExport se = new SchemaExport(cfg);
+		se.drop(true, true);
+
+		SessionFactory sf = buildSessionFactory(cfg);
+		Dialect dialect = ((SessionFactoryImplementor) sf).getDialect();
+		Set<String> deferred = new HashSet<String>();
+		for (List<String> statements : getIndexStatements(cfg, dialect).values())
+			deferred.addAll(statements);
+		final List<String> createSQL = new ArrayList<String>();
+		for (String sql : cfg.generateSchemaCreationScript(dialect))
+			if (!deferred.contains(sql))
+				createSQL.add(sql);
+		try {
+			executeStatements(sf, createSQL, false);
+		} finally {
+			sf.close();
+		}
+	}
+
+	/**
+	 * Creates all secondary indexes and foreign key constraints declared in
+	 * the hibernate mapping and updates the table statistics. This is the
+	 * final step of a bulk load into tables created by
+	 * {@link #createTables(DBConfig, boolean)} or whose indexes have been
+	 * removed by {@link #dropIndexes(DBConfig)}. The indexes of different
+	 * tables are created in parallel if more than one thread is specified.
+	 * @param dbConfig
+	 * @param threads number of tables whose indexes are created at the same time
+	 * @throws IllegalArgumentException if threads is less than one
+	 */
+	public static void createIndexes(final DBConfig dbConfig, int threads)
+			throws IllegalArgumentException {
+		if (threads < 1)
+			throw new IllegalArgumentException("threads must be positive");
+
+		System.out.println("CREATE INDEXES");
+		Configuration cfg = HibernateConnect.getConfiguration(dbConfig);
+		cfg.setProperty("hibernate.c3p0.max_size", Integer.toString(
+				Math.max(threads, dbConfig.getConnectionPoolSize())));
+		cfg.buildMappings();
+		final SessionFactory sf = buildSessionFactory(cfg);
+		try {
+			Dialect dialect = ((SessionFactoryImplementor) sf).getDialect();
+			Map<String, List<String>> statements = getIndexStatements(cfg, dialect);
+
+			// Indexes are created per table, the foreign keys afterwards, since 
+			// they might require the indexes of the referenced tables.
+			List<String> foreignKeySQL = new ArrayList<String>();
+			ExecutorService executor = Executors.newFixedThreadPool(threads);
+			try {
+				List<Future<?>> futures = new ArrayList<Future<?>>();
+				for (final List<String> tableSQL : statements.values()) {
+					final List<String> indexSQL = new ArrayList<String>();
+					for (String sql : tableSQL)
+						if (sql.toLowerCase().startsWith("create"))
+							indexSQL.add(sql);
+						else
+							foreignKeySQL.add(sql);
+					futures.add(executor.submit(new Runnable() {
+						@Override
+						public void run() {
+							executeStatements(sf, indexSQL, false);
+						}
+					}));
+				}
+				for (Future<?> future : futures)
+					future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException("Interrupted while creating indexes", e);
+			} catch (ExecutionException e) {
+				throw new RuntimeException("Unable to create indexes", e.getCause());
+			} finally {
+				executor.shutdownNow();
+			}
+			executeStatements(sf, foreignKeySQL, false);
+
+			analyzeTables(sf, cfg);
+		} finally {
+			sf.close();
+		}
+	}
+
+	/**
+	 * Removes the secondary indexes and foreign key constraints declared in
+	 * the hibernate mapping from the existing LMF tables, e.g., before loading
+	 * a new resource into an existing database. Indexes which do not exist
+	 * are ignored.
+	 * @param dbConfig
+	 */
+	public static void dropIndexes(final DBConfig dbConfig) {
+		System.out.println("DROP INDEXES");
+		Configuration cfg = HibernateConnect.getConfiguration(dbConfig);
+		cfg.buildMappings();
+		SessionFactory sf = buildSessionFactory(cfg);
+		try {
+			Dialect dialect = ((SessionFactoryImplementor) sf).getDialect();
+			String defaultCatalog = cfg.getProperty(Environment.DEFAULT_CATALOG);
+			String defaultSchema = cfg.getProperty(Environment.DEFAULT_SCHEMA);
+			List<String> dropSQL = new ArrayList<String>();
+			Iterator<Table> iter = cfg.getTableMappings();
+			while (iter.hasNext()) {
+				Table table = iter.next();
+				String tableName = table.getQualifiedName(dialect, defaultCatalog, defaultSchema);
+				Iterator<?> fkIter = table.getForeignKeyIterator();
+				while (fkIter.hasNext()) {
+					ForeignKey fk = (ForeignKey) fkIter.next();
+					if (!fk.isPhysicalConstraint())
+						continue;
+					dropSQL.add(fk.sqlDropString(dialect, defaultCatalog, defaultSchema));
+					if (dialect instanceof MySQLDialect) // Index created for the key
+						dropSQL.add("ALTER TABLE " + tableName + " DROP INDEX " + fk.getName());
+				}
+				Iterator<?> indexIter = table.getIndexIterator();
+				while (indexIter.hasNext()) {
+					Index index = (Index) indexIter.next();
+					if (dialect instanceof MySQLDialect)
+						dropSQL.add("ALTER TABLE " + tableName + " DROP INDEX " + index.getName());
+					else
+						dropSQL.add("DROP INDEX " + index.getName());
+				}
+			}
+			executeStatements(sf, dropSQL, true);
+		} finally {
+			sf.close();
+		}
+	}
+
+	/**
+	 * Updates the statistics of all LMF tables used by the query planner of
+	 * the database. Only MySQL and H2 databases are supported, for other
+	 * databases nothing is done.
+	 * @param dbConfig
+	 */
+	public static void analyzeTables(final DBConfig dbConfig) {
+		Configuration cfg = HibernateConnect.getConfiguration(dbConfig);
+		SessionFactory sf = buildSessionFactory(cfg);
+		try {
+			analyzeTables(sf, cfg);
+		} finally {
+			sf.close();
+		}
+	}
+
+	protected static void analyzeTables(final SessionFactory sf,
+			final Configuration cfg) {
+		System.out.println("ANALYZE TABLES");
+		Dialect dialect = ((SessionFactoryImplementor) sf).getDialect();
+		List<String> analyzeSQL = new ArrayList<String>();
+		if (dialect instanceof MySQLDialect) {
+			Iterator<Table> iter = cfg.getTableMappings();
+			while (iter.hasNext())
+				analyzeSQL.add("ANALYZE TABLE " + iter.next().getQuotedName(dialect));
+		}
+		else
+		if (dialect instanceof H2Dialect)
+			analyzeSQL.add("ANALYZE");
+		executeStatements(sf, analyzeSQL, false);
+	}
+
+	/** Returns the SQL statements creating the secondary indexes and foreign
+	 *  key constraints, grouped by table. */
+	protected static Map<String, List<String>> getIndexStatements(
+			final Configuration cfg, final Dialect dialect) {
+		Mapping mapping = cfg.buildMapping();
+		String defaultCatalog = cfg.getProperty(Environment.DEFAULT_CATALOG);
+		String defaultSchema = cfg.getProperty(Environment.DEFAULT_SCHEMA);
+		Map<String, List<String>> result = new LinkedHashMap<String, List<String>>();
+		Iterator<Table> iter = cfg.getTableMappings();
+		while (iter.hasNext()) {
+			Table table = iter.next();
+			if (!table.isPhysicalTable())
+				continue;
+
+			List<String> statements = new ArrayList<String>();
+			Iterator<?> indexIter = table.getIndexIterator();
+			while (indexIter.hasNext())
+				statements.add(((Index) indexIter.next()).sqlCreateString(
+						dialect, mapping, defaultCatalog, defaultSchema));
+			Iterator<?> fkIter = table.getForeignKeyIterator();
+			while (fkIter.hasNext()) {
+				ForeignKey fk = (ForeignKey) fkIter.next();
+				if (fk.isPhysicalConstraint())
+					statements.add(fk.sqlCreateString(
+							dialect, mapping, defaultCatalog, defaultSchema));
+			}
+			if (!statements.isEmpty())
+				result.put(table.getName(), statements);
+		}
+		return result;
+	}
+
+	/** Executes the given statements in a new session. If ignoreErrors is
+	 *  true, failing statements are logged and skipped. */
+	protected static void executeStatements(final SessionFactory sf,
+			final List<String> statements, final boolean ignoreErrors) {
+		if (statements.isEmpty())
+			return;
+
+		Session session = sf.openSession();
+		try {
+			session.doWork(new Work() {
+				@Override
+				public void execute(final Connection connection) throws SQLException {
+					Statement statement = connection.createStatement();
+					try {
+						for (String sql : statements) {
+							try {
+								statement.executeUpdate(sql);
+							} catch (SQLException e) {
+								if (!ignoreErrors)
+									throw e;
+								logger.warn("Skipping failed statement: " + sql
+										+ " (" + e.getMessage() + ")");
+							}
+						}
+					} finally {
+						statement.close();
+					}
+					if (!connection.getAutoCommit())
+						connection.commit();
+				}
+			});
+		} finally {
+			session.close();
+		}
+	}
+
+	protected static SessionFactory buildSessionFactory(final Configuration cfg) {
+		return cfg.buildSessionFactory(
+				new ServiceRegistryBuilder().applySettings(
+				cfg.getProperties()).buildServiceRegistry());
+	}
+
 	/**
 	 * Create all LMF Tables in the database based on the hibernate mapping
 	 * @param dbConfig
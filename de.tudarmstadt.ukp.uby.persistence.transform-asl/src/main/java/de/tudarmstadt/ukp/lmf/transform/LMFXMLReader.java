@@ -0,0 +1,459 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.lmf.transform;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import de.tudarmstadt.ukp.lmf.model.core.LexicalResource;
+import de.tudarmstadt.ukp.lmf.model.core.Lexicon;
+import de.tudarmstadt.ukp.lmf.model.interfaces.IHasID;
+import de.tudarmstadt.ukp.lmf.model.miscellaneous.EVarType;
+import de.tudarmstadt.ukp.lmf.transform.UBYLMFClassMetadata.UBYLMFFieldMetadata;
+
+/**
+ * Reads a UBY-XML file using a StAX stream reader and converts its elements
+ * directly to UBY-LMF objects without building an XML tree. The reader
+ * returns the objects in document order:
+ * <ul>
+ *   <li>the {@link LexicalResource} and each {@link Lexicon} as soon as
+ *     their start tag has been read, i.e., with their attributes but
+ *     without any children,</li>
+ *   <li>all other children of these two elements (e.g., lexical entries,
+ *     synsets, or sense axes) after their end tag has been read, i.e.,
+ *     including all of their children.</li>
+ * </ul>
+ * Thus, only a single top-level element is kept in memory at a time.
+ * Attributes having the value <code>NULL</code> are ignored; characters
+ * outside the basic multilingual plane are replaced by
+ * {@link StringUtils#replaceNonUtf8(String)}. The referenced DTD is
+ * not loaded.<p>
+ *
+ * The reader can be used as an iterator over all objects or, using
+ * {@link #iterator(Class)}, over the objects of a certain type, e.g.:
+ * <pre>
+ * LMFXMLReader reader = new LMFXMLReader(xmlFile);
+ * Iterator&lt;LexicalEntry&gt; iter = reader.iterator(LexicalEntry.class);
+ * while (iter.hasNext())
+ *   System.out.println(iter.next().getLemmaForm());
+ * </pre>
+ * The methods of the {@link Iterator} interface throw an
+ * {@link IllegalStateException} if the XML cannot be read; use
+ * {@link #read()} for handling these errors explicitly.
+ */
+public class LMFXMLReader implements Iterator<Object>, Closeable {
+
+	/** Elements which are returned without their children. */
+	protected static final String[] CONTAINER_ELEMENTS = {"LexicalResource", "Lexicon"};
+
+	protected InputStream inputStream;
+	protected XMLStreamReader xmlReader;
+	protected List<Class<?>> containers; // Classes of the currently open container elements
+	protected Object next;
+	protected Map<Class<?>, ElementMetadata> metadata;
+
+	/** Instanciates a new reader for the given UBY-XML file. */
+	public LMFXMLReader(final File xmlFile)
+			throws FileNotFoundException, XMLStreamException {
+		this(new BufferedInputStream(new FileInputStream(xmlFile)));
+	}
+
+	/** Instanciates a new reader for the given UBY-XML input stream. The
+	 *  stream is closed along with the reader. */
+	public LMFXMLReader(final InputStream inputStream) throws XMLStreamException {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+		factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.FALSE);
+		this.inputStream = inputStream;
+		xmlReader = factory.createXMLStreamReader(inputStream);
+		containers = new ArrayList<Class<?>>();
+		metadata = new HashMap<Class<?>, ElementMetadata>();
+	}
+
+	/** Returns the next UBY-LMF object of the XML file or null if the end
+	 *  of the file has been reached. The reader is closed automatically
+	 *  at the end of the file. */
+	public Object read() throws XMLStreamException {
+		if (next != null) {
+			Object result = next;
+			next = null;
+			return result;
+		}
+		if (xmlReader == null) {
+			return null;
+		}
+
+		while (xmlReader.hasNext()) {
+			int event = xmlReader.next();
+			if (event == XMLStreamConstants.END_ELEMENT) {
+				if (!containers.isEmpty()) {
+					containers.remove(containers.size() - 1);
+				}
+				continue;
+			}
+			if (event != XMLStreamConstants.START_ELEMENT) {
+				continue;
+			}
+
+			String name = xmlReader.getLocalName();
+			Class<?> clazz;
+			if (containers.isEmpty()) {
+				clazz = ("LexicalResource".equals(name) ? LexicalResource.class : null);
+			}
+			else {
+				UBYLMFFieldMetadata fieldMeta = getElementMetadata(
+						containers.get(containers.size() - 1)).children.get(name);
+				clazz = (fieldMeta == null ? null : getElementClass(fieldMeta));
+			}
+			if (clazz == null) {
+				skipElement();
+				continue;
+			}
+
+			if (isContainer(name)) {
+				// Return the attributes only and continue with the children.
+				Object result = newInstance(clazz);
+				readAttributes(result, getElementMetadata(clazz));
+				containers.add(clazz);
+				return result;
+			}
+			return readElement(clazz);
+		}
+
+		close();
+		return null;
+	}
+
+	/** Returns an iterator over the remaining UBY-LMF objects of the
+	 *  given type, e.g., <code>LexicalEntry.class</code>. Objects of
+	 *  other types are skipped. */
+	public <T> Iterator<T> iterator(final Class<T> clazz) {
+		return new Iterator<T>() {
+			protected T nextObject;
+
+			@Override
+			public boolean hasNext() {
+				while (nextObject == null && LMFXMLReader.this.hasNext()) {
+					Object obj = LMFXMLReader.this.next();
+					if (clazz.isInstance(obj)) {
+						nextObject = clazz.cast(obj);
+					}
+				}
+				return nextObject != null;
+			}
+
+			@Override
+			public T next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				T result = nextObject;
+				nextObject = null;
+				return result;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (next == null) {
+			try {
+				next = read();
+			}
+			catch (XMLStreamException e) {
+				throw new IllegalStateException("Unable to read XML", e);
+			}
+		}
+		return next != null;
+	}
+
+	@Override
+	public Object next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		Object result = next;
+		next = null;
+		return result;
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	/** Closes the XML stream and the underlying input stream. */
+	@Override
+	public void close() {
+		if (xmlReader == null) {
+			return;
+		}
+		try {
+			xmlReader.close();
+			inputStream.close();
+		}
+		catch (XMLStreamException e) {
+			throw new IllegalStateException("Unable to close XML", e);
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Unable to close XML", e);
+		}
+		finally {
+			xmlReader = null;
+		}
+	}
+
+	/** Converts the current element and all of its children to a new
+	 *  instance of the given class. When returning, the reader is
+	 *  positioned at the end tag of the element. */
+	protected Object readElement(final Class<?> clazz) throws XMLStreamException {
+		Object lmfObject = newInstance(clazz);
+		ElementMetadata elementMeta = getElementMetadata(clazz);
+		readAttributes(lmfObject, elementMeta);
+
+		// Lists are set even if they remain empty.
+		Map<UBYLMFFieldMetadata, List<Object>> lists = new HashMap<UBYLMFFieldMetadata, List<Object>>();
+		for (UBYLMFFieldMetadata fieldMeta : elementMeta.lists) {
+			lists.put(fieldMeta, new ArrayList<Object>());
+		}
+
+		while (true) {
+			int event = xmlReader.next();
+			if (event == XMLStreamConstants.END_ELEMENT) {
+				break;
+			}
+			if (event != XMLStreamConstants.START_ELEMENT) {
+				continue;
+			}
+
+			UBYLMFFieldMetadata fieldMeta = elementMeta.children.get(xmlReader.getLocalName());
+			if (fieldMeta == null) {
+				skipElement();
+			}
+			else
+			if (fieldMeta.getVarType() == EVarType.CHILDREN) {
+				lists.get(fieldMeta).add(readElement(fieldMeta.getGenericElementType()));
+			}
+			else
+			if (fieldMeta.getValue(lmfObject) == null) {
+				fieldMeta.setValue(lmfObject, readElement(fieldMeta.getType()));
+			}
+			else {
+				skipElement(); // Only the first child is used.
+			}
+		}
+
+		for (Map.Entry<UBYLMFFieldMetadata, List<Object>> entry : lists.entrySet()) {
+			entry.getKey().setValue(lmfObject, entry.getValue());
+		}
+		return lmfObject;
+	}
+
+	/** Sets the fields of the given object from the attributes of the
+	 *  current element. */
+	protected void readAttributes(final Object lmfObject,
+			final ElementMetadata elementMeta) {
+		for (int i = 0; i < xmlReader.getAttributeCount(); i++) {
+			UBYLMFFieldMetadata fieldMeta = elementMeta.attributes.get(
+					xmlReader.getAttributeLocalName(i));
+			String value = xmlReader.getAttributeValue(i);
+			if (fieldMeta == null || "NULL".equals(value)) {
+				continue;
+			}
+
+			value = StringUtils.replaceNonUtf8(value);
+			fieldMeta.setValue(lmfObject, convertAttribute(fieldMeta, value));
+		}
+	}
+
+	/** Converts the given attribute value to the type of the given
+	 *  field. Returns null if the value is empty and the field refers to
+	 *  other elements. */
+	protected static Object convertAttribute(final UBYLMFFieldMetadata fieldMeta,
+			final String value) {
+		switch (fieldMeta.getVarType()) {
+			case IDREF:
+				if (value.isEmpty()) {
+					return null;
+				}
+				IHasID idref = (IHasID) newInstance(fieldMeta.getType());
+				idref.setId(value);
+				return idref;
+
+			case IDREFS:
+				if (value.isEmpty()) {
+					return null;
+				}
+				List<Object> idrefList = new ArrayList<Object>();
+				int start = 0;
+				while (start < value.length()) {
+					int end = value.indexOf(' ', start);
+					if (end < 0) {
+						end = value.length();
+					}
+					IHasID obj = (IHasID) newInstance(fieldMeta.getGenericElementType());
+					obj.setId(value.substring(start, end));
+					idrefList.add(obj);
+					start = end + 1;
+				}
+				return idrefList;
+
+			default:
+				if (fieldMeta.isBoolean()) {
+					return GenericUtils.getBoolean(value);
+				}
+				else
+				if (fieldMeta.isInteger()) {
+					return GenericUtils.getInteger(value);
+				}
+				else
+				if (fieldMeta.isDouble()) {
+					return GenericUtils.getDouble(value);
+				}
+				else
+				if (fieldMeta.isEnum()) {
+					return GenericUtils.getEnum(fieldMeta.getType(), value);
+				}
+				else
+				if (fieldMeta.isDate()) {
+					return GenericUtils.getDate(value);
+				}
+				return value;
+		}
+	}
+
+	/** Skips the current element including all of its children. */
+	protected void skipElement() throws XMLStreamException {
+		int depth = 1;
+		while (depth > 0) {
+			int event = xmlReader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				depth++;
+			}
+			else
+			if (event == XMLStreamConstants.END_ELEMENT) {
+				depth--;
+			}
+		}
+	}
+
+	protected static boolean isContainer(final String name) {
+		for (String container : CONTAINER_ELEMENTS) {
+			if (container.equals(name)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	protected static Class<?> getElementClass(final UBYLMFFieldMetadata fieldMeta) {
+		if (fieldMeta.getVarType() == EVarType.CHILDREN) {
+			return fieldMeta.getGenericElementType();
+		}
+		return fieldMeta.getType();
+	}
+
+	protected static Object newInstance(final Class<?> clazz) {
+		try {
+			return clazz.newInstance();
+		}
+		catch (InstantiationException e) {
+			throw new IllegalArgumentException("Unable to instanciate " + clazz, e);
+		}
+		catch (IllegalAccessException e) {
+			throw new IllegalArgumentException("Unable to instanciate " + clazz, e);
+		}
+	}
+
+	/** Returns the mapping of XML attributes and child elements to the
+	 *  fields of the given class. */
+	protected ElementMetadata getElementMetadata(final Class<?> clazz) {
+		ElementMetadata result = metadata.get(clazz);
+		if (result == null) {
+			result = new ElementMetadata(new UBYLMFClassMetadata(clazz));
+			metadata.put(clazz, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Fields of an LMF class indexed by the name of the XML attribute or
+	 * child element they are read from.
+	 */
+	protected static class ElementMetadata {
+
+		protected Map<String, UBYLMFFieldMetadata> attributes;
+		protected Map<String, UBYLMFFieldMetadata> children;
+		protected List<UBYLMFFieldMetadata> lists;
+
+		protected ElementMetadata(final UBYLMFClassMetadata classMeta) {
+			attributes = new HashMap<String, UBYLMFFieldMetadata>();
+			children = new HashMap<String, UBYLMFFieldMetadata>();
+			lists = new ArrayList<UBYLMFFieldMetadata>();
+			for (UBYLMFFieldMetadata fieldMeta : classMeta.getFields()) {
+				switch (fieldMeta.getVarType()) {
+					case ATTRIBUTE:
+					case ATTRIBUTE_OPTIONAL:
+					case IDREF:
+					case IDREFS:
+						attributes.put(fieldMeta.getName().replace("_", ""), fieldMeta);
+						break;
+
+					case CHILD:
+						children.put(fieldMeta.getType().getSimpleName(), fieldMeta);
+						break;
+
+					case CHILDREN:
+						Class<?> elementClass = fieldMeta.getGenericElementType();
+						if (elementClass == null) {
+							throw new IllegalArgumentException("Unable to obtain list element class for field " + fieldMeta.getName());
+						}
+						children.put(elementClass.getSimpleName(), fieldMeta);
+						lists.add(fieldMeta);
+						break;
+
+					case NONE:
+						break;
+				}
+			}
+		}
+	}
+
+}
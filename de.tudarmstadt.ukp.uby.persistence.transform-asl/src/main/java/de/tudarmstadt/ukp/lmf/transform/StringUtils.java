@@ -51,13 +51,37 @@ public class StringUtils {
 	}
 	
 	/**
-	 * Removes all UTF8 characters that cause errors in MySQL database
+	 * Removes all UTF8 characters that cause errors in MySQL database,
+	 * i.e., replaces each character outside the basic multilingual plane
+	 * with a question mark. The text is returned unchanged if it does
+	 * not contain such characters.
 	 * @param text
 	 * @return
 	 */
 	public static String replaceNonUtf8(String text){
-		text = text.replaceAll("[^\\u0000-\\uFFFF]", "?");
-		return text;
+		int length = text.length();
+		int i = 0;
+		while (i < length && !isSurrogatePair(text, i))
+			i++;
+		if (i == length)
+			return text;
+		
+		StringBuilder result = new StringBuilder(length);
+		result.append(text, 0, i);
+		while (i < length) {
+			if (isSurrogatePair(text, i)) {
+				result.append('?');
+				i += 2;
+			} else
+				result.append(text.charAt(i++));
+		}
+		return result.toString();
+	}
+	
+	private static boolean isSurrogatePair(String text, int index){
+		return Character.isHighSurrogate(text.charAt(index))
+				&& index + 1 < text.length()
+				&& Character.isLowSurrogate(text.charAt(index + 1));
 	}
 	
 	/**
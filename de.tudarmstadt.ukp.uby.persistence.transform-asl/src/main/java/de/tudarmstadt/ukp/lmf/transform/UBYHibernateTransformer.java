@@ -17,9 +17,11 @@
  ******************************************************************************/
 package de.tudarmstadt.ukp.lmf.transform;
 
-import java.lang.reflect.Method;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
@@ -42,10 +44,50 @@ public abstract class UBYHibernateTransformer extends UBYXMLTransformer {
 	protected Session session;
 	protected Transaction tx;
 	protected SessionFactory sessionFactory;	
+	protected Configuration cfg;
+	protected DBConfig dbConfig;
+
+	/** True if indexes are created after the transformation. */
+	protected boolean deferIndexes;
+
+	/** Writer of the top-level elements if JDBC bulk inserts are enabled. */
+	protected JdbcBulkWriter bulkWriter;
+	protected boolean bulkInsert;
+	protected Map<String, AtomicLong> bulkIdCounters;
+
+	/** Maximum number of connections of the pool of the session factory. */
+	protected int connectionPoolSize;
 
 	public UBYHibernateTransformer(final DBConfig dbConfig) {
 		super();
-		Configuration cfg = HibernateConnect.getConfiguration(dbConfig);
+		this.dbConfig = dbConfig;
+		cfg = HibernateConnect.getConfiguration(dbConfig);
+		bulkIdCounters = new ConcurrentHashMap<String, AtomicLong>();
+		connectionPoolSize = dbConfig.getConnectionPoolSize();
+		sessionFactory = cfg.buildSessionFactory(
+				new ServiceRegistryBuilder().applySettings(
+				cfg.getProperties()).buildServiceRegistry());
+	}
+
+	/** Rebuilds the session factory with a connection pool of at least the
+	 *  given number of connections if its pool is smaller, like 
+	 *  {@link LMFDBUtils#createIndexes(DBConfig, int)} does for its threads.
+	 *  Transformations holding several sessions at once (e.g., one per 
+	 *  thread) need to call this method before opening the first session,
+	 *  since the pool defaults to {@link DBConfig#getConnectionPoolSize()} 
+	 *  connections, and sessions waiting for a connection would otherwise
+	 *  block each other. 
+	 *  @throws IllegalStateException if the main session is still open. */
+	protected void ensureConnectionPoolSize(final int connections) {
+		if (connections <= connectionPoolSize)
+			return;
+		if (session != null && session.isOpen())
+			throw new IllegalStateException("Cannot resize the connection pool "
+					+ "while a session is open");
+
+		sessionFactory.close();
+		cfg.setProperty("hibernate.c3p0.max_size", Integer.toString(connections));
+		connectionPoolSize = connections;
 		sessionFactory = cfg.buildSessionFactory(
 				new ServiceRegistryBuilder().applySettings(
 				cfg.getProperties()).buildServiceRegistry());
@@ -58,6 +100,14 @@ public abstract class UBYHibernateTransformer extends UBYXMLTransformer {
 	@SuppressWarnings({"rawtypes", "unchecked"})
 	protected void saveListElement(final Object parent, final List list, 
 			final Object child) {
+		if (bulkWriter != null) {
+			// The child is neither added to the list nor to the session.
+			bulkWriter.save(child, parent, list);
+			commitCounter++;
+			if(commitCounter % COMMIT_STEP == 0)
+				commit();
+			return;
+		}
 		list.add(child);
 		saveCascade(child, parent);
 		commitCounter++;
@@ -83,6 +133,14 @@ public abstract class UBYHibernateTransformer extends UBYXMLTransformer {
 	 *  For objects implementing the {@link IHasParentSpecificTable} interface,
 	 *  a parent should be specified, which is used to derive the table name. */
 	protected void saveCascade(final Object obj, final Object parent){
+		saveCascade(session, obj, parent);
+	}
+
+	/** Saves the specified object and all its children to the given Hibernate
+	 *  session. This allows saving objects in sessions other than the main
+	 *  session of this transformer, e.g., in the sessions of writer threads. */
+	protected void saveCascade(final Session session, final Object obj,
+			final Object parent){
 		Class<?> objClass = obj.getClass();
 		obj.toString();	// It can happen that a Hibernate object is not initialized properly
 						// --> force initialization of object by calling its toString() method
@@ -100,10 +158,9 @@ public abstract class UBYHibernateTransformer extends UBYXMLTransformer {
 			if (varType != EVarType.CHILDREN && varType != EVarType.CHILD)
 				continue;
 			
-			Method getter = fieldMeta.getGetter();
 			Object retObj = null;
 			try {
-				retObj = getter.invoke(obj);
+				retObj = fieldMeta.getValue(obj);
 			} catch (Exception e) {
 				e.printStackTrace();
 			}
@@ -111,11 +168,11 @@ public abstract class UBYHibernateTransformer extends UBYXMLTransformer {
 				continue;
 			
 			if (varType == EVarType.CHILD)
-				saveCascade(retObj, obj);
+				saveCascade(session, retObj, obj);
 			else 
 			if (varType == EVarType.CHILDREN)
 				for (Object el : (Iterable<?>) retObj)
-					saveCascade(el, obj);
+					saveCascade(session, el, obj);
 		}
 		
 		try {
@@ -140,14 +197,69 @@ public abstract class UBYHibernateTransformer extends UBYXMLTransformer {
 		return session.get(clazz, id);
 	}
 
+	/** Enables or disables JDBC bulk inserts. If enabled, the elements saved
+	 *  by {@link #saveListElement(Object, List, Object)} are written with 
+	 *  multi-row JDBC inserts by a {@link JdbcBulkWriter} instead of being 
+	 *  saved to the Hibernate session. The lexical resource and the lexicons
+	 *  are always saved using Hibernate. Needs to be set before the 
+	 *  transformation is started. */
+	public void setBulkInsert(final boolean bulkInsert) {
+		this.bulkInsert = bulkInsert;
+	}
+
+	/** Returns true if JDBC bulk inserts are enabled. */
+	public boolean isBulkInsert() {
+		return bulkInsert;
+	}
+
+	/** Enables or disables deferred index creation. If enabled, the 
+	 *  secondary indexes and foreign key constraints are removed before the 
+	 *  transformation and built in one pass afterwards, which avoids 
+	 *  maintaining them for each inserted row (see {@link LMFDBUtils}). 
+	 *  Other clients should not use the database during the transformation. */
+	public void setDeferIndexes(final boolean deferIndexes) {
+		this.deferIndexes = deferIndexes;
+	}
+
+	/** Returns true if indexes are created after the transformation. */
+	public boolean isDeferIndexes() {
+		return deferIndexes;
+	}
+
+	/** Removes the indexes of the database if deferred index creation is 
+	 *  enabled. Called before the transformation starts. */
+	protected void beginBulkLoad() {
+		if (deferIndexes)
+			LMFDBUtils.dropIndexes(dbConfig);
+	}
+
+	/** Creates the indexes of the database if deferred index creation is 
+	 *  enabled. Called after the transformation is finished. */
+	protected void endBulkLoad() {
+		if (deferIndexes)
+			LMFDBUtils.createIndexes(dbConfig, 
+					Runtime.getRuntime().availableProcessors());
+	}
+
+	/** Creates a new {@link JdbcBulkWriter} using the given session. All 
+	 *  writers created by this transformer share their identifier counters. */
+	protected JdbcBulkWriter createBulkWriter(final Session session) {
+		return new JdbcBulkWriter(cfg, session, bulkIdCounters);
+	}
+
 	/** Opens a Hibernate session. */
 	protected void openSession() {
 		session = sessionFactory.openSession();
 		tx = session.beginTransaction();
+		bulkWriter = (bulkInsert ? createBulkWriter(session) : null);
 	}
 
 	/** Closes the Hibernate session. */
 	protected void closeSession() {
+		if (bulkWriter != null) {
+			bulkWriter.flush();
+			bulkWriter = null;
+		}
 		tx.commit();
 		session.close();
 	}
@@ -155,6 +267,8 @@ public abstract class UBYHibernateTransformer extends UBYXMLTransformer {
 	/** Commits changes made to the Hibernate session. */
 	protected void commit() {
 		System.out.println(new Date(System.currentTimeMillis()) + ": COMMIT " + commitCounter);
+		if (bulkWriter != null)
+			bulkWriter.flush();
 		tx.commit();
 		tx = session.beginTransaction();
 	}
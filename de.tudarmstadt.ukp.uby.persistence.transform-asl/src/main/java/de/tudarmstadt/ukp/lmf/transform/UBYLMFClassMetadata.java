@@ -27,6 +27,7 @@ import java.util.List;
 import java.util.Map;
 
 import de.tudarmstadt.ukp.lmf.model.miscellaneous.EVarType;
+import de.tudarmstadt.ukp.lmf.model.miscellaneous.FieldAccessor;
 import de.tudarmstadt.ukp.lmf.model.miscellaneous.VarType;
 
 /**
@@ -36,7 +37,9 @@ import de.tudarmstadt.ukp.lmf.model.miscellaneous.VarType;
  * than obtaining this kind of information over and over again (which would
  * slow down the application's performance), it is recommended to obtain
  * this meta information just once and store it in a cache (e.g., a simple
- * {@link Map}) using this class as a data model.
+ * {@link Map}) using this class as a data model. The getters and setters
+ * are additionally compiled into a {@link FieldAccessor}, which should be
+ * used for reading and writing the fields of many objects.
  * @author Christian M. Meyer
  */
 public class UBYLMFClassMetadata {
@@ -56,10 +59,11 @@ public class UBYLMFClassMetadata {
 		protected EVarType varType;
 		protected Method getter;
 		protected Method setter;
+		protected FieldAccessor accessor;
 
 		/** Instanciates a new field metadata cache for the given
 		 *  field. This involves determining the field's type, getter,
-		 *  and setter. For parameterized types, the given
+		 *  setter, and accessor. For parameterized types, the given
 		 *  actual type will be used which should match the generic
 		 *  parameter of the enclosing subclass. */
 		protected UBYLMFFieldMetadata(final Field field, final Class<?> actualType) {
@@ -113,6 +117,7 @@ public class UBYLMFClassMetadata {
                     setter = method;
                 }
 			}
+			accessor = FieldAccessor.forMethods(field.getName(), getter, setter);
 		}
 
 		/** Returns the name of the field. Shorthand for
@@ -183,6 +188,24 @@ public class UBYLMFClassMetadata {
 			return setter;
 		}
 
+		/** Returns the accessor invoking the getter and setter of this
+		 *  field or null if the field has no variable type. */
+		public FieldAccessor getAccessor() {
+			return accessor;
+		}
+
+		/** Returns the value of this field for the given object using
+		 *  the precompiled getter. */
+		public Object getValue(final Object object) {
+			return accessor.get(object);
+		}
+
+		/** Sets the value of this field for the given object using
+		 *  the precompiled setter. */
+		public void setValue(final Object object, final Object value) {
+			accessor.set(object, value);
+		}
+
 	}
 
 
@@ -20,6 +20,7 @@ package de.tudarmstadt.ukp.lmf.transform;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Abstract base class for all transformations of lexical resources. 
@@ -41,7 +42,7 @@ public abstract class UBYTransformer {
 
 	public UBYTransformer() {
 		commitCounter = 0;
-		metadata = new HashMap<Class<?>, UBYLMFClassMetadata>();
+		metadata = new ConcurrentHashMap<Class<?>, UBYLMFClassMetadata>();
 		
 		idMapping = new TreeMap<String, String>();
 		currentClassId = new HashMap<Class<?>, Long>();
@@ -49,7 +50,8 @@ public abstract class UBYTransformer {
 
 	/** Returns LMF class metadata for the specified class type. If the
 	 *  metadata information is not yet in the cache, it will be newly
-	 *  created using the reflection API. */
+	 *  created using the reflection API. The cache may be accessed by
+	 *  several threads. */
 	protected UBYLMFClassMetadata getClassMetadata(final Class<?> clazz) {
 		UBYLMFClassMetadata result = metadata.get(clazz);
 		if (result != null)
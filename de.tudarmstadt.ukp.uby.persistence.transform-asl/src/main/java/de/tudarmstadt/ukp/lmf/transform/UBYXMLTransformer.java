@@ -18,8 +18,6 @@
 package de.tudarmstadt.ukp.lmf.transform;
 
 import java.io.OutputStream;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -52,12 +50,20 @@ public abstract class UBYXMLTransformer extends UBYTransformer {
 	/** Creates XML TransformerHandler. */
 	protected void writeStartDocument(final OutputStream outputStream,
 			final String dtdPath) throws SAXException {
+		writeStartDocument(outputStream, dtdPath, true);
+	}
+
+	/** Creates XML TransformerHandler, which writes the XML declaration
+	 *  only if xmlDeclaration is true. */
+	protected void writeStartDocument(final OutputStream outputStream,
+			final String dtdPath, final boolean xmlDeclaration) throws SAXException {
 		try {
 			SAXTransformerFactory tf = (SAXTransformerFactory) TransformerFactory.newInstance();
 			th = tf.newTransformerHandler();
 			Transformer serializer = th.getTransformer();
 			serializer.setOutputProperty(OutputKeys.METHOD, "xml");
-			serializer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "no");
+			serializer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION,
+					xmlDeclaration ? "no" : "yes");
 			serializer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
 			if (dtdPath != null)
 				serializer.setOutputProperty(OutputKeys.DOCTYPE_SYSTEM, dtdPath);
@@ -117,13 +123,10 @@ public abstract class UBYXMLTransformer extends UBYTransformer {
 				continue;
 
 			String xmlFieldName = fieldMeta.getName().replace("_", "");
-			Method getter = fieldMeta.getGetter();
 			Object retObj;
 			try {
-				retObj = getter.invoke(lmfObject);
-			} catch (IllegalAccessException e) {
-				throw new SAXException(e);
-			} catch (InvocationTargetException e) {
+				retObj = fieldMeta.getValue(lmfObject);
+			} catch (RuntimeException e) {
 				throw new SAXException(e);
 			}
 			
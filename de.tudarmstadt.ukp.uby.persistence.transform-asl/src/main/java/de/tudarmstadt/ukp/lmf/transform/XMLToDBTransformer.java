@@ -19,28 +19,35 @@
 package de.tudarmstadt.ukp.lmf.transform;
 
 import java.io.File;
-import java.io.IOException;
-import java.io.StringReader;
-import java.lang.reflect.Method;
+import java.io.FileNotFoundException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import javax.xml.stream.XMLStreamException;
 
-import org.dom4j.Attribute;
 import org.dom4j.DocumentException;
-import org.dom4j.Element;
-import org.dom4j.ElementHandler;
-import org.dom4j.ElementPath;
-import org.dom4j.io.SAXReader;
-import org.xml.sax.EntityResolver;
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.jdbc.Work;
+import org.hibernate.persister.collection.AbstractCollectionPersister;
 
 import de.tudarmstadt.ukp.lmf.model.core.GlobalInformation;
 import de.tudarmstadt.ukp.lmf.model.core.LexicalEntry;
 import de.tudarmstadt.ukp.lmf.model.core.LexicalResource;
 import de.tudarmstadt.ukp.lmf.model.core.Lexicon;
-import de.tudarmstadt.ukp.lmf.model.interfaces.IHasID;
 import de.tudarmstadt.ukp.lmf.model.meta.MetaData;
 import de.tudarmstadt.ukp.lmf.model.miscellaneous.ConstraintSet;
 import de.tudarmstadt.ukp.lmf.model.multilingual.PredicateArgumentAxis;
@@ -54,17 +61,41 @@ import de.tudarmstadt.ukp.lmf.transform.UBYLMFClassMetadata.UBYLMFFieldMetadata;
 
 /**
  * Converts a given lexical resource from a UBY-XML file to a UBY database
- * using Hibernate.
+ * using Hibernate. The XML file is read by an {@link LMFXMLReader}, which
+ * converts one top-level element at a time. The transformation either runs
+ * in a single session or in a pipelined mode, in which the XML file is parsed
+ * by the calling thread while batches of top-level elements are saved by a
+ * pool of writer threads (see {@link #transform(File, String, int)}).
  * @author Yevgen Chebotar
  * @author Christian M. Meyer
  */
-public class XMLToDBTransformer extends UBYHibernateTransformer
-		implements ElementHandler {
+public class XMLToDBTransformer extends UBYHibernateTransformer {
+
+	/** Interceptor of the writer sessions which treats all objects not
+	 *  contained in the session as already saved. Elements refer to other
+	 *  elements (IDREF) by instances having only their ID, which might be
+	 *  saved concurrently by another writer thread. */
+	protected static final EmptyInterceptor REFERENCE_INTERCEPTOR = new EmptyInterceptor() {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public Boolean isTransient(final Object entity) {
+			return Boolean.FALSE;
+		}
+	};
 
 	protected LexicalResource lexicalResource; // Current lexical resource
 	protected Lexicon lexicon; // Current lexicon
 	protected boolean externalLexicalResource;
 
+	protected ExecutorService writerPool; // Writer threads of the pipelined mode
+	protected Semaphore writerSlots; // Bounds the number of batches in memory
+	protected List<Future<Object>> pendingBatches; // Batches not yet awaited
+	protected List<Object> batch; // Elements of the next batch
+	protected Object batchParent; // Parent of the elements of the next batch
+	protected String batchProperty; // List property of the parent
+	protected int batchIndex; // List index of the first element of the next batch
+
 	public XMLToDBTransformer(final DBConfig dbConfig) {
 		super(dbConfig);
 	}
@@ -77,256 +108,378 @@ public class XMLToDBTransformer extends UBYHibernateTransformer
 	 * @throws UbyInvalidArgumentException
 	 */
 	public void transform(File xmlFile, String lexicalResourceName) throws DocumentException, IllegalArgumentException{
+		transform(xmlFile, lexicalResourceName, 1);
+	}
+
+	/**
+	 * Read xml File and save its contents to Database using the specified
+	 * number of writer threads. If more than one writer thread is used, the
+	 * calling thread only parses the XML file and converts its elements to
+	 * UBY-LMF objects, while the writer threads save batches of
+	 * {@value UBYTransformer#COMMIT_STEP} top-level elements, each batch in its own
+	 * session and transaction. All batches of a lexicon (or of the lexical
+	 * resource) are completely saved before the elements of the next one are
+	 * submitted, so that e.g. sense axes are only saved after the senses
+	 * they refer to. If deferred index creation is enabled by
+	 * {@link #setDeferIndexes(boolean)}, the indexes are built after all
+	 * elements have been saved. As the main session stays open while the 
+	 * writer threads save their batches, writerThreads + 1 connections are
+	 * needed; the connection pool is enlarged accordingly if
+	 * {@link DBConfig#getConnectionPoolSize()} is smaller.
+	 * @param xmlFile
+	 * @param lexicalResourceName
+	 * @param writerThreads number of threads saving the elements
+	 * @throws DocumentException
+	 * @throws IllegalArgumentException if writerThreads is less than one
+	 */
+	public void transform(File xmlFile, String lexicalResourceName,
+			int writerThreads) throws DocumentException, IllegalArgumentException{
+		LMFXMLReader reader;
+		try {
+			reader = new LMFXMLReader(xmlFile);
+		}
+		catch (FileNotFoundException e) {
+			throw new DocumentException(e);
+		}
+		catch (XMLStreamException e) {
+			throw new DocumentException(e);
+		}
+		transform(reader, lexicalResourceName, writerThreads);
+	}
+
+	/**
+	 * Save the UBY-LMF objects of the given reader to Database using the
+	 * specified number of writer threads (see
+	 * {@link #transform(File, String, int)}). The reader is closed
+	 * afterwards.
+	 * @param reader
+	 * @param lexicalResourceName
+	 * @param writerThreads number of threads saving the elements
+	 * @throws DocumentException if the XML cannot be read
+	 * @throws IllegalArgumentException if writerThreads is less than one
+	 */
+	public void transform(LMFXMLReader reader, String lexicalResourceName,
+			int writerThreads) throws DocumentException, IllegalArgumentException{
+		if (writerThreads < 1) {
+			throw new IllegalArgumentException("writerThreads must be positive");
+		}
 		long startTime = System.currentTimeMillis();
 
+		if (writerThreads > 1)
+			ensureConnectionPoolSize(writerThreads + 1);
+		beginBulkLoad();
 		openSession();
+		if (writerThreads > 1) {
+			writerPool = Executors.newFixedThreadPool(writerThreads);
+			writerSlots = new Semaphore(2 * writerThreads);
+			pendingBatches = new ArrayList<Future<Object>>();
+			batch = new ArrayList<Object>();
+			batchParent = null;
+			batchProperty = null;
+		}
 
 		if (lexicalResourceName != null) {
             lexicalResource = (LexicalResource) session.get(LexicalResource.class, lexicalResourceName);
         }
 
-		SAXReader reader = new SAXReader(false);
-		reader.setEntityResolver(new EntityResolver() {
-			@Override
-			public InputSource resolveEntity(String publicId, String systemId)
-					throws SAXException, IOException {
-				if (systemId.endsWith(".dtd")) {
-                    return new InputSource(new StringReader(""));
-                }
-				return null;
+		try {
+			Object lmfObject;
+			while ((lmfObject = reader.read()) != null) {
+				saveObject(lmfObject);
+			}
+			if (writerPool != null) {
+				submitBatch();
+				awaitBatches();
+			}
+		}
+		catch (XMLStreamException e) {
+			throw new DocumentException(e);
+		}
+		finally {
+			reader.close();
+			if (writerPool != null) {
+				writerPool.shutdownNow();
+				writerPool = null;
 			}
-		});
-		reader.setDefaultHandler(this);
-		reader.read(xmlFile);
+		}
 
 		commit();
 		closeSession();
+		endBulkLoad();
 
 		System.out.println("TOTAL TIME: " + (System.currentTimeMillis() - startTime));
 		System.out.println("NUM ENTRIES: " + commitCounter);
 	}
 
-	@Override
-	public void onStart(ElementPath epath) {
-		Element el = epath.getCurrent();
-		String n = el.getName();
-
-		// Remove empty attributes and invalid characters.
-		Iterator<?> attrIter = el.attributeIterator();
-		while (attrIter.hasNext()) {
-			Attribute attr = (Attribute) attrIter.next();
-			if ("NULL".equals(attr.getStringValue())) {
-                attrIter.remove();
-            }
-            else {
-                attr.setValue(StringUtils.replaceNonUtf8(attr.getValue()));
-            }
-		}
-
-		if ("LexicalResource".equals(n)) {
-			// If no lexical resource exists yet, create a new one.
+	/** Saves an object returned by the {@link LMFXMLReader}. The lexical
+	 *  resource and the lexicons are saved without their children, all
+	 *  other objects are added to the current lexicon or lexical resource. */
+	protected void saveObject(final Object lmfObject) {
+		if (lmfObject instanceof LexicalResource) {
+			// If no lexical resource exists yet, use the new one.
 			if (lexicalResource == null){
-				lexicalResource = new LexicalResource();
-				lexicalResource.setName(el.attributeValue("name"));
-				lexicalResource.setDtdVersion(el.attributeValue("dtdVersion"));
+				lexicalResource = (LexicalResource) lmfObject;
 				session.save(lexicalResource);
 			}
             else {
                 externalLexicalResource = true;
             }
 		} else
-		if ("Lexicon".equals(n)) {
-			// Create a new, empty lexicon.
-			lexicon = new Lexicon();
-			lexicon.setId(el.attributeValue("id"));
-			lexicon.setName(el.attributeValue("name"));
-			lexicon.setLanguageIdentifier(el.attributeValue("languageIdentifier"));
+		if (lmfObject instanceof Lexicon) {
+			// Save the new, empty lexicon.
+			lexicon = (Lexicon) lmfObject;
 			lexicalResource.addLexicon(lexicon);
 			saveCascade(lexicon, lexicalResource);
         }
         // Save some global information if we're using a new lexical resource.
-        else if ("GlobalInformation".equals(n) && !externalLexicalResource) {
-            GlobalInformation glInformation = new GlobalInformation();
-            glInformation.setLabel(el.attributeValue("label"));
-            lexicalResource.setGlobalInformation(glInformation);
-            saveCascade(glInformation, lexicalResource);
-            commit();
-            lexicalResource.setGlobalInformation(null);
-        }
-	}
+        else if (lmfObject instanceof GlobalInformation) {
+            if (!externalLexicalResource) {
+                lexicalResource.setGlobalInformation((GlobalInformation) lmfObject);
+                saveCascade(lmfObject, lexicalResource);
+                commit();
+                lexicalResource.setGlobalInformation(null);
+            }
+        } else
 
-	@Override
-	public void onEnd(ElementPath epath) {
-		Element el = epath.getCurrent();
-		String n = el.getName();
-		Object listElement = null;
-
-		// Create instances for all direct children of Lexicon.
-		if ("LexicalEntry".equals(n)) {
-			listElement = fromXmlToObject(el, LexicalEntry.class);
-			saveListElement(lexicon, lexicon.getLexicalEntries(), listElement);
+		// Save all direct children of Lexicon.
+		if (lmfObject instanceof LexicalEntry) {
+			saveListElement(lexicon, lexicon.getLexicalEntries(), "lexicalEntries", lmfObject);
 		} else
-		if ("SemanticPredicate".equals(n)) {
-			listElement = fromXmlToObject(el, SemanticPredicate.class);
-			saveListElement(lexicon, lexicon.getSemanticPredicates(), listElement);
+		if (lmfObject instanceof SemanticPredicate) {
+			saveListElement(lexicon, lexicon.getSemanticPredicates(), "semanticPredicates", lmfObject);
 		} else
-		if ("SubcategorizationFrame".equals(n)) {
-			listElement = fromXmlToObject(el, SubcategorizationFrame.class);
-			saveListElement(lexicon, lexicon.getSubcategorizationFrames(), listElement);
+		if (lmfObject instanceof SubcategorizationFrame) {
+			saveListElement(lexicon, lexicon.getSubcategorizationFrames(), "subcategorizationFrames", lmfObject);
 		} else
-		if ("SubcategorizationFrameSet".equals(n)) {
-			listElement = fromXmlToObject(el, SubcategorizationFrameSet.class);
-			saveListElement(lexicon, lexicon.getSubcategorizationFrameSets(), listElement);
+		if (lmfObject instanceof SubcategorizationFrameSet) {
+			saveListElement(lexicon, lexicon.getSubcategorizationFrameSets(), "subcategorizationFrameSets", lmfObject);
 		} else
-		if ("SynSemCorrespondence".equals(n)) {
-			listElement = fromXmlToObject(el, SynSemCorrespondence.class);
-			saveListElement(lexicon, lexicon.getSynSemCorrespondences(), listElement);
+		if (lmfObject instanceof SynSemCorrespondence) {
+			saveListElement(lexicon, lexicon.getSynSemCorrespondences(), "synSemCorrespondences", lmfObject);
 		} else
-		if ("Synset".equals(n)) {
-			listElement = fromXmlToObject(el, Synset.class);
-			saveListElement(lexicon, lexicon.getSynsets(), listElement);
+		if (lmfObject instanceof Synset) {
+			saveListElement(lexicon, lexicon.getSynsets(), "synsets", lmfObject);
 		} else
-		if ("ConstraintSet".equals(n)) {
-			listElement = fromXmlToObject(el, ConstraintSet.class);
-			saveListElement(lexicon, lexicon.getConstraintSets(), listElement);
+		if (lmfObject instanceof ConstraintSet) {
+			saveListElement(lexicon, lexicon.getConstraintSets(), "constraintSets", lmfObject);
 		} else
 
-		// Create instances for all direct children of LexicalResource.
-		if ("SenseAxis".equals(n)) {
-			listElement = fromXmlToObject(el, SenseAxis.class);
-			saveListElement(lexicalResource, lexicalResource.getSenseAxes(), listElement);
+		// Save all direct children of LexicalResource.
+		if (lmfObject instanceof SenseAxis) {
+			saveListElement(lexicalResource, lexicalResource.getSenseAxes(), "senseAxes", lmfObject);
+		} else
+		if (lmfObject instanceof PredicateArgumentAxis) {
+			saveListElement(lexicalResource, lexicalResource.getPredicateArgumentAxes(), "predicateArgumentAxes", lmfObject);
 		} else
-		if ("PredicateArgumentAxis".equals(n)) {
-				listElement = fromXmlToObject(el, PredicateArgumentAxis.class);
-				saveListElement(lexicalResource, lexicalResource.getPredicateArgumentAxes(), listElement);
-			} else
-		if ("MetaData".equals(n)) {
-			listElement = fromXmlToObject(el, MetaData.class);
-			saveListElement(lexicalResource, lexicalResource.getMetaData(), listElement);
+		if (lmfObject instanceof MetaData) {
+			saveListElement(lexicalResource, lexicalResource.getMetaData(), "metaData", lmfObject);
 		}
+	}
 
-		// Forget the corresponding XML elements of the saved instances.
-		if (listElement != null) {
-            el.detach();
-        }
+	/** Saves the given top-level element either directly (see
+	 *  {@link #saveListElement(Object, List, Object)}) or, in the pipelined
+	 *  mode, adds it to the next batch of the writer threads. */
+	@SuppressWarnings("rawtypes")
+	protected void saveListElement(final Object parent, final List list,
+			final String property, final Object child) {
+		if (writerPool == null) {
+			saveListElement(parent, list, child);
+			return;
+		}
+		if (child == null) {
+			return;
+		}
+
+		// Wait until all elements of the previous parent or list are saved.
+		if (parent != batchParent || !property.equals(batchProperty)) {
+			submitBatch();
+			awaitBatches();
+			commit();
+			batchParent = parent;
+			batchProperty = property;
+			batchIndex = 0;
+		}
+		batch.add(child);
+		commitCounter++;
+		if (batch.size() >= COMMIT_STEP) {
+			submitBatch();
+		}
 	}
 
-	/**
-	 * Transforms XML-Element and all its children to Java object
-	 * @param el XML-Element
-	 * @param clazz Java-Class of the Element
-	 * @return
-	 */
-	protected Object fromXmlToObject(Element el, Class<?> clazz)  {
+	/** Submits the current batch to the writer threads. Blocks if too many
+	 *  batches are waiting to be saved. */
+	protected void submitBatch() {
+		if (batch.isEmpty()) {
+			return;
+		}
+		final Object parentId = session.getIdentifier(batchParent);
+		final BatchWriter writer = new BatchWriter(batchParent.getClass(),
+				parentId, batchProperty, batch, batchIndex);
+		batchIndex += batch.size();
+		batch = new ArrayList<Object>();
+
+		writerSlots.acquireUninterruptibly();
+		try {
+			pendingBatches.add(writerPool.submit(writer));
+		}
+		catch (RuntimeException e) {
+			writerSlots.release();
+			throw e;
+		}
+		if (pendingBatches.size() > 1) {
+			// Forget already saved batches to propagate failures early.
+			Iterator<Future<Object>> iter = pendingBatches.iterator();
+			while (iter.hasNext()) {
+				Future<Object> future = iter.next();
+				if (future.isDone()) {
+					getBatchResult(future);
+					iter.remove();
+				}
+			}
+		}
+	}
+
+	/** Waits until all submitted batches are saved. */
+	protected void awaitBatches() {
+		for (Future<Object> future : pendingBatches) {
+			getBatchResult(future);
+		}
+		pendingBatches.clear();
+		System.out.println(new Date(System.currentTimeMillis()) + ": SAVED " + commitCounter);
+	}
+
+	private void getBatchResult(final Future<Object> future) {
 		try {
-			Object lmfObject = clazz.newInstance();
-			UBYLMFClassMetadata classMeta = getClassMetadata(clazz);
-			for (UBYLMFFieldMetadata fieldMeta : classMeta.getFields()) {
-				String xmlFieldName = fieldMeta.getName().replace("_", "");
-				Class<?> fieldType = fieldMeta.getType();
-
-				// Determine the field's value from the current XML element.
-				Object newValue = null;
-				switch (fieldMeta.getVarType()) {
-					case ATTRIBUTE:
-					case ATTRIBUTE_OPTIONAL:
-						String attrValue = el.attributeValue(xmlFieldName);
-						if (attrValue == null) {
-                            continue;
-                        }
-
-						newValue = attrValue;
-						if (fieldMeta.isBoolean()) {
-                            newValue = GenericUtils.getBoolean(attrValue);
-                        }
-                        else
-						if (fieldMeta.isInteger()) {
-                            newValue = GenericUtils.getInteger(attrValue);
-                        }
-                        else
-						if (fieldMeta.isDouble()) {
-                            newValue = GenericUtils.getDouble(attrValue);
-                        }
-                        else
-						if (fieldMeta.isEnum()) {
-                            newValue = GenericUtils.getEnum(fieldType, attrValue);
-                        }
-						else
-						if (fieldMeta.isDate()){
-							newValue = GenericUtils.getDate(attrValue);
+			future.get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while waiting for writer threads", e);
+		}
+		catch (ExecutionException e) {
+			throw new RuntimeException("Unable to save batch", e.getCause());
+		}
+	}
+
+	/** Saves one batch of top-level elements of the same parent and list in
+	 *  a separate session and transaction. */
+	protected class BatchWriter implements Callable<Object> {
+
+		protected final Class<?> parentClass;
+		protected final Object parentId;
+		protected final String property;
+		protected final List<Object> elements;
+		protected final int firstIndex;
+
+		public BatchWriter(final Class<?> parentClass, final Object parentId,
+				final String property, final List<Object> elements,
+				final int firstIndex) {
+			this.parentClass = parentClass;
+			this.parentId = parentId;
+			this.property = property;
+			this.elements = elements;
+			this.firstIndex = firstIndex;
+		}
+
+		@Override
+		public Object call() throws Exception {
+			Session writerSession = sessionFactory.withOptions()
+					.interceptor(REFERENCE_INTERCEPTOR).openSession();
+			try {
+				Transaction writerTx = writerSession.beginTransaction();
+				if (bulkInsert) {
+					JdbcBulkWriter writer = createBulkWriter(writerSession);
+					boolean linked = cfg.getCollectionMapping(
+							parentClass.getName() + "." + property) != null;
+					int index = firstIndex;
+					for (Object element : elements) {
+						if (linked) {
+							writer.save(element, parentClass.getName(), parentId, property, index++);
 						}
-						break;
-
-					case CHILD:
-						Element childEl = el.element(fieldType.getSimpleName());
-						if (childEl == null) {
-                            continue;
-                        }
-
-						newValue = fromXmlToObject(childEl, fieldType);
-						break;
-
-					case CHILDREN:
-						Class<?> elementClass = fieldMeta.getGenericElementType();
-						if (elementClass == null) {
-                            throw new RuntimeException("Unable to obtain list element class for field " + fieldMeta.getName());
-                        }
-
-						List<Object> childList = new ArrayList<Object>();
-						for (Object child : el.elements(elementClass.getSimpleName())) {
-                            childList.add(fromXmlToObject((Element) child, elementClass));
-                        }
-						newValue = childList;
-						break;
-
-					case IDREF:
-						String idref = el.attributeValue(xmlFieldName);
-						if (idref == null || idref.isEmpty()) {
-                            continue;
-                        }
-
-						IHasID obj = (IHasID) fieldType.newInstance();
-						obj.setId(idref);
-						newValue = obj;
-						break;
-
-					case IDREFS:
-						String idStr = el.attributeValue(xmlFieldName);
-						if (idStr == null || idStr.isEmpty()) {
-                            continue;
-                        }
-
-						elementClass = fieldMeta.getGenericElementType();
-						if (elementClass == null) {
-                            throw new RuntimeException("Unable to obtain list element class for field " + fieldMeta.getName());
-                        }
-
-						List<Object> idrefList = new ArrayList<Object>();
-						String ids[] = idStr.split(" ");
-						for (String id : ids) {
-							obj = (IHasID) elementClass.newInstance();
-							obj.setId(id);
-							idrefList.add(obj);
+						else {
+							writer.save(element);
 						}
-						newValue = idrefList;
-						break;
+					}
+					writer.flush();
+					writerTx.commit();
+					return null;
+				}
+
+				Object parent = writerSession.get(parentClass, parentId);
+				if (parent == null) {
+					throw new IllegalStateException("Parent " + parentClass.getSimpleName()
+							+ " " + parentId + " has not been saved");
+				}
+
+				final AbstractCollectionPersister persister = (AbstractCollectionPersister)
+						((SessionFactoryImplementor) sessionFactory).getCollectionPersister(
+								parentClass.getName() + "." + property);
+				boolean linkByUpdate = persister != null && !persister.isInverse()
+						&& persister.getIndexColumnNames() != null
+						&& persister.getIndexColumnNames().length > 0;
+				if (persister != null && !linkByUpdate) {
+					// The key of unindexed lists cannot be null, so it is set when
+					// inserting the elements. Replacing the (uninitialized) list of
+					// the parent does not unlink previously saved elements.
+					setProperty(parent, new ArrayList<Object>(elements));
+				}
 
-					case NONE:
-						continue;
+				for (Object element : elements) {
+					saveCascade(writerSession, element, parent);
+				}
+				writerSession.flush();
+				if (linkByUpdate) {
+					// Indexed lists would be unlinked when being replaced, so the key
+					// and index columns of the new elements are set explicitly.
+					linkElements(writerSession, persister);
 				}
+				writerTx.commit();
+			}
+			finally {
+				writerSession.close();
+				writerSlots.release();
+			}
+			return null;
+		}
 
-				// Save the new value using the setter method.
-				Method setter = fieldMeta.getSetter();
-				if (setter == null) {
-                    throw new RuntimeException("Missing setter for : " + lmfObject.getClass() + "." + xmlFieldName);
-                }
-				setter.invoke(lmfObject, newValue);
+		@SuppressWarnings("rawtypes")
+		protected void setProperty(final Object parent, final List list)
+				throws Exception {
+			for (UBYLMFFieldMetadata fieldMeta : getClassMetadata(parentClass).getFields()) {
+				if (fieldMeta.getName().equals(property) && fieldMeta.getSetter() != null) {
+					fieldMeta.setValue(parent, list);
+					return;
+				}
 			}
-			return lmfObject;
-		} catch (Exception e) {
-			e.printStackTrace();
+			throw new RuntimeException("Missing setter for : " + parentClass + "." + property);
+		}
+
+		protected void linkElements(final Session writerSession,
+				final AbstractCollectionPersister persister) {
+			final String sql = "UPDATE " + persister.getTableName()
+					+ " SET " + persister.getKeyColumnNames()[0] + " = ?, "
+					+ persister.getIndexColumnNames()[0] + " = ?"
+					+ " WHERE " + persister.getElementColumnNames()[0] + " = ?";
+			writerSession.doWork(new Work() {
+				@Override
+				public void execute(final Connection connection) throws SQLException {
+					PreparedStatement statement = connection.prepareStatement(sql);
+					try {
+						int index = firstIndex;
+						for (Object element : elements) {
+							statement.setObject(1, parentId);
+							statement.setInt(2, index++);
+							statement.setObject(3, writerSession.getIdentifier(element));
+							statement.addBatch();
+						}
+						statement.executeBatch();
+					}
+					finally {
+						statement.close();
+					}
+				}
+			});
 		}
-		return null;
 	}
 
 	@Override
@@ -0,0 +1,183 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.lmf.transform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+import de.tudarmstadt.ukp.lmf.model.core.LexicalEntry;
+import de.tudarmstadt.ukp.lmf.model.core.Lexicon;
+import de.tudarmstadt.ukp.lmf.model.core.Sense;
+import de.tudarmstadt.ukp.lmf.model.enums.EPartOfSpeech;
+import de.tudarmstadt.ukp.lmf.model.multilingual.SenseAxis;
+import de.tudarmstadt.ukp.lmf.model.semantics.Synset;
+
+/**
+ * Tests methods of {@link LMFBinaryWriter} and {@link LMFBinaryReader}.
+ */
+public class LMFBinaryReaderTest {
+
+	private static final String XML = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+			+ "<LexicalResource name=\"test\" dtdVersion=\"0.3.2\">\n"
+			+ "  <GlobalInformation label=\"label\"/>\n"
+			+ "  <Lexicon id=\"lexicon_1\" name=\"One\" languageIdentifier=\"eng\">\n"
+			+ "    <LexicalEntry id=\"le_1\" partOfSpeech=\"noun\">\n"
+			+ "      <Lemma><FormRepresentation writtenForm=\"house\"/></Lemma>\n"
+			+ "      <Sense id=\"s_1\" index=\"1\" synset=\"ss_1\"/>\n"
+			+ "      <Sense id=\"s_2\" index=\"2\"/>\n"
+			+ "    </LexicalEntry>\n"
+			+ "    <LexicalEntry id=\"le_2\" partOfSpeech=\"verb\">\n"
+			+ "      <Lemma><FormRepresentation writtenForm=\"house\"/></Lemma>\n"
+			+ "      <Sense id=\"s_3\" index=\"1\"/>\n"
+			+ "    </LexicalEntry>\n"
+			+ "    <Synset id=\"ss_1\"/>\n"
+			+ "  </Lexicon>\n"
+			+ "  <Lexicon id=\"lexicon_2\" name=\"Two\" languageIdentifier=\"deu\">\n"
+			+ "    <LexicalEntry id=\"le_3\" partOfSpeech=\"noun\">\n"
+			+ "      <Lemma><FormRepresentation writtenForm=\"house\"/></Lemma>\n"
+			+ "    </LexicalEntry>\n"
+			+ "    <LexicalEntry id=\"le_4\" partOfSpeech=\"noun\">\n"
+			+ "      <Lemma><FormRepresentation writtenForm=\"Haus\"/></Lemma>\n"
+			+ "    </LexicalEntry>\n"
+			+ "  </Lexicon>\n"
+			+ "  <SenseAxis id=\"sa_1\" senseOne=\"s_1\" senseTwo=\"s_3\"/>\n"
+			+ "</LexicalResource>\n";
+
+	/**
+	 * Tests the lookup of elements by ID and lemma using small blocks,
+	 * such that the records are spread over several blocks.
+	 */
+	@Test
+	public void testLookup() throws Exception {
+		LMFBinaryReader reader = createDump("target/lookup.ubyd", 16, true, false);
+		try {
+			assertEquals("test", reader.getLexicalResource().getName());
+			assertEquals(2, reader.getLexiconNames().size());
+			Lexicon lexicon = reader.getLexiconByName("Two");
+			assertEquals("lexicon_2", lexicon.getId());
+
+			LexicalEntry entry = reader.getLexicalEntryById("le_1");
+			assertEquals("house", entry.getLemmaForm());
+			assertEquals(2, entry.getSenses().size());
+			assertEquals("ss_1", entry.getSenses().get(0).getSynset().getId());
+
+			Sense sense = reader.getSenseById("s_3");
+			assertEquals(1, sense.getIndex());
+			assertTrue(reader.getSynsetById("ss_1").getSenses().isEmpty());
+
+			assertEquals(3, reader.getLexicalEntries("house", null).size());
+			assertEquals(1, reader.getLexicalEntries("house", lexicon).size());
+			List<LexicalEntry> verbs = reader.getLexicalEntries("house",
+					EPartOfSpeech.verb, null);
+			assertEquals(1, verbs.size());
+			assertEquals("le_2", verbs.get(0).getId());
+			assertTrue(reader.getLexicalEntries("home", null).isEmpty());
+
+			List<SenseAxis> senseAxes = reader.getSenseAxes();
+			assertEquals(1, senseAxes.size());
+			assertEquals("s_3", senseAxes.get(0).getSenseTwo().getId());
+		}
+		finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Tests that unknown IDs are reported like in the Uby API.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownId() throws Exception {
+		LMFBinaryReader reader = createDump("target/unknownId.ubyd",
+				LMFBinaryWriter.DEFAULT_BLOCK_SIZE, true, false);
+		try {
+			reader.getSenseById("s_4");
+		}
+		finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Tests the iteration over the elements of a lexicon.
+	 */
+	@Test
+	public void testIterator() throws Exception {
+		LMFBinaryReader reader = createDump("target/iterator.ubyd", 64, true, false);
+		try {
+			Iterator<LexicalEntry> iter = reader.getLexicalEntryIterator(
+					reader.getLexiconById("lexicon_2"));
+			assertEquals("le_3", iter.next().getId());
+			assertEquals("le_4", iter.next().getId());
+			assertFalse(iter.hasNext());
+
+			Iterator<Synset> synsets = reader.getSynsetIterator(null);
+			assertEquals("ss_1", synsets.next().getId());
+			assertFalse(synsets.hasNext());
+			assertTrue(reader.getLexicons().get(0).getLexicalEntries().isEmpty());
+		}
+		finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Tests the lookups of an uncompressed dump opened memory-mapped,
+	 * including the sense axes of a sense.
+	 */
+	@Test
+	public void testMemoryMapped() throws Exception {
+		LMFBinaryReader reader = createDump("target/mapped.ubyd", 1, false, true);
+		try {
+			assertEquals("lexicon_1", reader.getLexiconByName("One").getId());
+			assertEquals("le_4", reader.getLexicalEntries("Haus", null).get(0).getId());
+			Sense sense = reader.getSenseById("s_1");
+			assertEquals("ss_1", sense.getSynset().getId());
+
+			List<SenseAxis> senseAxes = reader.getSenseAxesBySense(sense);
+			assertEquals(1, senseAxes.size());
+			assertEquals("sa_1", senseAxes.get(0).getId());
+			assertTrue(reader.getSenseAxesBySense(reader.getSenseById("s_2")).isEmpty());
+			assertTrue(reader.hasSensesAxis(reader.getSenseById("s_3"), sense));
+			assertEquals(2, reader.getLexicalEntryIterator(null).next().getSenses().size());
+		}
+		finally {
+			reader.close();
+		}
+	}
+
+	private LMFBinaryReader createDump(final String fileName, final int blockSize,
+			final boolean compressed, final boolean memoryMapped) throws Exception {
+		File file = new File(fileName);
+		file.getParentFile().mkdirs();
+		LMFBinaryWriter writer = new LMFBinaryWriter(file);
+		writer.setBlockSize(blockSize);
+		writer.setCompressed(compressed);
+		writer.write(new LMFXMLReader(new ByteArrayInputStream(XML.getBytes("UTF-8"))));
+		writer.close();
+		return new LMFBinaryReader(file, memoryMapped);
+	}
+
+}
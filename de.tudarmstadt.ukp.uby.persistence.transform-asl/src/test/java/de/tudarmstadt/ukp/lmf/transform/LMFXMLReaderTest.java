@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.lmf.transform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.Iterator;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.Test;
+
+import de.tudarmstadt.ukp.lmf.model.core.GlobalInformation;
+import de.tudarmstadt.ukp.lmf.model.core.LexicalEntry;
+import de.tudarmstadt.ukp.lmf.model.core.LexicalResource;
+import de.tudarmstadt.ukp.lmf.model.core.Lexicon;
+import de.tudarmstadt.ukp.lmf.model.core.Sense;
+import de.tudarmstadt.ukp.lmf.model.enums.EPartOfSpeech;
+import de.tudarmstadt.ukp.lmf.model.multilingual.SenseAxis;
+
+/**
+ * Tests methods of {@link LMFXMLReader}.
+ */
+public class LMFXMLReaderTest {
+
+	private static final String XML = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+			+ "<!DOCTYPE LexicalResource SYSTEM \"DTD_unifiedModel_32.dtd\">\n"
+			+ "<LexicalResource name=\"test\" dtdVersion=\"0.3.2\">\n"
+			+ "  <GlobalInformation label=\"label\"/>\n"
+			+ "  <Lexicon id=\"lexicon_1\" name=\"Test\" languageIdentifier=\"eng\">\n"
+			+ "    <LexicalEntry id=\"le_1\" partOfSpeech=\"noun\" separableParticle=\"NULL\">\n"
+			+ "      <Lemma><FormRepresentation writtenForm=\"house\"/></Lemma>\n"
+			+ "      <Sense id=\"s_1\" index=\"1\" synset=\"ss_1\"><Unknown><Sense id=\"s_x\"/></Unknown></Sense>\n"
+			+ "      <Sense id=\"s_2\" index=\"2\"/>\n"
+			+ "    </LexicalEntry>\n"
+			+ "    <LexicalEntry id=\"le_2\" partOfSpeech=\"verb\">\n"
+			+ "      <Lemma><FormRepresentation writtenForm=\"🏠\"/></Lemma>\n"
+			+ "    </LexicalEntry>\n"
+			+ "  </Lexicon>\n"
+			+ "  <SenseAxis id=\"sa_1\" senseOne=\"s_1\" senseTwo=\"s_2\"/>\n"
+			+ "</LexicalResource>\n";
+
+	/**
+	 * Tests that the objects are returned in document order and that
+	 * only the container elements are returned without children.
+	 */
+	@Test
+	public void testRead() throws Exception {
+		LMFXMLReader reader = createReader();
+
+		LexicalResource lexicalResource = (LexicalResource) reader.read();
+		assertEquals("test", lexicalResource.getName());
+		assertEquals("0.3.2", lexicalResource.getDtdVersion());
+		assertEquals("label", ((GlobalInformation) reader.read()).getLabel());
+
+		Lexicon lexicon = (Lexicon) reader.read();
+		assertEquals("lexicon_1", lexicon.getId());
+		assertTrue(lexicon.getLexicalEntries().isEmpty());
+
+		LexicalEntry entry = (LexicalEntry) reader.read();
+		assertEquals("le_1", entry.getId());
+		assertEquals(EPartOfSpeech.noun, entry.getPartOfSpeech());
+		assertNull(entry.getSeparableParticle());
+		assertEquals("house", entry.getLemmaForm());
+		assertEquals(2, entry.getSenses().size());
+		Sense sense = entry.getSenses().get(0);
+		assertEquals(1, sense.getIndex());
+		assertEquals("ss_1", sense.getSynset().getId());
+
+		assertEquals("?", ((LexicalEntry) reader.read()).getLemmaForm());
+		SenseAxis senseAxis = (SenseAxis) reader.read();
+		assertEquals("s_1", senseAxis.getSenseOne().getId());
+		assertNull(reader.read());
+		assertFalse(reader.hasNext());
+	}
+
+	/**
+	 * Tests the iterator over the objects of a certain type.
+	 */
+	@Test
+	public void testIterator() throws Exception {
+		Iterator<LexicalEntry> iter = createReader().iterator(LexicalEntry.class);
+		assertEquals("le_1", iter.next().getId());
+		assertTrue(iter.hasNext());
+		assertEquals("le_2", iter.next().getId());
+		assertFalse(iter.hasNext());
+	}
+
+	/**
+	 * Tests the replacement of characters outside the basic
+	 * multilingual plane.
+	 */
+	@Test
+	public void testReplaceNonUtf8() {
+		String text = "house";
+		assertTrue(text == StringUtils.replaceNonUtf8(text));
+		assertEquals("a?b?", StringUtils.replaceNonUtf8("a🏠b🏠"));
+		assertEquals("\uD83C", StringUtils.replaceNonUtf8("\uD83C"));
+	}
+
+	private LMFXMLReader createReader()
+			throws XMLStreamException, UnsupportedEncodingException {
+		return new LMFXMLReader(new ByteArrayInputStream(XML.getBytes("UTF-8")));
+	}
+
+}
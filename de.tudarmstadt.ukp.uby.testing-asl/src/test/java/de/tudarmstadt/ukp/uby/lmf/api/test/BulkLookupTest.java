@@ -0,0 +1,191 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.uby.lmf.api.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.dom4j.DocumentException;
+import org.junit.Test;
+
+import de.tudarmstadt.ukp.lmf.api.LemmaPos;
+import de.tudarmstadt.ukp.lmf.api.Uby;
+import de.tudarmstadt.ukp.lmf.hibernate.UBYH2Dialect;
+import de.tudarmstadt.ukp.lmf.model.core.LexicalEntry;
+import de.tudarmstadt.ukp.lmf.model.core.Lexicon;
+import de.tudarmstadt.ukp.lmf.model.core.Sense;
+import de.tudarmstadt.ukp.lmf.model.enums.EPartOfSpeech;
+import de.tudarmstadt.ukp.lmf.model.interfaces.IHasID;
+import de.tudarmstadt.ukp.lmf.model.semantics.Synset;
+import de.tudarmstadt.ukp.lmf.transform.DBConfig;
+import de.tudarmstadt.ukp.lmf.transform.LMFDBUtils;
+import de.tudarmstadt.ukp.lmf.transform.XMLToDBTransformer;
+import de.tudarmstadt.ukp.test.resources.UbyTestDbProvider;
+
+/**
+ * Tests that the bulk lookups of the UBY-API return the same elements as the corresponding
+ * lookups of single lemmas and identifiers.
+ */
+public class BulkLookupTest
+{
+
+	private final Uby uby;
+
+	public BulkLookupTest() throws FileNotFoundException, DocumentException, IllegalArgumentException{
+
+		UbyTestDbProvider testDbProvider = new UbyTestDbProvider();
+		this.uby = testDbProvider.getUby();
+
+	}
+
+	@Test
+	public void testLexicalEntriesByLemmaPos() throws IllegalArgumentException{
+		List<LemmaPos> keys = Arrays.asList(
+				new LemmaPos("question", null),
+				new LemmaPos("question", EPartOfSpeech.noun),
+				new LemmaPos("run", EPartOfSpeech.verb),
+				new LemmaPos("run", null),
+				new LemmaPos("Bildung", null),
+				new LemmaPos("nonexistinglemma", null));
+
+		List<Lexicon> lexicons = new ArrayList<Lexicon>();
+		lexicons.add(null);
+		lexicons.add(uby.getLexiconByName("WordNet"));
+		lexicons.add(uby.getLexiconByName("FrameNet"));
+		for (Lexicon lexicon : lexicons) {
+			Map<LemmaPos, List<LexicalEntry>> result = uby.getLexicalEntries(keys, lexicon);
+			assertEquals(keys, new ArrayList<LemmaPos>(result.keySet()));
+			for (LemmaPos key : keys) {
+				List<LexicalEntry> expected = uby.getLexicalEntries(key.getLemma(),
+						key.getPos(), lexicon);
+				assertEquals(key.toString(), getSortedIds(expected),
+						getSortedIds(result.get(key)));
+			}
+		}
+
+		Map<LemmaPos, List<LexicalEntry>> result = uby.getLexicalEntries(keys, null);
+		assertFalse(result.get(new LemmaPos("question", null)).isEmpty());
+		assertEquals(1, result.get(new LemmaPos("Bildung", null)).size());
+		assertTrue(result.get(new LemmaPos("nonexistinglemma", null)).isEmpty());
+	}
+
+	@Test
+	public void testLexicalEntriesByMixedCaseLemmas() throws IllegalArgumentException{
+		List<LemmaPos> keys = Arrays.asList(
+				new LemmaPos("question", null),
+				new LemmaPos("Question", null),
+				new LemmaPos("QUESTION", null),
+				new LemmaPos("bildung", null),
+				new LemmaPos("Bildung", null));
+
+		// The in-memory test database compares case-sensitively
+		Map<LemmaPos, List<LexicalEntry>> result = uby.getLexicalEntries(keys, null);
+		for (LemmaPos key : keys) {
+			assertEquals(key.toString(), getSortedIds(uby.getLexicalEntries(key.getLemma(),
+					key.getPos(), null)), getSortedIds(result.get(key)));
+		}
+		assertEquals(1, result.get(new LemmaPos("Question", null)).size());
+		assertTrue(result.get(new LemmaPos("question", null)).size() > 1);
+		assertTrue(result.get(new LemmaPos("QUESTION", null)).isEmpty());
+		assertTrue(result.get(new LemmaPos("bildung", null)).isEmpty());
+	}
+
+	@Test
+	public void testLexicalEntriesByLemmaPosIgnoringCase()
+		throws FileNotFoundException, DocumentException, IllegalArgumentException{
+		// Compares written forms case-insensitively like the default collation of MySQL
+		DBConfig dbConfig = new DBConfig("jdbc:h2:mem:ignoreCase;DB_CLOSE_DELAY=-1;IGNORECASE=TRUE",
+				"org.h2.Driver", UBYH2Dialect.class.getName(), "root", "pass", true);
+		LMFDBUtils.createTables(dbConfig);
+		new XMLToDBTransformer(dbConfig).transform(
+				new File("src/main/resources/UbyTestLexicon.xml"), "UbyTest");
+		Uby ignoreCaseUby = new Uby(dbConfig);
+
+		List<LemmaPos> keys = Arrays.asList(
+				new LemmaPos("question", null),
+				new LemmaPos("Question", null),
+				new LemmaPos("QUESTION", EPartOfSpeech.noun),
+				new LemmaPos("bildung", null),
+				new LemmaPos("nonexistinglemma", null));
+		Map<LemmaPos, List<LexicalEntry>> result = ignoreCaseUby.getLexicalEntries(keys, null);
+		for (LemmaPos key : keys) {
+			assertEquals(key.toString(), getSortedIds(ignoreCaseUby.getLexicalEntries(
+					key.getLemma(), key.getPos(), null)), getSortedIds(result.get(key)));
+		}
+		List<String> question = getSortedIds(result.get(new LemmaPos("question", null)));
+		assertEquals(question, getSortedIds(result.get(new LemmaPos("Question", null))));
+		assertEquals(uby.getLexicalEntries("question", null).size()
+				+ uby.getLexicalEntries("Question", null).size(), question.size());
+		assertFalse(result.get(new LemmaPos("QUESTION", EPartOfSpeech.noun)).isEmpty());
+		assertEquals(1, result.get(new LemmaPos("bildung", null)).size());
+		assertTrue(result.get(new LemmaPos("nonexistinglemma", null)).isEmpty());
+		ignoreCaseUby.getSession().close();
+	}
+
+	@Test
+	public void testEmptyKeys() throws IllegalArgumentException{
+		assertTrue(uby.getLexicalEntries(Collections.<LemmaPos>emptyList(), null).isEmpty());
+		assertTrue(uby.getSensesByIds(Collections.<String>emptyList()).isEmpty());
+	}
+
+	@Test
+	public void testSensesByIds() throws IllegalArgumentException{
+		List<String> ids = Arrays.asList("WN_Sense_2", "WN_Sense_7", "VN_Sense_2",
+				"WN_Sense_2", "nonexistingsense");
+		Map<String, Sense> result = uby.getSensesByIds(ids);
+		assertEquals(3, result.size());
+		assertFalse(result.containsKey("nonexistingsense"));
+		for (String id : Arrays.asList("WN_Sense_2", "WN_Sense_7", "VN_Sense_2")) {
+			assertEquals(id, result.get(id).getId());
+			assertSame(uby.getSenseById(id), result.get(id));
+		}
+	}
+
+	@Test
+	public void testSynsetsByIds() throws IllegalArgumentException{
+		Sense sense = uby.getSenseById("WN_Sense_2");
+		String synsetId = sense.getSynset().getId();
+		List<String> ids = Arrays.asList(synsetId, "WN_Synset_38915", "nonexistingsynset");
+		Map<String, Synset> result = uby.getSynsetsByIds(ids);
+		assertFalse(result.containsKey("nonexistingsynset"));
+		for (String id : Arrays.asList(synsetId, "WN_Synset_38915")) {
+			assertEquals(id, result.get(id).getId());
+			assertSame(uby.getSynsetById(id), result.get(id));
+		}
+	}
+
+	private static List<String> getSortedIds(List<? extends IHasID> elements) {
+		List<String> result = new ArrayList<String>();
+		for (IHasID element : elements) {
+			result.add(element.getId());
+		}
+		Collections.sort(result);
+		return result;
+	}
+
+}
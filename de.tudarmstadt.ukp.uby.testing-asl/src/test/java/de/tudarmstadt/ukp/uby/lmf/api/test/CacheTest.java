@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.uby.lmf.api.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.dom4j.DocumentException;
+import org.hibernate.stat.Statistics;
+import org.junit.Test;
+
+import de.tudarmstadt.ukp.lmf.api.Uby;
+import de.tudarmstadt.ukp.lmf.hibernate.UBYH2Dialect;
+import de.tudarmstadt.ukp.lmf.model.core.LexicalEntry;
+import de.tudarmstadt.ukp.lmf.model.core.Sense;
+import de.tudarmstadt.ukp.lmf.model.enums.EPartOfSpeech;
+import de.tudarmstadt.ukp.lmf.transform.DBConfig;
+import de.tudarmstadt.ukp.test.resources.UbyTestDbProvider;
+
+/**
+ * Unit tests for the UBY-API with the second-level cache and the query cache
+ * enabled on the in-memory test database.
+ */
+public class CacheTest
+{
+
+	private final Uby uby;
+
+	public CacheTest() throws FileNotFoundException, DocumentException, IllegalArgumentException{
+
+		// Creates the test database, which is then accessed with caching enabled.
+		new UbyTestDbProvider();
+		DBConfig dbConfig = new DBConfig("jdbc:h2:mem:test;DB_CLOSE_DELAY=-1", "org.h2.Driver",
+				UBYH2Dialect.class.getName(), "root", "pass", false);
+		dbConfig.setCacheEnabled(true);
+		this.uby = new Uby(dbConfig);
+
+	}
+
+	@Test
+	public void testRepeatedLookups() throws IllegalArgumentException{
+		Statistics statistics = uby.getCacheStatistics();
+		assertTrue(statistics.isStatisticsEnabled());
+		statistics.clear();
+
+		List<String> entryIds = getIds(uby.getLexicalEntries("question",
+				EPartOfSpeech.noun, null));
+		String synsetId = uby.getSenseById("WN_Sense_2").getSynset().getId();
+		assertFalse(entryIds.isEmpty());
+		assertEquals(0, statistics.getQueryCacheHitCount());
+		assertTrue(statistics.getQueryCachePutCount() > 0);
+		assertTrue(statistics.getSecondLevelCachePutCount() > 0);
+
+		// Without the first-level cache, the elements are taken from the second-level cache.
+		uby.getSession().clear();
+		assertEquals(entryIds, getIds(uby.getLexicalEntries("question",
+				EPartOfSpeech.noun, null)));
+		Sense sense = uby.getSenseById("WN_Sense_2");
+		assertEquals("WN_Sense_2", sense.getId());
+		assertEquals(synsetId, sense.getSynset().getId());
+		assertEquals(2, statistics.getQueryCacheHitCount());
+		assertTrue(statistics.getSecondLevelCacheHitCount() > 0);
+	}
+
+	private static List<String> getIds(List<LexicalEntry> entries) {
+		List<String> result = new ArrayList<String>();
+		for (LexicalEntry entry : entries) {
+			result.add(entry.getId());
+		}
+		return result;
+	}
+
+}
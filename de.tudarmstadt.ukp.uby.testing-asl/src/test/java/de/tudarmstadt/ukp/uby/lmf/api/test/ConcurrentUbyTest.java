@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.uby.lmf.api.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.dom4j.DocumentException;
+import org.hibernate.Session;
+import org.junit.Test;
+
+import de.tudarmstadt.ukp.lmf.api.ConcurrentUby;
+import de.tudarmstadt.ukp.lmf.api.Uby;
+import de.tudarmstadt.ukp.lmf.model.core.LexicalEntry;
+import de.tudarmstadt.ukp.lmf.transform.DBConfig;
+import de.tudarmstadt.ukp.test.resources.UbyTestDbProvider;
+
+/**
+ * Tests that a {@link ConcurrentUby} instance shared by several threads performs the lookups
+ * of each thread in its own session on the in-memory test database.
+ */
+public class ConcurrentUbyTest
+{
+
+	private static final int THREADS = 4;
+
+	private final Uby uby;
+
+	public ConcurrentUbyTest() throws FileNotFoundException, DocumentException, IllegalArgumentException{
+
+		UbyTestDbProvider testDbProvider = new UbyTestDbProvider();
+		this.uby = testDbProvider.getUby();
+
+	}
+
+	@Test
+	public void testSessionPerThread() throws Exception{
+		final List<String> expected = getIds(uby.getLexicalEntries("question", null));
+		assertFalse(expected.isEmpty());
+
+		DBConfig dbConfig = uby.getDbConfig();
+		// The sessions of the main thread and the worker threads.
+		dbConfig.setConnectionPoolSize(THREADS + 1);
+		final ConcurrentUby concurrentUby = new ConcurrentUby(dbConfig);
+		Set<Session> sessions = Collections.newSetFromMap(new IdentityHashMap<Session, Boolean>());
+		try {
+			Session session = concurrentUby.getSession();
+			assertSame(session, concurrentUby.getSession());
+			assertEquals(expected, getIds(concurrentUby.getLexicalEntries("question", null)));
+			sessions.add(session);
+
+			// All workers wait for each other, so each one runs in its own thread.
+			final CyclicBarrier barrier = new CyclicBarrier(THREADS);
+			ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+			try {
+				List<Future<Session>> futures = new ArrayList<Future<Session>>();
+				for (int i = 0; i < THREADS; i++) {
+					futures.add(executor.submit(new Callable<Session>()
+					{
+						@Override
+						public Session call() throws Exception
+						{
+							barrier.await();
+							Session result = concurrentUby.getSession();
+							assertEquals(expected, getIds(concurrentUby.getLexicalEntries("question", null)));
+							assertSame(result, concurrentUby.getSession());
+							return result;
+						}
+					}));
+				}
+				for (Future<Session> future : futures) {
+					sessions.add(future.get());
+				}
+			}
+			finally {
+				executor.shutdown();
+			}
+			assertEquals(THREADS + 1, sessions.size());
+
+			concurrentUby.releaseSession();
+			assertFalse(session.isOpen());
+			Session newSession = concurrentUby.getSession();
+			assertNotSame(session, newSession);
+			assertTrue(newSession.isOpen());
+			sessions.add(newSession);
+		}
+		finally {
+			concurrentUby.close();
+		}
+		for (Session session : sessions) {
+			assertFalse(session.isOpen());
+		}
+	}
+
+	private List<String> getIds(List<LexicalEntry> lexEntries)
+	{
+		List<String> result = new ArrayList<String>();
+		for (LexicalEntry lexEntry : lexEntries) {
+			result.add(lexEntry.getId());
+		}
+		Collections.sort(result);
+		return result;
+	}
+}
@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.uby.lmf.api.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.dom4j.DocumentException;
+import org.hibernate.Hibernate;
+import org.junit.Test;
+
+import de.tudarmstadt.ukp.lmf.api.FetchPlan;
+import de.tudarmstadt.ukp.lmf.api.LemmaPos;
+import de.tudarmstadt.ukp.lmf.api.Uby;
+import de.tudarmstadt.ukp.lmf.model.core.Definition;
+import de.tudarmstadt.ukp.lmf.model.core.LexicalEntry;
+import de.tudarmstadt.ukp.lmf.model.core.Sense;
+import de.tudarmstadt.ukp.test.resources.UbyTestDbProvider;
+
+/**
+ * Tests that the lookups with a {@link FetchPlan} return the same lexical entries as the plain
+ * lookups and initialize exactly the collections included in the fetch plan.
+ */
+public class FetchPlanTest
+{
+
+	private final Uby uby;
+
+	public FetchPlanTest() throws FileNotFoundException, DocumentException, IllegalArgumentException{
+
+		UbyTestDbProvider testDbProvider = new UbyTestDbProvider();
+		this.uby = testDbProvider.getUby();
+
+	}
+
+	@Test
+	public void testLexicalEntries() throws IllegalArgumentException{
+		List<String> expected = getIds(uby.getLexicalEntries("question", null, null));
+		assertFalse(expected.isEmpty());
+
+		for (FetchPlan fetchPlan : FetchPlan.values()) {
+			// Start with uninitialized collections for each fetch plan.
+			uby.getSession().clear();
+			List<LexicalEntry> entries = uby.getLexicalEntries("question", null, null, fetchPlan);
+			assertEquals(fetchPlan.toString(), expected, getIds(entries));
+			assertInitialized(fetchPlan, entries);
+		}
+	}
+
+	@Test
+	public void testLexicalEntriesByLemmaPos() throws IllegalArgumentException{
+		List<LemmaPos> keys = Arrays.asList(new LemmaPos("question", null),
+				new LemmaPos("run", null), new LemmaPos("Bildung", null));
+		Map<LemmaPos, List<LexicalEntry>> expected = uby.getLexicalEntries(keys, null);
+
+		for (FetchPlan fetchPlan : FetchPlan.values()) {
+			uby.getSession().clear();
+			Map<LemmaPos, List<LexicalEntry>> result = uby.getLexicalEntries(keys, null,
+					fetchPlan);
+			assertEquals(keys, new ArrayList<LemmaPos>(result.keySet()));
+			for (LemmaPos key : keys) {
+				assertEquals(getIds(expected.get(key)), getIds(result.get(key)));
+				assertInitialized(fetchPlan, result.get(key));
+			}
+		}
+	}
+
+	@Test
+	public void testFetchSenses() throws IllegalArgumentException{
+		uby.getSession().clear();
+		List<Sense> senses = new ArrayList<Sense>();
+		for (String id : Arrays.asList("WN_Sense_2", "WN_Sense_7", "VN_Sense_2")) {
+			senses.add(uby.getSenseById(id));
+		}
+		for (Sense sense : senses) {
+			assertFalse(Hibernate.isInitialized(sense.getDefinitions()));
+		}
+
+		uby.fetchSenses(senses, FetchPlan.SENSES_WITH_DEFINITIONS);
+		for (Sense sense : senses) {
+			assertTrue(Hibernate.isInitialized(sense.getDefinitions()));
+			assertFalse(Hibernate.isInitialized(sense.getSemanticLabels()));
+		}
+	}
+
+	private static void assertInitialized(FetchPlan fetchPlan, List<LexicalEntry> entries) {
+		for (LexicalEntry entry : entries) {
+			assertEquals(fetchPlan.isSenses(), Hibernate.isInitialized(entry.getSenses()));
+			if (!fetchPlan.isSenses()) {
+				continue;
+			}
+			for (Sense sense : entry.getSenses()) {
+				assertEquals(fetchPlan.isDefinitions(),
+						Hibernate.isInitialized(sense.getDefinitions()));
+				assertEquals(fetchPlan.isSemanticLabels(),
+						Hibernate.isInitialized(sense.getSemanticLabels()));
+				if (fetchPlan.isDefinitions()) {
+					for (Definition definition : sense.getDefinitions()) {
+						assertTrue(Hibernate.isInitialized(definition.getTextRepresentations()));
+					}
+				}
+			}
+		}
+	}
+
+	private static List<String> getIds(List<LexicalEntry> entries) {
+		List<String> result = new ArrayList<String>();
+		for (LexicalEntry entry : entries) {
+			result.add(entry.getId());
+		}
+		return result;
+	}
+
+}
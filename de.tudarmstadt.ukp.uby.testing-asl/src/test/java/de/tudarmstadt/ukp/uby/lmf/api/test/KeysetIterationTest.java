@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.uby.lmf.api.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.dom4j.DocumentException;
+import org.junit.Test;
+
+import de.tudarmstadt.ukp.lmf.api.KeysetCriteriaIterator;
+import de.tudarmstadt.ukp.lmf.api.Uby;
+import de.tudarmstadt.ukp.lmf.model.core.LexicalEntry;
+import de.tudarmstadt.ukp.lmf.model.core.Lexicon;
+import de.tudarmstadt.ukp.lmf.model.interfaces.IHasID;
+import de.tudarmstadt.ukp.test.resources.UbyTestDbProvider;
+
+/**
+ * Tests that the iterators of the UBY-API return the same elements in the order of their
+ * identifiers when keyset iteration is enabled, for pages ending within and exactly at the
+ * end of the iterated elements.
+ */
+public class KeysetIterationTest
+{
+
+	private final Uby uby;
+
+	public KeysetIterationTest() throws FileNotFoundException, DocumentException, IllegalArgumentException{
+
+		UbyTestDbProvider testDbProvider = new UbyTestDbProvider();
+		this.uby = testDbProvider.getUby();
+
+	}
+
+	@Test
+	public void testLexicalEntryIterator() throws IllegalArgumentException{
+		for (Lexicon lexicon : uby.getLexicons()) {
+			uby.setKeysetIteration(false);
+			uby.setIteratorBufferSize(500);
+			List<String> expected = getIds(uby.getLexicalEntryIterator(lexicon));
+			Collections.sort(expected);
+			assertEquals(lexicon.getLexicalEntries().size(), expected.size());
+
+			uby.setKeysetIteration(true);
+			for (int bufferSize : getBufferSizes(expected.size())) {
+				uby.setIteratorBufferSize(bufferSize);
+				assertEquals(expected, getIds(uby.getLexicalEntryIterator(lexicon)));
+			}
+		}
+	}
+
+	@Test
+	public void testSenseIterator() throws IllegalArgumentException{
+		for (Lexicon lexicon : uby.getLexicons()) {
+			uby.setKeysetIteration(false);
+			uby.setIteratorBufferSize(500);
+			List<String> expected = getIds(uby.getSenseIterator(lexicon));
+			Collections.sort(expected);
+
+			uby.setKeysetIteration(true);
+			for (int bufferSize : getBufferSizes(expected.size())) {
+				uby.setIteratorBufferSize(bufferSize);
+				assertEquals(expected, getIds(uby.getSenseIterator(lexicon)));
+			}
+		}
+	}
+
+	@Test
+	public void testClose() throws IllegalArgumentException{
+		uby.setKeysetIteration(true);
+		uby.setIteratorBufferSize(1);
+		Iterator<LexicalEntry> iter = uby.getLexicalEntryIterator(null);
+		assertTrue(iter instanceof KeysetCriteriaIterator);
+		assertTrue(iter.hasNext());
+		iter.next();
+		((KeysetCriteriaIterator<LexicalEntry>) iter).close();
+		assertFalse(iter.hasNext());
+	}
+
+	// Pages of single elements, pages ending within the elements and pages
+	// ending exactly at the last element.
+	private int[] getBufferSizes(int size)
+	{
+		return new int[] {1, 2, 3, Math.max(1, size), size + 1};
+	}
+
+	private List<String> getIds(Iterator<? extends IHasID> iter)
+	{
+		List<String> result = new ArrayList<String>();
+		while (iter.hasNext()) {
+			result.add(iter.next().getId());
+		}
+		return result;
+	}
+}
@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.uby.lmf.api.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.FileNotFoundException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.dom4j.DocumentException;
+import org.junit.Test;
+
+import de.tudarmstadt.ukp.lmf.api.LemmaIndex;
+import de.tudarmstadt.ukp.lmf.api.Uby;
+import de.tudarmstadt.ukp.lmf.model.core.LexicalEntry;
+import de.tudarmstadt.ukp.lmf.model.core.Lexicon;
+import de.tudarmstadt.ukp.lmf.model.enums.EPartOfSpeech;
+import de.tudarmstadt.ukp.test.resources.UbyTestDbProvider;
+
+/**
+ * Unit tests for the lemma lookups of the UBY-API using a {@link LemmaIndex}
+ * on the in-memory test database.
+ */
+public class LemmaIndexTest
+{
+
+	private final Uby uby;
+
+	public LemmaIndexTest() throws FileNotFoundException, DocumentException, IllegalArgumentException{
+
+		UbyTestDbProvider testDbProvider = new UbyTestDbProvider();
+		this.uby = testDbProvider.getUby();
+
+	}
+
+	@Test
+	public void testLexicalEntries() throws IllegalArgumentException{
+		Lexicon lexicon = uby.getLexiconByName("WordNet");
+		List<LexicalEntry> expected = uby.getLexicalEntries("question", null);
+		List<LexicalEntry> expectedNouns = uby.getLexicalEntries("question",
+				EPartOfSpeech.noun, lexicon);
+
+		LemmaIndex lemmaIndex = uby.createLemmaIndex();
+		assertEquals(13, lemmaIndex.size());
+		assertEquals(getIds(expected), getIds(uby.getLexicalEntries("question", null)));
+		assertEquals(getIds(expectedNouns), getIds(uby.getLexicalEntries("question",
+				EPartOfSpeech.noun, lexicon)));
+		assertEquals(1, expectedNouns.size());
+		assertTrue(uby.getLexicalEntries("questions", null).isEmpty());
+
+		List<LexicalEntry> lexEntries = uby.getLexicalEntriesByLemmaPrefix("ques",
+				EPartOfSpeech.noun, null);
+		assertEquals(2, lexEntries.size());
+		lexEntries = uby.getLexicalEntriesByLemmaPrefix("Bildung", null, null);
+		assertEquals(3, lexEntries.size());
+		assertEquals("Bildung", lexEntries.get(0).getLemmaForm());
+		uby.setLemmaIndex(null);
+	}
+
+	@Test
+	public void testNormalizedLemmas() throws IllegalArgumentException{
+		assertEquals("educacao", LemmaIndex.normalize("Educação"));
+
+		LemmaIndex lemmaIndex = uby.createLemmaIndex();
+		List<LexicalEntry> lexEntries = uby.getLexicalEntriesByNormalizedLemmaPrefix("QUES",
+				EPartOfSpeech.noun, null);
+		assertEquals(3, lexEntries.size());
+
+		lexEntries = uby.getLexicalEntriesByEditDistance("qestion", 1, null, null);
+		assertEquals(6, lexEntries.size());
+		for (LexicalEntry lexEntry : lexEntries) {
+			assertEquals("question", LemmaIndex.normalize(lexEntry.getLemmaForm()));
+		}
+		assertTrue(uby.getLexicalEntriesByEditDistance("qestin", 1, null, null).isEmpty());
+		assertEquals(1, uby.getLexicalEntriesByEditDistance("aswer", 1,
+				EPartOfSpeech.noun, uby.getLexiconByName("WordNet")).size());
+
+		assertEquals(Arrays.asList("Bildung", "Bildungsstand"),
+				lemmaIndex.getLemmasByPrefix("bild", null, null, true, 2));
+		assertEquals(Arrays.asList("question"),
+				lemmaIndex.getLemmasByPrefix("q", null, null, false, 10));
+		uby.setLemmaIndex(null);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testMissingLemmaIndex(){
+		uby.getLexicalEntriesByEditDistance("question", 1, null, null);
+	}
+
+	private static Set<String> getIds(List<LexicalEntry> lexEntries){
+		Set<String> result = new HashSet<String>();
+		for (LexicalEntry lexEntry : lexEntries) {
+			result.add(lexEntry.getId());
+		}
+		return result;
+	}
+
+}
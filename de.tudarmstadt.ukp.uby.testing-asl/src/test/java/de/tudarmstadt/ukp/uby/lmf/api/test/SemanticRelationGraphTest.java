@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.uby.lmf.api.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.dom4j.DocumentException;
+import org.junit.Test;
+
+import de.tudarmstadt.ukp.lmf.api.SemanticRelationGraph;
+import de.tudarmstadt.ukp.lmf.api.Uby;
+import de.tudarmstadt.ukp.lmf.model.enums.ERelNameSemantics;
+import de.tudarmstadt.ukp.test.resources.UbyTestDbProvider;
+
+/**
+ * Unit tests for {@link SemanticRelationGraph} on the in-memory test database
+ * and on a small taxonomy.
+ */
+public class SemanticRelationGraphTest
+{
+
+	private final Uby uby;
+
+	public SemanticRelationGraphTest() throws FileNotFoundException, DocumentException, IllegalArgumentException{
+
+		UbyTestDbProvider testDbProvider = new UbyTestDbProvider();
+		this.uby = testDbProvider.getUby();
+
+	}
+
+	@Test
+	public void testLoadSenseRelations() throws IllegalArgumentException{
+		SemanticRelationGraph graph = uby.createSenseRelationGraph(
+				uby.getLexiconByName("OmegaWikideu"), ERelNameSemantics.HYPERNYM);
+		assertEquals(2, graph.getRelationCount());
+		assertEquals(Arrays.asList("OW_deu_Sense_4143"),
+				new ArrayList<String>(graph.getTransitiveClosure("OW_deu_Sense_7662")));
+		assertEquals(2, graph.getDepth("OW_deu_Sense_18362"));
+
+		graph = uby.createSenseRelationGraph(uby.getLexiconByName("WordNet"),
+				ERelNameSemantics.HYPERNYM);
+		assertEquals(0, graph.getRelationCount());
+
+		graph = uby.createSynsetRelationGraph(null, ERelNameSemantics.RELATED);
+		assertEquals(6, graph.getRelationCount());
+		graph = uby.createSynsetRelationGraph(uby.getLexiconByName("WordNet"),
+				ERelNameSemantics.RELATED);
+		assertEquals(2, graph.getRelationCount());
+		assertEquals(0, graph.getDepth("WN_Synset_38915")); // cycle
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNoRelationName(){
+		uby.createSynsetRelationGraph(null);
+	}
+
+	@Test
+	public void testSimilarity(){
+		List<String[]> relations = new ArrayList<String[]>();
+		String[][] hypernyms = {{"puppy", "dog"}, {"dog", "canine"}, {"canine", "carnivore"},
+				{"cat", "feline"}, {"feline", "carnivore"}, {"carnivore", "animal"},
+				{"animal", "entity"}, {"tree", "plant"}, {"plant", "entity"}};
+		for (String[] hypernym : hypernyms) {
+			relations.add(new String[] {hypernym[0], hypernym[1], ERelNameSemantics.HYPERNYM});
+		}
+		relations.add(new String[] {"dog", "pet", ERelNameSemantics.HYPERNYMINSTANCE});
+		SemanticRelationGraph graph = new SemanticRelationGraph(relations);
+
+		assertEquals(6, graph.getMaxDepth());
+		assertEquals(1, graph.getDepth("entity"));
+		assertEquals(5, graph.getDepth("dog"));
+		assertEquals(Arrays.asList("canine"), graph.getTargets("dog", ERelNameSemantics.HYPERNYM));
+		assertEquals(2, graph.getTargets("dog", null).size());
+		assertTrue(graph.getTransitiveClosure("puppy").contains("entity"));
+
+		assertEquals(Arrays.asList("carnivore"), graph.getLowestCommonSubsumers("dog", "cat"));
+		assertEquals(Arrays.asList("dog"), graph.getLowestCommonSubsumers("puppy", "dog"));
+		assertEquals(4, graph.getShortestPathLength("dog", "cat"));
+		assertEquals(-1, graph.getShortestPathLength("dog", "unknown"));
+
+		assertEquals(0.2, graph.getPathSimilarity("dog", "cat"), 0.0001);
+		assertEquals(0.6, graph.getWuPalmerSimilarity("dog", "cat"), 0.0001);
+		assertEquals(1.0, graph.getWuPalmerSimilarity("dog", "dog"), 0.0001);
+		assertEquals(-Math.log(5.0 / 12), graph.getLeacockChodorowSimilarity("dog", "cat"), 0.0001);
+		assertEquals(0, graph.getLeacockChodorowSimilarity("dog", "unknown"), 0.0001);
+	}
+
+}
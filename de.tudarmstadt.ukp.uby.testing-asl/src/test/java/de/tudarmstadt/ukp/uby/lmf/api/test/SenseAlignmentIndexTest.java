@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.uby.lmf.api.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.FileNotFoundException;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+import org.dom4j.DocumentException;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.junit.Test;
+
+import de.tudarmstadt.ukp.lmf.api.SenseAlignmentIndex;
+import de.tudarmstadt.ukp.lmf.api.Uby;
+import de.tudarmstadt.ukp.lmf.model.core.Sense;
+import de.tudarmstadt.ukp.lmf.model.enums.ESenseAxisType;
+import de.tudarmstadt.ukp.lmf.model.multilingual.SenseAxis;
+import de.tudarmstadt.ukp.test.resources.UbyTestDbProvider;
+
+/**
+ * Unit tests for the alignment lookups of the UBY-API using a {@link SenseAlignmentIndex}
+ * on the in-memory test database.
+ */
+public class SenseAlignmentIndexTest
+{
+
+	private final Uby uby;
+
+	public SenseAlignmentIndexTest() throws FileNotFoundException, DocumentException, IllegalArgumentException{
+
+		UbyTestDbProvider testDbProvider = new UbyTestDbProvider();
+		this.uby = testDbProvider.getUby();
+
+	}
+
+	@Test
+	public void testSenseAxes() throws IllegalArgumentException{
+		SenseAlignmentIndex index = uby.createSenseAlignmentIndex();
+		assertEquals(6, index.size());
+		assertEquals(10, index.getSenseCount());
+
+		Sense sense = uby.getSenseById("WktEn_sense_3");
+		List<SenseAxis> senseAxes = uby.getSenseAxesBySense(sense);
+		assertEquals(senseAxes.size(), 1);
+		assertEquals(senseAxes.get(0).getSenseTwo().getId(), "WN_Sense_7");
+		assertEquals(3, uby.getSenseAxesBySense(uby.getSenseById("WN_Sense_2")).size());
+
+		Sense sense2 = uby.getSenseById("WN_Sense_7");
+		assertTrue(uby.hasSensesAxis(sense, sense2));
+		assertTrue(uby.hasSensesAxis(sense2, sense));
+		assertFalse(uby.hasSensesAxis(sense, uby.getSenseById("VN_Sense_2")));
+		uby.setSenseAlignmentIndex(null);
+	}
+
+	@Test
+	public void testHalfAxes() throws IllegalArgumentException{
+		Session session = uby.getSession();
+		Transaction tx = session.beginTransaction();
+		// A sense axis aligning a sense with a synset only
+		SenseAxis halfAxis = new SenseAxis();
+		halfAxis.setId("Test_SenseAxis_1");
+		halfAxis.setSenseOne(uby.getSenseById("WN_Sense_7"));
+		halfAxis.setSynsetTwo(uby.getSynsetById("WN_Synset_38915"));
+		halfAxis.setSenseAxisType(ESenseAxisType.monolingualSenseAlignment);
+		session.save(halfAxis);
+		// A confidence which has no exact float representation
+		SenseAxis axis = new SenseAxis();
+		axis.setId("Test_SenseAxis_2");
+		axis.setSenseOne(uby.getSenseById("WN_Sense_3"));
+		axis.setSenseTwo(uby.getSenseById("VN_Sense_2"));
+		axis.setSenseAxisType(ESenseAxisType.monolingualSenseAlignment);
+		axis.setConfidence(0.1);
+		session.save(axis);
+		tx.commit();
+
+		Sense sense = uby.getSenseById("WN_Sense_7");
+		List<SenseAxis> expected = uby.getSenseAxesBySense(sense);
+		assertEquals(2, expected.size());
+		List<SenseAxis> bulk = uby.getSenseAxesBySenses(Collections.singletonList(sense))
+				.get(sense);
+		assertEquals(expected.size(), bulk.size());
+		assertTrue(bulk.containsAll(expected));
+
+		SenseAlignmentIndex index = uby.createSenseAlignmentIndex();
+		assertEquals(8, index.size());
+		assertEquals(11, index.getSenseCount());
+		// The index returns the sense axes of the database query, including the half one.
+		assertEquals(expected.size(), uby.getSenseAxesBySense(sense).size());
+		assertTrue(index.getSenseAxisIds("WN_Sense_7", null).contains("Test_SenseAxis_1"));
+		// The half sense axis does not align the sense with another sense.
+		assertEquals(1, index.getAlignedSenseIds("WN_Sense_7", null).size());
+		assertEquals(1, index.getClosure("WN_Sense_7", null).size());
+		assertNull(index.getConfidence("WN_Sense_7", "WktEn_sense_3"));
+
+		assertEquals(Double.valueOf(0.1), index.getConfidence("WN_Sense_3", "VN_Sense_2"));
+		assertEquals(Double.valueOf(0.1), index.getConfidence("VN_Sense_2", "WN_Sense_3"));
+		uby.setSenseAlignmentIndex(null);
+	}
+
+	@Test
+	public void testTransitiveAlignments() throws IllegalArgumentException{
+		SenseAlignmentIndex index = uby.createSenseAlignmentIndex();
+		assertEquals(3, index.getAlignedSenseIds("WN_Sense_2", null).size());
+		assertTrue(index.getAlignedSenseIds("WN_Sense_3",
+				EnumSet.of(ESenseAxisType.monolingualSenseAlignment)).isEmpty());
+
+		Map<String, Integer> aligned = index.getTransitivelyAlignedSenseIds("VN_Sense_20", 2, null);
+		assertEquals(3, aligned.size());
+		assertEquals(Integer.valueOf(1), aligned.get("WN_Sense_2"));
+		assertEquals(Integer.valueOf(2), aligned.get("VN_Sense_22"));
+		assertEquals(1, index.getTransitivelyAlignedSenseIds("VN_Sense_20", 1, null).size());
+
+		assertEquals(1, index.getClosure("OW_deu_Sense_20765",
+				EnumSet.of(ESenseAxisType.crosslingualSenseAlignment)).size());
+		assertTrue(index.getClosure("WN_Sense_1", null).isEmpty());
+	}
+
+}
@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.uby.lmf.api.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.FileNotFoundException;
+import java.io.StringWriter;
+import java.util.List;
+
+import org.dom4j.DocumentException;
+import org.junit.Test;
+
+import de.tudarmstadt.ukp.lmf.api.HyperLogLog;
+import de.tudarmstadt.ukp.lmf.api.ResourceStatistics;
+import de.tudarmstadt.ukp.lmf.api.UbyStatistics;
+import de.tudarmstadt.ukp.lmf.model.enums.ESenseAxisType;
+import de.tudarmstadt.ukp.test.resources.UbyTestDbProvider;
+
+/**
+ * Tests that the statistics computed by {@link UbyStatistics#computeStatistics(int)}
+ * agree with the per-method queries on the in-memory test database.
+ */
+public class UbyStatisticsTest
+{
+
+	private final UbyStatistics ubyStatistics;
+
+	public UbyStatisticsTest() throws FileNotFoundException, DocumentException, IllegalArgumentException{
+
+		UbyTestDbProvider testDbProvider = new UbyTestDbProvider();
+		this.ubyStatistics = new UbyStatistics(testDbProvider.getUby().getDbConfig());
+
+	}
+
+	@Test
+	public void testComputeStatistics() throws Exception{
+		List<String> lexiconNames = ubyStatistics.getLexiconNames();
+		long[][] expected = new long[lexiconNames.size()][];
+		for (int i = 0; i < lexiconNames.size(); i++) {
+			String name = lexiconNames.get(i);
+			expected[i] = new long[] {
+					ubyStatistics.countLexicalEntriesPerLexicon(name),
+					ubyStatistics.countSensesPerLexicon(name),
+					ubyStatistics.countSenseRelationsPerLexicon(name),
+					ubyStatistics.countLemmaPosPerLexicon(name),
+					ubyStatistics.countLemmaPosPerLexiconAndPosPrefixAndLanguage(name, "verb%", null) };
+		}
+		long[] expectedSenseAxes = countSenseAxes(lexiconNames);
+
+		ResourceStatistics statistics = ubyStatistics.computeStatistics(2);
+		assertEquals(lexiconNames.size(), statistics.getLexiconNames().size());
+		for (int i = 0; i < lexiconNames.size(); i++) {
+			String name = lexiconNames.get(i);
+			assertEquals(name, expected[i][0], ubyStatistics.countLexicalEntriesPerLexicon(name));
+			assertEquals(name, expected[i][1], ubyStatistics.countSensesPerLexicon(name));
+			assertEquals(name, expected[i][2], ubyStatistics.countSenseRelationsPerLexicon(name));
+			// The sketches are exact for cardinalities this small
+			assertEquals(name, expected[i][3], ubyStatistics.countLemmaPosPerLexicon(name));
+			assertEquals(name, expected[i][4],
+					ubyStatistics.countLemmaPosPerLexiconAndPosPrefixAndLanguage(name, "verb%", null));
+		}
+		long[] senseAxes = countSenseAxes(lexiconNames);
+		for (int i = 0; i < senseAxes.length; i++) {
+			assertEquals(expectedSenseAxes[i], senseAxes[i]);
+		}
+		assertEquals(0, ubyStatistics.countSensesPerLexicon("NoSuchLexicon"));
+
+		StringWriter report = new StringWriter();
+		statistics.writeReport(report);
+		assertTrue(report.toString().contains("WordNet\teng\t"));
+	}
+
+	@Test
+	public void testHyperLogLog(){
+		HyperLogLog sketch1 = new HyperLogLog();
+		HyperLogLog sketch2 = new HyperLogLog();
+		for (int i = 0; i < 100000; i++) {
+			sketch1.add("lemma" + i + "_noun");
+			sketch2.add("lemma" + (i + 50000) + "_noun");
+		}
+		sketch1.merge(sketch2);
+		assertEquals(150000, sketch1.estimate(), 150000 * 0.03);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMergeDifferentPrecisions(){
+		new HyperLogLog(10).merge(new HyperLogLog(12));
+	}
+
+	private long[] countSenseAxes(List<String> lexiconNames){
+		ESenseAxisType[] types = ESenseAxisType.values();
+		long[] result = new long[types.length * lexiconNames.size() * lexiconNames.size()];
+		int i = 0;
+		for (ESenseAxisType type : types) {
+			for (String name1 : lexiconNames) {
+				for (String name2 : lexiconNames) {
+					result[i++] = ubyStatistics.countSenseAxesPerLexiconPair(type, name1, name2);
+				}
+			}
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,364 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.uby.lmf.transform.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.dom4j.DocumentException;
+import org.hibernate.Session;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.jdbc.Work;
+import org.hibernate.mapping.ForeignKey;
+import org.hibernate.mapping.Index;
+import org.hibernate.mapping.Table;
+import org.junit.Test;
+
+import de.tudarmstadt.ukp.lmf.api.Uby;
+import de.tudarmstadt.ukp.lmf.hibernate.HibernateConnect;
+import de.tudarmstadt.ukp.lmf.hibernate.UBYH2Dialect;
+import de.tudarmstadt.ukp.lmf.model.core.LexicalEntry;
+import de.tudarmstadt.ukp.lmf.model.core.Lexicon;
+import de.tudarmstadt.ukp.lmf.model.core.Sense;
+import de.tudarmstadt.ukp.lmf.model.interfaces.IHasID;
+import de.tudarmstadt.ukp.lmf.model.multilingual.SenseAxis;
+import de.tudarmstadt.ukp.lmf.model.semantics.SemanticPredicate;
+import de.tudarmstadt.ukp.lmf.model.semantics.Synset;
+import de.tudarmstadt.ukp.lmf.model.syntax.SubcategorizationFrame;
+import de.tudarmstadt.ukp.lmf.transform.DBConfig;
+import de.tudarmstadt.ukp.lmf.transform.JdbcBulkWriter;
+import de.tudarmstadt.ukp.lmf.transform.LMFDBUtils;
+import de.tudarmstadt.ukp.lmf.transform.XMLToDBTransformer;
+
+/**
+ * Imports the test lexicon once using Hibernate and once using JDBC bulk
+ * inserts and compares the resulting databases.
+ */
+public class BulkInsertTest
+{
+
+	private static final File TEST_LEXICON = new File("src/main/resources/UbyTestLexicon.xml");
+
+	@Test
+	public void testBulkInsertMatchesHibernate()
+		throws FileNotFoundException, DocumentException, IllegalArgumentException
+	{
+		DBConfig hibernateDb = importLexicon("hibernate", false);
+		DBConfig bulkDb = importLexicon("bulk", true);
+
+		Map<String, Long> expectedCounts = countRows(hibernateDb);
+		assertTrue(expectedCounts.get("LexicalEntry") > 0);
+		assertEquals(expectedCounts, countRows(bulkDb));
+
+		Uby expected = new Uby(hibernateDb);
+		Uby actual = new Uby(bulkDb);
+		for (Lexicon lexicon : expected.getLexicons()) {
+			assertEquals(lexicon.getLexicalEntries().size(),
+					actual.getLexiconById(lexicon.getId()).getLexicalEntries().size());
+
+			Iterator<LexicalEntry> iter = expected.getLexicalEntryIterator(lexicon);
+			while (iter.hasNext()) {
+				LexicalEntry entry = iter.next();
+				LexicalEntry bulkEntry = actual.getLexicalEntryById(entry.getId());
+				assertEquals(entry.getLemmaForm(), bulkEntry.getLemmaForm());
+				assertEquals(entry.getPartOfSpeech(), bulkEntry.getPartOfSpeech());
+				assertEquals(getSenseIds(entry), getSenseIds(bulkEntry));
+			}
+		}
+	}
+
+	@Test
+	public void testParallelBulkInsertMatchesHibernate()
+		throws FileNotFoundException, DocumentException, IllegalArgumentException
+	{
+		DBConfig hibernateDb = importLexicon("hibernateSequential", false);
+		DBConfig parallelDb = createDB("bulkParallel");
+		// The main session and four writer sessions.
+		parallelDb.setConnectionPoolSize(5);
+		final Set<Thread> writerThreads = Collections.synchronizedSet(new HashSet<Thread>());
+		final Thread mainThread = Thread.currentThread();
+		XMLToDBTransformer trans = new XMLToDBTransformer(parallelDb)
+		{
+			@Override
+			protected JdbcBulkWriter createBulkWriter(Session session)
+			{
+				if (Thread.currentThread() != mainThread) {
+					writerThreads.add(Thread.currentThread());
+				}
+				return super.createBulkWriter(session);
+			}
+		};
+		trans.setBulkInsert(true);
+		trans.transform(TEST_LEXICON, "UbyTest", 4);
+
+		assertTrue(writerThreads.size() > 1);
+		assertEquals(countRows(hibernateDb), countRows(parallelDb));
+	}
+
+	@Test
+	public void testParallelHibernateMatchesSequential()
+		throws FileNotFoundException, DocumentException, IllegalArgumentException
+	{
+		DBConfig sequentialDb = importLexicon("hibernateSequential", false);
+		DBConfig parallelDb = createDB("hibernateParallel");
+		// The main session and four writer sessions.
+		parallelDb.setConnectionPoolSize(5);
+		final Set<Thread> writerThreads = Collections.synchronizedSet(new HashSet<Thread>());
+		final Thread mainThread = Thread.currentThread();
+		XMLToDBTransformer trans = new XMLToDBTransformer(parallelDb)
+		{
+			@Override
+			protected void saveCascade(Session session, Object obj, Object parent)
+			{
+				if (Thread.currentThread() != mainThread) {
+					writerThreads.add(Thread.currentThread());
+				}
+				super.saveCascade(session, obj, parent);
+			}
+		};
+		trans.transform(TEST_LEXICON, "UbyTest", 4);
+
+		assertTrue(writerThreads.size() > 1);
+		assertEquals(countRows(sequentialDb), countRows(parallelDb));
+		// The lexicons link their elements when the writer sessions insert them, the
+		// lexical resource by updating the list columns of its sense axes afterwards.
+		Map<String, String> expected = describeElements(sequentialDb);
+		assertTrue(expected.containsKey("SenseAxis 0"));
+		assertEquals(expected, describeElements(parallelDb));
+	}
+
+	@Test
+	public void testDeferredIndexesMatchHibernate()
+		throws FileNotFoundException, DocumentException, IllegalArgumentException
+	{
+		DBConfig hibernateDb = importLexicon("hibernateIndexed", false);
+		DBConfig deferredDb = new DBConfig("jdbc:h2:mem:deferredIndexes;DB_CLOSE_DELAY=-1",
+				"org.h2.Driver", UBYH2Dialect.class.getName(), "root", "pass", true);
+		LMFDBUtils.createTables(deferredDb, false);
+		Set<String> expectedIndexes = getMappedIndexes(deferredDb);
+		assertTrue(expectedIndexes.contains("FORMREPRESENTATION_LEMMA.FORMREP_LEMMA_WRITTENFORM_IDX"));
+		Set<String> missingIndexes = new TreeSet<String>(expectedIndexes);
+		missingIndexes.removeAll(getDatabaseIndexes(deferredDb));
+		assertEquals(expectedIndexes, missingIndexes);
+
+		XMLToDBTransformer trans = new XMLToDBTransformer(deferredDb);
+		trans.setBulkInsert(true);
+		trans.setDeferIndexes(true);
+		trans.transform(TEST_LEXICON, "UbyTest");
+
+		missingIndexes = new TreeSet<String>(expectedIndexes);
+		missingIndexes.removeAll(getDatabaseIndexes(deferredDb));
+		assertEquals(Collections.<String>emptySet(), missingIndexes);
+		assertEquals(countRows(hibernateDb), countRows(deferredDb));
+		Uby uby = new Uby(deferredDb);
+		assertEquals(1, uby.getLexicalEntries("run", uby.getLexiconByName("FrameNet")).size());
+	}
+
+	private DBConfig importLexicon(String name, boolean bulkInsert)
+		throws FileNotFoundException, DocumentException, IllegalArgumentException
+	{
+		DBConfig dbConfig = createDB(name);
+		XMLToDBTransformer trans = new XMLToDBTransformer(dbConfig);
+		trans.setBulkInsert(bulkInsert);
+		trans.transform(TEST_LEXICON, "UbyTest");
+		return dbConfig;
+	}
+
+	private DBConfig createDB(String name)
+		throws FileNotFoundException
+	{
+		DBConfig dbConfig = new DBConfig("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1",
+				"org.h2.Driver", UBYH2Dialect.class.getName(), "root", "pass", true);
+		LMFDBUtils.createTables(dbConfig);
+		return dbConfig;
+	}
+
+	private Map<String, Long> countRows(DBConfig dbConfig)
+	{
+		Map<String, Long> result = new TreeMap<String, Long>();
+		Configuration cfg = HibernateConnect.getConfiguration(dbConfig);
+		Uby uby = new Uby(dbConfig);
+		Iterator<Table> iter = cfg.getTableMappings();
+		while (iter.hasNext()) {
+			String table = iter.next().getName();
+			Number count = (Number) uby.getSession()
+					.createSQLQuery("SELECT COUNT(*) FROM " + table).uniqueResult();
+			result.put(table, count.longValue());
+		}
+		uby.getSession().close();
+		return result;
+	}
+
+	/** Returns the secondary indexes and physical foreign keys declared in
+	 *  the mapping as upper-case table.name strings. */
+	private Set<String> getMappedIndexes(DBConfig dbConfig)
+	{
+		Set<String> result = new TreeSet<String>();
+		Configuration cfg = HibernateConnect.getConfiguration(dbConfig);
+		cfg.buildMappings();
+		Iterator<Table> iter = cfg.getTableMappings();
+		while (iter.hasNext()) {
+			Table table = iter.next();
+			if (!table.isPhysicalTable()) {
+				continue;
+			}
+			String prefix = table.getName().toUpperCase() + ".";
+			Iterator<?> indexIter = table.getIndexIterator();
+			while (indexIter.hasNext()) {
+				result.add(prefix + ((Index) indexIter.next()).getName().toUpperCase());
+			}
+			Iterator<?> fkIter = table.getForeignKeyIterator();
+			while (fkIter.hasNext()) {
+				ForeignKey fk = (ForeignKey) fkIter.next();
+				if (fk.isPhysicalConstraint()) {
+					result.add(prefix + fk.getName().toUpperCase());
+				}
+			}
+		}
+		assertFalse(result.isEmpty());
+		return result;
+	}
+
+	/** Returns the indexes and foreign keys of the mapped tables reported
+	 *  by the {@link DatabaseMetaData} of the database. */
+	private Set<String> getDatabaseIndexes(DBConfig dbConfig)
+	{
+		final Set<String> result = new TreeSet<String>();
+		final Configuration cfg = HibernateConnect.getConfiguration(dbConfig);
+		Uby uby = new Uby(dbConfig);
+		uby.getSession().doWork(new Work()
+		{
+			@Override
+			public void execute(Connection connection)
+				throws SQLException
+			{
+				DatabaseMetaData metaData = connection.getMetaData();
+				Iterator<Table> iter = cfg.getTableMappings();
+				while (iter.hasNext()) {
+					String table = iter.next().getName().toUpperCase();
+					ResultSet indexes = metaData.getIndexInfo(null, null, table, false, false);
+					try {
+						while (indexes.next()) {
+							if (indexes.getString("INDEX_NAME") != null) {
+								result.add(table + "."
+										+ indexes.getString("INDEX_NAME").toUpperCase());
+							}
+						}
+					}
+					finally {
+						indexes.close();
+					}
+					ResultSet foreignKeys = metaData.getImportedKeys(null, null, table);
+					try {
+						while (foreignKeys.next()) {
+							result.add(table + "."
+									+ foreignKeys.getString("FK_NAME").toUpperCase());
+						}
+					}
+					finally {
+						foreignKeys.close();
+					}
+				}
+			}
+		});
+		uby.getSession().close();
+		return result;
+	}
+
+	private Map<String, String> describeElements(DBConfig dbConfig)
+	{
+		Map<String, String> result = new TreeMap<String, String>();
+		Uby uby = new Uby(dbConfig);
+		for (Lexicon lexicon : uby.getLexicons()) {
+			for (LexicalEntry entry : lexicon.getLexicalEntries()) {
+				StringBuilder description = new StringBuilder();
+				description.append(lexicon.getId()).append(' ').append(entry.getLemmaForm())
+						.append(' ').append(entry.getPartOfSpeech());
+				for (Sense sense : entry.getSenses()) {
+					description.append(' ').append(sense.getId()).append('/')
+							.append(sense.getIndex()).append('/')
+							.append(getId(sense.getSynset())).append('/')
+							.append(sense.getDefinitions().size()).append('/')
+							.append(sense.getSenseExamples().size()).append('/')
+							.append(sense.getSenseRelations().size()).append('/')
+							.append(sense.getSemanticLabels().size());
+				}
+				result.put("LexicalEntry " + entry.getId(), description.toString());
+			}
+			for (Synset synset : lexicon.getSynsets()) {
+				StringBuilder description = new StringBuilder();
+				description.append(lexicon.getId()).append(' ')
+						.append(synset.getDefinitions().size()).append(' ')
+						.append(synset.getSynsetRelations().size());
+				for (Sense sense : synset.getSenses()) {
+					description.append(' ').append(sense.getId());
+				}
+				result.put("Synset " + synset.getId(), description.toString());
+			}
+			for (SemanticPredicate predicate : lexicon.getSemanticPredicates()) {
+				result.put("SemanticPredicate " + predicate.getId(), lexicon.getId() + " "
+						+ predicate.getLabel() + " " + predicate.getSemanticArguments().size());
+			}
+			for (SubcategorizationFrame frame : lexicon.getSubcategorizationFrames()) {
+				result.put("SubcategorizationFrame " + frame.getId(), lexicon.getId() + " "
+						+ frame.getSubcatLabel() + " " + frame.getSyntacticArguments().size());
+			}
+		}
+		// Keyed by list index to compare the order of the sense axes.
+		int index = 0;
+		for (SenseAxis axis : uby.getLexicalResource("UBY").getSenseAxes()) {
+			result.put("SenseAxis " + index++, axis == null ? null : axis.getId() + " "
+					+ getId(axis.getSenseOne()) + " " + getId(axis.getSenseTwo()) + " "
+					+ getId(axis.getSynsetOne()) + " " + getId(axis.getSynsetTwo()) + " "
+					+ axis.getSenseAxisType() + " " + axis.getConfidence());
+		}
+		uby.getSession().close();
+		return result;
+	}
+
+	private static String getId(IHasID element)
+	{
+		return element == null ? null : element.getId();
+	}
+
+	private List<String> getSenseIds(LexicalEntry entry)
+	{
+		List<String> result = new ArrayList<String>();
+		for (Sense sense : entry.getSenses()) {
+			result.add(sense.getId());
+		}
+		return result;
+	}
+}
@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * Copyright 2016
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+package de.tudarmstadt.ukp.uby.lmf.transform.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.Test;
+
+import de.tudarmstadt.ukp.lmf.hibernate.UBYH2Dialect;
+import de.tudarmstadt.ukp.lmf.model.core.LexicalEntry;
+import de.tudarmstadt.ukp.lmf.model.core.LexicalResource;
+import de.tudarmstadt.ukp.lmf.model.interfaces.IHasID;
+import de.tudarmstadt.ukp.lmf.transform.DBConfig;
+import de.tudarmstadt.ukp.lmf.transform.DBToXMLTransformer;
+import de.tudarmstadt.ukp.lmf.transform.LMFDBUtils;
+import de.tudarmstadt.ukp.lmf.transform.LMFXMLReader;
+import de.tudarmstadt.ukp.lmf.transform.XMLToDBTransformer;
+
+/**
+ * Exports the test lexicon sequentially and in parallel and compares the
+ * resulting XML documents with each other and with the imported lexicon.
+ */
+public class ParallelExportTest
+{
+
+	private static final File TEST_LEXICON = new File("src/main/resources/UbyTestLexicon.xml");
+
+	@Test
+	public void testConcatenatedShardsMatchSequentialExport()
+		throws Exception
+	{
+		DBConfig dbConfig = importLexicon("parallelExportConcatenated");
+		List<String> expected = readElements(new ByteArrayInputStream(
+				exportSequential(dbConfig)));
+
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		DBToXMLTransformer trans = new DBToXMLTransformer(dbConfig, output, null);
+		List<File> shards = trans.transformParallel(getLexicalResource(),
+				new File("target/parallelExportConcatenated"), 4, 2, true);
+
+		assertTrue(shards.isEmpty());
+		assertEquals(expected, readElements(new ByteArrayInputStream(output.toByteArray())));
+	}
+
+	@Test
+	public void testShardManifest()
+		throws Exception
+	{
+		DBConfig dbConfig = importLexicon("parallelExportManifest");
+		List<String> expected = readElements(new ByteArrayInputStream(
+				exportSequential(dbConfig)));
+
+		File shardDirectory = new File("target/parallelExportShards");
+		DBToXMLTransformer trans = new DBToXMLTransformer(dbConfig,
+				new ByteArrayOutputStream(), null);
+		List<File> shards = trans.transformParallel(getLexicalResource(),
+				shardDirectory, 2, 3, false);
+
+		assertTrue(shards.size() > 3);
+		assertTrue(new File(shardDirectory, "manifest.txt").exists());
+		List<InputStream> streams = new ArrayList<InputStream>();
+		for (File shard : shards) {
+			streams.add(new FileInputStream(shard));
+		}
+		assertEquals(expected, readElements(new SequenceInputStream(
+				Collections.enumeration(streams))));
+	}
+
+	@Test
+	public void testPagedExportMatchesImportedLexicon()
+		throws Exception
+	{
+		DBConfig dbConfig = importLexicon("pagedExport");
+		// The global information is not exported.
+		List<String> expected = readElements(new FileInputStream(TEST_LEXICON));
+		expected.remove("GlobalInformation");
+		Collections.sort(expected);
+
+		for (int pageSize : new int[] {1, 3, DBToXMLTransformer.DEFAULT_PAGE_SIZE}) {
+			ByteArrayOutputStream output = new ByteArrayOutputStream();
+			DBToXMLTransformer trans = new DBToXMLTransformer(dbConfig, output, null);
+			trans.setPageSize(pageSize);
+			trans.transform(getLexicalResource());
+
+			List<String> actual = readElements(new ByteArrayInputStream(output.toByteArray()));
+			Collections.sort(actual);
+			assertEquals(expected, actual);
+		}
+	}
+
+	private DBConfig importLexicon(String name)
+		throws Exception
+	{
+		DBConfig dbConfig = new DBConfig("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1",
+				"org.h2.Driver", UBYH2Dialect.class.getName(), "root", "pass", true);
+		LMFDBUtils.createTables(dbConfig);
+		new XMLToDBTransformer(dbConfig).transform(TEST_LEXICON, "UbyTest");
+		return dbConfig;
+	}
+
+	private byte[] exportSequential(DBConfig dbConfig)
+		throws Exception
+	{
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		new DBToXMLTransformer(dbConfig, output, null).transform(getLexicalResource());
+		return output.toByteArray();
+	}
+
+	private LexicalResource getLexicalResource()
+	{
+		LexicalResource result = new LexicalResource();
+		result.setName("UBY");
+		return result;
+	}
+
+	// Top-level elements in document order, except for the axes, which
+	// are not ordered by the sequential export.
+	private List<String> readElements(InputStream xml)
+		throws XMLStreamException, IOException
+	{
+		List<String> result = new ArrayList<String>();
+		List<String> axes = new ArrayList<String>();
+		LMFXMLReader reader = new LMFXMLReader(xml);
+		while (reader.hasNext()) {
+			Object obj = reader.next();
+			String element = obj.getClass().getSimpleName();
+			if (obj instanceof IHasID) {
+				element += " " + ((IHasID) obj).getId();
+			}
+			if (obj instanceof LexicalEntry) {
+				element += " " + ((LexicalEntry) obj).getSenses().size();
+			}
+			if (element.contains("Axis")) {
+				axes.add(element);
+			}
+			else {
+				result.add(element);
+			}
+		}
+		Collections.sort(axes);
+		result.addAll(axes);
+		return result;
+	}
+}